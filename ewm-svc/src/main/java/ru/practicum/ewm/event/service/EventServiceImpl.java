@@ -12,8 +12,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.category.storage.CategoryRepository;
+import ru.practicum.ewm.client.HitReporter;
 import ru.practicum.ewm.client.StatsClient;
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.StatsQueryResultDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
 import ru.practicum.ewm.event.model.ActionState;
 import ru.practicum.ewm.event.model.Coordinate;
@@ -31,7 +34,6 @@ import ru.practicum.ewm.exception.EventDateException;
 import ru.practicum.ewm.exception.EventNotFoundException;
 import ru.practicum.ewm.exception.OperationConditionsFailureException;
 import ru.practicum.ewm.exception.LocationNotFoundException;
-import ru.practicum.ewm.exception.StatsServiceException;
 import ru.practicum.ewm.exception.UserNotFoundException;
 import ru.practicum.ewm.participationrequest.model.ParticipationRequestStatus;
 import ru.practicum.ewm.participationrequest.storage.ParticipationRequestRepository;
@@ -43,8 +45,11 @@ import ru.practicum.ewm.user.storage.UserRepository;
 import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import static ru.practicum.ewm.event.model.dto.EventMapper.eventFromNewEventDto;
@@ -62,6 +67,7 @@ public class EventServiceImpl implements EventService {
     private final ParticipationRequestRepository requestStorage;
     private final LocationRepository locationRepository;
     private final StatsClient statsClient;
+    private final HitReporter hitReporter;
 
     @Override
     @Transactional(readOnly = true)
@@ -99,20 +105,22 @@ public class EventServiceImpl implements EventService {
         Pageable pageable = PageRequest.of(page, size);
         log.info("Запрошен публичный список событий");
         saveHit(request);
-        return eventRepository.findEventsPublic(
-                        text,
-                        categories,
-                        paid,
-                        rangeStart,
-                        rangeEnd,
-                        onlyAvailable,
-                        pageable
-                ).stream()
+        List<Event> events = eventRepository.findEventsPublic(
+                text,
+                categories,
+                paid,
+                rangeStart,
+                rangeEnd,
+                onlyAvailable,
+                pageable
+        );
+        Map<Integer, Long> views = getViews(events);
+        return events.stream()
                 .map(
                         event -> eventToShortDto(
                                 event,
                                 getConfirmed(event),
-                                getViews(event)
+                                views.get(event.getId())
                         )
                 )
                 .sorted(comparator)
@@ -199,12 +207,14 @@ public class EventServiceImpl implements EventService {
         int page = from / size;
         Pageable pageable = PageRequest.of(page, size, Sort.by("eventDate"));
         log.info("Запрошен список событий, добавленных пользователем с id=" + initiatorId);
-        return eventRepository.findByInitiatorId(initiatorId, pageable).stream()
+        List<Event> events = eventRepository.findByInitiatorId(initiatorId, pageable);
+        Map<Integer, Long> views = getViews(events);
+        return events.stream()
                 .map(
                         event -> eventToShortDto(
                                 event,
                                 getConfirmed(event),
-                                getViews(event)
+                                views.get(event.getId())
                         )
                 )
                 .collect(Collectors.toList());
@@ -242,19 +252,21 @@ public class EventServiceImpl implements EventService {
         if (rangeStart != null && rangeEnd != null && rangeStart.isAfter(rangeEnd))
             throw new OperationConditionsFailureException("Указан некорректный диапазон дат");
         log.info("Запрошен список событий для администратора");
-        return eventRepository.findEventsAdmin(
-                        users,
-                        states,
-                        categories,
-                        rangeStart,
-                        rangeEnd,
-                        pageable
-                ).stream()
+        List<Event> events = eventRepository.findEventsAdmin(
+                users,
+                states,
+                categories,
+                rangeStart,
+                rangeEnd,
+                pageable
+        );
+        Map<Integer, Long> views = getViews(events);
+        return events.stream()
                 .map(
                         event -> eventToFullDto(
                                 event,
                                 getConfirmed(event),
-                                getViews(event)
+                                views.get(event.getId())
                         )
                 )
                 .collect(Collectors.toList());
@@ -314,17 +326,19 @@ public class EventServiceImpl implements EventService {
         log.info("Запрошен список событий в локации с id={}", locationId);
         int page = from / size;
         Pageable pageable = PageRequest.of(page, size, Sort.by("eventDate"));
-        return eventRepository.findEventsInLocation(
-                        location.getLat(),
-                        location.getLon(),
-                        location.getRadius(),
-                        pageable
-                ).stream()
+        List<Event> events = eventRepository.findEventsInLocation(
+                location.getLat(),
+                location.getLon(),
+                location.getRadius(),
+                pageable
+        );
+        Map<Integer, Long> views = getViews(events);
+        return events.stream()
                 .map(
                         event -> eventToShortDto(
                                 event,
                                 getConfirmed(event),
-                                getViews(event)
+                                views.get(event.getId())
                         )
                 )
                 .collect(Collectors.toList());
@@ -365,9 +379,7 @@ public class EventServiceImpl implements EventService {
                 request.getRemoteAddr(),
                 LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
         );
-        ResponseEntity<Object> response = statsClient.addHit(hit);
-        if (!response.getStatusCode().is2xxSuccessful())
-            throw new StatsServiceException("Возникла проблема при сохранении записи в сервис статистики");
+        hitReporter.report(hit);
     }
 
     private long getViews(Event event) {
@@ -383,6 +395,30 @@ public class EventServiceImpl implements EventService {
         return (statsDto.isEmpty()) ? 0 : statsDto.get(0).getHits();
     }
 
+    private Map<Integer, Long> getViews(List<Event> events) {
+        Map<Integer, Long> views = new HashMap<>();
+        Map<String, Integer> eventIds = new HashMap<>();
+        List<StatsQueryDto> queries = new ArrayList<>();
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        String now = LocalDateTime.now().format(formatter);
+        for (Event event : events) {
+            views.put(event.getId(), 0L);
+            if (!event.getState().equals(EventState.PUBLISHED)) continue;
+            String uri = String.format("/events/%s", event.getId());
+            eventIds.put(uri, event.getId());
+            queries.add(new StatsQueryDto(uri, event.getPublishedOn().format(formatter), now, true));
+        }
+        if (queries.isEmpty()) return views;
+        ResponseEntity<Object> response = statsClient.queryStats(queries);
+        ObjectMapper mapper = new ObjectMapper();
+        List<StatsQueryResultDto> results = mapper.convertValue(response.getBody(), new TypeReference<>() {});
+        for (StatsQueryResultDto result : results) {
+            if (!result.getStats().isEmpty())
+                views.put(eventIds.get(result.getUri()), result.getStats().get(0).getHits());
+        }
+        return views;
+    }
+
     private int getConfirmed(Event event) {
         return (event.getState().equals(EventState.PUBLISHED)) ?
                 requestStorage.countByStatusAndEventId(ParticipationRequestStatus.CONFIRMED, event.getId()) : 0;
@@ -1,7 +0,0 @@
-package ru.practicum.ewm.exception;
-
-public class StatsServiceException extends RuntimeException {
-    public StatsServiceException(String message) {
-        super(message);
-    }
-}
\ No newline at end of file
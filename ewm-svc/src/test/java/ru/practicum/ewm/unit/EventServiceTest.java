@@ -13,8 +13,11 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockHttpServletRequest;
 import ru.practicum.ewm.category.model.Category;
 import ru.practicum.ewm.category.storage.CategoryRepository;
+import ru.practicum.ewm.client.HitReporter;
 import ru.practicum.ewm.client.StatsClient;
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.StatsQueryResultDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
 import ru.practicum.ewm.event.model.ActionState;
 import ru.practicum.ewm.event.model.Coordinate;
 import ru.practicum.ewm.event.model.Event;
@@ -71,6 +74,8 @@ public class EventServiceTest {
     private LocationRepository locationRepository;
     @Mock
     private StatsClient statsClient;
+    @Mock
+    private HitReporter hitReporter;
     @InjectMocks
     private EventServiceImpl eventService;
 
@@ -150,13 +155,11 @@ public class EventServiceTest {
         Mockito
                 .when(statsClient.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
                 .thenReturn(ResponseEntity.ok().body(Collections.emptyList()));
-        Mockito
-                .when(statsClient.addHit(any(EndpointHitDto.class)))
-                .thenReturn(ResponseEntity.ok().build());
         EventFullDto eventFullDtoFromService = eventService.getEventById(1, request);
         EventFullDto eventFullDto = eventToFullDto(event, 0, 0L);
 
         assertThat(eventFullDto, equalTo(eventFullDtoFromService));
+        Mockito.verify(hitReporter).report(any(EndpointHitDto.class));
     }
 
     @Test
@@ -184,11 +187,8 @@ public class EventServiceTest {
                 .when(requestStorage.countByStatusAndEventId(any(ParticipationRequestStatus.class), anyInt()))
                 .thenReturn(0);
         Mockito
-                .when(statsClient.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
+                .when(statsClient.queryStats(anyList()))
                 .thenReturn(ResponseEntity.ok().body(Collections.emptyList()));
-        Mockito
-                .when(statsClient.addHit(any(EndpointHitDto.class)))
-                .thenReturn(ResponseEntity.ok().build());
 
         List<EventShortDto> events =
                 eventService.getEvents("text", List.of(1), false, LocalDateTime.now(),
@@ -471,7 +471,7 @@ public class EventServiceTest {
                 .when(requestStorage.countByStatusAndEventId(any(ParticipationRequestStatus.class), anyInt()))
                 .thenReturn(0);
         Mockito
-                .when(statsClient.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
+                .when(statsClient.queryStats(anyList()))
                 .thenReturn(ResponseEntity.ok().body(Collections.emptyList()));
 
         List<EventShortDto> events = eventService.getEventsByInitiatorId(1, 0, 10);
@@ -484,6 +484,30 @@ public class EventServiceTest {
         assertThat(eventShortDto, equalTo(eventShortDtoFromService));
     }
 
+    @Test
+    public void shouldGetViewsOfEventPageInSingleStatsQuery() {
+        Mockito
+                .when(userRepository.existsById(anyInt()))
+                .thenReturn(true);
+        Mockito
+                .when(eventRepository.findByInitiatorId(anyInt(), any(Pageable.class)))
+                .thenReturn(List.of(event));
+        Mockito
+                .when(requestStorage.countByStatusAndEventId(any(ParticipationRequestStatus.class), anyInt()))
+                .thenReturn(0);
+        Mockito
+                .when(statsClient.queryStats(anyList()))
+                .thenReturn(ResponseEntity.ok().body(List.of(new StatsQueryResultDto("/events/1",
+                        "2022-10-10 12:00:00", "2022-10-11 12:00:00", true,
+                        List.of(new ViewStatsDto("ewm-svc", "/events/1", 5L))))));
+
+        List<EventShortDto> events = eventService.getEventsByInitiatorId(1, 0, 10);
+
+        assertThat(events.get(0).getViews(), equalTo(5L));
+        Mockito.verify(statsClient).queryStats(Mockito.argThat(queries -> queries.size() == 1
+                && queries.get(0).getUri().equals("/events/1") && queries.get(0).isUnique()));
+    }
+
     @Test
     public void shouldNotGetEventsByInitiatorIdWhenUserNotFound() {
         Mockito
@@ -566,7 +590,7 @@ public class EventServiceTest {
                 .when(requestStorage.countByStatusAndEventId(any(ParticipationRequestStatus.class), anyInt()))
                 .thenReturn(0);
         Mockito
-                .when(statsClient.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
+                .when(statsClient.queryStats(anyList()))
                 .thenReturn(ResponseEntity.ok().body(Collections.emptyList()));
 
         List<EventFullDto> events =
@@ -752,7 +776,7 @@ public class EventServiceTest {
                 .when(requestStorage.countByStatusAndEventId(any(ParticipationRequestStatus.class), anyInt()))
                 .thenReturn(0);
         Mockito
-                .when(statsClient.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
+                .when(statsClient.queryStats(anyList()))
                 .thenReturn(ResponseEntity.ok().body(Collections.emptyList()));
         Mockito
                 .when(eventRepository.findEventsInLocation(anyDouble(), anyDouble(), anyDouble(), any(Pageable.class)))
@@ -0,0 +1,92 @@
+package ru.practicum.ewm.unit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.ewm.client.HitReporter;
+import ru.practicum.ewm.client.StatsClient;
+import ru.practicum.ewm.dto.EndpointHitDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class HitReporterTest {
+    private final StatsClient statsClient = Mockito.mock(StatsClient.class);
+
+    @Test
+    public void shouldSendQueuedHitsInBatches() throws InterruptedException {
+        List<EndpointHitDto> sent = new ArrayList<>();
+        Mockito
+                .when(statsClient.addHits(anyList()))
+                .thenAnswer(invocation -> {
+                    sent.addAll(invocation.getArgument(0));
+                    return ResponseEntity.status(HttpStatus.CREATED).build();
+                });
+        HitReporter reporter = reporter(100, HitReporter.DropPolicy.DROP_OLDEST);
+
+        for (int i = 0; i < 25; i++) {
+            reporter.report(hit(i));
+        }
+        reporter.start();
+        reporter.stop();
+
+        assertThat(sent.size(), equalTo(25));
+        assertThat(sent.get(0).getIdempotencyKey(), notNullValue());
+        Mockito.verify(statsClient, Mockito.atLeast(3)).addHits(anyList());
+    }
+
+    @Test
+    public void shouldDropOldestHitsWhenQueueIsFull() {
+        HitReporter reporter = reporter(2, HitReporter.DropPolicy.DROP_OLDEST);
+
+        reporter.report(hit(0));
+        reporter.report(hit(1));
+        reporter.report(hit(2));
+
+        assertThat(reporter.getQueueSize(), equalTo(2));
+        assertThat(reporter.getDroppedCount(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldDropNewestHitsWhenQueueIsFull() {
+        HitReporter reporter = reporter(2, HitReporter.DropPolicy.DROP_NEWEST);
+
+        reporter.report(hit(0));
+        reporter.report(hit(1));
+        reporter.report(hit(2));
+
+        assertThat(reporter.getQueueSize(), equalTo(2));
+        assertThat(reporter.getDroppedCount(), equalTo(1L));
+    }
+
+    @Test
+    public void shouldRetrySendingWhenStatsServiceIsUnavailable() throws InterruptedException {
+        Mockito
+                .when(statsClient.addHits(anyList()))
+                .thenThrow(new ResourceAccessException("Connection refused"))
+                .thenReturn(ResponseEntity.status(HttpStatus.CREATED).build());
+        HitReporter reporter = reporter(10, HitReporter.DropPolicy.DROP_OLDEST);
+
+        reporter.report(hit(0));
+        reporter.start();
+        Mockito.verify(statsClient, Mockito.timeout(2000).times(2)).addHits(anyList());
+        reporter.stop();
+
+        assertThat(reporter.getDroppedCount(), equalTo(0L));
+    }
+
+    private HitReporter reporter(int capacity, HitReporter.DropPolicy dropPolicy) {
+        return new HitReporter(statsClient, capacity, dropPolicy, 10, 10, 3, 10, 100);
+    }
+
+    private EndpointHitDto hit(int i) {
+        return new EndpointHitDto("ewm-svc", "/events/" + i, "127.0.0.1", "2022-10-10 12:00:00");
+    }
+}
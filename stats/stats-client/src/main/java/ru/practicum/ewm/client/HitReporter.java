@@ -0,0 +1,154 @@
+package ru.practicum.ewm.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestClientException;
+import ru.practicum.ewm.dto.EndpointHitDto;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Service
+public class HitReporter {
+    private static final Logger log = LoggerFactory.getLogger(HitReporter.class);
+
+    private final StatsClient statsClient;
+    private final BlockingQueue<EndpointHitDto> queue;
+    private final DropPolicy dropPolicy;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+    private final AtomicLong dropped = new AtomicLong();
+    private final Thread sender;
+    private volatile boolean running = true;
+
+    public HitReporter(
+            StatsClient statsClient,
+            @Value("${stats-service.reporter.queue-capacity:10000}") int queueCapacity,
+            @Value("${stats-service.reporter.drop-policy:DROP_OLDEST}") DropPolicy dropPolicy,
+            @Value("${stats-service.reporter.batch-size:200}") int batchSize,
+            @Value("${stats-service.reporter.flush-interval-ms:500}") long flushIntervalMs,
+            @Value("${stats-service.reporter.max-attempts:5}") int maxAttempts,
+            @Value("${stats-service.reporter.initial-backoff-ms:200}") long initialBackoffMs,
+            @Value("${stats-service.reporter.max-backoff-ms:10000}") long maxBackoffMs
+    ) {
+        this.statsClient = statsClient;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.dropPolicy = dropPolicy;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMs = initialBackoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.sender = new Thread(this::sendLoop, "stats-hit-reporter");
+        this.sender.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        sender.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        sender.join(TimeUnit.SECONDS.toMillis(5));
+        if (sender.isAlive()) {
+            sender.interrupt();
+            sender.join(TimeUnit.SECONDS.toMillis(1));
+        }
+    }
+
+    public void report(EndpointHitDto endpointHitDto) {
+        if (endpointHitDto.getIdempotencyKey() == null) endpointHitDto.setIdempotencyKey(UUID.randomUUID().toString());
+        if (queue.offer(endpointHitDto)) return;
+        if (dropPolicy == DropPolicy.DROP_OLDEST && queue.poll() != null && queue.offer(endpointHitDto)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        long total = dropped.incrementAndGet();
+        log.warn("Очередь событий для сервиса статистики переполнена, всего отброшено {}", total);
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    private void sendLoop() {
+        List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                EndpointHitDto first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                sendWithRetry(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                break;
+            }
+        }
+        batch.addAll(queue);
+        queue.clear();
+        if (!batch.isEmpty()) send(batch);
+    }
+
+    private void sendWithRetry(List<EndpointHitDto> batch) throws InterruptedException {
+        long backoff = initialBackoffMs;
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            SendResult result = send(batch);
+            if (result != SendResult.RETRY) return;
+            if (attempt < maxAttempts) {
+                TimeUnit.MILLISECONDS.sleep(backoff);
+                backoff = Math.min(backoff * 2, maxBackoffMs);
+            }
+        }
+        dropped.addAndGet(batch.size());
+        log.error("Не удалось отправить {} событий в сервис статистики за {} попыток", batch.size(), maxAttempts);
+    }
+
+    private SendResult send(List<EndpointHitDto> batch) {
+        try {
+            ResponseEntity<Object> response = statsClient.addHits(batch);
+            if (response.getStatusCode().is2xxSuccessful()) return SendResult.SENT;
+            if (response.getStatusCode().is4xxClientError() &&
+                    response.getStatusCode() != HttpStatus.TOO_MANY_REQUESTS) {
+                dropped.addAndGet(batch.size());
+                log.error("Сервис статистики отклонил {} событий: {}", batch.size(), response.getStatusCode());
+                return SendResult.REJECTED;
+            }
+            log.warn("Сервис статистики ответил {} на отправку {} событий", response.getStatusCode(), batch.size());
+        } catch (RestClientException e) {
+            log.warn("Сервис статистики недоступен: {}", e.getMessage());
+        }
+        return SendResult.RETRY;
+    }
+
+    public enum DropPolicy {
+        DROP_NEWEST,
+        DROP_OLDEST
+    }
+
+    private enum SendResult {
+        SENT,
+        REJECTED,
+        RETRY
+    }
+}
@@ -1,30 +1,49 @@
 package ru.practicum.ewm.client;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class StatsClient {
     private final RestTemplate restTemplate = new RestTemplate();
     @Value("${stats-service.url}")
     private String resource;
+    @Value("${stats-service.wire-format:json}")
+    private String wireFormat;
 
     public ResponseEntity<Object> addHit(EndpointHitDto endpointHitDto) {
         try {
+            if (isBinary()) return postBinary("/hit", List.of(endpointHitDto));
             return restTemplate.postForEntity(resource + "/hit", endpointHitDto, Object.class);
         } catch (HttpStatusCodeException e) {
             return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
         }
     }
 
+    public ResponseEntity<Object> addHits(List<EndpointHitDto> endpointHitDtos) {
+        try {
+            if (isBinary()) return postBinary("/hits", endpointHitDtos);
+            return restTemplate.postForEntity(resource + "/hits", endpointHitDtos, Object.class);
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+    }
+
     public ResponseEntity<Object> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, Boolean unique) {
         DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         StringBuilder path = new StringBuilder(resource + "/stats?");
@@ -35,9 +54,46 @@ public class StatsClient {
         }
         if ((unique != null)) path.append("&unique=").append(unique);
         try {
+            if (isBinary()) return getBinary(path.toString());
             return restTemplate.getForEntity(path.toString(), Object.class);
         } catch (HttpStatusCodeException e) {
             return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
         }
     }
-}
\ No newline at end of file
+
+    public ResponseEntity<Object> queryStats(List<StatsQueryDto> queries) {
+        try {
+            return restTemplate.postForEntity(resource + "/stats/query", queries, Object.class);
+        } catch (HttpStatusCodeException e) {
+            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+        }
+    }
+
+    private boolean isBinary() {
+        return "binary".equalsIgnoreCase(wireFormat);
+    }
+
+    private ResponseEntity<Object> postBinary(String path, List<EndpointHitDto> endpointHitDtos) {
+        byte[] frame = StatsWireCodec.encodeHits(endpointHitDtos.stream()
+                .map(StatsWireCodec::fromDto)
+                .collect(Collectors.toList()));
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.parseMediaType(StatsWireCodec.MEDIA_TYPE));
+        ResponseEntity<byte[]> response = restTemplate.postForEntity(resource + path,
+                new HttpEntity<>(frame, headers), byte[].class);
+        return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+    }
+
+    private ResponseEntity<Object> getBinary(String path) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(List.of(MediaType.parseMediaType(StatsWireCodec.MEDIA_TYPE), MediaType.APPLICATION_JSON));
+        ResponseEntity<byte[]> response = restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers),
+                byte[].class);
+        MediaType contentType = response.getHeaders().getContentType();
+        if (response.getBody() == null || contentType == null || !contentType.isCompatibleWith(
+                MediaType.parseMediaType(StatsWireCodec.MEDIA_TYPE))) {
+            return ResponseEntity.status(response.getStatusCode()).body(response.getBody());
+        }
+        return ResponseEntity.status(response.getStatusCode()).body(StatsWireCodec.decodeStats(response.getBody()));
+    }
+}
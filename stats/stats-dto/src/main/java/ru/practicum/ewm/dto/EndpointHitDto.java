@@ -4,16 +4,22 @@ import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
 
 @Data
 @RequiredArgsConstructor
 public class EndpointHitDto {
     @NotBlank(message = "Идентификатор сервиса не может быть пустым")
+    @Size(max = 128, message = "Идентификатор сервиса не может быть длиннее 128 символов")
     private final String app;
     @NotBlank(message = "URI не может быть пустым")
+    @Size(max = 128, message = "URI не может быть длиннее 128 символов")
     private final String uri;
     @NotBlank(message = "IP-адрес не может быть пустым")
+    @Size(max = 40, message = "IP-адрес не может быть длиннее 40 символов")
     private final String ip;
     @NotBlank(message = "Время обращения не может быть пустым")
     private final String timestamp;
-}
\ No newline at end of file
+    @Size(max = 64, message = "Ключ идемпотентности не может быть длиннее 64 символов")
+    private String idempotencyKey;
+}
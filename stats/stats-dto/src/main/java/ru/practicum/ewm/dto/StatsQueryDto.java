@@ -0,0 +1,22 @@
+package ru.practicum.ewm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsQueryDto {
+    @NotBlank(message = "URI не может быть пустым")
+    @Size(max = 128, message = "URI не может быть длиннее 128 символов")
+    private String uri;
+    @NotBlank(message = "Начало временного интервала не может быть пустым")
+    private String start;
+    @NotBlank(message = "Конец временного интервала не может быть пустым")
+    private String end;
+    private boolean unique;
+}
@@ -0,0 +1,18 @@
+package ru.practicum.ewm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsQueryResultDto {
+    private String uri;
+    private String start;
+    private String end;
+    private boolean unique;
+    private List<ViewStatsDto> stats;
+}
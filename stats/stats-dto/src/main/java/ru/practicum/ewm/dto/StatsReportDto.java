@@ -0,0 +1,23 @@
+package ru.practicum.ewm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsReportDto {
+    private String id;
+    private String start;
+    private String end;
+    private List<String> uris;
+    private boolean unique;
+    private String status;
+    private Long rows;
+    private String error;
+    private String created;
+    private String finished;
+}
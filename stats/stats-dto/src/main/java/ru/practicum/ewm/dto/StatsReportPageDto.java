@@ -0,0 +1,17 @@
+package ru.practicum.ewm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StatsReportPageDto {
+    private String id;
+    private int from;
+    private long total;
+    private List<ViewStatsDto> stats;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.ewm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSeriesPointDto {
+    private String timestamp;
+    private Long hits;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.ewm.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TopHitDto {
+    private String app;
+    private String uri;
+    private Long hits;
+    private Long error;
+    private Boolean guaranteed;
+}
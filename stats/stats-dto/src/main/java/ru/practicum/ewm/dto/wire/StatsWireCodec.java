@@ -0,0 +1,277 @@
+package ru.practicum.ewm.dto.wire;
+
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class StatsWireCodec {
+    public static final String MEDIA_TYPE = "application/x-ewm-stats";
+    public static final int MAX_FRAME_BYTES = 16 * 1024 * 1024;
+
+    private static final byte HITS = 1;
+    private static final byte STATS = 2;
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private StatsWireCodec() {
+    }
+
+    public static long toEpochMillis(LocalDateTime timestamp) {
+        return timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    public static LocalDateTime fromEpochMillis(long timestamp) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneOffset.UTC);
+    }
+
+    public static WireHitDto fromDto(EndpointHitDto dto) {
+        return new WireHitDto(dto.getApp(), dto.getUri(), dto.getIp(),
+                toEpochMillis(LocalDateTime.parse(dto.getTimestamp(), TIMESTAMP_FORMAT)), dto.getIdempotencyKey());
+    }
+
+    public static byte[] encodeHits(List<WireHitDto> hits) {
+        Strings strings = new Strings();
+        Buffer body = new Buffer(hits.size() * 8 + 16);
+        body.writeVarLong(hits.size());
+        long previous = 0;
+        for (WireHitDto hit : hits) {
+            body.writeVarLong(strings.ref(hit.getApp()));
+            body.writeVarLong(strings.ref(hit.getUri()));
+            body.writeVarLong(strings.ref(hit.getIp()));
+            body.writeVarLong(zigZag(hit.getTimestamp() - previous));
+            body.writeVarLong(hit.getIdempotencyKey() == null ? 0 : strings.ref(hit.getIdempotencyKey()) + 1);
+            previous = hit.getTimestamp();
+        }
+        return frame(HITS, strings, body);
+    }
+
+    public static List<WireHitDto> decodeHits(byte[] frame) {
+        Reader reader = open(frame, HITS);
+        String[] strings = reader.readStrings();
+        int count = reader.readCount();
+        List<WireHitDto> hits = new ArrayList<>(count);
+        long previous = 0;
+        for (int i = 0; i < count; i++) {
+            String app = reader.readRef(strings);
+            String uri = reader.readRef(strings);
+            String ip = reader.readRef(strings);
+            long timestamp = previous + unZigZag(reader.readVarLong());
+            long key = reader.readVarLong();
+            hits.add(new WireHitDto(app, uri, ip, timestamp, key == 0 ? null : reader.ref(strings, key - 1)));
+            previous = timestamp;
+        }
+        reader.finish();
+        return hits;
+    }
+
+    public static byte[] encodeStats(List<ViewStatsDto> stats) {
+        Strings strings = new Strings();
+        Buffer body = new Buffer(stats.size() * 6 + 16);
+        body.writeVarLong(stats.size());
+        for (ViewStatsDto view : stats) {
+            body.writeVarLong(strings.ref(view.getApp()));
+            body.writeVarLong(strings.ref(view.getUri()));
+            body.writeVarLong(view.getHits());
+        }
+        return frame(STATS, strings, body);
+    }
+
+    public static List<ViewStatsDto> decodeStats(byte[] frame) {
+        Reader reader = open(frame, STATS);
+        String[] strings = reader.readStrings();
+        int count = reader.readCount();
+        List<ViewStatsDto> stats = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            stats.add(new ViewStatsDto(reader.readRef(strings), reader.readRef(strings), reader.readVarLong()));
+        }
+        reader.finish();
+        return stats;
+    }
+
+    public static byte[] readFrame(InputStream in) throws IOException {
+        long length = 0;
+        for (int shift = 0; ; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) return null;
+                throw new EOFException("Сообщение статистики оборвано в заголовке");
+            }
+            if (shift > 28) throw new IllegalArgumentException("Некорректная длина сообщения статистики");
+            length |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) break;
+        }
+        if (length > MAX_FRAME_BYTES)
+            throw new IllegalArgumentException("Сообщение статистики длиннее " + MAX_FRAME_BYTES + " байт");
+        Buffer frame = new Buffer((int) length + 5);
+        frame.writeVarLong(length);
+        int header = frame.size;
+        frame.ensure((int) length);
+        int read = 0;
+        while (read < length) {
+            int n = in.read(frame.bytes, header + read, (int) length - read);
+            if (n < 0) throw new EOFException("Сообщение статистики оборвано");
+            read += n;
+        }
+        frame.size = header + (int) length;
+        return frame.toByteArray();
+    }
+
+    private static byte[] frame(byte type, Strings strings, Buffer body) {
+        Buffer payload = new Buffer(strings.bytes + body.size + 8);
+        payload.write(type);
+        payload.writeVarLong(strings.values.size());
+        for (byte[] value : strings.values) {
+            payload.writeVarLong(value.length);
+            payload.write(value, 0, value.length);
+        }
+        payload.write(body.bytes, 0, body.size);
+
+        Buffer frame = new Buffer(payload.size + 5);
+        frame.writeVarLong(payload.size);
+        frame.write(payload.bytes, 0, payload.size);
+        return frame.toByteArray();
+    }
+
+    private static Reader open(byte[] frame, byte type) {
+        Reader reader = new Reader(frame);
+        long length = reader.readVarLong();
+        if (length != frame.length - reader.position)
+            throw new IllegalArgumentException("Длина сообщения статистики не совпадает с заголовком");
+        byte actual = reader.readByte();
+        if (actual != type)
+            throw new IllegalArgumentException("Неожиданный тип сообщения статистики: " + actual);
+        return reader;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Strings {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private int bytes;
+
+        private int ref(String value) {
+            Integer ref = refs.get(value);
+            if (ref != null) return ref;
+            byte[] encoded = value.getBytes(StandardCharsets.UTF_8);
+            values.add(encoded);
+            bytes += encoded.length + 5;
+            refs.put(value, values.size() - 1);
+            return values.size() - 1;
+        }
+    }
+
+    private static final class Buffer {
+        private byte[] bytes;
+        private int size;
+
+        private Buffer(int capacity) {
+            this.bytes = new byte[Math.max(capacity, 16)];
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+
+        private void write(byte value) {
+            ensure(1);
+            bytes[size++] = value;
+        }
+
+        private void write(byte[] source, int offset, int length) {
+            ensure(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        private void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7fL) != 0) {
+                bytes[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        private byte[] toByteArray() {
+            return size == bytes.length ? bytes : Arrays.copyOf(bytes, size);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private byte readByte() {
+            if (position >= bytes.length) throw truncated();
+            return bytes[position++];
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+            throw new IllegalArgumentException("Некорректное число в сообщении статистики");
+        }
+
+        private int readCount() {
+            long count = readVarLong();
+            if (count > bytes.length - position) throw truncated();
+            return (int) count;
+        }
+
+        private String[] readStrings() {
+            String[] strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                int length = readCount();
+                strings[i] = new String(bytes, position, length, StandardCharsets.UTF_8);
+                position += length;
+            }
+            return strings;
+        }
+
+        private String readRef(String[] strings) {
+            return ref(strings, readVarLong());
+        }
+
+        private String ref(String[] strings, long ref) {
+            if (ref < 0 || ref >= strings.length)
+                throw new IllegalArgumentException("Ссылка на несуществующую строку в сообщении статистики: " + ref);
+            return strings[(int) ref];
+        }
+
+        private void finish() {
+            if (position != bytes.length)
+                throw new IllegalArgumentException("Лишние данные в конце сообщения статистики");
+        }
+
+        private IllegalArgumentException truncated() {
+            return new IllegalArgumentException("Сообщение статистики оборвано");
+        }
+    }
+}
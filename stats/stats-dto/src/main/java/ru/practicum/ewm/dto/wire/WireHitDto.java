@@ -0,0 +1,26 @@
+package ru.practicum.ewm.dto.wire;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Size;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class WireHitDto {
+    @NotBlank(message = "Идентификатор сервиса не может быть пустым")
+    @Size(max = 128, message = "Идентификатор сервиса не может быть длиннее 128 символов")
+    private String app;
+    @NotBlank(message = "URI не может быть пустым")
+    @Size(max = 128, message = "URI не может быть длиннее 128 символов")
+    private String uri;
+    @NotBlank(message = "IP-адрес не может быть пустым")
+    @Size(max = 40, message = "IP-адрес не может быть длиннее 40 символов")
+    private String ip;
+    private long timestamp;
+    @Size(max = 64, message = "Ключ идемпотентности не может быть длиннее 64 символов")
+    private String idempotencyKey;
+}
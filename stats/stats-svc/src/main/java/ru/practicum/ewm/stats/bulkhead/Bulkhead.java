@@ -0,0 +1,123 @@
+package ru.practicum.ewm.stats.bulkhead;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+public class Bulkhead {
+    private final String description;
+    private final BulkheadProperties.Pool properties;
+    private final Function<String, RuntimeException> overload;
+    private final ThreadPoolExecutor executor;
+    private final Semaphore streams;
+    private final Counter rejected;
+    private final Counter timeouts;
+
+    public Bulkhead(String name, String description, BulkheadProperties.Pool properties,
+                    Function<String, RuntimeException> overload, MeterRegistry meterRegistry) {
+        this.description = description;
+        this.properties = properties;
+        this.overload = overload;
+        int threads = Math.max(1, properties.getThreads());
+        BlockingQueue<Runnable> queue = properties.getQueueCapacity() > 0
+                ? new ArrayBlockingQueue<>(properties.getQueueCapacity())
+                : new SynchronousQueue<>();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, task -> {
+            Thread thread = new Thread(task, "stats-" + name + "-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.streams = new Semaphore(threads);
+        this.rejected = meterRegistry.counter("stats.bulkhead.rejected", "bulkhead", name);
+        this.timeouts = meterRegistry.counter("stats.bulkhead.timeouts", "bulkhead", name);
+        Gauge.builder("stats.bulkhead.active", executor, ThreadPoolExecutor::getActiveCount).tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("stats.bulkhead.queued", queue, BlockingQueue::size).tag("bulkhead", name)
+                .register(meterRegistry);
+        Gauge.builder("stats.bulkhead.streams", streams, semaphore -> threads - semaphore.availablePermits())
+                .tag("bulkhead", name).register(meterRegistry);
+        Gauge.builder("stats.bulkhead.saturation", this, Bulkhead::getSaturation).tag("bulkhead", name)
+                .register(meterRegistry);
+    }
+
+    public <T> T call(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw overload.apply(String.format("Очередь %s переполнена, повторите запрос позже", description));
+        }
+        try {
+            return properties.getTimeoutMs() > 0
+                    ? future.get(properties.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                    : future.get();
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timeouts.increment();
+            throw overload.apply(String.format("Превышено время ожидания %s: %d мс", description,
+                    properties.getTimeoutMs()));
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw overload.apply(String.format("Ожидание %s прервано", description));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            if (cause instanceof IOException) throw new UncheckedIOException((IOException) cause);
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public <T> T stream(Callable<T> task) {
+        if (!streams.tryAcquire()) {
+            rejected.increment();
+            throw overload.apply(String.format("Достигнуто максимальное число потоковых %s, повторите запрос позже",
+                    description));
+        }
+        try {
+            return invoke(task);
+        } finally {
+            streams.release();
+        }
+    }
+
+    public double getSaturation() {
+        int capacity = executor.getMaximumPoolSize() + Math.max(0, properties.getQueueCapacity());
+        return (double) (executor.getActiveCount() + executor.getQueue().size()) / capacity;
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    static <T> T invoke(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package ru.practicum.ewm.stats.bulkhead;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+@Slf4j
+@Configuration
+@ConditionalOnExpression("${stats.bulkhead.enabled:false} and !${stats.replica.enabled:false}")
+public class BulkheadDataSourceConfig {
+    @Bean
+    public HikariDataSource ingestDataSource(DataSourceProperties dataSourceProperties,
+                                             BulkheadProperties properties) {
+        return pool("ingest", dataSourceProperties, properties.getIngest());
+    }
+
+    @Bean
+    public HikariDataSource queryDataSource(DataSourceProperties dataSourceProperties,
+                                            BulkheadProperties properties) {
+        return pool("query", dataSourceProperties, properties.getQuery());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource ingestDataSource, HikariDataSource queryDataSource) {
+        BulkheadRoutingDataSource routing = new BulkheadRoutingDataSource(ingestDataSource, queryDataSource);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    private static HikariDataSource pool(String name, DataSourceProperties dataSourceProperties,
+                                         BulkheadProperties.Pool properties) {
+        HikariDataSource pool = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class)
+                .build();
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(Math.max(1, properties.getMaxPoolSize()));
+        pool.setConnectionTimeout(properties.getConnectionTimeoutMs());
+        if (properties.getStatementTimeoutMs() > 0) {
+            String sql = statementTimeoutSql(pool.getJdbcUrl(), properties.getStatementTimeoutMs());
+            if (sql != null) pool.setConnectionInitSql(sql);
+            else log.warn("Ограничение времени выполнения запросов пула {} не поддерживается для {}", name,
+                    pool.getJdbcUrl());
+        }
+        return pool;
+    }
+
+    private static String statementTimeoutSql(String url, long timeoutMs) {
+        if (url.startsWith("jdbc:postgresql:")) return "SET statement_timeout = " + timeoutMs;
+        if (url.startsWith("jdbc:h2:")) return "SET QUERY_TIMEOUT " + timeoutMs;
+        return null;
+    }
+}
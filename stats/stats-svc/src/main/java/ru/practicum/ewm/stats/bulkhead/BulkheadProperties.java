@@ -0,0 +1,28 @@
+package ru.practicum.ewm.stats.bulkhead;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.bulkhead")
+public class BulkheadProperties {
+    private boolean enabled = false;
+    private Pool ingest = new Pool(8, 1000, 0, 10, 5000, 0);
+    private Pool query = new Pool(4, 16, 30000, 4, 1000, 30000);
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Pool {
+        private int threads;
+        private int queueCapacity;
+        private long timeoutMs;
+        private int maxPoolSize;
+        private long connectionTimeoutMs;
+        private long statementTimeoutMs;
+    }
+}
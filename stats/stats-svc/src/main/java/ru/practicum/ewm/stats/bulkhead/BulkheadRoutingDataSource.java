@@ -0,0 +1,24 @@
+package ru.practicum.ewm.stats.bulkhead;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+public class BulkheadRoutingDataSource extends AbstractRoutingDataSource {
+    public BulkheadRoutingDataSource(DataSource ingest, DataSource query) {
+        setTargetDataSources(Map.of(Target.INGEST, ingest, Target.QUERY, query));
+        setDefaultTargetDataSource(ingest);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Target.QUERY : Target.INGEST;
+    }
+
+    private enum Target {
+        INGEST,
+        QUERY
+    }
+}
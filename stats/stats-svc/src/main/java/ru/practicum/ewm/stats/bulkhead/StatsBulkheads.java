@@ -0,0 +1,56 @@
+package ru.practicum.ewm.stats.bulkhead;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.exception.QueryOverloadException;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Callable;
+
+@Component
+@Slf4j
+public class StatsBulkheads {
+    private final Bulkhead ingest;
+    private final Bulkhead query;
+
+    public StatsBulkheads(BulkheadProperties properties, MeterRegistry meterRegistry) {
+        if (properties.isEnabled()) {
+            this.ingest = new Bulkhead("ingest", "записи событий", properties.getIngest(),
+                    IngestOverloadException::new, meterRegistry);
+            this.query = new Bulkhead("query", "запросов статистики", properties.getQuery(),
+                    QueryOverloadException::new, meterRegistry);
+            log.info("Запись событий выполняется в {} потоках, запросы статистики в {} потоках",
+                    properties.getIngest().getThreads(), properties.getQuery().getThreads());
+        } else {
+            this.ingest = null;
+            this.query = null;
+        }
+    }
+
+    public void ingest(Runnable task) {
+        if (ingest == null) {
+            task.run();
+            return;
+        }
+        ingest.call(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public <T> T query(Callable<T> task) {
+        return query == null ? Bulkhead.invoke(task) : query.call(task);
+    }
+
+    public <T> T stream(Callable<T> task) {
+        return query == null ? Bulkhead.invoke(task) : query.stream(task);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (ingest != null) ingest.shutdown();
+        if (query != null) query.shutdown();
+    }
+}
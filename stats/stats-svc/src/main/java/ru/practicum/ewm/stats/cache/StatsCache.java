@@ -0,0 +1,209 @@
+package ru.practicum.ewm.stats.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+@Component
+public class StatsCache {
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    private static final int ROW_OVERHEAD_BYTES = 96;
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private final StatsCacheProperties properties;
+    private final Map<String, Long> watermarks = new ConcurrentHashMap<>();
+    private final AtomicLong globalWatermark = new AtomicLong();
+    private final Map<String, Long> advancedAt = new ConcurrentHashMap<>();
+    private final AtomicLong globalAdvancedAt = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Counter invalidations;
+    private long bytes;
+
+    public StatsCache(StatsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.hits = meterRegistry.counter("stats.cache.hits");
+        this.misses = meterRegistry.counter("stats.cache.misses");
+        this.evictions = meterRegistry.counter("stats.cache.evictions");
+        this.invalidations = meterRegistry.counter("stats.cache.invalidations");
+        Gauge.builder("stats.cache.entries", this, StatsCache::size).register(meterRegistry);
+        Gauge.builder("stats.cache.bytes", this, StatsCache::getBytes).register(meterRegistry);
+        Gauge.builder("stats.cache.hit.ratio", this, StatsCache::hitRatio).register(meterRegistry);
+    }
+
+    public List<ViewStatsDto> get(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                                  StatsQuery query) {
+        if (!properties.isEnabled()) return query.run(start, end);
+        LocalDateTime roundedEnd = round(end);
+        if (roundedEnd.isBefore(start)) return query.run(start, end);
+
+        Key key = new Key(start, roundedEnd, normalize(uris), unique);
+        long[] snapshot = watermarks(key.getUris());
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry != null) {
+            if (Arrays.equals(entry.getWatermarks(), snapshot)) {
+                hits.increment();
+                return entry.getStats();
+            }
+            invalidations.increment();
+        }
+        misses.increment();
+        List<ViewStatsDto> stats = Collections.unmodifiableList(query.run(start, roundedEnd));
+        if (isSettled(key.getUris())) put(key, new Entry(stats, snapshot, estimate(key, stats)));
+        return stats;
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (hits.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            advance(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                advance(hits);
+            }
+        });
+    }
+
+    public synchronized void invalidateAll() {
+        generation.incrementAndGet();
+        evictions.increment(entries.size());
+        entries.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0 : hits.count() / total;
+    }
+
+    private void advance(List<EndpointHit> hits) {
+        long now = System.currentTimeMillis();
+        Set<String> uris = hits.stream().map(EndpointHit::getUri).collect(Collectors.toSet());
+        for (String uri : uris) {
+            advancedAt.put(uri, now);
+            watermarks.merge(uri, 1L, Long::sum);
+        }
+        globalAdvancedAt.set(now);
+        globalWatermark.incrementAndGet();
+    }
+
+    private boolean isSettled(List<String> uris) {
+        long settle = properties.getSettle().toMillis();
+        if (settle <= 0) return true;
+        long lastAdvance = 0;
+        if (uris == null) {
+            lastAdvance = globalAdvancedAt.get();
+        } else {
+            for (String uri : uris) {
+                lastAdvance = Math.max(lastAdvance, advancedAt.getOrDefault(uri, 0L));
+            }
+        }
+        return System.currentTimeMillis() - lastAdvance >= settle;
+    }
+
+    private long[] watermarks(List<String> uris) {
+        if (uris == null) return new long[]{generation.get(), globalWatermark.get()};
+        long[] snapshot = new long[uris.size() + 1];
+        snapshot[0] = generation.get();
+        for (int i = 0; i < uris.size(); i++) {
+            snapshot[i + 1] = watermarks.getOrDefault(uris.get(i), 0L);
+        }
+        return snapshot;
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        if (entry.getBytes() > properties.getMaxBytes()) return;
+        Entry previous = entries.put(key, entry);
+        if (previous != null) bytes -= previous.getBytes();
+        bytes += entry.getBytes();
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (bytes > properties.getMaxBytes() && eldest.hasNext()) {
+            bytes -= eldest.next().getBytes();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    private LocalDateTime round(LocalDateTime end) {
+        long granularity = properties.getEndGranularity().toMillis();
+        if (granularity <= 1) return end;
+        long millis = end.toInstant(ZoneOffset.UTC).toEpochMilli();
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(Math.floorDiv(millis, granularity) * granularity),
+                ZoneOffset.UTC);
+    }
+
+    private static List<String> normalize(List<String> uris) {
+        if (uris == null || uris.isEmpty()) return null;
+        return List.copyOf(new TreeSet<>(uris));
+    }
+
+    private static long estimate(Key key, List<ViewStatsDto> stats) {
+        long size = ENTRY_OVERHEAD_BYTES;
+        if (key.getUris() != null) {
+            for (String uri : key.getUris()) {
+                size += STRING_OVERHEAD_BYTES + 2L * uri.length();
+            }
+        }
+        for (ViewStatsDto view : stats) {
+            size += ROW_OVERHEAD_BYTES + 2L * (view.getApp().length() + view.getUri().length());
+        }
+        return size;
+    }
+
+    public interface StatsQuery {
+        List<ViewStatsDto> run(LocalDateTime start, LocalDateTime end);
+    }
+
+    @Value
+    private static class Key {
+        LocalDateTime start;
+        LocalDateTime end;
+        List<String> uris;
+        boolean unique;
+    }
+
+    @Value
+    private static class Entry {
+        List<ViewStatsDto> stats;
+        long[] watermarks;
+        long bytes;
+    }
+}
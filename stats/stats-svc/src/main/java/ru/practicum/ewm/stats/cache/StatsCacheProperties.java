@@ -0,0 +1,17 @@
+package ru.practicum.ewm.stats.cache;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.cache")
+public class StatsCacheProperties {
+    private boolean enabled = true;
+    private long maxBytes = 32 * 1024 * 1024;
+    private Duration endGranularity = Duration.ofSeconds(1);
+    private Duration settle = Duration.ZERO;
+}
@@ -0,0 +1,17 @@
+package ru.practicum.ewm.stats.cold;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.cold")
+public class ColdProperties {
+    private boolean enabled = false;
+    private String directory = "cold";
+    private int afterDays = 90;
+    private int segmentRows = 1_000_000;
+    private int compressionLevel = 6;
+    private long intervalMs = 3600000;
+}
@@ -0,0 +1,198 @@
+package ru.practicum.ewm.stats.cold;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+public class ColdSegment {
+    static final int MAGIC = 0x434F4C44;
+    private static final int TRAILER_SIZE = 2 * Integer.BYTES;
+    private static final int TIMESTAMPS = 0;
+    private static final int APPS = 1;
+    private static final int URIS = 2;
+    private static final int IPS = 3;
+
+    private final Path file;
+    private final MappedByteBuffer data;
+    private final int rows;
+    private final long minMicros;
+    private final long maxMicros;
+    private final String[] apps;
+    private final String[] uris;
+    private final long[] offsets = new long[4];
+    private final int[] compressedLengths = new int[4];
+    private final int[] rawLengths = new int[4];
+
+    private ColdSegment(Path file, MappedByteBuffer data) throws IOException {
+        this.file = file;
+        this.data = data;
+        if (data.capacity() < TRAILER_SIZE || data.getInt(data.capacity() - Integer.BYTES) != MAGIC)
+            throw new IOException("Файл не является сегментом холодного хранилища: " + file);
+        int footerLength = data.getInt(data.capacity() - TRAILER_SIZE);
+        ByteBuffer footer = data.duplicate();
+        footer.position(data.capacity() - TRAILER_SIZE - footerLength).limit(data.capacity() - TRAILER_SIZE);
+        DataInputStream in = new DataInputStream(new ByteBufferInputStream(footer));
+        rows = in.readInt();
+        minMicros = in.readLong();
+        maxMicros = in.readLong();
+        apps = readNames(in);
+        uris = readNames(in);
+        for (int column = 0; column < offsets.length; column++) {
+            offsets[column] = in.readLong();
+            compressedLengths[column] = in.readInt();
+            rawLengths[column] = in.readInt();
+        }
+    }
+
+    public static ColdSegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ColdSegment(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return fromMicros(minMicros);
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return fromMicros(maxMicros);
+    }
+
+    public void scan(LocalDateTime start, LocalDateTime end, Collection<String> uriFilter, boolean withIps,
+                     HitVisitor visitor) {
+        long from = toMicros(start);
+        long to = toMicros(end);
+        if (rows == 0 || maxMicros < from || minMicros > to) return;
+        boolean[] wanted = new boolean[uris.length];
+        boolean any = false;
+        for (int i = 0; i < uris.length; i++) {
+            wanted[i] = uriFilter == null || uriFilter.contains(uris[i]);
+            any |= wanted[i];
+        }
+        if (!any) return;
+
+        ByteBuffer timestamps = inflate(TIMESTAMPS);
+        int first = -1;
+        int last = -1;
+        long micros = minMicros;
+        for (int row = 0; row < rows; row++) {
+            micros += readVarLong(timestamps);
+            if (micros > to) break;
+            if (micros < from) continue;
+            if (first < 0) first = row;
+            last = row;
+        }
+        if (first < 0) return;
+
+        ByteBuffer appColumn = inflate(APPS);
+        ByteBuffer uriColumn = inflate(URIS);
+        ByteBuffer ipColumn = withIps ? inflate(IPS) : null;
+        for (int row = 0; row <= last; row++) {
+            int app = (int) readVarLong(appColumn);
+            int uri = (int) readVarLong(uriColumn);
+            ByteBuffer ip = null;
+            if (ipColumn != null) {
+                int length = (int) readVarLong(ipColumn);
+                ip = ipColumn.slice();
+                ip.limit(length);
+                ipColumn.position(ipColumn.position() + length);
+            }
+            if (row >= first && wanted[uri]) visitor.visit(apps[app], uris[uri], ip);
+        }
+    }
+
+    static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private ByteBuffer inflate(int column) {
+        ByteBuffer compressed = data.duplicate();
+        compressed.position((int) offsets[column]).limit((int) offsets[column] + compressedLengths[column]);
+        byte[] raw = new byte[rawLengths[column]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int length = 0;
+            while (length < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += inflated;
+            }
+            if (length != raw.length)
+                throw new IllegalStateException("Повреждён столбец " + column + " сегмента " + file);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Повреждён столбец " + column + " сегмента " + file, e);
+        } finally {
+            inflater.end();
+        }
+        return ByteBuffer.wrap(raw);
+    }
+
+    private static long readVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static String[] readNames(DataInputStream in) throws IOException {
+        String[] names = new String[in.readInt()];
+        for (int i = 0; i < names.length; i++) {
+            names[i] = in.readUTF();
+        }
+        return names;
+    }
+
+    public interface HitVisitor {
+        void visit(String app, String uri, ByteBuffer ip);
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) return -1;
+            int count = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, count);
+            return count;
+        }
+    }
+}
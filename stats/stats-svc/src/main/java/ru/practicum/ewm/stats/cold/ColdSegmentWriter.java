@@ -0,0 +1,115 @@
+package ru.practicum.ewm.stats.cold;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+public class ColdSegmentWriter {
+    private final int compressionLevel;
+    private final Map<String, Integer> apps = new LinkedHashMap<>();
+    private final Map<String, Integer> uris = new LinkedHashMap<>();
+    private final ByteArrayOutputStream timestamps = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream appColumn = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream uriColumn = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream ipColumn = new ByteArrayOutputStream();
+    private long minMicros;
+    private long lastMicros;
+    private int rows;
+
+    public ColdSegmentWriter(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public void add(String app, String uri, byte[] ip, LocalDateTime timestamp) {
+        long micros = ColdSegment.toMicros(timestamp);
+        if (rows == 0) minMicros = micros;
+        else if (micros < lastMicros)
+            throw new IllegalArgumentException("События сегмента должны быть упорядочены по времени: " + timestamp);
+        writeVarLong(timestamps, micros - (rows == 0 ? micros : lastMicros));
+        writeVarLong(appColumn, apps.computeIfAbsent(app, name -> apps.size()));
+        writeVarLong(uriColumn, uris.computeIfAbsent(uri, name -> uris.size()));
+        writeVarLong(ipColumn, ip.length);
+        ipColumn.write(ip, 0, ip.length);
+        lastMicros = micros;
+        rows++;
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    public LocalDateTime getMinTimestamp() {
+        return ColdSegment.fromMicros(minMicros);
+    }
+
+    public LocalDateTime getMaxTimestamp() {
+        return ColdSegment.fromMicros(lastMicros);
+    }
+
+    public void write(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream footer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(footer);
+            out.writeInt(rows);
+            out.writeLong(minMicros);
+            out.writeLong(lastMicros);
+            writeNames(out, apps);
+            writeNames(out, uris);
+            for (ByteArrayOutputStream column : List.of(timestamps, appColumn, uriColumn, ipColumn)) {
+                long offset = channel.position();
+                int compressed = compress(column.toByteArray(), channel);
+                out.writeLong(offset);
+                out.writeInt(compressed);
+                out.writeInt(column.size());
+            }
+            out.writeInt(footer.size());
+            out.writeInt(ColdSegment.MAGIC);
+            ByteBuffer tail = ByteBuffer.wrap(footer.toByteArray());
+            while (tail.hasRemaining()) channel.write(tail);
+            channel.force(true);
+        }
+    }
+
+    private int compress(byte[] raw, FileChannel channel) throws IOException {
+        Deflater deflater = new Deflater(compressionLevel);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[64 * 1024];
+            int total = 0;
+            while (!deflater.finished()) {
+                int length = deflater.deflate(buffer);
+                ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, length);
+                while (chunk.hasRemaining()) channel.write(chunk);
+                total += length;
+            }
+            return total;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeNames(DataOutputStream out, Map<String, Integer> names) throws IOException {
+        out.writeInt(names.size());
+        for (String name : names.keySet()) {
+            out.writeUTF(name);
+        }
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
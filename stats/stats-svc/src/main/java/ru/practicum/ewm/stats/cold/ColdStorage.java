@@ -0,0 +1,122 @@
+package ru.practicum.ewm.stats.cold;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class ColdStorage {
+    static final String SEGMENT_SUFFIX = ".seg";
+    private static final String SELECT_SEGMENTS = "SELECT name FROM statistics_cold_segment";
+    private static final String DELETE_SEGMENT = "DELETE FROM statistics_cold_segment WHERE name = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Path directory;
+    private volatile List<ColdSegment> segments = List.of();
+    private volatile LocalDateTime maxTimestamp;
+
+    public ColdStorage(JdbcTemplate jdbcTemplate, ColdProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.directory = Paths.get(properties.getDirectory());
+    }
+
+    @PostConstruct
+    public synchronized void load() throws IOException {
+        List<String> names = jdbcTemplate.queryForList(SELECT_SEGMENTS, String.class);
+        if (names.isEmpty() && !Files.isDirectory(directory)) {
+            segments = List.of();
+            maxTimestamp = null;
+            return;
+        }
+        Files.createDirectories(directory);
+        Set<String> registered = new HashSet<>(names);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SEGMENT_SUFFIX) || registered.contains(name)) continue;
+                Files.delete(file);
+                log.warn("Удалён незарегистрированный файл холодного хранилища {}", file);
+            }
+        }
+        List<ColdSegment> loaded = new ArrayList<>(names.size());
+        for (String name : names) {
+            Path file = directory.resolve(name);
+            if (Files.exists(file)) loaded.add(ColdSegment.open(file));
+            else log.error("Сегмент холодного хранилища {} не найден, его события не войдут в статистику", file);
+        }
+        segments = List.of();
+        maxTimestamp = null;
+        add(loaded);
+        log.info("Загружено {} сегментов холодного хранилища", loaded.size());
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public List<ColdSegment> getSegments() {
+        return segments;
+    }
+
+    public boolean covers(LocalDateTime start) {
+        LocalDateTime max = maxTimestamp;
+        return max != null && !start.isAfter(max);
+    }
+
+    public void scan(LocalDateTime start, LocalDateTime end, Collection<String> uris, boolean withIps,
+                     ColdSegment.HitVisitor visitor) {
+        Set<String> uriFilter = uris == null || uris.isEmpty() ? null : new HashSet<>(uris);
+        for (ColdSegment segment : segments) {
+            segment.scan(start, end, uriFilter, withIps, visitor);
+        }
+    }
+
+    public synchronized int deleteBefore(LocalDateTime before) {
+        List<ColdSegment> kept = new ArrayList<>(segments.size());
+        List<ColdSegment> expired = new ArrayList<>();
+        for (ColdSegment segment : segments) {
+            if (segment.getMaxTimestamp().isBefore(before)) expired.add(segment);
+            else kept.add(segment);
+        }
+        if (expired.isEmpty()) return 0;
+        for (ColdSegment segment : expired) {
+            jdbcTemplate.update(DELETE_SEGMENT, segment.getFile().getFileName().toString());
+            try {
+                Files.deleteIfExists(segment.getFile());
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл холодного хранилища {}: {}", segment.getFile(), e.getMessage());
+            }
+        }
+        segments = List.of();
+        maxTimestamp = null;
+        add(kept);
+        log.info("Удалено {} сегментов холодного хранилища с событиями до {}", expired.size(), before);
+        return expired.size();
+    }
+
+    synchronized void add(List<ColdSegment> added) {
+        if (added.isEmpty()) return;
+        List<ColdSegment> updated = new ArrayList<>(segments);
+        updated.addAll(added);
+        LocalDateTime max = maxTimestamp;
+        for (ColdSegment segment : added) {
+            if (max == null || segment.getMaxTimestamp().isAfter(max)) max = segment.getMaxTimestamp();
+        }
+        segments = List.copyOf(updated);
+        maxTimestamp = max;
+    }
+}
@@ -0,0 +1,200 @@
+package ru.practicum.ewm.stats.cold;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.storage.DailyStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@Slf4j
+public class ColdTierMover {
+    private static final String SELECT_DAY =
+            "SELECT a.name AS app, u.name AS uri, s.ip, s.timestamp FROM statistics AS s " +
+            "JOIN statistics_app AS a ON a.id = s.app_id " +
+            "JOIN statistics_uri AS u ON u.id = s.uri_id " +
+            "WHERE s.timestamp >= ? AND s.timestamp < ? ORDER BY s.timestamp";
+    private static final String INSERT_SEGMENT =
+            "INSERT INTO statistics_cold_segment (name, min_timestamp, max_timestamp, hits) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_DAY = "DELETE FROM statistics WHERE timestamp >= ? AND timestamp < ?";
+
+    private final ColdStorage coldStorage;
+    private final ColdProperties properties;
+    private final DailyStorage dailyStorage;
+    private final StatsCache statsCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Object signal = new Object();
+    private long sequence = System.currentTimeMillis();
+    private Thread mover;
+    private volatile boolean running = true;
+
+    public ColdTierMover(
+            ColdStorage coldStorage,
+            ColdProperties properties,
+            DailyStorage dailyStorage,
+            StatsCache statsCache,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${stats.query.fetch-size:1000}") int fetchSize
+    ) {
+        this.coldStorage = coldStorage;
+        this.properties = properties;
+        this.dailyStorage = dailyStorage;
+        this.statsCache = statsCache;
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) return;
+        mover = new Thread(this::moveLoop, "cold-tier-mover");
+        mover.setDaemon(true);
+        mover.start();
+        log.info("Запущен перенос событий старше {} дней в холодное хранилище {}", properties.getAfterDays(),
+                coldStorage.getDirectory());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (mover == null) return;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        mover.join();
+    }
+
+    public synchronized long archive(LocalDate cutoff) {
+        long archived = 0;
+        LocalDate day;
+        while (running && (day = dailyStorage.findOldestRawDay()) != null && day.isBefore(cutoff)) {
+            archived += archiveDay(day);
+        }
+        return archived;
+    }
+
+    private long archiveDay(LocalDate day) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        String prefix = day.format(DateTimeFormatter.BASIC_ISO_DATE) + "-" + (++sequence) + "-";
+        List<Path> files = new ArrayList<>();
+        List<SegmentFile> written;
+        try {
+            written = transactionTemplate.execute(status -> {
+                List<SegmentFile> segments = new ArrayList<>();
+                ColdSegmentWriter[] writer = {new ColdSegmentWriter(properties.getCompressionLevel())};
+                cursorJdbcTemplate.query(SELECT_DAY, (RowCallbackHandler) rs -> {
+                    writer[0].add(rs.getString("app"), rs.getString("uri"), rs.getBytes("ip"),
+                            rs.getTimestamp("timestamp").toLocalDateTime());
+                    if (writer[0].size() < properties.getSegmentRows()) return;
+                    segments.add(flush(writer[0], prefix + segments.size(), files));
+                    writer[0] = new ColdSegmentWriter(properties.getCompressionLevel());
+                }, from, to);
+                if (writer[0].size() > 0) segments.add(flush(writer[0], prefix + segments.size(), files));
+
+                long total = 0;
+                for (SegmentFile segment : segments) {
+                    jdbcTemplate.update(INSERT_SEGMENT, segment.getName(), Timestamp.valueOf(segment.getMin()),
+                            Timestamp.valueOf(segment.getMax()), segment.getRows());
+                    total += segment.getRows();
+                }
+                int deleted = jdbcTemplate.update(DELETE_DAY, from, to);
+                if (deleted != total)
+                    throw new IllegalStateException(String.format(
+                            "За %s выгружено %d событий, а удалено %d", day, total, deleted));
+                return segments;
+            });
+        } catch (RuntimeException e) {
+            deleteQuietly(files);
+            throw e;
+        }
+
+        List<ColdSegment> opened = new ArrayList<>(written.size());
+        long archived = 0;
+        for (SegmentFile segment : written) {
+            try {
+                opened.add(ColdSegment.open(coldStorage.getDirectory().resolve(segment.getName())));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            archived += segment.getRows();
+        }
+        coldStorage.add(opened);
+        statsCache.invalidateAll();
+        log.info("В холодное хранилище перенесено {} событий за {} в {} сегментах", archived, day, opened.size());
+        return archived;
+    }
+
+    private SegmentFile flush(ColdSegmentWriter writer, String name, List<Path> files) {
+        String fileName = name + ColdStorage.SEGMENT_SUFFIX;
+        Path file = coldStorage.getDirectory().resolve(fileName);
+        try {
+            Files.createDirectories(coldStorage.getDirectory());
+            files.add(file);
+            writer.write(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new SegmentFile(fileName, writer.getMinTimestamp(), writer.getMaxTimestamp(), writer.size());
+    }
+
+    private void deleteQuietly(List<Path> files) {
+        for (Path file : files) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить файл {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    private void moveLoop() {
+        while (running) {
+            try {
+                archive(LocalDate.now().minusDays(properties.getAfterDays()));
+            } catch (RuntimeException e) {
+                log.error("Ошибка переноса событий в холодное хранилище", e);
+            }
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @lombok.Value
+    private static class SegmentFile {
+        String name;
+        LocalDateTime min;
+        LocalDateTime max;
+        int rows;
+    }
+}
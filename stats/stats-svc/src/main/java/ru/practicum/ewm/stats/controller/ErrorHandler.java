@@ -3,19 +3,31 @@ package ru.practicum.ewm.stats.controller;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.MissingServletRequestParameterException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.exception.QueryOverloadException;
+import ru.practicum.ewm.stats.exception.ReportNotFoundException;
+import ru.practicum.ewm.stats.exception.ReportNotReadyException;
 
+import javax.validation.ConstraintViolationException;
+import javax.validation.ValidationException;
 import java.time.DateTimeException;
 import java.util.Objects;
 
 @RestControllerAdvice
 @Slf4j
 public class ErrorHandler {
-    @ExceptionHandler({DateTimeException.class, MissingServletRequestParameterException.class})
+    @ExceptionHandler({
+            DateTimeException.class,
+            HttpMessageNotReadableException.class,
+            MissingServletRequestParameterException.class,
+            ValidationException.class
+    })
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleBadRequest(Exception e) {
         log.error(e.getMessage());
@@ -30,6 +42,42 @@ public class ErrorHandler {
         return new ErrorResponse(error);
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleConstraintViolationException(ConstraintViolationException e) {
+        String error = e.getConstraintViolations().iterator().next().getMessage();
+        log.error(error);
+        return new ErrorResponse(error);
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleIngestOverloadException(IngestOverloadException e) {
+        log.error(e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleQueryOverloadException(QueryOverloadException e) {
+        log.error(e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleReportNotFoundException(ReportNotFoundException e) {
+        log.error(e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleReportNotReadyException(ReportNotReadyException e) {
+        log.error(e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleInternalError(Throwable e) {
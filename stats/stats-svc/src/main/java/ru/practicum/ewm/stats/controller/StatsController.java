@@ -1,8 +1,11 @@
 package ru.practicum.ewm.stats.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -11,10 +14,23 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.StatsQueryResultDto;
+import ru.practicum.ewm.dto.TimeSeriesPointDto;
+import ru.practicum.ewm.dto.TopHitDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+import ru.practicum.ewm.stats.bulkhead.StatsBulkheads;
 import ru.practicum.ewm.stats.service.StatsService;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,12 +38,45 @@ import java.util.List;
 @RequiredArgsConstructor
 @Validated
 public class StatsController {
+    private static final int MAX_HITS_PER_REQUEST = 10000;
+    private static final int MAX_QUERIES_PER_REQUEST = 1000;
+
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
+    private final StatsBulkheads bulkheads;
 
     @PostMapping("/hit")
     @ResponseStatus(HttpStatus.CREATED)
     public void saveEvent(@Valid @RequestBody EndpointHitDto endpointHitDto) {
-        statsService.saveEvent(endpointHitDto);
+        bulkheads.ingest(() -> statsService.saveEvent(endpointHitDto));
+    }
+
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveEvents(
+            @RequestBody
+            @NotEmpty(message = "Список событий не может быть пустым")
+            @Size(max = MAX_HITS_PER_REQUEST, message = "Список событий не может содержать более {max} элементов")
+            List<@Valid EndpointHitDto> endpointHitDtos
+    ) {
+        bulkheads.ingest(() -> statsService.saveEvents(endpointHitDtos));
+    }
+
+    @PostMapping(value = "/hit", consumes = StatsWireCodec.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveWireEvent(@Valid @RequestBody WireHitDto wireHitDto) {
+        bulkheads.ingest(() -> statsService.saveWireEvents(List.of(wireHitDto)));
+    }
+
+    @PostMapping(value = "/hits", consumes = StatsWireCodec.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveWireEvents(
+            @RequestBody
+            @NotEmpty(message = "Список событий не может быть пустым")
+            @Size(max = MAX_HITS_PER_REQUEST, message = "Список событий не может содержать более {max} элементов")
+            List<@Valid WireHitDto> wireHitDtos
+    ) {
+        bulkheads.ingest(() -> statsService.saveWireEvents(wireHitDtos));
     }
 
     @GetMapping("/stats")
@@ -35,8 +84,85 @@ public class StatsController {
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
             @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
             @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") boolean unique,
+            @RequestParam(defaultValue = "false") boolean approx
+    ) {
+        return bulkheads.query(() -> unique && approx
+                ? statsService.getApproximateUniqueStats(start, end, uris)
+                : statsService.getStats(start, end, uris, unique));
+    }
+
+    @GetMapping(value = "/stats", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") boolean unique,
+            @RequestParam(defaultValue = "false") boolean approx,
+            HttpServletResponse response
+    ) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        bulkheads.stream(() -> {
+            if (unique && approx) {
+                statsService.getApproximateUniqueStats(start, end, uris).forEach(stats -> writeLine(generator, stats));
+            } else {
+                statsService.streamStats(start, end, uris, unique, stats -> writeLine(generator, stats));
+            }
+            generator.flush();
+            return null;
+        });
+    }
+
+    @GetMapping(value = "/stats", params = "stream=true")
+    public void streamStatsOnRequest(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") boolean unique,
+            @RequestParam(defaultValue = "false") boolean approx,
+            HttpServletResponse response
+    ) throws IOException {
+        streamStats(start, end, uris, unique, approx, response);
+    }
+
+    @PostMapping("/stats/query")
+    public List<StatsQueryResultDto> queryStats(
+            @RequestBody
+            @NotEmpty(message = "Список запросов не может быть пустым")
+            @Size(max = MAX_QUERIES_PER_REQUEST, message = "Список запросов не может содержать более {max} элементов")
+            List<@Valid StatsQueryDto> queries
+    ) {
+        return bulkheads.query(() -> statsService.queryStats(queries));
+    }
+
+    @GetMapping("/stats/top")
+    public List<TopHitDto> getTopHits(
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(required = false) String window
+    ) {
+        return bulkheads.query(() -> statsService.getTopHits(k, window));
+    }
+
+    @GetMapping("/stats/timeseries")
+    public List<TimeSeriesPointDto> getTimeSeries(
+            @RequestParam String uri,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(defaultValue = "hour") String bucket,
             @RequestParam(defaultValue = "false") boolean unique
     ) {
-        return statsService.getStats(start, end, uris, unique);
+        return bulkheads.query(() -> statsService.getTimeSeries(uri, start, end, bucket, unique));
+    }
+
+    private static void writeLine(JsonGenerator generator, ViewStatsDto stats) {
+        try {
+            generator.writeObject(stats);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 }
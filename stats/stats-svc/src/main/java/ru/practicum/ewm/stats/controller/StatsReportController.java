@@ -0,0 +1,89 @@
+package ru.practicum.ewm.stats.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import ru.practicum.ewm.dto.StatsReportDto;
+import ru.practicum.ewm.dto.StatsReportPageDto;
+import ru.practicum.ewm.stats.report.StatsReportService;
+
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@Validated
+public class StatsReportController {
+    private static final int MAX_PAGE_SIZE = 10000;
+
+    private final StatsReportService reportService;
+    private final ObjectMapper objectMapper;
+
+    @PostMapping("/stats/reports")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public StatsReportDto submitReport(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime start,
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss") LocalDateTime end,
+            @RequestParam(required = false) List<String> uris,
+            @RequestParam(defaultValue = "false") boolean unique
+    ) {
+        return reportService.submit(start, end, uris, unique);
+    }
+
+    @GetMapping("/stats/reports/{id}")
+    public StatsReportDto getReport(@PathVariable String id) {
+        return reportService.getReport(id);
+    }
+
+    @DeleteMapping("/stats/reports/{id}")
+    public StatsReportDto cancelReport(@PathVariable String id) {
+        return reportService.cancel(id);
+    }
+
+    @GetMapping("/stats/reports/{id}/result")
+    public StatsReportPageDto getResult(
+            @PathVariable String id,
+            @RequestParam(defaultValue = "0")
+            @PositiveOrZero(message = "Номер первой строки не может быть отрицательным") int from,
+            @RequestParam(defaultValue = "1000")
+            @Positive(message = "Размер страницы должен быть положительным")
+            @Max(value = MAX_PAGE_SIZE, message = "Размер страницы не может быть больше {value}") int size
+    ) {
+        return reportService.getResult(id, from, size);
+    }
+
+    @GetMapping(value = "/stats/reports/{id}/result", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamResult(@PathVariable String id, HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+        generator.setRootValueSeparator(null);
+        reportService.streamResult(id, stats -> {
+            try {
+                generator.writeObject(stats);
+                generator.writeRaw('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        generator.flush();
+    }
+}
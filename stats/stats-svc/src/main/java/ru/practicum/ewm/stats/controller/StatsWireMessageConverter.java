@@ -0,0 +1,81 @@
+package ru.practicum.ewm.stats.controller;
+
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.util.StreamUtils;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+public class StatsWireMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(StatsWireCodec.MEDIA_TYPE);
+
+    private static final ResolvableType HIT_LIST = ResolvableType.forClassWithGenerics(List.class, WireHitDto.class);
+    private static final ResolvableType STATS_LIST = ResolvableType.forClassWithGenerics(List.class, ViewStatsDto.class);
+
+    public StatsWireMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return WireHitDto.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, Class<?> contextClass, MediaType mediaType) {
+        return (type == WireHitDto.class || HIT_LIST.isAssignableFrom(ResolvableType.forType(type)))
+                && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, @NonNull Class<?> clazz, MediaType mediaType) {
+        return (type == null ? List.class.isAssignableFrom(clazz)
+                : STATS_LIST.isAssignableFrom(ResolvableType.forType(type))) && canWrite(mediaType);
+    }
+
+    @Override
+    @NonNull
+    public Object read(@NonNull Type type, Class<?> contextClass, @NonNull HttpInputMessage inputMessage)
+            throws IOException {
+        List<WireHitDto> hits = decode(inputMessage);
+        if (type != WireHitDto.class) return hits;
+        if (hits.size() != 1)
+            throw new HttpMessageNotReadableException("Ожидалось одно событие, получено " + hits.size(), inputMessage);
+        return hits.get(0);
+    }
+
+    @Override
+    @NonNull
+    protected Object readInternal(@NonNull Class<?> clazz, @NonNull HttpInputMessage inputMessage)
+            throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(@NonNull Object stats, Type type, @NonNull HttpOutputMessage outputMessage)
+            throws IOException {
+        byte[] frame = StatsWireCodec.encodeStats((List<ViewStatsDto>) stats);
+        outputMessage.getHeaders().setContentLength(frame.length);
+        outputMessage.getBody().write(frame);
+    }
+
+    private static List<WireHitDto> decode(HttpInputMessage inputMessage) throws IOException {
+        byte[] frame = StreamUtils.copyToByteArray(inputMessage.getBody());
+        try {
+            return StatsWireCodec.decodeHits(frame);
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+}
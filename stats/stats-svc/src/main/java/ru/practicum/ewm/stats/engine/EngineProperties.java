@@ -0,0 +1,28 @@
+package ru.practicum.ewm.stats.engine;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.engine")
+public class EngineProperties {
+    private EngineType type = EngineType.JPA;
+    private int retentionDays = 0;
+    private long retentionIntervalMs = 3600000;
+    private Memory memory = new Memory();
+
+    @Data
+    public static class Memory {
+        private int memtableRows = 65536;
+        private int maxRuns = 8;
+    }
+
+    public enum EngineType {
+        JPA,
+        JDBC,
+        MEMORY,
+        SHARDED
+    }
+}
@@ -0,0 +1,98 @@
+package ru.practicum.ewm.stats.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.storage.DailyStorage;
+import ru.practicum.ewm.stats.storage.PartitionManager;
+import ru.practicum.ewm.stats.storage.RollupStorage;
+import ru.practicum.ewm.stats.storage.SketchStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class EngineRetention {
+    private final StatsEngine statsEngine;
+    private final EngineProperties properties;
+    private final StatsCache statsCache;
+    private final PartitionManager partitionManager;
+    private final RollupStorage rollupStorage;
+    private final DailyStorage dailyStorage;
+    private final SketchStorage sketchStorage;
+    private final ColdStorage coldStorage;
+    private final Object signal = new Object();
+    private Thread cleaner;
+    private volatile boolean running = true;
+
+    public EngineRetention(StatsEngine statsEngine, EngineProperties properties, StatsCache statsCache,
+                           PartitionManager partitionManager, RollupStorage rollupStorage, DailyStorage dailyStorage,
+                           SketchStorage sketchStorage, ColdStorage coldStorage) {
+        this.statsEngine = statsEngine;
+        this.properties = properties;
+        this.statsCache = statsCache;
+        this.partitionManager = partitionManager;
+        this.rollupStorage = rollupStorage;
+        this.dailyStorage = dailyStorage;
+        this.sketchStorage = sketchStorage;
+        this.coldStorage = coldStorage;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (properties.getRetentionDays() <= 0) return;
+        cleaner = new Thread(this::retentionLoop, "engine-retention");
+        cleaner.setDaemon(true);
+        cleaner.start();
+        log.info("Запущено удаление событий старше {} дней", properties.getRetentionDays());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (cleaner == null) return;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        cleaner.join();
+    }
+
+    public long apply(LocalDateTime before) {
+        int partitions = partitionManager.dropBefore(before.toLocalDate());
+        long deleted = statsEngine.deleteBefore(before);
+        int rollups = rollupStorage.deleteBefore(before);
+        int days = dailyStorage.deleteBefore(before);
+        int sketches = sketchStorage.deleteBefore(before);
+        int segments = coldStorage.deleteBefore(before);
+        if (partitions + deleted + rollups + days + sketches + segments > 0) {
+            statsCache.invalidateAll();
+            log.info("Удалены данные до {}: {} секций, {} событий, {} агрегатов, {} суточных агрегатов, " +
+                    "{} скетчей, {} холодных сегментов", before, partitions, deleted, rollups, days, sketches,
+                    segments);
+        }
+        return deleted;
+    }
+
+    private void retentionLoop() {
+        while (running) {
+            try {
+                apply(LocalDate.now().minusDays(properties.getRetentionDays()).atStartOfDay());
+            } catch (DataAccessException e) {
+                log.error("Ошибка удаления устаревших событий", e);
+            }
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getRetentionIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
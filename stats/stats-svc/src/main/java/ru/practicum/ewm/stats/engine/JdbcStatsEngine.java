@@ -0,0 +1,77 @@
+package ru.practicum.ewm.stats.engine;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+import ru.practicum.ewm.stats.storage.DailyStorage;
+import ru.practicum.ewm.stats.storage.HitDictionary;
+import ru.practicum.ewm.stats.storage.StatsBatchStorage;
+import ru.practicum.ewm.stats.storage.StatsQueryStorage;
+import ru.practicum.ewm.stats.storage.StatsQueryStorageImpl;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Component
+public class JdbcStatsEngine implements StatsEngine {
+    private static final String DELETE_BEFORE = "DELETE FROM statistics WHERE timestamp < ?";
+
+    private final StatsBatchStorage statsBatchStorage;
+    private final StatsQueryStorage statsQueryStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcStatsEngine(
+            StatsBatchStorage statsBatchStorage,
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            HitDictionary hitDictionary,
+            DailyStorage dailyStorage,
+            ColdStorage coldStorage,
+            @Value("${stats.query.fetch-size:1000}") int fetchSize
+    ) {
+        this.statsBatchStorage = statsBatchStorage;
+        this.jdbcTemplate = jdbcTemplate;
+        this.statsQueryStorage = new StatsQueryStorageImpl(namedJdbcTemplate, hitDictionary, dailyStorage,
+                coldStorage, fetchSize);
+    }
+
+    @Override
+    public List<EndpointHit> saveAll(List<EndpointHit> hits) {
+        return statsBatchStorage.saveAll(hits, StatsBatchStorage.LoadMethod.INSERT);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return unique
+                ? statsQueryStorage.getStatsWithUniqueIps(start, end, uris)
+                : statsQueryStorage.getStats(start, end, uris);
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        statsQueryStorage.streamStats(start, end, uris, unique, consumer);
+    }
+
+    @Override
+    public List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows) {
+        return statsQueryStorage.getWindowStats(windows);
+    }
+
+    @Override
+    public long deleteBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_BEFORE, Timestamp.valueOf(before));
+    }
+
+    @Override
+    public boolean isSelfContained() {
+        return false;
+    }
+}
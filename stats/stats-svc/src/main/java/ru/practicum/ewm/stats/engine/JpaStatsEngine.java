@@ -0,0 +1,55 @@
+package ru.practicum.ewm.stats.engine;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+import ru.practicum.ewm.stats.storage.StatsBatchStorage;
+import ru.practicum.ewm.stats.storage.StatsStorage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Component
+@RequiredArgsConstructor
+public class JpaStatsEngine implements StatsEngine {
+    private final StatsStorage statsStorage;
+    private final StatsBatchStorage statsBatchStorage;
+
+    @Override
+    public List<EndpointHit> saveAll(List<EndpointHit> hits) {
+        return statsBatchStorage.saveAll(hits);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return unique
+                ? statsStorage.getStatsWithUniqueIps(start, end, uris)
+                : statsStorage.getStats(start, end, uris);
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        statsStorage.streamStats(start, end, uris, unique, consumer);
+    }
+
+    @Override
+    public List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows) {
+        return statsStorage.getWindowStats(windows);
+    }
+
+    @Override
+    @Transactional
+    public long deleteBefore(LocalDateTime before) {
+        return statsStorage.deleteByTimestampBefore(before);
+    }
+
+    @Override
+    public boolean isSelfContained() {
+        return false;
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.ewm.stats.engine;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+class MemoryRun {
+    private final long[] micros;
+    private final int[] appIds;
+    private final int[] uriIds;
+    private final String[] ips;
+
+    private MemoryRun(long[] micros, int[] appIds, int[] uriIds, String[] ips) {
+        this.micros = micros;
+        this.appIds = appIds;
+        this.uriIds = uriIds;
+        this.ips = ips;
+    }
+
+    static MemoryRun sorted(long[] micros, int[] appIds, int[] uriIds, String[] ips, int size) {
+        int[] order = IntStream.range(0, size).boxed()
+                .sorted((a, b) -> Long.compare(micros[a], micros[b]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        MemoryRun run = new MemoryRun(new long[size], new int[size], new int[size], new String[size]);
+        for (int i = 0; i < size; i++) {
+            run.micros[i] = micros[order[i]];
+            run.appIds[i] = appIds[order[i]];
+            run.uriIds[i] = uriIds[order[i]];
+            run.ips[i] = ips[order[i]];
+        }
+        return run;
+    }
+
+    static MemoryRun merge(MemoryRun left, MemoryRun right) {
+        int size = left.size() + right.size();
+        MemoryRun run = new MemoryRun(new long[size], new int[size], new int[size], new String[size]);
+        int l = 0;
+        int r = 0;
+        for (int i = 0; i < size; i++) {
+            boolean fromLeft = r == right.size() || (l < left.size() && left.micros[l] <= right.micros[r]);
+            MemoryRun source = fromLeft ? left : right;
+            int index = fromLeft ? l++ : r++;
+            run.micros[i] = source.micros[index];
+            run.appIds[i] = source.appIds[index];
+            run.uriIds[i] = source.uriIds[index];
+            run.ips[i] = source.ips[index];
+        }
+        return run;
+    }
+
+    int size() {
+        return micros.length;
+    }
+
+    MemoryRun dropBefore(long fromMicros) {
+        int first = lowerBound(fromMicros);
+        if (first == 0) return this;
+        return new MemoryRun(Arrays.copyOfRange(micros, first, micros.length),
+                Arrays.copyOfRange(appIds, first, appIds.length),
+                Arrays.copyOfRange(uriIds, first, uriIds.length),
+                Arrays.copyOfRange(ips, first, ips.length));
+    }
+
+    void scan(long fromMicros, long toMicros, MemoryStatsEngine.RowFilter filter,
+              MemoryStatsEngine.RowConsumer consumer) {
+        for (int i = lowerBound(fromMicros); i < micros.length && micros[i] <= toMicros; i++) {
+            if (filter.test(uriIds[i])) consumer.accept(appIds[i], uriIds[i], ips[i]);
+        }
+    }
+
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = micros.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (micros[middle] < value) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+}
@@ -0,0 +1,208 @@
+package ru.practicum.ewm.stats.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+@Component
+@Slf4j
+public class MemoryStatsEngine implements StatsEngine {
+    private final int maxRuns;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> appIds = new HashMap<>();
+    private final List<String> appNames = new ArrayList<>();
+    private final Map<String, Integer> uriIds = new HashMap<>();
+    private final List<String> uriNames = new ArrayList<>();
+    private final Map<String, LocalDateTime> idempotencyKeys = new HashMap<>();
+    private final long[] memMicros;
+    private final int[] memAppIds;
+    private final int[] memUriIds;
+    private final String[] memIps;
+    private int memSize;
+    private final List<MemoryRun> runs = new ArrayList<>();
+
+    public MemoryStatsEngine(EngineProperties properties) {
+        int memtableRows = properties.getMemory().getMemtableRows();
+        this.maxRuns = Math.max(1, properties.getMemory().getMaxRuns());
+        this.memMicros = new long[memtableRows];
+        this.memAppIds = new int[memtableRows];
+        this.memUriIds = new int[memtableRows];
+        this.memIps = new String[memtableRows];
+    }
+
+    @Override
+    public List<EndpointHit> saveAll(List<EndpointHit> hits) {
+        List<EndpointHit> saved = new ArrayList<>(hits.size());
+        lock.writeLock().lock();
+        try {
+            for (EndpointHit hit : hits) {
+                String key = hit.getIdempotencyKey();
+                if (key != null && idempotencyKeys.putIfAbsent(key, hit.getTimestamp()) != null) continue;
+                append(hit);
+                saved.add(hit);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return saved;
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        Map<Long, long[]> counts = new HashMap<>();
+        Map<Long, Set<String>> ips = new HashMap<>();
+        RowConsumer consumer = unique
+                ? (appId, uriId, ip) -> ips.computeIfAbsent(key(appId, uriId), key -> new HashSet<>()).add(ip)
+                : (appId, uriId, ip) -> counts.computeIfAbsent(key(appId, uriId), key -> new long[1])[0]++;
+        long from = toMicros(start);
+        long to = toMicros(end);
+        List<ViewStatsDto> stats = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            RowFilter filter = filter(uris);
+            if (filter == null) return stats;
+            for (int i = 0; i < memSize; i++) {
+                if (memMicros[i] >= from && memMicros[i] <= to && filter.test(memUriIds[i]))
+                    consumer.accept(memAppIds[i], memUriIds[i], memIps[i]);
+            }
+            for (MemoryRun run : runs) {
+                run.scan(from, to, filter, consumer);
+            }
+            counts.forEach((key, count) -> stats.add(toDto(key, count[0])));
+            ips.forEach((key, set) -> stats.add(toDto(key, set.size())));
+        } finally {
+            lock.readLock().unlock();
+        }
+        stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+        return stats;
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        getStats(start, end, uris, unique).forEach(consumer);
+    }
+
+    @Override
+    public List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows) {
+        List<List<ViewStatsDto>> result = new ArrayList<>(windows.size());
+        for (StatsWindow window : windows) {
+            result.add(getStats(window.getStart(), window.getEnd(), List.of(window.getUri()), window.isUnique()));
+        }
+        return result;
+    }
+
+    @Override
+    public long deleteBefore(LocalDateTime before) {
+        long from = toMicros(before);
+        long deleted = 0;
+        lock.writeLock().lock();
+        try {
+            int kept = 0;
+            for (int i = 0; i < memSize; i++) {
+                if (memMicros[i] < from) continue;
+                memMicros[kept] = memMicros[i];
+                memAppIds[kept] = memAppIds[i];
+                memUriIds[kept] = memUriIds[i];
+                memIps[kept] = memIps[i];
+                kept++;
+            }
+            deleted += memSize - kept;
+            memSize = kept;
+            for (int i = runs.size() - 1; i >= 0; i--) {
+                MemoryRun run = runs.get(i);
+                MemoryRun retained = run.dropBefore(from);
+                deleted += run.size() - retained.size();
+                if (retained.size() == 0) runs.remove(i);
+                else runs.set(i, retained);
+            }
+            idempotencyKeys.values().removeIf(timestamp -> timestamp.isBefore(before));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.debug("Из памяти удалено {} событий до {}", deleted, before);
+        return deleted;
+    }
+
+    @Override
+    public boolean isSelfContained() {
+        return true;
+    }
+
+    private void append(EndpointHit hit) {
+        memMicros[memSize] = toMicros(hit.getTimestamp());
+        memAppIds[memSize] = id(appIds, appNames, hit.getApp());
+        memUriIds[memSize] = id(uriIds, uriNames, hit.getUri());
+        memIps[memSize] = hit.getIp();
+        memSize++;
+        if (memSize == memMicros.length) flush();
+    }
+
+    private void flush() {
+        runs.add(MemoryRun.sorted(memMicros, memAppIds, memUriIds, memIps, memSize));
+        memSize = 0;
+        while (runs.size() > maxRuns) {
+            int smallest = 0;
+            for (int i = 1; i < runs.size() - 1; i++) {
+                if (runs.get(i).size() + runs.get(i + 1).size()
+                        < runs.get(smallest).size() + runs.get(smallest + 1).size()) smallest = i;
+            }
+            runs.set(smallest, MemoryRun.merge(runs.get(smallest), runs.remove(smallest + 1)));
+        }
+    }
+
+    private RowFilter filter(List<String> uris) {
+        if (uris == null || uris.isEmpty()) return uriId -> true;
+        Set<Integer> ids = new HashSet<>();
+        for (String uri : uris) {
+            Integer id = uriIds.get(uri);
+            if (id != null) ids.add(id);
+        }
+        return ids.isEmpty() ? null : ids::contains;
+    }
+
+    private ViewStatsDto toDto(long key, long hits) {
+        return new ViewStatsDto(appNames.get((int) (key >>> Integer.SIZE)), uriNames.get((int) key), hits);
+    }
+
+    private static int id(Map<String, Integer> ids, List<String> names, String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+        ids.put(name, names.size());
+        names.add(name);
+        return names.size() - 1;
+    }
+
+    private static long key(int appId, int uriId) {
+        return ((long) appId << Integer.SIZE) | (uriId & 0xffffffffL);
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    @FunctionalInterface
+    interface RowFilter {
+        boolean test(int uriId);
+    }
+
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(int appId, int uriId, String ip);
+    }
+}
@@ -0,0 +1,24 @@
+package ru.practicum.ewm.stats.engine;
+
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface StatsEngine {
+    List<EndpointHit> saveAll(List<EndpointHit> hits);
+
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                     Consumer<ViewStatsDto> consumer);
+
+    List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows);
+
+    long deleteBefore(LocalDateTime before);
+
+    boolean isSelfContained();
+}
@@ -0,0 +1,30 @@
+package ru.practicum.ewm.stats.engine;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.practicum.ewm.stats.shard.ShardedStatsEngine;
+
+@Slf4j
+@Configuration
+public class StatsEngineConfig {
+    @Bean
+    @Primary
+    public StatsEngine statsEngine(EngineProperties properties, JpaStatsEngine jpaStatsEngine,
+                                   JdbcStatsEngine jdbcStatsEngine, MemoryStatsEngine memoryStatsEngine,
+                                   ObjectProvider<ShardedStatsEngine> shardedStatsEngine) {
+        log.info("Используется хранилище событий {}", properties.getType());
+        switch (properties.getType()) {
+            case JDBC:
+                return jdbcStatsEngine;
+            case MEMORY:
+                return memoryStatsEngine;
+            case SHARDED:
+                return shardedStatsEngine.getObject();
+            default:
+                return jpaStatsEngine;
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stats.exception;
+
+public class IngestOverloadException extends RuntimeException {
+    public IngestOverloadException(String message) {
+        super(message);
+    }
+}
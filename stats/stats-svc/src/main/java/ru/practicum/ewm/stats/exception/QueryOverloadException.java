@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stats.exception;
+
+public class QueryOverloadException extends RuntimeException {
+    public QueryOverloadException(String message) {
+        super(message);
+    }
+}
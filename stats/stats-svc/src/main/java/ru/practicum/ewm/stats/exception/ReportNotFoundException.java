@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stats.exception;
+
+public class ReportNotFoundException extends RuntimeException {
+    public ReportNotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package ru.practicum.ewm.stats.exception;
+
+public class ReportNotReadyException extends RuntimeException {
+    public ReportNotReadyException(String message) {
+        super(message);
+    }
+}
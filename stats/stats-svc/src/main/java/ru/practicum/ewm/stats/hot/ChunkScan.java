@@ -0,0 +1,115 @@
+package ru.practicum.ewm.stats.hot;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RecursiveTask;
+
+class ChunkScan extends RecursiveTask<ChunkScan.Result> {
+    private final List<HitChunk> chunks;
+    private final int from;
+    private final int to;
+    private final long fromSecond;
+    private final long toSecond;
+    private final RowFilter filter;
+    private final boolean unique;
+
+    ChunkScan(List<HitChunk> chunks, long fromSecond, long toSecond, RowFilter filter, boolean unique) {
+        this(chunks, 0, chunks.size(), fromSecond, toSecond, filter, unique);
+    }
+
+    private ChunkScan(
+            List<HitChunk> chunks,
+            int from,
+            int to,
+            long fromSecond,
+            long toSecond,
+            RowFilter filter,
+            boolean unique
+    ) {
+        this.chunks = chunks;
+        this.from = from;
+        this.to = to;
+        this.fromSecond = fromSecond;
+        this.toSecond = toSecond;
+        this.filter = filter;
+        this.unique = unique;
+    }
+
+    @Override
+    protected Result compute() {
+        if (to - from > 1) {
+            int middle = (from + to) >>> 1;
+            ChunkScan left = new ChunkScan(chunks, from, middle, fromSecond, toSecond, filter, unique);
+            ChunkScan right = new ChunkScan(chunks, middle, to, fromSecond, toSecond, filter, unique);
+            left.fork();
+            Result result = right.compute();
+            return result.merge(left.join());
+        }
+        Result result = new Result();
+        if (from < to) {
+            chunks.get(from).scan(fromSecond, toSecond, filter, unique ? result::addUnique : result::add);
+        }
+        return result;
+    }
+
+    static long key(int appId, int uriId) {
+        return ((long) appId << Integer.SIZE) | (uriId & 0xffffffffL);
+    }
+
+    static int appId(long key) {
+        return (int) (key >>> Integer.SIZE);
+    }
+
+    static int uriId(long key) {
+        return (int) key;
+    }
+
+    @FunctionalInterface
+    interface RowFilter {
+        boolean test(int uriId);
+    }
+
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(int appId, int uriId, long ip);
+    }
+
+    static class Result {
+        private final Map<Long, long[]> counts = new HashMap<>();
+        private final Map<Long, Set<Long>> ips = new HashMap<>();
+
+        void add(int appId, int uriId, long ip) {
+            counts.computeIfAbsent(key(appId, uriId), key -> new long[1])[0]++;
+        }
+
+        void addUnique(int appId, int uriId, long ip) {
+            ips.computeIfAbsent(key(appId, uriId), key -> new HashSet<>()).add(ip);
+        }
+
+        Result merge(Result other) {
+            other.counts.forEach((key, count) -> counts.merge(key, count, (a, b) -> {
+                a[0] += b[0];
+                return a;
+            }));
+            other.ips.forEach((key, set) -> ips.merge(key, set, (a, b) -> {
+                if (a.size() < b.size()) {
+                    b.addAll(a);
+                    return b;
+                }
+                a.addAll(b);
+                return a;
+            }));
+            return this;
+        }
+
+        Map<Long, Long> getHits() {
+            Map<Long, Long> hits = new HashMap<>();
+            counts.forEach((key, count) -> hits.put(key, count[0]));
+            ips.forEach((key, set) -> hits.put(key, (long) set.size()));
+            return hits;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package ru.practicum.ewm.stats.hot;
+
+class HitChunk {
+    static final int BYTES_PER_ROW = Integer.BYTES * 2 + Long.BYTES * 2;
+
+    private final long[] seconds;
+    private final int[] appIds;
+    private final int[] uriIds;
+    private final long[] ips;
+    private volatile long minSecond = Long.MAX_VALUE;
+    private volatile long maxSecond = Long.MIN_VALUE;
+    private volatile int size;
+
+    HitChunk(int capacity) {
+        this.seconds = new long[capacity];
+        this.appIds = new int[capacity];
+        this.uriIds = new int[capacity];
+        this.ips = new long[capacity];
+    }
+
+    boolean isFull() {
+        return size == seconds.length;
+    }
+
+    void append(long second, int appId, int uriId, long ip) {
+        int index = size;
+        seconds[index] = second;
+        appIds[index] = appId;
+        uriIds[index] = uriId;
+        ips[index] = ip;
+        if (second < minSecond) minSecond = second;
+        if (second > maxSecond) maxSecond = second;
+        size = index + 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long getMinSecond() {
+        return minSecond;
+    }
+
+    long getMaxSecond() {
+        return maxSecond;
+    }
+
+    long memoryBytes() {
+        return (long) seconds.length * BYTES_PER_ROW;
+    }
+
+    void scan(long fromSecond, long toSecond, ChunkScan.RowFilter filter, ChunkScan.RowConsumer consumer) {
+        int count = size;
+        if (count == 0 || maxSecond < fromSecond || minSecond > toSecond) return;
+        for (int i = 0; i < count; i++) {
+            long second = seconds[i];
+            if (second < fromSecond || second > toSecond || !filter.test(uriIds[i])) continue;
+            consumer.accept(appIds[i], uriIds[i], ips[i]);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package ru.practicum.ewm.stats.hot;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.IpAddressCodec;
+import ru.practicum.ewm.stats.sketch.HyperLogLog;
+import ru.practicum.ewm.stats.storage.HitDictionary;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class HotWindow {
+    private static final String SELECT_RECENT =
+            "SELECT app_id, uri_id, ip, timestamp FROM statistics WHERE timestamp >= ?";
+
+    private final HitDictionary hitDictionary;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final HotWindowProperties properties;
+    private final int maxChunks;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object signal = new Object();
+    private ForkJoinPool pool;
+    private Thread evictor;
+    private volatile State state = new State(List.of(), Long.MAX_VALUE);
+    private volatile boolean running = true;
+
+    public HotWindow(
+            HitDictionary hitDictionary,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            HotWindowProperties properties,
+            MeterRegistry meterRegistry
+    ) {
+        this.hitDictionary = hitDictionary;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        this.maxChunks = (int) Math.max(1,
+                properties.getMaxMemoryBytes() / ((long) properties.getChunkSize() * HitChunk.BYTES_PER_ROW));
+        Gauge.builder("stats.hot-window.memory", this, HotWindow::memoryBytes)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("stats.hot-window.rows", this, HotWindow::rows).register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) return;
+        pool = new ForkJoinPool(properties.getParallelism());
+        reload();
+        evictor = new Thread(this::evictionLoop, "hot-window-evictor");
+        evictor.setDaemon(true);
+        evictor.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (evictor == null) return;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        evictor.join();
+        pool.shutdown();
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (!properties.isEnabled() || hits.isEmpty()) return;
+        long coveredFrom = state.getCoveredFrom();
+        List<EndpointHit> recent = hits.stream()
+                .filter(hit -> toSecond(hit.getTimestamp()) >= coveredFrom)
+                .collect(Collectors.toList());
+        if (recent.isEmpty()) return;
+
+        Map<String, Integer> appIds = hitDictionary.getAppIds(
+                recent.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = hitDictionary.getUriIds(
+                recent.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+        long[] seconds = new long[recent.size()];
+        int[] apps = new int[recent.size()];
+        int[] uris = new int[recent.size()];
+        long[] ips = new long[recent.size()];
+        for (int i = 0; i < recent.size(); i++) {
+            EndpointHit hit = recent.get(i);
+            seconds[i] = toSecond(hit.getTimestamp());
+            apps[i] = appIds.get(hit.getApp());
+            uris[i] = uriIds.get(hit.getUri());
+            ips[i] = ipKey(IpAddressCodec.encode(hit.getIp()));
+        }
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(seconds, apps, uris, ips);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(seconds, apps, uris, ips);
+            }
+        });
+    }
+
+    public Optional<List<ViewStatsDto>> getStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            List<String> uris,
+            boolean unique
+    ) {
+        State snapshot = state;
+        if (toSecond(start) < snapshot.getCoveredFrom()) return Optional.empty();
+
+        BitSet uriFilter = null;
+        if (uris != null && !uris.isEmpty()) {
+            uriFilter = new BitSet();
+            for (Integer id : hitDictionary.findUriIds(uris).values()) {
+                uriFilter.set(id);
+            }
+            if (uriFilter.isEmpty()) return Optional.of(List.of());
+        }
+        BitSet filter = uriFilter;
+        ChunkScan.Result result = pool.invoke(new ChunkScan(snapshot.getChunks(), toSecond(start), toSecond(end),
+                filter == null ? uriId -> true : filter::get, unique));
+
+        Map<Long, Long> hits = result.getHits();
+        if (hits.isEmpty()) return Optional.of(List.of());
+        Map<Integer, String> appNames = hitDictionary.findAppNames(
+                hits.keySet().stream().map(ChunkScan::appId).collect(Collectors.toSet()));
+        Map<Integer, String> uriNames = hitDictionary.findUriNames(
+                hits.keySet().stream().map(ChunkScan::uriId).collect(Collectors.toSet()));
+        return Optional.of(hits.entrySet().stream()
+                .map(entry -> new ViewStatsDto(appNames.get(ChunkScan.appId(entry.getKey())),
+                        uriNames.get(ChunkScan.uriId(entry.getKey())), entry.getValue()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .collect(Collectors.toList()));
+    }
+
+    public void evict() {
+        appendLock.lock();
+        try {
+            long cutoff = toSecond(LocalDateTime.now()) - properties.getHours() * 3600L;
+            List<HitChunk> chunks = new ArrayList<>(state.getChunks());
+            int dropped = 0;
+            while (chunks.size() > 1 && chunks.get(0).getMaxSecond() < cutoff) {
+                chunks.remove(0);
+                dropped++;
+            }
+            state = new State(List.copyOf(chunks), Math.max(state.getCoveredFrom(), cutoff));
+            if (dropped > 0) log.debug("Из оперативного окна удалено {} блоков событий", dropped);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    public void reload() {
+        if (!properties.isEnabled()) return;
+        LocalDateTime from = LocalDateTime.now().minusHours(properties.getHours());
+        appendLock.lock();
+        try {
+            state = new State(List.of(), toSecond(from));
+            int[] loaded = new int[1];
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_RECENT);
+                statement.setFetchSize(properties.getChunkSize());
+                statement.setTimestamp(1, Timestamp.valueOf(from));
+                return statement;
+            }, (RowCallbackHandler) rs -> {
+                appendRow(toSecond(rs.getTimestamp("timestamp").toLocalDateTime()), rs.getInt("app_id"),
+                        rs.getInt("uri_id"), ipKey(rs.getBytes("ip")));
+                loaded[0]++;
+            }));
+            log.info("В оперативное окно за {} ч загружено {} событий", properties.getHours(), loaded[0]);
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void append(long[] seconds, int[] apps, int[] uris, long[] ips) {
+        appendLock.lock();
+        try {
+            for (int i = 0; i < seconds.length; i++) {
+                if (seconds[i] >= state.getCoveredFrom()) appendRow(seconds[i], apps[i], uris[i], ips[i]);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void appendRow(long second, int appId, int uriId, long ip) {
+        List<HitChunk> chunks = state.getChunks();
+        if (chunks.isEmpty() || chunks.get(chunks.size() - 1).isFull()) {
+            List<HitChunk> grown = new ArrayList<>(chunks);
+            long coveredFrom = state.getCoveredFrom();
+            while (grown.size() >= maxChunks) {
+                coveredFrom = Math.max(coveredFrom, grown.remove(0).getMaxSecond() + 1);
+            }
+            if (coveredFrom != state.getCoveredFrom()) {
+                log.warn("Оперативное окно превысило {} байт, окно сокращено", properties.getMaxMemoryBytes());
+            }
+            grown.add(new HitChunk(properties.getChunkSize()));
+            chunks = List.copyOf(grown);
+            state = new State(chunks, coveredFrom);
+            if (second < coveredFrom) return;
+        }
+        chunks.get(chunks.size() - 1).append(second, appId, uriId, ip);
+    }
+
+    private void evictionLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getEvictionIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (running) evict();
+        }
+    }
+
+    private long memoryBytes() {
+        return state.getChunks().stream().mapToLong(HitChunk::memoryBytes).sum();
+    }
+
+    private long rows() {
+        return state.getChunks().stream().mapToLong(HitChunk::size).sum();
+    }
+
+    private static long toSecond(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static long ipKey(byte[] encoded) {
+        if (encoded.length == 4) {
+            return ((encoded[0] & 0xffL) << 24) | ((encoded[1] & 0xffL) << 16) | ((encoded[2] & 0xffL) << 8) |
+                    (encoded[3] & 0xffL);
+        }
+        return HyperLogLog.hash(encoded) | Long.MIN_VALUE;
+    }
+
+    @Value
+    private static class State {
+        List<HitChunk> chunks;
+        long coveredFrom;
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.ewm.stats.hot;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.hot-window")
+public class HotWindowProperties {
+    private boolean enabled = true;
+    private int hours = 24;
+    private int chunkSize = 65536;
+    private long maxMemoryBytes = 128L * 1024 * 1024;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private long evictionIntervalMs = 60000;
+}
@@ -0,0 +1,91 @@
+package ru.practicum.ewm.stats.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "buffered")
+@Slf4j
+public class BufferedHitIngestor implements HitIngestor {
+    private final HitWriter hitWriter;
+    private final RetryingHitWriter retryingWriter;
+    private final IngestProperties.Buffer properties;
+    private final HitRingBuffer buffer;
+    private final Counter rejected;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public BufferedHitIngestor(HitWriter hitWriter, IngestProperties ingestProperties, MeterRegistry meterRegistry) {
+        this.hitWriter = hitWriter;
+        this.retryingWriter = new RetryingHitWriter(hitWriter, meterRegistry);
+        this.properties = ingestProperties.getBuffer();
+        this.buffer = new HitRingBuffer(properties.getCapacity());
+        this.rejected = meterRegistry.counter("stats.ingest.buffer.rejected");
+        Gauge.builder("stats.ingest.buffer.size", buffer, HitRingBuffer::size).register(meterRegistry);
+        Gauge.builder("stats.ingest.buffer.capacity", buffer, HitRingBuffer::capacity).register(meterRegistry);
+        this.flusher = new Thread(this::flushLoop, "hit-buffer-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+        log.info("Запущена буферизованная запись событий, ёмкость буфера {}", buffer.capacity());
+    }
+
+    @Override
+    public void ingest(List<EndpointHit> hits) {
+        if (!running) throw new IngestOverloadException("Сервис статистики останавливается и не принимает события");
+        if (hits.size() > buffer.capacity()) {
+            hitWriter.write(hits);
+            return;
+        }
+        long timeout = properties.getOverflow() == IngestProperties.OverflowPolicy.BLOCK ?
+                properties.getBlockTimeoutMs() : 0;
+        try {
+            if (buffer.offerAll(hits, timeout, TimeUnit.MILLISECONDS)) return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        rejected.increment(hits.size());
+        throw new IngestOverloadException("Буфер событий переполнен, повторите запрос позже");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        buffer.wakeUp();
+        flusher.join(properties.getShutdownTimeoutMs());
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+            log.error("Не удалось записать {} событий из буфера при остановке", buffer.size());
+        }
+    }
+
+    private void flushLoop() {
+        List<EndpointHit> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || buffer.size() > 0) {
+            try {
+                buffer.awaitRecords(properties.getBatchSize(), properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                buffer.drainTo(batch, properties.getBatchSize());
+                if (!batch.isEmpty()) retryingWriter.write(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ewm.stats.ingest;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "direct", matchIfMissing = true)
+@RequiredArgsConstructor
+public class DirectHitIngestor implements HitIngestor {
+    private final HitWriter hitWriter;
+
+    @Override
+    public void ingest(List<EndpointHit> hits) {
+        hitWriter.write(hits);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.practicum.ewm.stats.ingest;
+
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.util.List;
+
+public interface HitIngestor {
+    void ingest(List<EndpointHit> hits);
+}
@@ -0,0 +1,54 @@
+package ru.practicum.ewm.stats.ingest;
+
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public class HitRecordCodec {
+    public static int maxEncodedSize(EndpointHit hit) {
+        return Long.BYTES + 4 * Short.BYTES + 3 * (length(hit.getApp()) + length(hit.getUri()) +
+                length(hit.getIp()) + length(hit.getIdempotencyKey()));
+    }
+
+    public static void write(ByteBuffer buffer, EndpointHit hit) {
+        buffer.putLong(hit.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+        putString(buffer, hit.getApp());
+        putString(buffer, hit.getUri());
+        putString(buffer, hit.getIp());
+        putString(buffer, hit.getIdempotencyKey());
+    }
+
+    public static EndpointHit read(ByteBuffer buffer) {
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(buffer.getLong(), 0, ZoneOffset.UTC);
+        String app = getString(buffer);
+        String uri = getString(buffer);
+        String ip = getString(buffer);
+        String idempotencyKey = getString(buffer);
+        return new EndpointHit(null, app, uri, ip, timestamp, idempotencyKey);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putShort((short) bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) return null;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package ru.practicum.ewm.stats.ingest;
+
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class HitRingBuffer {
+    static final int SLOT_SIZE = 1280;
+
+    private final ByteBuffer storage;
+    private final int capacity;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private long head;
+    private long tail;
+
+    public HitRingBuffer(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("Ёмкость буфера должна быть положительной");
+        this.capacity = capacity;
+        this.storage = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+    }
+
+    public boolean offerAll(List<EndpointHit> hits, long timeout, TimeUnit unit) throws InterruptedException {
+        if (hits.size() > capacity)
+            throw new IllegalArgumentException(String.format("Пакет из %d событий больше ёмкости буфера %d",
+                    hits.size(), capacity));
+        for (EndpointHit hit : hits) {
+            if (HitRecordCodec.maxEncodedSize(hit) > SLOT_SIZE)
+                throw new IllegalArgumentException("Событие не помещается в ячейку буфера: " + hit);
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (capacity - size() < hits.size()) {
+                if (nanos <= 0) return false;
+                nanos = notFull.awaitNanos(nanos);
+            }
+            for (EndpointHit hit : hits) {
+                HitRecordCodec.write(slot(tail), hit);
+                tail++;
+            }
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean awaitRecords(int count, long timeout, TimeUnit unit) throws InterruptedException {
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            while (size() < count) {
+                if (nanos <= 0) return size() > 0;
+                nanos = notEmpty.awaitNanos(nanos);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int drainTo(List<EndpointHit> sink, int maxRecords) {
+        lock.lock();
+        try {
+            int drained = 0;
+            while (head < tail && drained < maxRecords) {
+                sink.add(HitRecordCodec.read(slot(head)));
+                head++;
+                drained++;
+            }
+            if (drained > 0) notFull.signalAll();
+            return drained;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return (int) (tail - head);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public void wakeUp() {
+        lock.lock();
+        try {
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ByteBuffer slot(long sequence) {
+        int offset = (int) (sequence % capacity) * SLOT_SIZE;
+        ByteBuffer slot = storage.duplicate();
+        slot.position(offset).limit(offset + SLOT_SIZE);
+        return slot;
+    }
+}
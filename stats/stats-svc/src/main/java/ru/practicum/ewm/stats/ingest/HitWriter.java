@@ -0,0 +1,39 @@
+package ru.practicum.ewm.stats.ingest;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.engine.StatsEngine;
+import ru.practicum.ewm.stats.hot.HotWindow;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.SketchService;
+import ru.practicum.ewm.stats.sketch.TopHits;
+import ru.practicum.ewm.stats.storage.RollupStorage;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class HitWriter {
+    private final StatsEngine statsEngine;
+    private final RollupStorage rollupStorage;
+    private final SketchService sketchService;
+    private final HotWindow hotWindow;
+    private final TopHits topHits;
+    private final StatsCache statsCache;
+
+    @Transactional
+    public List<EndpointHit> write(List<EndpointHit> hits) {
+        List<EndpointHit> saved = statsEngine.saveAll(hits);
+        rollupStorage.add(saved);
+        sketchService.record(saved);
+        hotWindow.record(saved);
+        topHits.record(saved);
+        statsCache.record(saved);
+        log.debug("Записано {} событий из {} переданных", saved.size(), hits.size());
+        return saved;
+    }
+}
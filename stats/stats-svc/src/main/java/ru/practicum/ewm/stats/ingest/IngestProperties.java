@@ -0,0 +1,45 @@
+package ru.practicum.ewm.stats.ingest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.ingest")
+public class IngestProperties {
+    private Buffer buffer = new Buffer();
+    private Wal wal = new Wal();
+
+    @Data
+    public static class Buffer {
+        private int capacity = 16384;
+        private int batchSize = 500;
+        private long flushIntervalMs = 200;
+        private OverflowPolicy overflow = OverflowPolicy.REJECT;
+        private long blockTimeoutMs = 1000;
+        private long shutdownTimeoutMs = 30000;
+    }
+
+    @Data
+    public static class Wal {
+        private String directory = "wal";
+        private int segmentSize = 64 * 1024 * 1024;
+        private int maxSegments = 64;
+        private SyncMode syncMode = SyncMode.BATCH;
+        private long syncIntervalMs = 5;
+        private long syncTimeoutMs = 1000;
+        private int replayBatchSize = 1000;
+        private long replayIntervalMs = 100;
+    }
+
+    public enum SyncMode {
+        BATCH,
+        NONE
+    }
+
+    public enum OverflowPolicy {
+        REJECT,
+        BLOCK
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.ewm.stats.ingest;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.transaction.CannotCreateTransactionException;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+public class RetryingHitWriter {
+    private static final long INITIAL_DELAY_MS = 100;
+    private static final long MAX_DELAY_MS = 5000;
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final HitWriter hitWriter;
+    private final Counter deadLettered;
+
+    public RetryingHitWriter(HitWriter hitWriter, MeterRegistry meterRegistry) {
+        this.hitWriter = hitWriter;
+        this.deadLettered = meterRegistry.counter("stats.ingest.dead-lettered");
+    }
+
+    public void write(List<EndpointHit> hits) throws InterruptedException {
+        if (write(hits, MAX_ATTEMPTS)) return;
+        if (hits.size() == 1) {
+            deadLetter(hits.get(0));
+            return;
+        }
+        log.warn("Пакет из {} событий записывается по одному, чтобы отделить ошибочные события", hits.size());
+        for (EndpointHit hit : hits) {
+            if (!write(List.of(hit), 1)) deadLetter(hit);
+        }
+    }
+
+    private boolean write(List<EndpointHit> hits, int maxAttempts) throws InterruptedException {
+        long delay = INITIAL_DELAY_MS;
+        int attempts = 0;
+        while (true) {
+            try {
+                hitWriter.write(hits);
+                return true;
+            } catch (RuntimeException e) {
+                if (!isTransient(e) && ++attempts >= maxAttempts) {
+                    log.error("Не удалось записать {} событий за {} попыток: {}", hits.size(), attempts,
+                            e.getMessage());
+                    return false;
+                }
+                log.error("Не удалось записать {} событий, повтор через {} мс: {}", hits.size(), delay, e.getMessage());
+                TimeUnit.MILLISECONDS.sleep(delay);
+                delay = Math.min(delay * 2, MAX_DELAY_MS);
+            }
+        }
+    }
+
+    private void deadLetter(EndpointHit hit) {
+        deadLettered.increment();
+        log.error("Событие не может быть записано и отброшено: {}", hit);
+    }
+
+    private static boolean isTransient(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+}
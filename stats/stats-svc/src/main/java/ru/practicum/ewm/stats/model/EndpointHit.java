@@ -3,8 +3,10 @@ package ru.practicum.ewm.stats.model;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Formula;
 
 import javax.persistence.Column;
+import javax.persistence.Convert;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
@@ -21,11 +23,13 @@ public class EndpointHit {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
-    @Column(length = 128)
+    @Formula("(SELECT a.name FROM statistics_app AS a WHERE a.id = app_id)")
     private String app;
-    @Column(length = 128)
+    @Formula("(SELECT u.name FROM statistics_uri AS u WHERE u.id = uri_id)")
     private String uri;
-    @Column(length = 40)
+    @Convert(converter = IpAddressConverter.class)
     private String ip;
     private LocalDateTime timestamp;
-}
\ No newline at end of file
+    @Column(name = "idempotency_key", length = 64)
+    private String idempotencyKey;
+}
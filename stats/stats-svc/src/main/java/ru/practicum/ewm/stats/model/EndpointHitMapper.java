@@ -1,6 +1,8 @@
 package ru.practicum.ewm.stats.model;
 
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -12,7 +14,19 @@ public class EndpointHitMapper {
                 endpointHitDto.getApp(),
                 endpointHitDto.getUri(),
                 endpointHitDto.getIp(),
-                LocalDateTime.parse(endpointHitDto.getTimestamp(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"))
+                LocalDateTime.parse(endpointHitDto.getTimestamp(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")),
+                endpointHitDto.getIdempotencyKey()
+        );
+    }
+
+    public static EndpointHit endpointHitFromWire(WireHitDto wireHitDto) {
+        return new EndpointHit(
+                null,
+                wireHitDto.getApp(),
+                wireHitDto.getUri(),
+                wireHitDto.getIp(),
+                StatsWireCodec.fromEpochMillis(wireHitDto.getTimestamp()),
+                wireHitDto.getIdempotencyKey()
         );
     }
 }
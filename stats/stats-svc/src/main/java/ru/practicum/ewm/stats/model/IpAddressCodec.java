@@ -0,0 +1,98 @@
+package ru.practicum.ewm.stats.model;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+
+public final class IpAddressCodec {
+    private static final int IPV4_LENGTH = 4;
+    private static final int IPV6_LENGTH = 16;
+    private static final byte TEXT = 0;
+    private static final byte PADDED_TEXT = 1;
+
+    private IpAddressCodec() {
+    }
+
+    public static byte[] encode(String ip) {
+        byte[] address = parseIpv4(ip);
+        if (address == null) address = parseIpv6(ip);
+        if (address != null && ip.equals(decode(address))) return address;
+
+        byte[] text = ip.getBytes(StandardCharsets.UTF_8);
+        boolean padded = text.length + 1 == IPV4_LENGTH || text.length + 1 == IPV6_LENGTH;
+        byte[] bytes = new byte[text.length + (padded ? 2 : 1)];
+        bytes[0] = padded ? PADDED_TEXT : TEXT;
+        System.arraycopy(text, 0, bytes, bytes.length - text.length, text.length);
+        return bytes;
+    }
+
+    public static String decode(byte[] bytes) {
+        if (bytes.length == IPV4_LENGTH) {
+            return (bytes[0] & 0xff) + "." + (bytes[1] & 0xff) + "." + (bytes[2] & 0xff) + "." + (bytes[3] & 0xff);
+        }
+        if (bytes.length == IPV6_LENGTH) return formatIpv6(bytes);
+        int offset = bytes[0] == PADDED_TEXT ? 2 : 1;
+        return new String(bytes, offset, bytes.length - offset, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] parseIpv4(String ip) {
+        String[] parts = ip.split("\\.", -1);
+        if (parts.length != IPV4_LENGTH) return null;
+        byte[] address = new byte[IPV4_LENGTH];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 3 || (part.length() > 1 && part.charAt(0) == '0')) return null;
+            int value = 0;
+            for (int j = 0; j < part.length(); j++) {
+                char c = part.charAt(j);
+                if (c < '0' || c > '9') return null;
+                value = value * 10 + (c - '0');
+            }
+            if (value > 255) return null;
+            address[i] = (byte) value;
+        }
+        return address;
+    }
+
+    private static byte[] parseIpv6(String ip) {
+        if (ip.indexOf(':') < 0) return null;
+        for (int i = 0; i < ip.length(); i++) {
+            char c = ip.charAt(i);
+            if (Character.digit(c, 16) < 0 && c != ':' && c != '.') return null;
+        }
+        try {
+            return InetAddress.getByName(ip).getAddress();
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static String formatIpv6(byte[] bytes) {
+        int[] groups = new int[8];
+        for (int i = 0; i < groups.length; i++) {
+            groups[i] = ((bytes[2 * i] & 0xff) << 8) | (bytes[2 * i + 1] & 0xff);
+        }
+        int bestStart = -1;
+        int bestLength = 1;
+        for (int i = 0; i < groups.length; i++) {
+            int length = 0;
+            while (i + length < groups.length && groups[i + length] == 0) length++;
+            if (length > bestLength) {
+                bestStart = i;
+                bestLength = length;
+            }
+        }
+
+        StringBuilder result = new StringBuilder();
+        for (int i = 0; i < groups.length; i++) {
+            if (i == bestStart) {
+                result.append("::");
+                i += bestLength - 1;
+                continue;
+            }
+            if (result.length() > 0 && result.charAt(result.length() - 1) != ':') result.append(':');
+            result.append(Integer.toHexString(groups[i]));
+        }
+        return result.toString();
+    }
+}
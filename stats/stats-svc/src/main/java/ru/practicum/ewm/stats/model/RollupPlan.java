@@ -0,0 +1,56 @@
+package ru.practicum.ewm.stats.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+@Value
+public class RollupPlan {
+    TimeRange rawHead;
+    Map<RollupGranularity, List<TimeRange>> buckets;
+    LocalDateTime rawTailFrom;
+    LocalDateTime rawTailTo;
+
+    public static RollupPlan of(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = RollupGranularity.MINUTE.ceil(start);
+        LocalDateTime to = RollupGranularity.MINUTE.floor(end);
+        if (!from.isBefore(to))
+            return new RollupPlan(new TimeRange(start, start), new EnumMap<>(RollupGranularity.class), start, end);
+
+        Map<RollupGranularity, List<TimeRange>> buckets = new EnumMap<>(RollupGranularity.class);
+        split(new TimeRange(from, to), RollupGranularity.MINUTE, buckets);
+        return new RollupPlan(new TimeRange(start, from), buckets, to, end);
+    }
+
+    private static void split(
+            TimeRange range,
+            RollupGranularity granularity,
+            Map<RollupGranularity, List<TimeRange>> buckets
+    ) {
+        RollupGranularity coarser = granularity.ordinal() + 1 < RollupGranularity.values().length ?
+                RollupGranularity.values()[granularity.ordinal() + 1] : null;
+        if (coarser != null) {
+            LocalDateTime from = coarser.ceil(range.getFrom());
+            LocalDateTime to = coarser.floor(range.getTo());
+            if (from.isBefore(to)) {
+                add(buckets, granularity, new TimeRange(range.getFrom(), from));
+                split(new TimeRange(from, to), coarser, buckets);
+                add(buckets, granularity, new TimeRange(to, range.getTo()));
+                return;
+            }
+        }
+        add(buckets, granularity, range);
+    }
+
+    private static void add(
+            Map<RollupGranularity, List<TimeRange>> buckets,
+            RollupGranularity granularity,
+            TimeRange range
+    ) {
+        if (!range.isEmpty()) buckets.computeIfAbsent(granularity, key -> new ArrayList<>()).add(range);
+    }
+}
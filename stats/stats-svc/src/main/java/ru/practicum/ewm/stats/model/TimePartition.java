@@ -0,0 +1,61 @@
+package ru.practicum.ewm.stats.model;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Value
+public class TimePartition {
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final Pattern UPPER_BOUND = Pattern.compile("TO \\('(\\d{4}-\\d{2}-\\d{2})[^']*'\\)");
+
+    LocalDate from;
+    LocalDate to;
+
+    public static TimePartition containing(LocalDate day, int days) {
+        LocalDate from = LocalDate.ofEpochDay(Math.floorDiv(day.toEpochDay(), days) * days);
+        return new TimePartition(from, from.plusDays(days));
+    }
+
+    public static List<TimePartition> ahead(LocalDate today, int days, int count) {
+        List<TimePartition> partitions = new ArrayList<>(count + 1);
+        TimePartition partition = containing(today, days);
+        for (int i = 0; i <= count; i++) {
+            partitions.add(partition);
+            partition = new TimePartition(partition.to, partition.to.plusDays(days));
+        }
+        return partitions;
+    }
+
+    public static List<TimePartition> covering(LocalDate first, LocalDate last, int days) {
+        List<TimePartition> partitions = new ArrayList<>();
+        for (TimePartition partition = containing(first, days); !partition.from.isAfter(last);
+             partition = new TimePartition(partition.to, partition.to.plusDays(days))) {
+            partitions.add(partition);
+        }
+        return partitions;
+    }
+
+    public static LocalDate parseUpperBound(String bound) {
+        Matcher matcher = UPPER_BOUND.matcher(bound);
+        return matcher.find() ? LocalDate.parse(matcher.group(1)) : null;
+    }
+
+    public String tableName(String table) {
+        return table + "_p" + from.format(SUFFIX);
+    }
+
+    public LocalDateTime getStart() {
+        return from.atStartOfDay();
+    }
+
+    public LocalDateTime getEnd() {
+        return to.atStartOfDay();
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stats.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class TimeRange {
+    LocalDateTime from;
+    LocalDateTime to;
+
+    public boolean isEmpty() {
+        return !from.isBefore(to);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.practicum.ewm.stats.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.practicum.ewm.stats.cache.StatsCacheProperties;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "stats.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(ReplicaProperties properties) {
+        HikariDataSource replica = new HikariDataSource();
+        replica.setPoolName("replica");
+        replica.setJdbcUrl(properties.getUrl());
+        replica.setUsername(properties.getUsername());
+        replica.setPassword(properties.getPassword());
+        if (properties.getDriverClassName() != null) replica.setDriverClassName(properties.getDriverClassName());
+        replica.setReadOnly(true);
+        replica.setInitializationFailTimeout(-1);
+        return replica;
+    }
+
+    @Bean(destroyMethod = "stop")
+    public ReplicaMonitor replicaMonitor(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                         ReplicaProperties properties, StatsCacheProperties cacheProperties) {
+        Duration maxLag = Duration.ofMillis(properties.getMaxLagMs());
+        if (cacheProperties.getSettle().compareTo(maxLag) < 0) {
+            log.info("Кэш статистики не сохраняет результаты в течение {} мс после записи из-за отставания реплики",
+                    properties.getMaxLagMs());
+            cacheProperties.setSettle(maxLag);
+        }
+        return new ReplicaMonitor(primaryDataSource, replicaDataSource, properties);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startReplicaMonitor(ApplicationReadyEvent event) {
+        event.getApplicationContext().getBean(ReplicaMonitor.class).start();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+                                 ReplicaMonitor replicaMonitor) {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+                replicaMonitor);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
@@ -0,0 +1,133 @@
+package ru.practicum.ewm.stats.replica;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+@Slf4j
+public class ReplicaMonitor implements MeterBinder {
+    private static final String UPDATE_BEAT = "UPDATE statistics_heartbeat SET beat = ? WHERE id = 1";
+    private static final String INSERT_BEAT = "INSERT INTO statistics_heartbeat (id, beat) VALUES (1, ?)";
+    private static final String SELECT_BEAT = "SELECT beat FROM statistics_heartbeat WHERE id = 1";
+
+    private final JdbcTemplate primary;
+    private final JdbcTemplate replica;
+    private final ReplicaProperties properties;
+    private final Object signal = new Object();
+    private final LongAdder replicaReads = new LongAdder();
+    private final LongAdder primaryReads = new LongAdder();
+    private Thread monitor;
+    private volatile boolean running = true;
+    private volatile boolean available;
+    private volatile long lagMs = -1;
+    private volatile LocalDateTime lastBeat;
+
+    public ReplicaMonitor(DataSource primary, DataSource replica, ReplicaProperties properties) {
+        this.primary = new JdbcTemplate(primary);
+        this.replica = new JdbcTemplate(replica);
+        this.properties = properties;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry meterRegistry) {
+        Gauge.builder("stats.replica.lag", this, ReplicaMonitor::getLagMs).baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("stats.replica.usable", this, monitor -> monitor.isUsable() ? 1 : 0).register(meterRegistry);
+        FunctionCounter.builder("stats.replica.reads", replicaReads, LongAdder::sum).tag("target", "replica")
+                .register(meterRegistry);
+        FunctionCounter.builder("stats.replica.reads", primaryReads, LongAdder::sum).tag("target", "primary")
+                .register(meterRegistry);
+    }
+
+    public void start() {
+        check();
+        monitor = new Thread(this::monitorLoop, "replica-monitor");
+        monitor.setDaemon(true);
+        monitor.start();
+    }
+
+    public void stop() throws InterruptedException {
+        running = false;
+        if (monitor == null) return;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        monitor.join();
+    }
+
+    public boolean isUsable() {
+        return available && lagMs <= properties.getMaxLagMs();
+    }
+
+    public boolean routeToReplica() {
+        boolean toReplica = isUsable() || !properties.isFallback();
+        (toReplica ? replicaReads : primaryReads).increment();
+        return toReplica;
+    }
+
+    public long getLagMs() {
+        return lagMs;
+    }
+
+    public void check() {
+        boolean wasUsable = isUsable();
+        try {
+            List<Timestamp> replicated = replica.queryForList(SELECT_BEAT, Timestamp.class);
+            LocalDateTime written = lastBeat;
+            if (replicated.isEmpty() || written == null) {
+                available = false;
+                lagMs = -1;
+            } else {
+                available = true;
+                lagMs = Math.max(0, Duration.between(replicated.get(0).toLocalDateTime(), written).toMillis());
+            }
+        } catch (DataAccessException e) {
+            if (available) log.warn("Реплика недоступна: {}", e.getMessage());
+            available = false;
+            lagMs = -1;
+        }
+        if (wasUsable != isUsable()) log.info("Реплика {}, отставание {} мс",
+                isUsable() ? "используется для чтения" : "не используется для чтения", lagMs);
+        beat();
+    }
+
+    public LocalDateTime getLastBeat() {
+        return lastBeat;
+    }
+
+    private void beat() {
+        LocalDateTime beat = LocalDateTime.now().withNano(0);
+        Timestamp timestamp = Timestamp.valueOf(beat);
+        try {
+            if (primary.update(UPDATE_BEAT, timestamp) == 0) primary.update(INSERT_BEAT, timestamp);
+            lastBeat = beat;
+        } catch (DataAccessException e) {
+            log.warn("Не удалось записать отметку времени для реплики: {}", e.getMessage());
+        }
+    }
+
+    private void monitorLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getCheckIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (running) check();
+        }
+    }
+}
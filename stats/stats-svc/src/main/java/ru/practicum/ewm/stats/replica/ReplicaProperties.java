@@ -0,0 +1,19 @@
+package ru.practicum.ewm.stats.replica;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.replica")
+public class ReplicaProperties {
+    private boolean enabled = false;
+    private String url;
+    private String username;
+    private String password;
+    private String driverClassName;
+    private boolean fallback = true;
+    private long maxLagMs = 5000;
+    private long checkIntervalMs = 1000;
+}
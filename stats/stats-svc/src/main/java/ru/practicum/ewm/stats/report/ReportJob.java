@@ -0,0 +1,80 @@
+package ru.practicum.ewm.stats.report;
+
+import lombok.Getter;
+import lombok.Value;
+import ru.practicum.ewm.dto.ViewStatsDto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+@Getter
+public class ReportJob {
+    private final String id;
+    private final Query query;
+    private final LocalDateTime created;
+    private final List<ViewStatsDto> rows = new ArrayList<>();
+    private volatile ReportStatus status = ReportStatus.PENDING;
+    private volatile LocalDateTime finished;
+    private volatile String error;
+    private volatile Future<?> future;
+    private volatile long resultBytes;
+
+    public ReportJob(String id, Query query, LocalDateTime created) {
+        this.id = id;
+        this.query = query;
+        this.created = created;
+    }
+
+    void attach(Future<?> future) {
+        this.future = future;
+    }
+
+    void retain(long bytes) {
+        this.resultBytes = bytes;
+    }
+
+    synchronized boolean run() {
+        if (status != ReportStatus.PENDING) return false;
+        status = ReportStatus.RUNNING;
+        return true;
+    }
+
+    synchronized boolean append(ViewStatsDto row) {
+        if (status != ReportStatus.RUNNING) return false;
+        rows.add(row);
+        return true;
+    }
+
+    synchronized void finish(ReportStatus status, String error) {
+        if (this.status.isFinished()) return;
+        this.status = status;
+        this.error = error;
+        this.finished = LocalDateTime.now();
+        if (status != ReportStatus.DONE) rows.clear();
+    }
+
+    boolean cancel() {
+        synchronized (this) {
+            if (status.isFinished()) return false;
+            finish(ReportStatus.CANCELLED, null);
+        }
+        Future<?> running = future;
+        if (running != null) running.cancel(true);
+        return true;
+    }
+
+    boolean isExpired(LocalDateTime now, long ttlMs) {
+        LocalDateTime at = finished;
+        return at != null && at.plusNanos(ttlMs * 1_000_000).isBefore(now);
+    }
+
+    @Value
+    public static class Query {
+        LocalDateTime start;
+        LocalDateTime end;
+        List<String> uris;
+        boolean unique;
+    }
+}
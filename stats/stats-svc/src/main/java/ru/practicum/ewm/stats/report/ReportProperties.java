@@ -0,0 +1,18 @@
+package ru.practicum.ewm.stats.report;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.report")
+public class ReportProperties {
+    private int workers = 2;
+    private int queueCapacity = 16;
+    private int maxJobs = 64;
+    private long maxResultBytes = 64 * 1024 * 1024;
+    private long maxTotalResultBytes = 256 * 1024 * 1024;
+    private long resultTtlMs = 600000;
+    private long statementTimeoutMs = 0;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.ewm.stats.report;
+
+public enum ReportStatus {
+    PENDING,
+    RUNNING,
+    DONE,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == DONE || this == FAILED || this == CANCELLED;
+    }
+}
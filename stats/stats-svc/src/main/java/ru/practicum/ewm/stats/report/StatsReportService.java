@@ -0,0 +1,217 @@
+package ru.practicum.ewm.stats.report;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.StatsReportDto;
+import ru.practicum.ewm.dto.StatsReportPageDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.exception.QueryOverloadException;
+import ru.practicum.ewm.stats.exception.ReportNotFoundException;
+import ru.practicum.ewm.stats.exception.ReportNotReadyException;
+import ru.practicum.ewm.stats.service.StatsService;
+import ru.practicum.ewm.stats.storage.SqlDialect;
+
+import javax.annotation.PreDestroy;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Service
+@Slf4j
+public class StatsReportService {
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int ROW_OVERHEAD_BYTES = 64;
+
+    private final StatsService statsService;
+    private final ReportProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+    private volatile SqlDialect dialect;
+
+    public StatsReportService(StatsService statsService, ReportProperties properties, JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager) {
+        this.statsService = statsService;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        int workers = Math.max(1, properties.getWorkers());
+        BlockingQueue<Runnable> queue = properties.getQueueCapacity() > 0
+                ? new ArrayBlockingQueue<>(properties.getQueueCapacity())
+                : new SynchronousQueue<>();
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, queue, task -> {
+            Thread thread = new Thread(task, "stats-report-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public StatsReportDto submit(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        if (end.isBefore(start))
+            throw new DateTimeException("Нижняя граница временного интервала не может быть больше верхней границы");
+        evictExpired();
+        ReportJob.Query query = new ReportJob.Query(start, end, uris == null ? null : List.copyOf(uris), unique);
+        ReportJob job;
+        synchronized (jobs) {
+            for (ReportJob existing : jobs.values()) {
+                if (existing.getQuery().equals(query) && existing.getStatus() != ReportStatus.FAILED
+                        && existing.getStatus() != ReportStatus.CANCELLED) {
+                    log.info("Для запроса {} используется отчёт {}", query, existing.getId());
+                    return toDto(existing);
+                }
+            }
+            if (jobs.size() >= properties.getMaxJobs())
+                throw new QueryOverloadException("Достигнуто максимальное число отчётов, повторите запрос позже");
+            if (totalBytes.get() >= properties.getMaxTotalResultBytes())
+                throw new QueryOverloadException("Результаты отчётов заняли всю отведённую память, " +
+                        "повторите запрос позже");
+
+            job = new ReportJob(UUID.randomUUID().toString(), query, LocalDateTime.now());
+            jobs.put(job.getId(), job);
+            try {
+                job.attach(executor.submit(() -> execute(job)));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getId());
+                throw new QueryOverloadException("Очередь отчётов переполнена, повторите запрос позже");
+            }
+        }
+        log.info("Создан отчёт {} по запросу {}", job.getId(), query);
+        return toDto(job);
+    }
+
+    public StatsReportDto getReport(String id) {
+        return toDto(find(id));
+    }
+
+    public StatsReportDto cancel(String id) {
+        ReportJob job = find(id);
+        if (job.cancel()) log.info("Отчёт {} отменён", id);
+        return toDto(job);
+    }
+
+    public StatsReportPageDto getResult(String id, int from, int size) {
+        List<ViewStatsDto> rows = completedRows(find(id));
+        int first = Math.min(from, rows.size());
+        int last = Math.min(rows.size(), first + size);
+        return new StatsReportPageDto(id, first, rows.size(), new ArrayList<>(rows.subList(first, last)));
+    }
+
+    public void streamResult(String id, Consumer<ViewStatsDto> consumer) {
+        completedRows(find(id)).forEach(consumer);
+    }
+
+    @PreDestroy
+    public void stop() {
+        jobs.values().forEach(ReportJob::cancel);
+        executor.shutdownNow();
+    }
+
+    private void execute(ReportJob job) {
+        if (!job.run()) return;
+        ReportJob.Query query = job.getQuery();
+        long[] bytes = {0};
+        long[] reserved = {0};
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                applyStatementTimeout();
+                statsService.streamStats(query.getStart(), query.getEnd(), query.getUris(), query.isUnique(),
+                        row -> {
+                            long size = ROW_OVERHEAD_BYTES + 2L * (row.getApp().length() + row.getUri().length());
+                            bytes[0] += size;
+                            if (bytes[0] > properties.getMaxResultBytes())
+                                throw new IllegalStateException(String.format(
+                                        "Результат отчёта превышает %d байт, сократите период или уточните uris",
+                                        properties.getMaxResultBytes()));
+                            reserved[0] += size;
+                            if (totalBytes.addAndGet(size) > properties.getMaxTotalResultBytes())
+                                throw new IllegalStateException(String.format(
+                                        "Результаты отчётов превышают общий лимит %d байт, повторите запрос позже",
+                                        properties.getMaxTotalResultBytes()));
+                            if (Thread.currentThread().isInterrupted() || !job.append(row))
+                                throw new CancellationException();
+                        });
+            });
+            job.retain(reserved[0]);
+            job.finish(ReportStatus.DONE, null);
+            log.info("Отчёт {} готов: {} строк", job.getId(), job.getRows().size());
+        } catch (CancellationException e) {
+            job.finish(ReportStatus.CANCELLED, null);
+        } catch (RuntimeException e) {
+            if (job.getStatus() == ReportStatus.CANCELLED) return;
+            job.finish(ReportStatus.FAILED, e.getMessage());
+            log.error("Ошибка построения отчёта {}: {}", job.getId(), e.getMessage());
+        } finally {
+            if (job.getStatus() != ReportStatus.DONE) totalBytes.addAndGet(-reserved[0]);
+        }
+    }
+
+    private void applyStatementTimeout() {
+        if (dialect == null) dialect = SqlDialect.of(jdbcTemplate);
+        if (dialect == SqlDialect.POSTGRESQL)
+            jdbcTemplate.execute("SET LOCAL statement_timeout = " + Math.max(0, properties.getStatementTimeoutMs()));
+    }
+
+    private List<ViewStatsDto> completedRows(ReportJob job) {
+        if (job.getStatus() == ReportStatus.DONE) return job.getRows();
+        if (job.getStatus() == ReportStatus.FAILED)
+            throw new ReportNotReadyException(String.format("Отчёт %s завершился с ошибкой: %s", job.getId(),
+                    job.getError()));
+        throw new ReportNotReadyException(String.format("Отчёт %s не готов, статус %s", job.getId(),
+                job.getStatus()));
+    }
+
+    private ReportJob find(String id) {
+        evictExpired();
+        ReportJob job = jobs.get(id);
+        if (job == null) throw new ReportNotFoundException(String.format("Отчёт %s не найден", id));
+        return job;
+    }
+
+    private void evictExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        for (ReportJob job : jobs.values()) {
+            if (job.isExpired(now, properties.getResultTtlMs()) && jobs.remove(job.getId(), job)
+                    && job.getStatus() == ReportStatus.DONE)
+                totalBytes.addAndGet(-job.getResultBytes());
+        }
+    }
+
+    private static StatsReportDto toDto(ReportJob job) {
+        ReportJob.Query query = job.getQuery();
+        ReportStatus status = job.getStatus();
+        return new StatsReportDto(
+                job.getId(),
+                query.getStart().format(TIMESTAMP_FORMAT),
+                query.getEnd().format(TIMESTAMP_FORMAT),
+                query.getUris(),
+                query.isUnique(),
+                status.name(),
+                status == ReportStatus.DONE ? (long) job.getRows().size() : null,
+                job.getError(),
+                job.getCreated().format(TIMESTAMP_FORMAT),
+                job.getFinished() == null ? null : job.getFinished().format(TIMESTAMP_FORMAT)
+        );
+    }
+}
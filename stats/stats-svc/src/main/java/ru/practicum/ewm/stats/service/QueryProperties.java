@@ -0,0 +1,13 @@
+package ru.practicum.ewm.stats.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.query")
+public class QueryProperties {
+    private boolean rollups = true;
+    private int timeseriesMaxPoints = 1500;
+}
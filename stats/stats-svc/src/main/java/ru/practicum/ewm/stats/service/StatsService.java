@@ -1,13 +1,35 @@
 package ru.practicum.ewm.stats.service;
 
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.StatsQueryResultDto;
+import ru.practicum.ewm.dto.TimeSeriesPointDto;
+import ru.practicum.ewm.dto.TopHitDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.dto.wire.WireHitDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatsService {
     void saveEvent(EndpointHitDto endpointHitDto);
 
+    void saveEvents(List<EndpointHitDto> endpointHitDtos);
+
+    void saveWireEvents(List<WireHitDto> wireHitDtos);
+
     List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                     Consumer<ViewStatsDto> consumer);
+
+    List<StatsQueryResultDto> queryStats(List<StatsQueryDto> queries);
+
+    List<ViewStatsDto> getApproximateUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    List<TopHitDto> getTopHits(int k, String window);
+
+    List<TimeSeriesPointDto> getTimeSeries(String uri, LocalDateTime start, LocalDateTime end, String bucket,
+                                           boolean unique);
 }
@@ -4,38 +4,214 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.engine.StatsEngine;
+import ru.practicum.ewm.stats.hot.HotWindow;
+import ru.practicum.ewm.stats.ingest.HitIngestor;
 import ru.practicum.ewm.stats.model.EndpointHit;
 import ru.practicum.ewm.stats.model.EndpointHitMapper;
-import ru.practicum.ewm.stats.storage.StatsStorage;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+import ru.practicum.ewm.stats.model.StatsWindow;
+import ru.practicum.ewm.stats.sketch.SketchService;
+import ru.practicum.ewm.stats.sketch.TopHits;
+import ru.practicum.ewm.stats.storage.DailyStorage;
+import ru.practicum.ewm.stats.storage.RollupStorage;
+import ru.practicum.ewm.stats.storage.TimeSeriesStorage;
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.StatsQueryResultDto;
+import ru.practicum.ewm.dto.TimeSeriesPointDto;
+import ru.practicum.ewm.dto.TopHitDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.dto.wire.WireHitDto;
 
+import javax.validation.ValidationException;
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @RequiredArgsConstructor
 @Service
 @Slf4j
 public class StatsServiceImpl implements StatsService {
-    private final StatsStorage statsStorage;
+    private static final String QUERY_TIMEOUT = "${stats.query.timeout-seconds:30}";
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private final StatsEngine statsEngine;
+    private final HitIngestor hitIngestor;
+    private final RollupStorage rollupStorage;
+    private final QueryProperties queryProperties;
+    private final SketchService sketchService;
+    private final HotWindow hotWindow;
+    private final TopHits topHits;
+    private final TimeSeriesStorage timeSeriesStorage;
+    private final StatsCache statsCache;
+    private final DailyStorage dailyStorage;
+    private final ColdStorage coldStorage;
 
     @Override
-    @Transactional
     public void saveEvent(EndpointHitDto endpointHitDto) {
-        EndpointHit endpointHit = statsStorage.save(EndpointHitMapper.endpointHitFromDto(endpointHitDto));
+        EndpointHit endpointHit = EndpointHitMapper.endpointHitFromDto(endpointHitDto);
+        hitIngestor.ingest(List.of(endpointHit));
         log.info("Добавлено событие {}", endpointHit);
     }
 
     @Override
-    @Transactional(readOnly = true)
+    public void saveEvents(List<EndpointHitDto> endpointHitDtos) {
+        hitIngestor.ingest(
+                endpointHitDtos.stream()
+                        .map(EndpointHitMapper::endpointHitFromDto)
+                        .collect(Collectors.toList())
+        );
+        log.info("Добавлено {} событий", endpointHitDtos.size());
+    }
+
+    @Override
+    public void saveWireEvents(List<WireHitDto> wireHitDtos) {
+        hitIngestor.ingest(
+                wireHitDtos.stream()
+                        .map(EndpointHitMapper::endpointHitFromWire)
+                        .collect(Collectors.toList())
+        );
+        log.info("Добавлено {} событий в двоичном формате", wireHitDtos.size());
+    }
+
+    @Override
+    @Transactional(readOnly = true, timeoutString = QUERY_TIMEOUT)
     public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
-        if (end.isBefore(start))
-            throw new DateTimeException("Нижняя граница временного интервала не может быть больше верхней границы");
+        validateRange(start, end);
         log.info("Запрошена статистика по следующим параметрам: start={}, end={}, uris={}, unique={}",
                 start, end, uris, unique);
 
-        if (unique) return statsStorage.getStatsWithUniqueIps(start, end, uris);
-        else return statsStorage.getStats(start, end, uris);
+        return statsCache.get(start, end, uris, unique, (from, to) -> queryStats(from, to, uris, unique));
+    }
+
+    @Override
+    @Transactional(readOnly = true, timeoutString = QUERY_TIMEOUT)
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        validateRange(start, end);
+        log.info("Запрошена потоковая выгрузка статистики: start={}, end={}, uris={}, unique={}",
+                start, end, uris, unique);
+
+        Optional<List<ViewStatsDto>> recent = hotWindow.getStats(start, end, uris, unique);
+        if (recent.isPresent()) recent.get().forEach(consumer);
+        else if (!unique && useRollups(start)) rollupStorage.streamStats(start, end, uris, consumer);
+        else statsEngine.streamStats(start, end, uris, unique, consumer);
+    }
+
+    @Override
+    @Transactional(readOnly = true, timeoutString = QUERY_TIMEOUT)
+    public List<StatsQueryResultDto> queryStats(List<StatsQueryDto> queries) {
+        List<StatsWindow> windows = new ArrayList<>(queries.size());
+        for (StatsQueryDto query : queries) {
+            LocalDateTime start = LocalDateTime.parse(query.getStart(), TIMESTAMP_FORMAT);
+            LocalDateTime end = LocalDateTime.parse(query.getEnd(), TIMESTAMP_FORMAT);
+            validateRange(start, end);
+            windows.add(new StatsWindow(query.getUri(), start, end, query.isUnique()));
+        }
+        log.info("Запрошена статистика по {} интервалам", windows.size());
+
+        List<List<ViewStatsDto>> stats = statsEngine.getWindowStats(windows);
+        List<StatsQueryResultDto> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            StatsQueryDto query = queries.get(i);
+            results.add(new StatsQueryResultDto(query.getUri(), query.getStart(), query.getEnd(), query.isUnique(),
+                    stats.get(i)));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true, timeoutString = QUERY_TIMEOUT)
+    public List<ViewStatsDto> getApproximateUniqueStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        validateRange(start, end);
+        log.info("Запрошена приблизительная статистика уникальных посещений: start={}, end={}, uris={}",
+                start, end, uris);
+        return sketchService.getStats(start, end, uris);
+    }
+
+    @Override
+    public List<TopHitDto> getTopHits(int k, String window) {
+        log.info("Запрошены самые популярные эндпоинты: k={}, window={}", k, window);
+        return topHits.getTop(k, window);
+    }
+
+    @Override
+    @Transactional(readOnly = true, timeoutString = QUERY_TIMEOUT)
+    public List<TimeSeriesPointDto> getTimeSeries(String uri, LocalDateTime start, LocalDateTime end, String bucket,
+                                                  boolean unique) {
+        validateRange(start, end);
+        RollupGranularity granularity = parseBucket(bucket);
+        LocalDateTime first = granularity.floor(start);
+        LocalDateTime last = granularity.floor(end);
+        long points = granularity.between(first, last) + 1;
+        if (points > queryProperties.getTimeseriesMaxPoints())
+            throw new ValidationException(String.format("Временной ряд содержит %d точек при максимуме %d, " +
+                    "увеличьте интервал группировки или сократите период", points,
+                    queryProperties.getTimeseriesMaxPoints()));
+        log.info("Запрошен временной ряд: uri={}, start={}, end={}, bucket={}, unique={}",
+                uri, start, end, granularity, unique);
+
+        Map<LocalDateTime, Long> hits;
+        if (statsEngine.isSelfContained()) hits = getEngineTimeSeries(uri, start, end, granularity, unique);
+        else if (unique) hits = timeSeriesStorage.getUniqueHits(uri, start, end, granularity);
+        else hits = timeSeriesStorage.getHits(uri, start, end, granularity);
+        List<TimeSeriesPointDto> series = new ArrayList<>((int) points);
+        for (LocalDateTime point = first; !point.isAfter(last); point = granularity.next(point)) {
+            series.add(new TimeSeriesPointDto(point.format(TIMESTAMP_FORMAT), hits.getOrDefault(point, 0L)));
+        }
+        return series;
+    }
+
+    private Map<LocalDateTime, Long> getEngineTimeSeries(String uri, LocalDateTime start, LocalDateTime end,
+                                                         RollupGranularity granularity, boolean unique) {
+        List<StatsWindow> windows = new ArrayList<>();
+        for (LocalDateTime point = granularity.floor(start); !point.isAfter(end); point = granularity.next(point)) {
+            LocalDateTime last = granularity.next(point).minusNanos(1);
+            windows.add(new StatsWindow(uri, point.isBefore(start) ? start : point, last.isAfter(end) ? end : last,
+                    unique));
+        }
+        List<List<ViewStatsDto>> stats = statsEngine.getWindowStats(windows);
+        Map<LocalDateTime, Long> hits = new HashMap<>();
+        for (int i = 0; i < windows.size(); i++) {
+            long total = stats.get(i).stream().mapToLong(ViewStatsDto::getHits).sum();
+            if (total > 0) hits.put(granularity.floor(windows.get(i).getStart()), total);
+        }
+        return hits;
+    }
+
+    private List<ViewStatsDto> queryStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        Optional<List<ViewStatsDto>> recent = hotWindow.getStats(start, end, uris, unique);
+        if (recent.isPresent()) return recent.get();
+        if (!unique && useRollups(start)) return rollupStorage.getStats(start, end, uris);
+        return statsEngine.getStats(start, end, uris, unique);
+    }
+
+    private boolean useRollups(LocalDateTime start) {
+        return queryProperties.isRollups() && !statsEngine.isSelfContained() && !dailyStorage.covers(start)
+                && !coldStorage.covers(start);
+    }
+
+    private static RollupGranularity parseBucket(String bucket) {
+        try {
+            return RollupGranularity.valueOf(bucket.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Интервал группировки должен быть одним из minute, hour, day: " + bucket);
+        }
+    }
+
+    private static void validateRange(LocalDateTime start, LocalDateTime end) {
+        if (end.isBefore(start))
+            throw new DateTimeException("Нижняя граница временного интервала не может быть больше верхней границы");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+package ru.practicum.ewm.stats.shard;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+@Configuration
+@ConditionalOnProperty(name = "stats.engine.type", havingValue = "sharded")
+public class ShardConfig {
+    @Bean(destroyMethod = "close")
+    public ShardedStatsEngine shardedStatsEngine(
+            ShardProperties properties,
+            @Value("${stats.ingest.jdbc-batch-size:500}") int batchSize,
+            @Value("${stats.ingest.copy.enabled:true}") boolean copyEnabled,
+            @Value("${stats.ingest.copy.min-batch:100}") int copyMinBatch,
+            @Value("${stats.query.fetch-size:1000}") int fetchSize,
+            @Value("${stats.dictionary.cache-size:100000}") int dictionaryCacheSize
+    ) {
+        List<StatsShard> shards = new ArrayList<>(properties.getDatasources().size());
+        for (ShardProperties.Datasource datasource : properties.getDatasources()) {
+            String name = datasource.getName() != null ? datasource.getName() : "shard-" + shards.size();
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setPoolName(name);
+            dataSource.setJdbcUrl(datasource.getUrl());
+            dataSource.setUsername(datasource.getUsername());
+            dataSource.setPassword(datasource.getPassword());
+            if (datasource.getDriverClassName() != null) dataSource.setDriverClassName(datasource.getDriverClassName());
+            dataSource.setMaximumPoolSize(datasource.getMaxPoolSize());
+            shards.add(new StatsShard(name, dataSource, batchSize, copyEnabled, copyMinBatch, fetchSize,
+                    dictionaryCacheSize));
+        }
+        log.info("События статистики распределяются по {} шардам", shards.size());
+        return new ShardedStatsEngine(shards, properties.getQueryTimeoutMs());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "stats.shard.rebalance", havingValue = "true")
+    public ApplicationRunner shardRebalanceRunner(ShardedStatsEngine shardedStatsEngine, ShardProperties properties,
+                                                  ConfigurableApplicationContext context) {
+        return args -> {
+            new ShardRebalancer(shardedStatsEngine, properties.getRebalanceChunkSize()).rebalance();
+            System.exit(SpringApplication.exit(context, () -> 0));
+        };
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.ewm.stats.shard;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.shard")
+public class ShardProperties {
+    private List<Datasource> datasources = new ArrayList<>();
+    private long queryTimeoutMs = 30000;
+    private boolean rebalance = false;
+    private int rebalanceChunkSize = 1000;
+
+    @Data
+    public static class Datasource {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maxPoolSize = 10;
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.ewm.stats.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.IpAddressCodec;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+public class ShardRebalancer {
+    private static final String SELECT_URIS =
+            "SELECT u.id, u.name FROM statistics_uri AS u " +
+            "WHERE EXISTS (SELECT 1 FROM statistics AS s WHERE s.uri_id = u.id)";
+    private static final String SELECT_CHUNK =
+            "SELECT s.id, a.name AS app, s.ip, s.timestamp, s.idempotency_key FROM statistics AS s " +
+            "JOIN statistics_app AS a ON a.id = s.app_id " +
+            "WHERE s.uri_id = ? AND s.id > ? ORDER BY s.id LIMIT ?";
+    private static final String KEY_PREFIX = "rebalance:";
+    private static final String DELETE_CHUNK = "DELETE FROM statistics WHERE uri_id = :uriId AND id IN (:ids)";
+
+    private final ShardedStatsEngine engine;
+    private final int chunkSize;
+
+    public ShardRebalancer(ShardedStatsEngine engine, int chunkSize) {
+        this.engine = engine;
+        this.chunkSize = chunkSize;
+    }
+
+    public long rebalance() {
+        long moved = 0;
+        for (StatsShard source : engine.getShards()) {
+            List<Map<String, Object>> uris = source.getJdbcTemplate().queryForList(SELECT_URIS);
+            for (Map<String, Object> uri : uris) {
+                String name = (String) uri.get("name");
+                StatsShard target = engine.shardOf(name);
+                if (target == source) continue;
+                long count = move(source, target, ((Number) uri.get("id")).intValue(), name);
+                log.info("URI {} перенесён с шарда {} на шард {}: {} событий", name, source.getName(),
+                        target.getName(), count);
+                moved += count;
+            }
+        }
+        log.info("Перебалансировка шардов завершена, перенесено {} событий", moved);
+        return moved;
+    }
+
+    private long move(StatsShard source, StatsShard target, int uriId, String uri) {
+        long moved = 0;
+        long lastId = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>(chunkSize);
+            List<EndpointHit> hits = new ArrayList<>(chunkSize);
+            source.getJdbcTemplate().query(SELECT_CHUNK, (RowCallbackHandler) rs -> {
+                long id = rs.getLong("id");
+                String key = rs.getString("idempotency_key");
+                ids.add(id);
+                hits.add(new EndpointHit(null, rs.getString("app"), uri, IpAddressCodec.decode(rs.getBytes("ip")),
+                        rs.getTimestamp("timestamp").toLocalDateTime(),
+                        key != null ? key : KEY_PREFIX + source.getName() + ":" + id));
+            }, uriId, lastId, chunkSize);
+            if (ids.isEmpty()) return moved;
+            target.saveAll(hits);
+            source.getNamedJdbcTemplate().update(DELETE_CHUNK, Map.of("uriId", uriId, "ids", ids));
+            lastId = ids.get(ids.size() - 1);
+            moved += ids.size();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.ewm.stats.shard;
+
+import java.nio.charset.StandardCharsets;
+
+public final class ShardRouter {
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private ShardRouter() {
+    }
+
+    public static int shardOf(String uri, int shards) {
+        if (shards <= 0) throw new IllegalArgumentException("Количество шардов должно быть положительным: " + shards);
+        return jump(hash(uri), shards);
+    }
+
+    static long hash(String uri) {
+        long hash = FNV_OFFSET;
+        for (byte b : uri.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        return hash;
+    }
+
+    static int jump(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
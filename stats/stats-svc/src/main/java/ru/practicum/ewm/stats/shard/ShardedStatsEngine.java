@@ -0,0 +1,178 @@
+package ru.practicum.ewm.stats.shard;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.engine.StatsEngine;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@Slf4j
+public class ShardedStatsEngine implements StatsEngine, AutoCloseable {
+    private final List<StatsShard> shards;
+    private final long timeoutMs;
+    private final ExecutorService executor;
+
+    public ShardedStatsEngine(List<StatsShard> shards, long timeoutMs) {
+        if (shards.isEmpty()) throw new IllegalStateException("Не настроено ни одного шарда статистики");
+        this.shards = List.copyOf(shards);
+        this.timeoutMs = timeoutMs;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.size(), task -> {
+            Thread thread = new Thread(task, "stats-shard-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<StatsShard> getShards() {
+        return shards;
+    }
+
+    public StatsShard shardOf(String uri) {
+        return shards.get(ShardRouter.shardOf(uri, shards.size()));
+    }
+
+    @Override
+    public List<EndpointHit> saveAll(List<EndpointHit> hits) {
+        Map<StatsShard, List<EndpointHit>> routed = new LinkedHashMap<>();
+        for (EndpointHit hit : hits) {
+            routed.computeIfAbsent(shardOf(hit.getUri()), shard -> new ArrayList<>()).add(hit);
+        }
+        List<Callable<List<EndpointHit>>> tasks = new ArrayList<>(routed.size());
+        routed.forEach((shard, shardHits) -> tasks.add(() -> shard.saveAll(shardHits)));
+        List<EndpointHit> saved = new ArrayList<>(hits.size());
+        gather(tasks).forEach(saved::addAll);
+        return saved;
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        List<Callable<List<ViewStatsDto>>> tasks = new ArrayList<>();
+        if (uris == null || uris.isEmpty()) {
+            for (StatsShard shard : shards) {
+                tasks.add(() -> shard.getStats(start, end, uris, unique));
+            }
+        } else {
+            Map<StatsShard, List<String>> routed = new LinkedHashMap<>();
+            for (String uri : uris) {
+                routed.computeIfAbsent(shardOf(uri), shard -> new ArrayList<>()).add(uri);
+            }
+            routed.forEach((shard, shardUris) -> tasks.add(() -> shard.getStats(start, end, shardUris, unique)));
+        }
+
+        Map<StatsKey, Long> merged = new HashMap<>();
+        for (List<ViewStatsDto> partial : gather(tasks)) {
+            for (ViewStatsDto stats : partial) {
+                merged.merge(new StatsKey(stats.getApp(), stats.getUri()), stats.getHits(), Long::sum);
+            }
+        }
+        List<ViewStatsDto> result = new ArrayList<>(merged.size());
+        merged.entrySet().stream()
+                .sorted(Map.Entry.<StatsKey, Long>comparingByValue().reversed())
+                .forEach(entry -> result.add(
+                        new ViewStatsDto(entry.getKey().getApp(), entry.getKey().getUri(), entry.getValue())));
+        return result;
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        getStats(start, end, uris, unique).forEach(consumer);
+    }
+
+    @Override
+    public List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows) {
+        Map<StatsShard, List<Integer>> routed = new LinkedHashMap<>();
+        for (int i = 0; i < windows.size(); i++) {
+            routed.computeIfAbsent(shardOf(windows.get(i).getUri()), shard -> new ArrayList<>()).add(i);
+        }
+        List<StatsShard> targets = new ArrayList<>(routed.keySet());
+        List<Callable<List<List<ViewStatsDto>>>> tasks = new ArrayList<>(targets.size());
+        for (StatsShard shard : targets) {
+            List<StatsWindow> shardWindows = new ArrayList<>();
+            routed.get(shard).forEach(index -> shardWindows.add(windows.get(index)));
+            tasks.add(() -> shard.getWindowStats(shardWindows));
+        }
+        List<List<List<ViewStatsDto>>> partial = gather(tasks);
+        List<List<ViewStatsDto>> result = new ArrayList<>(
+                Collections.<List<ViewStatsDto>>nCopies(windows.size(), List.of()));
+        for (int shard = 0; shard < targets.size(); shard++) {
+            List<Integer> indexes = routed.get(targets.get(shard));
+            for (int i = 0; i < indexes.size(); i++) {
+                result.set(indexes.get(i), partial.get(shard).get(i));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public long deleteBefore(LocalDateTime before) {
+        List<Callable<Long>> tasks = new ArrayList<>(shards.size());
+        for (StatsShard shard : shards) {
+            tasks.add(() -> shard.deleteBefore(before));
+        }
+        return gather(tasks).stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public boolean isSelfContained() {
+        return true;
+    }
+
+    @Override
+    public void close() throws Exception {
+        executor.shutdownNow();
+        for (StatsShard shard : shards) {
+            shard.close();
+        }
+    }
+
+    private <T> List<T> gather(List<Callable<T>> tasks) {
+        List<Future<T>> futures;
+        try {
+            futures = executor.invokeAll(tasks, timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Запрос к шардам статистики прерван", e);
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (CancellationException e) {
+                throw new IllegalStateException("Шард статистики не ответил за " + timeoutMs + " мс", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                throw new IllegalStateException("Ошибка запроса к шарду статистики", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Запрос к шардам статистики прерван", e);
+            }
+        }
+        return results;
+    }
+
+    @Value
+    private static class StatsKey {
+        String app;
+        String uri;
+    }
+}
@@ -0,0 +1,108 @@
+package ru.practicum.ewm.stats.shard;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.cold.ColdProperties;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+import ru.practicum.ewm.stats.storage.DailyStorage;
+import ru.practicum.ewm.stats.storage.HitDictionary;
+import ru.practicum.ewm.stats.storage.SqlDialect;
+import ru.practicum.ewm.stats.storage.StatsBatchStorage;
+import ru.practicum.ewm.stats.storage.StatsQueryStorage;
+import ru.practicum.ewm.stats.storage.StatsQueryStorageImpl;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+@Slf4j
+public class StatsShard implements AutoCloseable {
+    private static final String DELETE_BEFORE = "DELETE FROM statistics WHERE timestamp < ?";
+
+    private final String name;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final StatsBatchStorage statsBatchStorage;
+    private final StatsQueryStorage statsQueryStorage;
+    private final TransactionTemplate transactionTemplate;
+
+    public StatsShard(String name, DataSource dataSource, int batchSize, boolean copyEnabled, int copyMinBatch,
+                      int fetchSize, int dictionaryCacheSize) {
+        this.name = name;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        initSchema();
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hitDictionary = new HitDictionary(jdbcTemplate, namedJdbcTemplate, transactionManager,
+                dictionaryCacheSize);
+        this.statsBatchStorage = new StatsBatchStorage(jdbcTemplate, namedJdbcTemplate, hitDictionary, batchSize,
+                copyEnabled, copyMinBatch);
+        this.statsQueryStorage = new StatsQueryStorageImpl(namedJdbcTemplate, hitDictionary,
+                new DailyStorage(jdbcTemplate, namedJdbcTemplate),
+                new ColdStorage(jdbcTemplate, new ColdProperties()), fetchSize);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<EndpointHit> saveAll(List<EndpointHit> hits) {
+        return transactionTemplate.execute(status -> statsBatchStorage.saveAll(hits));
+    }
+
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return unique
+                ? statsQueryStorage.getStatsWithUniqueIps(start, end, uris)
+                : statsQueryStorage.getStats(start, end, uris);
+    }
+
+    public List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows) {
+        return statsQueryStorage.getWindowStats(windows);
+    }
+
+    public long deleteBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_BEFORE, Timestamp.valueOf(before));
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (dataSource instanceof AutoCloseable) ((AutoCloseable) dataSource).close();
+    }
+
+    JdbcTemplate getJdbcTemplate() {
+        return jdbcTemplate;
+    }
+
+    NamedParameterJdbcTemplate getNamedJdbcTemplate() {
+        return namedJdbcTemplate;
+    }
+
+    HitDictionary getHitDictionary() {
+        return hitDictionary;
+    }
+
+    private void initSchema() {
+        SqlDialect dialect = SqlDialect.of(jdbcTemplate);
+        if (dialect == SqlDialect.OTHER)
+            throw new IllegalStateException("Шард " + name + " должен работать на PostgreSQL или H2");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema-" + dialect.name().toLowerCase(Locale.ROOT) + ".sql"),
+                new ClassPathResource("schema.sql"));
+        populator.execute(dataSource);
+        log.info("Схема шарда {} ({}) готова", name, dialect);
+    }
+}
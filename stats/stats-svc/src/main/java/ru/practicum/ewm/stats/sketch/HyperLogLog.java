@@ -0,0 +1,131 @@
+package ru.practicum.ewm.stats.sketch;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class HyperLogLog {
+    public static final int MIN_PRECISION = 4;
+    public static final int MAX_PRECISION = 18;
+
+    private final int precision;
+    private final byte[] registers;
+
+    public HyperLogLog(int precision) {
+        this(precision, new byte[1 << checkPrecision(precision)]);
+    }
+
+    private HyperLogLog(int precision, byte[] registers) {
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        int precision = checkPrecision(bytes[0]);
+        if (bytes.length != (1 << precision) + 1)
+            throw new IllegalArgumentException("Некорректный размер скетча: " + bytes.length);
+        return new HyperLogLog(precision, Arrays.copyOfRange(bytes, 1, bytes.length));
+    }
+
+    public static double relativeError(int precision) {
+        return 1.04 / Math.sqrt(1 << precision);
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[registers.length + 1];
+        bytes[0] = (byte) precision;
+        System.arraycopy(registers, 0, bytes, 1, registers.length);
+        return bytes;
+    }
+
+    public void add(String value) {
+        addHash(hash(value));
+    }
+
+    public void addHash(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        long rest = (hash << precision) | (1L << (precision - 1));
+        byte rank = (byte) (Long.numberOfLeadingZeros(rest) + 1);
+        if (rank > registers[index]) registers[index] = rank;
+    }
+
+    public HyperLogLog merge(HyperLogLog other) {
+        if (other.precision < precision) return reduce(other.precision).merge(other);
+        HyperLogLog source = other.precision > precision ? other.reduce(precision) : other;
+        for (int i = 0; i < registers.length; i++) {
+            if (source.registers[i] > registers[i]) registers[i] = source.registers[i];
+        }
+        return this;
+    }
+
+    public HyperLogLog reduce(int targetPrecision) {
+        checkPrecision(targetPrecision);
+        if (targetPrecision > precision)
+            throw new IllegalArgumentException("Точность скетча нельзя увеличить");
+        int shift = precision - targetPrecision;
+        byte[] reduced = new byte[1 << targetPrecision];
+        for (int i = 0; i < registers.length; i++) {
+            if (registers[i] == 0) continue;
+            int lowBits = i & ((1 << shift) - 1);
+            byte rank = lowBits == 0 ? (byte) (registers[i] + shift) :
+                    (byte) (Integer.numberOfLeadingZeros(lowBits) - (Integer.SIZE - shift) + 1);
+            int target = i >>> shift;
+            if (rank > reduced[target]) reduced[target] = rank;
+        }
+        return new HyperLogLog(targetPrecision, reduced);
+    }
+
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+
+    private static int checkPrecision(int precision) {
+        if (precision < MIN_PRECISION || precision > MAX_PRECISION)
+            throw new IllegalArgumentException("Точность скетча должна быть от " + MIN_PRECISION + " до " +
+                    MAX_PRECISION);
+        return precision;
+    }
+
+    static long hash(String value) {
+        return hash(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static long hash(byte[] bytes) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : bytes) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ewm.stats.sketch;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class SketchKey implements Comparable<SketchKey> {
+    LocalDateTime bucket;
+    String app;
+    String uri;
+
+    @Override
+    public int compareTo(SketchKey other) {
+        int result = bucket.compareTo(other.bucket);
+        if (result == 0) result = app.compareTo(other.app);
+        if (result == 0) result = uri.compareTo(other.uri);
+        return result;
+    }
+}
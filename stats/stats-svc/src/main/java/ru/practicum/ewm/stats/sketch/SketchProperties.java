@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stats.sketch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.sketch")
+public class SketchProperties {
+    private int precision = 14;
+    private RollupGranularity bucket = RollupGranularity.HOUR;
+    private long flushIntervalMs = 1000;
+}
@@ -0,0 +1,205 @@
+package ru.practicum.ewm.stats.sketch;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+import ru.practicum.ewm.stats.storage.SketchStorage;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class SketchService {
+    private final SketchStorage sketchStorage;
+    private final SketchProperties properties;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object signal = new Object();
+    private final Thread flusher;
+    private ConcurrentMap<SketchKey, HyperLogLog> pending = new ConcurrentHashMap<>();
+    private Map<SketchKey, HyperLogLog> flushing = Map.of();
+    private volatile boolean running = true;
+
+    public SketchService(SketchStorage sketchStorage, SketchProperties properties) {
+        this.sketchStorage = sketchStorage;
+        this.properties = properties;
+        this.flusher = new Thread(this::flushLoop, "sketch-flusher");
+        this.flusher.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        flusher.start();
+        log.info("Запущен учёт уникальных посетителей HyperLogLog с точностью {} (погрешность ~{}%)",
+                properties.getPrecision(), String.format("%.2f", relativeError() * 100));
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        flusher.join();
+        flush();
+    }
+
+    public double relativeError() {
+        return HyperLogLog.relativeError(properties.getPrecision());
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (hits.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            addToPending(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                addToPending(hits);
+            }
+        });
+    }
+
+    public synchronized void flush() {
+        Map<SketchKey, HyperLogLog> batch;
+        lock.writeLock().lock();
+        try {
+            if (pending.isEmpty()) return;
+            batch = new TreeMap<>(pending);
+            flushing = batch;
+            pending = new ConcurrentHashMap<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            sketchStorage.merge(batch);
+            log.debug("Сохранено {} скетчей уникальных посетителей", batch.size());
+        } catch (RuntimeException e) {
+            log.warn("Не удалось сохранить скетчи уникальных посетителей, повтор при следующей записи", e);
+            lock.readLock().lock();
+            try {
+                batch.forEach((key, sketch) -> pending.merge(key, sketch, HyperLogLog::merge));
+            } finally {
+                lock.readLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                flushing = Map.of();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        RollupGranularity granularity = properties.getBucket();
+        LocalDateTime from = granularity.ceil(start);
+        LocalDateTime to = granularity.floor(end);
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+
+        if (from.isBefore(to)) {
+            lock.readLock().lock();
+            try {
+                for (Map<SketchKey, HyperLogLog> source : List.of(flushing, pending)) {
+                    for (SketchKey key : source.keySet()) {
+                        if (key.getBucket().isBefore(from) || !key.getBucket().isBefore(to)) continue;
+                        if (uris != null && !uris.isEmpty() && !uris.contains(key.getUri())) continue;
+                        source.computeIfPresent(key, (k, sketch) -> {
+                            mergeInto(sketches, k, sketch);
+                            return sketch;
+                        });
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            sketchStorage.findSketches(from, to, uris, (key, sketch) -> mergeInto(sketches, key, sketch));
+            if (start.isBefore(from)) addRawIps(sketches, start, from, false, uris);
+            addRawIps(sketches, to, end, true, uris);
+        } else {
+            addRawIps(sketches, start, end, true, uris);
+        }
+
+        return sketches.entrySet().stream()
+                .map(entry -> new ViewStatsDto(entry.getKey().getApp(), entry.getKey().getUri(),
+                        entry.getValue().estimate()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .collect(Collectors.toList());
+    }
+
+    private void addToPending(List<EndpointHit> hits) {
+        RollupGranularity granularity = properties.getBucket();
+        lock.readLock().lock();
+        try {
+            for (EndpointHit hit : hits) {
+                SketchKey key = new SketchKey(granularity.floor(hit.getTimestamp()), hit.getApp(), hit.getUri());
+                pending.compute(key, (k, sketch) -> {
+                    if (sketch == null) sketch = new HyperLogLog(properties.getPrecision());
+                    sketch.add(hit.getIp());
+                    return sketch;
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void addRawIps(
+            Map<AppUri, HyperLogLog> sketches,
+            LocalDateTime from,
+            LocalDateTime to,
+            boolean inclusiveEnd,
+            List<String> uris
+    ) {
+        sketchStorage.findRawIps(from, to, inclusiveEnd, uris, (app, uri, ip) -> sketches
+                .computeIfAbsent(new AppUri(app, uri), key -> new HyperLogLog(properties.getPrecision()))
+                .add(ip));
+    }
+
+    private void mergeInto(Map<AppUri, HyperLogLog> sketches, SketchKey key, HyperLogLog sketch) {
+        AppUri appUri = new AppUri(key.getApp(), key.getUri());
+        HyperLogLog current = sketches.get(appUri);
+        if (current == null) current = new HyperLogLog(properties.getPrecision());
+        sketches.put(appUri, current.merge(sketch));
+    }
+
+    private void flushLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getFlushIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            flush();
+        }
+    }
+
+    @Value
+    private static class AppUri {
+        String app;
+        String uri;
+    }
+}
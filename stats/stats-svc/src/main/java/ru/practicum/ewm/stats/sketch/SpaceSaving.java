@@ -0,0 +1,138 @@
+package ru.practicum.ewm.stats.sketch;
+
+import lombok.Value;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeSet;
+
+public class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Counter<K>> counters = new HashMap<>();
+    private final TreeSet<Counter<K>> byCount = new TreeSet<>(Comparator
+            .comparingLong((Counter<K> counter) -> counter.count)
+            .thenComparingLong(counter -> counter.sequence));
+    private long total;
+    private long sequence;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Ёмкость Space-Saving должна быть положительной: " + capacity);
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public int size() {
+        return counters.size();
+    }
+
+    public long minCount() {
+        return counters.size() < capacity ? 0 : byCount.first().count;
+    }
+
+    public void offer(K key) {
+        offer(key, 1);
+    }
+
+    public void offer(K key, long increment) {
+        total += increment;
+        Counter<K> counter = counters.get(key);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += increment;
+            byCount.add(counter);
+            return;
+        }
+        long error = 0;
+        if (counters.size() == capacity) {
+            Counter<K> evicted = byCount.pollFirst();
+            counters.remove(evicted.key);
+            error = evicted.count;
+        }
+        counter = new Counter<>(key, error + increment, error, sequence++);
+        counters.put(key, counter);
+        byCount.add(counter);
+    }
+
+    public List<Entry<K>> top(int k) {
+        return top(List.of(this), k);
+    }
+
+    public static <K> List<Entry<K>> top(Collection<SpaceSaving<K>> summaries, int k) {
+        Union<K> union = new Union<>();
+        summaries.forEach(union::add);
+        return union.top(k);
+    }
+
+    public static final class Union<K> {
+        private final Map<K, long[]> excess = new HashMap<>();
+        private long unseen;
+
+        public void add(SpaceSaving<K> summary) {
+            long min = summary.minCount();
+            unseen += min;
+            for (Counter<K> counter : summary.counters.values()) {
+                long[] bounds = excess.computeIfAbsent(counter.key, key -> new long[2]);
+                bounds[0] += counter.count - min;
+                bounds[1] += counter.error - min;
+            }
+        }
+
+        public List<Entry<K>> top(int k) {
+            Comparator<Map.Entry<K, long[]>> byCount = Comparator.comparingLong(entry -> entry.getValue()[0]);
+            PriorityQueue<Map.Entry<K, long[]>> heap = new PriorityQueue<>(k + 2, byCount);
+            for (Map.Entry<K, long[]> entry : excess.entrySet()) {
+                if (heap.size() <= k) {
+                    heap.add(entry);
+                } else if (entry.getValue()[0] > heap.peek().getValue()[0]) {
+                    heap.poll();
+                    heap.add(entry);
+                }
+            }
+            long threshold = unseen + (heap.size() > k ? heap.poll().getValue()[0] : 0);
+            List<Map.Entry<K, long[]>> sorted = new ArrayList<>(heap);
+            sorted.sort(byCount.reversed());
+            List<Entry<K>> result = new ArrayList<>(sorted.size());
+            for (Map.Entry<K, long[]> entry : sorted) {
+                long count = unseen + entry.getValue()[0];
+                long error = unseen + entry.getValue()[1];
+                result.add(new Entry<>(entry.getKey(), count, error, count - error >= threshold));
+            }
+            return result;
+        }
+    }
+
+    @Value
+    public static class Entry<K> {
+        K key;
+        long count;
+        long error;
+        boolean guaranteed;
+    }
+
+    private static final class Counter<K> {
+        private final K key;
+        private final long error;
+        private final long sequence;
+        private long count;
+
+        private Counter(K key, long count, long error, long sequence) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+            this.sequence = sequence;
+        }
+    }
+}
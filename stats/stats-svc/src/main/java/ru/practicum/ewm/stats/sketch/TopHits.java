@@ -0,0 +1,138 @@
+package ru.practicum.ewm.stats.sketch;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.ewm.dto.TopHitDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import javax.validation.ValidationException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Component
+@Slf4j
+public class TopHits {
+    private final TopHitsProperties properties;
+    private final long paneSeconds;
+    private final Pane[] panes;
+
+    public TopHits(TopHitsProperties properties) {
+        this.properties = properties;
+        this.paneSeconds = properties.getPane().getSeconds();
+        if (paneSeconds < 1 || properties.getHorizon().getSeconds() < paneSeconds)
+            throw new IllegalStateException("Некорректная настройка окна популярных эндпоинтов: pane="
+                    + properties.getPane() + ", horizon=" + properties.getHorizon());
+        this.panes = new Pane[(int) (properties.getHorizon().getSeconds() / paneSeconds) + 1];
+        for (int i = 0; i < panes.length; i++) {
+            panes[i] = new Pane(properties.getCapacity());
+        }
+    }
+
+    public void record(List<EndpointHit> hits) {
+        if (hits.isEmpty()) return;
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(hits);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(hits);
+            }
+        });
+    }
+
+    public List<TopHitDto> getTop(int k, String window) {
+        if (k < 1 || k > properties.getCapacity())
+            throw new ValidationException(
+                    "Размер выборки k должен быть от 1 до " + properties.getCapacity());
+        Duration duration = parseWindow(window);
+
+        LocalDateTime now = LocalDateTime.now();
+        long current = paneIndex(now);
+        long from = Math.floorDiv(toSeconds(now) - duration.getSeconds(), paneSeconds);
+        SpaceSaving.Union<AppUri> union = new SpaceSaving.Union<>();
+        for (long index = from; index <= current; index++) {
+            Pane pane = panes[slot(index)];
+            synchronized (pane) {
+                if (pane.index == index) union.add(pane.summary);
+            }
+        }
+        return union.top(k).stream()
+                .map(entry -> new TopHitDto(entry.getKey().getApp(), entry.getKey().getUri(), entry.getCount(),
+                        entry.getError(), entry.isGuaranteed()))
+                .collect(Collectors.toList());
+    }
+
+    private void add(List<EndpointHit> hits) {
+        long current = paneIndex(LocalDateTime.now());
+        Map<Long, Map<AppUri, Long>> byPane = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            long index = Math.min(paneIndex(hit.getTimestamp()), current);
+            if (index <= current - panes.length) continue;
+            byPane.computeIfAbsent(index, key -> new HashMap<>())
+                    .merge(new AppUri(hit.getApp(), hit.getUri()), 1L, Long::sum);
+        }
+        byPane.forEach((index, counts) -> {
+            Pane pane = panes[slot(index)];
+            synchronized (pane) {
+                if (pane.index > index) return;
+                if (pane.index < index) {
+                    pane.index = index;
+                    pane.summary = new SpaceSaving<>(properties.getCapacity());
+                }
+                counts.forEach(pane.summary::offer);
+            }
+        });
+    }
+
+    private Duration parseWindow(String window) {
+        if (window == null || window.isBlank()) return properties.getHorizon();
+        Duration duration;
+        try {
+            duration = DurationStyle.detectAndParse(window);
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException("Некорректная длительность окна: " + window);
+        }
+        if (duration.compareTo(properties.getPane()) < 0 || duration.compareTo(properties.getHorizon()) > 0)
+            throw new ValidationException("Окно должно быть от " + properties.getPane() + " до "
+                    + properties.getHorizon());
+        return duration;
+    }
+
+    private long paneIndex(LocalDateTime timestamp) {
+        return Math.floorDiv(toSeconds(timestamp), paneSeconds);
+    }
+
+    private int slot(long index) {
+        return (int) Math.floorMod(index, (long) panes.length);
+    }
+
+    private static long toSeconds(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static final class Pane {
+        private long index = Long.MIN_VALUE;
+        private SpaceSaving<AppUri> summary;
+
+        private Pane(int capacity) {
+            this.summary = new SpaceSaving<>(capacity);
+        }
+    }
+
+    @Value
+    private static class AppUri {
+        String app;
+        String uri;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.ewm.stats.sketch;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.top")
+public class TopHitsProperties {
+    private int capacity = 256;
+    private Duration pane = Duration.ofMinutes(1);
+    private Duration horizon = Duration.ofHours(1);
+}
@@ -0,0 +1,16 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.compaction")
+public class CompactionProperties {
+    private boolean enabled = false;
+    private int rawDays = 30;
+    private int chunkSize = 1000;
+    private long chunkPauseMs = 50;
+    private long intervalMs = 3600000;
+}
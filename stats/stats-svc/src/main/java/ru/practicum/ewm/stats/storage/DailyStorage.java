@@ -0,0 +1,137 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PostConstruct;
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Repository
+public class DailyStorage {
+    private static final String SELECT_CHUNK =
+            "SELECT id, app_id, uri_id, ip FROM statistics WHERE timestamp >= ? AND timestamp < ? LIMIT ?";
+    private static final String DELETE_CHUNK =
+            "DELETE FROM statistics WHERE timestamp >= :from AND timestamp < :to AND id IN (:ids)";
+    private static final String UPDATE_DAILY =
+            "UPDATE statistics_daily SET hits = hits + ? WHERE bucket = ? AND app_id = ? AND uri_id = ?";
+    private static final String INSERT_DAILY =
+            "INSERT INTO statistics_daily (bucket, app_id, uri_id, hits) VALUES (?, ?, ?, ?)";
+    private static final String INSERT_DAILY_IP =
+            "INSERT INTO statistics_daily_ip (bucket, app_id, uri_id, ip) " +
+            "SELECT CAST(? AS TIMESTAMP), CAST(? AS INTEGER), CAST(? AS INTEGER), CAST(? AS BYTEA) " +
+            "WHERE NOT EXISTS (SELECT 1 FROM statistics_daily_ip " +
+            "WHERE bucket = ? AND app_id = ? AND uri_id = ? AND ip = ?)";
+    private static final String DELETE_DAILY_BEFORE = "DELETE FROM statistics_daily WHERE bucket < ?";
+    private static final String DELETE_DAILY_IP_BEFORE = "DELETE FROM statistics_daily_ip WHERE bucket < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private volatile LocalDateTime compactedBefore;
+
+    public DailyStorage(JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedJdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+    }
+
+    @PostConstruct
+    public void refresh() {
+        Timestamp last = jdbcTemplate.queryForObject("SELECT MAX(bucket) FROM statistics_daily", Timestamp.class);
+        compactedBefore = last == null ? null : last.toLocalDateTime().plusDays(1);
+    }
+
+    public boolean covers(LocalDateTime start) {
+        LocalDateTime before = compactedBefore;
+        return before != null && start.isBefore(before);
+    }
+
+    public LocalDateTime getCompactedBefore() {
+        return compactedBefore;
+    }
+
+    public LocalDate findOldestRawDay() {
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM statistics", Timestamp.class);
+        return oldest == null ? null : oldest.toLocalDateTime().toLocalDate();
+    }
+
+    public synchronized void markCompacting(LocalDate day) {
+        LocalDateTime before = day.plusDays(1).atStartOfDay();
+        if (compactedBefore == null || compactedBefore.isBefore(before)) compactedBefore = before;
+    }
+
+    @Transactional
+    public int deleteBefore(LocalDateTime before) {
+        Timestamp bucket = Timestamp.valueOf(before);
+        jdbcTemplate.update(DELETE_DAILY_IP_BEFORE, bucket);
+        return jdbcTemplate.update(DELETE_DAILY_BEFORE, bucket);
+    }
+
+    @Transactional
+    public int compactChunk(LocalDate day, int chunkSize) {
+        Timestamp from = Timestamp.valueOf(day.atStartOfDay());
+        Timestamp to = Timestamp.valueOf(day.plusDays(1).atStartOfDay());
+        List<Integer> ids = new ArrayList<>(chunkSize);
+        Map<DailyKey, Long> hits = new LinkedHashMap<>();
+        Set<DailyIp> ips = new HashSet<>();
+        jdbcTemplate.query(SELECT_CHUNK, rs -> {
+            DailyKey key = new DailyKey(rs.getInt("app_id"), rs.getInt("uri_id"));
+            ids.add(rs.getInt("id"));
+            hits.merge(key, 1L, Long::sum);
+            ips.add(new DailyIp(key, ByteBuffer.wrap(rs.getBytes("ip"))));
+        }, from, to, chunkSize);
+        if (ids.isEmpty()) return 0;
+
+        List<Map.Entry<DailyKey, Long>> counts = new ArrayList<>(hits.entrySet());
+        List<Object[]> updates = new ArrayList<>(counts.size());
+        for (Map.Entry<DailyKey, Long> entry : counts) {
+            updates.add(new Object[]{entry.getValue(), from, entry.getKey().getAppId(), entry.getKey().getUriId()});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE_DAILY, updates);
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < counts.size(); i++) {
+            if (updated[i] > 0) continue;
+            DailyKey key = counts.get(i).getKey();
+            inserts.add(new Object[]{from, key.getAppId(), key.getUriId(), counts.get(i).getValue()});
+        }
+        if (!inserts.isEmpty()) jdbcTemplate.batchUpdate(INSERT_DAILY, inserts);
+
+        List<Object[]> ipRows = new ArrayList<>(ips.size());
+        for (DailyIp ip : ips) {
+            byte[] address = ip.getIp().array();
+            int appId = ip.getKey().getAppId();
+            int uriId = ip.getKey().getUriId();
+            ipRows.add(new Object[]{from, appId, uriId, address, from, appId, uriId, address});
+        }
+        jdbcTemplate.batchUpdate(INSERT_DAILY_IP, ipRows);
+
+        namedJdbcTemplate.update(DELETE_CHUNK, new MapSqlParameterSource()
+                .addValue("from", from)
+                .addValue("to", to)
+                .addValue("ids", ids));
+        return ids.size();
+    }
+
+    @Value
+    private static class DailyKey {
+        int appId;
+        int uriId;
+    }
+
+    @Value
+    private static class DailyIp {
+        DailyKey key;
+        ByteBuffer ip;
+    }
+}
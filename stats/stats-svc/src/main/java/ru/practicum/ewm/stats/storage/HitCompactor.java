@@ -0,0 +1,92 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.cache.StatsCache;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+
+@Component
+@Slf4j
+public class HitCompactor {
+    private final DailyStorage dailyStorage;
+    private final CompactionProperties properties;
+    private final StatsCache statsCache;
+    private final Object signal = new Object();
+    private Thread compactor;
+    private volatile boolean running = true;
+
+    public HitCompactor(DailyStorage dailyStorage, CompactionProperties properties, StatsCache statsCache) {
+        this.dailyStorage = dailyStorage;
+        this.properties = properties;
+        this.statsCache = statsCache;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isEnabled()) return;
+        compactor = new Thread(this::compactionLoop, "hit-compactor");
+        compactor.setDaemon(true);
+        compactor.start();
+        log.info("Запущено сжатие событий старше {} дней", properties.getRawDays());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (compactor == null) return;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        compactor.join();
+    }
+
+    public synchronized long compact(LocalDate cutoff) throws InterruptedException {
+        long compacted = 0;
+        LocalDate day;
+        while (running && (day = dailyStorage.findOldestRawDay()) != null && day.isBefore(cutoff)) {
+            dailyStorage.markCompacting(day);
+            long dayCompacted = 0;
+            int chunk;
+            while (running && (chunk = dailyStorage.compactChunk(day, properties.getChunkSize())) > 0) {
+                dayCompacted += chunk;
+                pause();
+            }
+            statsCache.invalidateAll();
+            compacted += dayCompacted;
+            log.info("Сжато {} событий за {}", dayCompacted, day);
+        }
+        return compacted;
+    }
+
+    private void pause() throws InterruptedException {
+        if (properties.getChunkPauseMs() <= 0) return;
+        synchronized (signal) {
+            if (running) signal.wait(properties.getChunkPauseMs());
+        }
+    }
+
+    private void compactionLoop() {
+        while (running) {
+            try {
+                compact(LocalDate.now().minusDays(properties.getRawDays()));
+            } catch (DataAccessException e) {
+                log.error("Ошибка сжатия событий", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+}
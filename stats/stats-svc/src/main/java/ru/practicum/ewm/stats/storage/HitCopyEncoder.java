@@ -0,0 +1,67 @@
+package ru.practicum.ewm.stats.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+public class HitCopyEncoder {
+    public static final String COPY_HITS =
+            "COPY statistics (app_id, uri_id, ip, timestamp, idempotency_key) FROM STDIN (FORMAT BINARY)";
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+    private static final short FIELDS = 5;
+    private static final short TRAILER = -1;
+    private static final int NULL = -1;
+    private static final long POSTGRES_EPOCH_SECONDS =
+            LocalDateTime.of(2000, 1, 1, 0, 0).toEpochSecond(ZoneOffset.UTC);
+    private static final int HEADER_SIZE = SIGNATURE.length + 2 * Integer.BYTES;
+    private static final int FIXED_ROW_SIZE = Short.BYTES + 5 * Integer.BYTES + 2 * Integer.BYTES + Long.BYTES;
+
+    private final OutputStream out;
+    private ByteBuffer buffer;
+
+    public HitCopyEncoder(OutputStream out, int bufferSize) {
+        this.out = out;
+        this.buffer = ByteBuffer.allocate(Math.max(bufferSize, HEADER_SIZE));
+        buffer.put(SIGNATURE).putInt(0).putInt(0);
+    }
+
+    public void write(int appId, int uriId, byte[] ip, LocalDateTime timestamp, String idempotencyKey)
+            throws IOException {
+        byte[] key = idempotencyKey == null ? null : idempotencyKey.getBytes(StandardCharsets.UTF_8);
+        ensure(FIXED_ROW_SIZE + ip.length + (key == null ? 0 : key.length));
+        buffer.putShort(FIELDS);
+        buffer.putInt(Integer.BYTES).putInt(appId);
+        buffer.putInt(Integer.BYTES).putInt(uriId);
+        buffer.putInt(ip.length).put(ip);
+        buffer.putInt(Long.BYTES).putLong(micros(timestamp));
+        if (key == null) buffer.putInt(NULL);
+        else buffer.putInt(key.length).put(key);
+    }
+
+    public void finish() throws IOException {
+        ensure(Short.BYTES);
+        buffer.putShort(TRAILER);
+        flush();
+        out.flush();
+    }
+
+    public static long micros(LocalDateTime timestamp) {
+        return (timestamp.toEpochSecond(ZoneOffset.UTC) - POSTGRES_EPOCH_SECONDS) * 1_000_000
+                + timestamp.getNano() / 1_000;
+    }
+
+    private void ensure(int size) throws IOException {
+        if (buffer.remaining() >= size) return;
+        flush();
+        if (buffer.capacity() < size) buffer = ByteBuffer.allocate(size);
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+}
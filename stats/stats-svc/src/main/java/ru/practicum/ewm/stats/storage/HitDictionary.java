@@ -0,0 +1,158 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+@Slf4j
+public class HitDictionary {
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlDialect dialect;
+    private final Table apps;
+    private final Table uris;
+
+    public HitDictionary(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Value("${stats.dictionary.cache-size:100000}") int cacheSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.dialect = SqlDialect.of(jdbcTemplate);
+        this.apps = new Table("statistics_app", cacheSize);
+        this.uris = new Table("statistics_uri", cacheSize);
+    }
+
+    public Map<String, Integer> getAppIds(Collection<String> names) {
+        return resolve(apps, names);
+    }
+
+    public Map<String, Integer> getUriIds(Collection<String> names) {
+        return resolve(uris, names);
+    }
+
+    public Map<String, Integer> findUriIds(Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (uris.cache) {
+            for (String name : names) {
+                Integer id = uris.cache.get(name);
+                if (id != null) ids.put(name, id);
+                else missing.add(name);
+            }
+        }
+        if (!missing.isEmpty()) ids.putAll(find(uris, missing));
+        return ids;
+    }
+
+    public Map<Integer, String> findAppNames(Collection<Integer> ids) {
+        return findNames(apps, ids);
+    }
+
+    public Map<Integer, String> findUriNames(Collection<Integer> ids) {
+        return findNames(uris, ids);
+    }
+
+    private Map<String, Integer> resolve(Table table, Collection<String> names) {
+        Map<String, Integer> ids = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        synchronized (table.cache) {
+            for (String name : names) {
+                Integer id = table.cache.get(name);
+                if (id != null) ids.put(name, id);
+                else if (!ids.containsKey(name)) missing.add(name);
+            }
+        }
+        if (missing.isEmpty()) return ids;
+
+        Map<String, Integer> created = transactionTemplate.execute(status -> {
+            Map<String, Integer> found = find(table, missing);
+            List<String> absent = new ArrayList<>();
+            for (String name : missing) {
+                if (!found.containsKey(name)) absent.add(name);
+            }
+            if (!absent.isEmpty()) {
+                insert(table, absent);
+                found.putAll(find(table, absent));
+            }
+            return found;
+        });
+        log.debug("Словарь {} пополнен {} значениями", table.name, missing.size());
+        synchronized (table.cache) {
+            table.cache.putAll(created);
+        }
+        ids.putAll(created);
+        return ids;
+    }
+
+    private Map<String, Integer> find(Table table, List<String> names) {
+        Map<String, Integer> found = new HashMap<>();
+        namedJdbcTemplate.query("SELECT id, name FROM " + table.name + " WHERE name IN (:names)",
+                Map.of("names", names), (RowCallbackHandler) rs -> found.put(rs.getString("name"), rs.getInt("id")));
+        return found;
+    }
+
+    private Map<Integer, String> findNames(Table table, Collection<Integer> ids) {
+        Map<Integer, String> names = new HashMap<>();
+        if (ids.isEmpty()) return names;
+        namedJdbcTemplate.query("SELECT id, name FROM " + table.name + " WHERE id IN (:ids)",
+                Map.of("ids", ids), (RowCallbackHandler) rs -> names.put(rs.getInt("id"), rs.getString("name")));
+        return names;
+    }
+
+    private void insert(Table table, List<String> names) {
+        switch (dialect) {
+            case POSTGRESQL:
+                jdbcTemplate.batchUpdate("INSERT INTO " + table.name + " (name) VALUES (?) ON CONFLICT (name) DO NOTHING",
+                        names, names.size(), (ps, name) -> ps.setString(1, name));
+                break;
+            case H2:
+                jdbcTemplate.batchUpdate("MERGE INTO " + table.name + " (name) KEY (name) VALUES (?)",
+                        names, names.size(), (ps, name) -> ps.setString(1, name));
+                break;
+            default:
+                for (String name : names) {
+                    try {
+                        jdbcTemplate.update("INSERT INTO " + table.name + " (name) VALUES (?)", name);
+                    } catch (DuplicateKeyException e) {
+                        log.debug("Значение {} уже добавлено в словарь {}", name, table.name);
+                    }
+                }
+        }
+    }
+
+    private static class Table {
+        private final String name;
+        private final Map<String, Integer> cache;
+
+        Table(String name, int cacheSize) {
+            this.name = name;
+            this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.model.TimePartition;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.List;
+
+@Component
+@Slf4j
+public class PartitionManager {
+    private static final String TABLE = "statistics";
+    private static final String LEGACY_TABLE = TABLE + "_unpartitioned";
+    private static final String IS_PARTITIONED =
+            "SELECT COUNT(*) FROM pg_partitioned_table WHERE partrelid = to_regclass('" + TABLE + "')";
+    private static final String SELECT_PARTITIONS =
+            "SELECT c.relname AS name, pg_get_expr(c.relpartbound, c.oid) AS bound " +
+            "FROM pg_inherits AS i JOIN pg_class AS c ON c.oid = i.inhrelid " +
+            "WHERE i.inhparent = to_regclass('" + TABLE + "')";
+    private static final String LEGACY_EXISTS = "SELECT to_regclass('" + LEGACY_TABLE + "') IS NOT NULL";
+    private static final String COPY_LEGACY =
+            "INSERT INTO " + TABLE + " (id, app_id, uri_id, ip, timestamp, idempotency_key) " +
+            "SELECT id, app_id, uri_id, ip, timestamp, idempotency_key FROM " + LEGACY_TABLE + " " +
+            "ON CONFLICT DO NOTHING";
+    private static final String RESET_IDENTITY =
+            "SELECT setval(pg_get_serial_sequence('" + TABLE + "', 'id'), " +
+            "(SELECT COALESCE(MAX(id), 0) + 1 FROM " + TABLE + "), false)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PartitionProperties properties;
+    private final StatsCache statsCache;
+    private final boolean enabled;
+    private final Object signal = new Object();
+    private Thread maintainer;
+    private volatile boolean running = true;
+
+    public PartitionManager(JdbcTemplate jdbcTemplate, PartitionProperties properties, StatsCache statsCache) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.statsCache = statsCache;
+        this.enabled = SqlDialect.of(jdbcTemplate) == SqlDialect.POSTGRESQL &&
+                jdbcTemplate.queryForObject(IS_PARTITIONED, Integer.class) > 0;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("Таблица {} не секционирована, обслуживание секций отключено", TABLE);
+            return;
+        }
+        migrateLegacyTable();
+        maintain();
+        maintainer = new Thread(this::maintenanceLoop, "partition-maintainer");
+        maintainer.setDaemon(true);
+        maintainer.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        if (maintainer == null) return;
+        synchronized (signal) {
+            signal.notifyAll();
+        }
+        maintainer.join();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public synchronized void maintain() {
+        LocalDate today = LocalDate.now();
+        for (TimePartition partition : TimePartition.ahead(today, properties.getDays(), properties.getPrecreate())) {
+            createPartition(partition);
+        }
+    }
+
+    public synchronized int dropBefore(LocalDate cutoff) {
+        if (!enabled) return 0;
+        List<Partition> partitions = jdbcTemplate.query(SELECT_PARTITIONS,
+                (rs, rowNum) -> new Partition(rs.getString("name"), rs.getString("bound")));
+        int dropped = 0;
+        for (Partition partition : partitions) {
+            LocalDate upperBound = TimePartition.parseUpperBound(partition.getBound());
+            if (upperBound == null || upperBound.isAfter(cutoff)) continue;
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + partition.getName());
+            log.info("Удалена секция {} с событиями до {}", partition.getName(), upperBound);
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private void migrateLegacyTable() {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(LEGACY_EXISTS, Boolean.class))) return;
+        log.info("Перенос событий из несекционированной таблицы {} в {}", LEGACY_TABLE, TABLE);
+        List<LocalDate> range = jdbcTemplate.queryForObject(
+                "SELECT MIN(timestamp) AS first, MAX(timestamp) AS last FROM " + LEGACY_TABLE,
+                (rs, rowNum) -> rs.getTimestamp("first") == null ? List.of() : List.of(
+                        rs.getTimestamp("first").toLocalDateTime().toLocalDate(),
+                        rs.getTimestamp("last").toLocalDateTime().toLocalDate()));
+        if (!range.isEmpty()) {
+            for (TimePartition partition : TimePartition.covering(range.get(0), range.get(1), properties.getDays())) {
+                createPartition(partition);
+            }
+        }
+        int copied = jdbcTemplate.update(COPY_LEGACY);
+        jdbcTemplate.queryForObject(RESET_IDENTITY, Long.class);
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+        statsCache.invalidateAll();
+        log.info("Перенесено {} событий, таблица {} удалена", copied, LEGACY_TABLE);
+    }
+
+    private void createPartition(TimePartition partition) {
+        String name = partition.tableName(TABLE);
+        try {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    name, TABLE, Timestamp.valueOf(partition.getStart()), Timestamp.valueOf(partition.getEnd())));
+        } catch (DataAccessException e) {
+            log.warn("Не удалось создать секцию {} с {} по {}", name, partition.getFrom(), partition.getTo(), e);
+        }
+    }
+
+    private void maintenanceLoop() {
+        while (running) {
+            try {
+                synchronized (signal) {
+                    if (running) signal.wait(properties.getMaintenanceIntervalMs());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (!running) return;
+            try {
+                maintain();
+            } catch (DataAccessException e) {
+                log.error("Ошибка обслуживания секций таблицы {}", TABLE, e);
+            }
+        }
+    }
+
+    @Value
+    private static class Partition {
+        String name;
+        String bound;
+    }
+}
@@ -0,0 +1,14 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.partition")
+public class PartitionProperties {
+    private int days = 1;
+    private int precreate = 7;
+    private long maintenanceIntervalMs = 3600000;
+}
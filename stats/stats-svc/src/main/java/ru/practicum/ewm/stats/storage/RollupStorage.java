@@ -0,0 +1,200 @@
+package ru.practicum.ewm.stats.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+import ru.practicum.ewm.stats.model.RollupPlan;
+import ru.practicum.ewm.stats.model.TimeRange;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+@Repository
+public class RollupStorage {
+    private static final String UPSERT_POSTGRESQL =
+            "INSERT INTO statistics_rollup (granularity, bucket, app_id, uri_id, hits) VALUES (?, ?, ?, ?, ?) " +
+            "ON CONFLICT (granularity, bucket, app_id, uri_id) " +
+            "DO UPDATE SET hits = statistics_rollup.hits + EXCLUDED.hits";
+    private static final String UPSERT_H2 =
+            "MERGE INTO statistics_rollup AS r " +
+            "USING (VALUES (CAST(? AS VARCHAR(6)), CAST(? AS TIMESTAMP), CAST(? AS INTEGER), " +
+            "CAST(? AS INTEGER), CAST(? AS BIGINT))) AS s (granularity, bucket, app_id, uri_id, hits) " +
+            "ON r.granularity = s.granularity AND r.bucket = s.bucket AND r.app_id = s.app_id " +
+            "AND r.uri_id = s.uri_id " +
+            "WHEN MATCHED THEN UPDATE SET hits = r.hits + s.hits " +
+            "WHEN NOT MATCHED THEN INSERT (granularity, bucket, app_id, uri_id, hits) " +
+            "VALUES (s.granularity, s.bucket, s.app_id, s.uri_id, s.hits)";
+    private static final String UPDATE =
+            "UPDATE statistics_rollup SET hits = hits + ? " +
+            "WHERE granularity = ? AND bucket = ? AND app_id = ? AND uri_id = ?";
+    private static final String INSERT =
+            "INSERT INTO statistics_rollup (granularity, bucket, app_id, uri_id, hits) VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_BEFORE = "DELETE FROM statistics_rollup WHERE bucket < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final NamedParameterJdbcTemplate cursorJdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final SqlDialect dialect;
+
+    public RollupStorage(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            HitDictionary hitDictionary,
+            @Value("${stats.query.fetch-size:1000}") int fetchSize
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.hitDictionary = hitDictionary;
+        this.dialect = SqlDialect.of(jdbcTemplate);
+        JdbcTemplate cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursorTemplate.setFetchSize(fetchSize);
+        this.cursorJdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+    }
+
+    public void add(List<EndpointHit> hits) {
+        if (hits.isEmpty()) return;
+        List<Map.Entry<BucketKey, Long>> counts = new ArrayList<>(aggregate(hits).entrySet());
+        if (dialect == SqlDialect.OTHER) {
+            updateThenInsert(counts);
+            return;
+        }
+        jdbcTemplate.batchUpdate(dialect == SqlDialect.POSTGRESQL ? UPSERT_POSTGRESQL : UPSERT_H2, counts,
+                counts.size(), (ps, entry) -> {
+                    BucketKey key = entry.getKey();
+                    ps.setString(1, key.getGranularity().name());
+                    ps.setTimestamp(2, Timestamp.valueOf(key.getBucket()));
+                    ps.setInt(3, key.getAppId());
+                    ps.setInt(4, key.getUriId());
+                    ps.setLong(5, entry.getValue());
+                });
+    }
+
+    public int deleteBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_BEFORE, Timestamp.valueOf(before));
+    }
+
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<ViewStatsDto> result = new ArrayList<>();
+        query(namedJdbcTemplate, start, end, uris, result::add);
+        return result;
+    }
+
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris,
+                            Consumer<ViewStatsDto> consumer) {
+        query(cursorJdbcTemplate, start, end, uris, consumer);
+    }
+
+    private void query(NamedParameterJdbcTemplate template, LocalDateTime start, LocalDateTime end,
+                       List<String> uris, Consumer<ViewStatsDto> consumer) {
+        RollupPlan plan = RollupPlan.of(start, end);
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        String uriFilter = "";
+        if (uris != null && !uris.isEmpty()) {
+            params.addValue("uris", uris);
+            uriFilter = " AND uri_id IN (SELECT id FROM statistics_uri WHERE name IN (:uris))";
+        }
+
+        List<String> parts = new ArrayList<>();
+        int index = 0;
+        for (Map.Entry<RollupGranularity, List<TimeRange>> entry : plan.getBuckets().entrySet()) {
+            for (TimeRange range : entry.getValue()) {
+                parts.add(String.format("SELECT app_id, uri_id, hits FROM statistics_rollup " +
+                        "WHERE granularity = :g%1$d AND bucket >= :f%1$d AND bucket < :t%1$d%2$s", index, uriFilter));
+                params.addValue("g" + index, entry.getKey().name());
+                params.addValue("f" + index, Timestamp.valueOf(range.getFrom()));
+                params.addValue("t" + index, Timestamp.valueOf(range.getTo()));
+                index++;
+            }
+        }
+        if (!plan.getRawHead().isEmpty()) {
+            parts.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM statistics " +
+                    "WHERE timestamp >= :headFrom AND timestamp < :headTo" + uriFilter + " GROUP BY app_id, uri_id");
+            params.addValue("headFrom", Timestamp.valueOf(plan.getRawHead().getFrom()));
+            params.addValue("headTo", Timestamp.valueOf(plan.getRawHead().getTo()));
+        }
+        parts.add("SELECT app_id, uri_id, COUNT(*) AS hits FROM statistics " +
+                "WHERE timestamp BETWEEN :tailFrom AND :tailTo" + uriFilter + " GROUP BY app_id, uri_id");
+        params.addValue("tailFrom", Timestamp.valueOf(plan.getRawTailFrom()));
+        params.addValue("tailTo", Timestamp.valueOf(plan.getRawTailTo()));
+
+        String sql = "SELECT a.name AS app, u.name AS uri, s.hits FROM (" +
+                "SELECT app_id, uri_id, SUM(hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") AS parts " +
+                "GROUP BY app_id, uri_id) AS s " +
+                "JOIN statistics_app AS a ON a.id = s.app_id " +
+                "JOIN statistics_uri AS u ON u.id = s.uri_id " +
+                "ORDER BY s.hits DESC";
+        template.query(sql, params, (RowCallbackHandler) rs ->
+                consumer.accept(new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"))));
+    }
+
+    private void updateThenInsert(List<Map.Entry<BucketKey, Long>> counts) {
+        int[] updated = jdbcTemplate.batchUpdate(UPDATE, counts.stream()
+                .map(entry -> new Object[]{
+                        entry.getValue(),
+                        entry.getKey().getGranularity().name(),
+                        Timestamp.valueOf(entry.getKey().getBucket()),
+                        entry.getKey().getAppId(),
+                        entry.getKey().getUriId()
+                })
+                .collect(Collectors.toList()));
+        List<Object[]> inserts = new ArrayList<>();
+        for (int i = 0; i < counts.size(); i++) {
+            if (updated[i] > 0) continue;
+            BucketKey key = counts.get(i).getKey();
+            inserts.add(new Object[]{
+                    key.getGranularity().name(),
+                    Timestamp.valueOf(key.getBucket()),
+                    key.getAppId(),
+                    key.getUriId(),
+                    counts.get(i).getValue()
+            });
+        }
+        if (!inserts.isEmpty()) jdbcTemplate.batchUpdate(INSERT, inserts);
+    }
+
+    private Map<BucketKey, Long> aggregate(List<EndpointHit> hits) {
+        Map<String, Integer> appIds = hitDictionary.getAppIds(
+                hits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = hitDictionary.getUriIds(
+                hits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+        Map<BucketKey, Long> counts = new TreeMap<>();
+        for (EndpointHit hit : hits) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                BucketKey key = new BucketKey(granularity, granularity.floor(hit.getTimestamp()),
+                        appIds.get(hit.getApp()), uriIds.get(hit.getUri()));
+                counts.merge(key, 1L, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    @lombok.Value
+    private static class BucketKey implements Comparable<BucketKey> {
+        RollupGranularity granularity;
+        LocalDateTime bucket;
+        int appId;
+        int uriId;
+
+        @Override
+        public int compareTo(BucketKey other) {
+            int result = granularity.compareTo(other.granularity);
+            if (result == 0) result = bucket.compareTo(other.bucket);
+            if (result == 0) result = Integer.compare(appId, other.appId);
+            if (result == 0) result = Integer.compare(uriId, other.uriId);
+            return result;
+        }
+    }
+}
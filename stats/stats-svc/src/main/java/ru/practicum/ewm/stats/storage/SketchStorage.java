@@ -0,0 +1,111 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.stats.model.IpAddressCodec;
+import ru.practicum.ewm.stats.sketch.HyperLogLog;
+import ru.practicum.ewm.stats.sketch.SketchKey;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+@Repository
+@RequiredArgsConstructor
+public class SketchStorage {
+    private static final String SELECT_FOR_UPDATE =
+            "SELECT registers FROM statistics_sketch WHERE bucket = ? AND app_id = ? AND uri_id = ? FOR UPDATE";
+    private static final String UPDATE =
+            "UPDATE statistics_sketch SET registers = ? WHERE bucket = ? AND app_id = ? AND uri_id = ?";
+    private static final String INSERT =
+            "INSERT INTO statistics_sketch (bucket, app_id, uri_id, registers) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_BEFORE = "DELETE FROM statistics_sketch WHERE bucket < ?";
+    private static final String URI_FILTER = " AND uri_id IN (SELECT id FROM statistics_uri WHERE name IN (:uris))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final HitDictionary hitDictionary;
+
+    @Transactional
+    public void merge(Map<SketchKey, HyperLogLog> sketches) {
+        Map<String, Integer> appIds = hitDictionary.getAppIds(
+                sketches.keySet().stream().map(SketchKey::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = hitDictionary.getUriIds(
+                sketches.keySet().stream().map(SketchKey::getUri).collect(Collectors.toSet()));
+        for (Map.Entry<SketchKey, HyperLogLog> entry : sketches.entrySet()) {
+            Timestamp bucket = Timestamp.valueOf(entry.getKey().getBucket());
+            int appId = appIds.get(entry.getKey().getApp());
+            int uriId = uriIds.get(entry.getKey().getUri());
+            List<byte[]> stored = jdbcTemplate.queryForList(SELECT_FOR_UPDATE, byte[].class, bucket, appId, uriId);
+            if (stored.isEmpty()) {
+                jdbcTemplate.update(INSERT, bucket, appId, uriId, entry.getValue().toBytes());
+            } else {
+                HyperLogLog merged = HyperLogLog.fromBytes(stored.get(0)).merge(entry.getValue());
+                jdbcTemplate.update(UPDATE, merged.toBytes(), bucket, appId, uriId);
+            }
+        }
+    }
+
+    public int deleteBefore(LocalDateTime before) {
+        return jdbcTemplate.update(DELETE_BEFORE, Timestamp.valueOf(before));
+    }
+
+    public void findSketches(
+            LocalDateTime from,
+            LocalDateTime to,
+            List<String> uris,
+            BiConsumer<SketchKey, HyperLogLog> consumer
+    ) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = "SELECT s.bucket, a.name AS app, u.name AS uri, s.registers FROM statistics_sketch AS s " +
+                "JOIN statistics_app AS a ON a.id = s.app_id " +
+                "JOIN statistics_uri AS u ON u.id = s.uri_id " +
+                "WHERE s.bucket >= :from AND s.bucket < :to";
+        if (uris != null && !uris.isEmpty()) {
+            sql += URI_FILTER;
+            params.addValue("uris", uris);
+        }
+        namedJdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> consumer.accept(
+                new SketchKey(rs.getTimestamp("bucket").toLocalDateTime(), rs.getString("app"), rs.getString("uri")),
+                HyperLogLog.fromBytes(rs.getBytes("registers"))
+        ));
+    }
+
+    public void findRawIps(
+            LocalDateTime from,
+            LocalDateTime to,
+            boolean inclusiveEnd,
+            List<String> uris,
+            RawIpConsumer consumer
+    ) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String filter = "WHERE timestamp >= :from AND timestamp " + (inclusiveEnd ? "<=" : "<") + " :to";
+        if (uris != null && !uris.isEmpty()) {
+            filter += URI_FILTER;
+            params.addValue("uris", uris);
+        }
+        String sql = "SELECT a.name AS app, u.name AS uri, s.ip FROM (" +
+                "SELECT DISTINCT app_id, uri_id, ip FROM statistics " + filter + ") AS s " +
+                "JOIN statistics_app AS a ON a.id = s.app_id " +
+                "JOIN statistics_uri AS u ON u.id = s.uri_id";
+        namedJdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> consumer.accept(
+                rs.getString("app"), rs.getString("uri"), IpAddressCodec.decode(rs.getBytes("ip"))));
+    }
+
+    @FunctionalInterface
+    public interface RawIpConsumer {
+        void accept(String app, String uri, String ip);
+    }
+}
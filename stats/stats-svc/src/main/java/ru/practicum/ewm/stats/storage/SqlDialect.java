@@ -0,0 +1,23 @@
+package ru.practicum.ewm.stats.storage;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+
+public enum SqlDialect {
+    POSTGRESQL,
+    H2,
+    OTHER;
+
+    public static SqlDialect of(JdbcTemplate jdbcTemplate) {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()
+        );
+        if (product == null) return OTHER;
+        product = product.toLowerCase(Locale.ROOT);
+        if (product.contains("postgres")) return POSTGRESQL;
+        if (product.contains("h2")) return H2;
+        return OTHER;
+    }
+}
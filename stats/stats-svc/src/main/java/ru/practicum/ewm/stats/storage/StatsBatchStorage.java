@@ -0,0 +1,203 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.IpAddressCodec;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+@Repository
+@Slf4j
+public class StatsBatchStorage {
+    private static final String INSERT_HIT =
+            "INSERT INTO statistics (app_id, uri_id, ip, timestamp, idempotency_key) VALUES (?, ?, ?, ?, ?)";
+    private static final String LOCK_KEYS = "SELECT COUNT(pg_advisory_xact_lock(k)) FROM unnest(?) AS k";
+    private static final long LOCK_NAMESPACE = 0x48495453L;
+    private static final String SELECT_EXISTING_KEYS =
+            "SELECT idempotency_key FROM statistics " +
+            "WHERE timestamp BETWEEN :from AND :to AND idempotency_key IN (:keys)";
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final int batchSize;
+    private final int copyMinBatch;
+    private final boolean copySupported;
+    private final SqlDialect dialect;
+
+    public StatsBatchStorage(
+            JdbcTemplate jdbcTemplate,
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            HitDictionary hitDictionary,
+            @Value("${stats.ingest.jdbc-batch-size:500}") int batchSize,
+            @Value("${stats.ingest.copy.enabled:true}") boolean copyEnabled,
+            @Value("${stats.ingest.copy.min-batch:100}") int copyMinBatch
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.hitDictionary = hitDictionary;
+        this.batchSize = batchSize;
+        this.copyMinBatch = copyMinBatch;
+        this.dialect = SqlDialect.of(jdbcTemplate);
+        this.copySupported = copyEnabled && dialect == SqlDialect.POSTGRESQL;
+        if (copySupported) log.info("Пакеты от {} событий загружаются через COPY", copyMinBatch);
+        else log.info("COPY недоступен, события записываются пакетными INSERT");
+    }
+
+    public List<EndpointHit> saveAll(List<EndpointHit> hits) {
+        return saveAll(hits, LoadMethod.AUTO);
+    }
+
+    public List<EndpointHit> saveAll(List<EndpointHit> hits, LoadMethod method) {
+        List<EndpointHit> newHits = withoutDuplicates(hits);
+        if (newHits.isEmpty()) return newHits;
+        Map<String, Integer> appIds = hitDictionary.getAppIds(
+                newHits.stream().map(EndpointHit::getApp).collect(Collectors.toSet()));
+        Map<String, Integer> uriIds = hitDictionary.getUriIds(
+                newHits.stream().map(EndpointHit::getUri).collect(Collectors.toSet()));
+        boolean copy = copySupported && (method == LoadMethod.COPY
+                || (method == LoadMethod.AUTO && newHits.size() >= copyMinBatch));
+        if (copy) {
+            copy(newHits, appIds, uriIds);
+            return newHits;
+        }
+        return insert(newHits, appIds, uriIds);
+    }
+
+    public boolean isCopySupported() {
+        return copySupported;
+    }
+
+    private void copy(List<EndpointHit> hits, Map<String, Integer> appIds, Map<String, Integer> uriIds) {
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            PGCopyOutputStream out = new PGCopyOutputStream(connection.unwrap(PGConnection.class),
+                    HitCopyEncoder.COPY_HITS, COPY_BUFFER_SIZE);
+            try {
+                HitCopyEncoder encoder = new HitCopyEncoder(out, COPY_BUFFER_SIZE);
+                for (EndpointHit hit : hits) {
+                    encoder.write(appIds.get(hit.getApp()), uriIds.get(hit.getUri()),
+                            IpAddressCodec.encode(hit.getIp()), hit.getTimestamp(), hit.getIdempotencyKey());
+                }
+                encoder.finish();
+                return out.endCopy();
+            } catch (IOException e) {
+                if (out.isActive()) out.cancelCopy();
+                throw new SQLException("Не удалось загрузить события через COPY", e);
+            }
+        });
+    }
+
+    private List<EndpointHit> insert(List<EndpointHit> hits, Map<String, Integer> appIds,
+                                     Map<String, Integer> uriIds) {
+        if (dialect == SqlDialect.POSTGRESQL) {
+            insertBatches(hits, appIds, uriIds);
+            return hits;
+        }
+        insertBatches(hits.stream().filter(hit -> hit.getIdempotencyKey() == null).collect(Collectors.toList()),
+                appIds, uriIds);
+        List<EndpointHit> saved = new ArrayList<>(hits.size());
+        for (EndpointHit hit : hits) {
+            if (hit.getIdempotencyKey() == null || insertKeyed(hit, appIds, uriIds)) saved.add(hit);
+        }
+        return saved;
+    }
+
+    private boolean insertKeyed(EndpointHit hit, Map<String, Integer> appIds, Map<String, Integer> uriIds) {
+        try {
+            jdbcTemplate.update(INSERT_HIT, appIds.get(hit.getApp()), uriIds.get(hit.getUri()),
+                    IpAddressCodec.encode(hit.getIp()), Timestamp.valueOf(hit.getTimestamp()), hit.getIdempotencyKey());
+            return true;
+        } catch (DuplicateKeyException e) {
+            log.debug("Событие с ключом идемпотентности {} уже сохранено параллельным запросом",
+                    hit.getIdempotencyKey());
+            return false;
+        }
+    }
+
+    private void insertBatches(List<EndpointHit> hits, Map<String, Integer> appIds, Map<String, Integer> uriIds) {
+        for (int from = 0; from < hits.size(); from += batchSize) {
+            List<EndpointHit> chunk = hits.subList(from, Math.min(from + batchSize, hits.size()));
+            jdbcTemplate.batchUpdate(INSERT_HIT, chunk, chunk.size(), (ps, hit) -> {
+                ps.setInt(1, appIds.get(hit.getApp()));
+                ps.setInt(2, uriIds.get(hit.getUri()));
+                ps.setBytes(3, IpAddressCodec.encode(hit.getIp()));
+                ps.setTimestamp(4, Timestamp.valueOf(hit.getTimestamp()));
+                ps.setString(5, hit.getIdempotencyKey());
+            });
+        }
+    }
+
+    private List<EndpointHit> withoutDuplicates(List<EndpointHit> hits) {
+        Set<String> keys = new HashSet<>();
+        LocalDateTime from = LocalDateTime.MAX;
+        LocalDateTime to = LocalDateTime.MIN;
+        for (EndpointHit hit : hits) {
+            if (hit.getIdempotencyKey() == null) continue;
+            keys.add(hit.getIdempotencyKey());
+            if (hit.getTimestamp().isBefore(from)) from = hit.getTimestamp();
+            if (hit.getTimestamp().isAfter(to)) to = hit.getTimestamp();
+        }
+        if (keys.isEmpty()) return hits;
+        if (dialect == SqlDialect.POSTGRESQL) lockKeys(keys);
+
+        Set<String> seen = findExistingKeys(new ArrayList<>(keys), from, to);
+        List<EndpointHit> result = new ArrayList<>(hits.size());
+        for (EndpointHit hit : hits) {
+            if (hit.getIdempotencyKey() == null || seen.add(hit.getIdempotencyKey())) result.add(hit);
+        }
+        return result;
+    }
+
+    private void lockKeys(Set<String> keys) {
+        Long[] locks = keys.stream()
+                .map(key -> LOCK_NAMESPACE << Integer.SIZE | (key.hashCode() & 0xffffffffL))
+                .distinct()
+                .sorted()
+                .toArray(Long[]::new);
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(LOCK_KEYS)) {
+                statement.setArray(1, connection.createArrayOf("bigint", locks));
+                statement.execute();
+            }
+            return null;
+        });
+    }
+
+    private Set<String> findExistingKeys(List<String> keys, LocalDateTime minTimestamp, LocalDateTime maxTimestamp) {
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < keys.size(); from += batchSize) {
+            List<String> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+            existing.addAll(namedJdbcTemplate.queryForList(SELECT_EXISTING_KEYS, Map.of(
+                    "from", Timestamp.valueOf(minTimestamp),
+                    "to", Timestamp.valueOf(maxTimestamp),
+                    "keys", chunk
+            ), String.class));
+        }
+        return existing;
+    }
+
+    public enum LoadMethod {
+        AUTO,
+        COPY,
+        INSERT
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.ewm.stats.storage;
+
+public enum StatsQueryShape {
+    ALL(UriFilter.NONE, false),
+    ALL_UNIQUE(UriFilter.NONE, true),
+    SINGLE_URI(UriFilter.SINGLE, false),
+    SINGLE_URI_UNIQUE(UriFilter.SINGLE, true),
+    URI_LIST(UriFilter.LIST, false),
+    URI_LIST_UNIQUE(UriFilter.LIST, true);
+
+    private final String sql;
+    private final String compactedSql;
+    private final String ipSql;
+    private final String compactedIpSql;
+
+    StatsQueryShape(UriFilter filter, boolean unique) {
+        String raw = "FROM statistics WHERE " + filter.condition + "timestamp BETWEEN :start AND :end";
+        // Сжатые сутки хранятся целиком, поэтому граница внутри таких суток расширяется до целых суток
+        String daily = "WHERE " + filter.condition + "bucket BETWEEN :dayStart AND :end";
+        this.sql = select("SELECT app_id, uri_id, " + (unique ? "COUNT(DISTINCT ip)" : "COUNT(*)") + " AS hits " +
+                raw + " GROUP BY app_id, uri_id");
+        this.compactedSql = select(unique
+                ? "SELECT app_id, uri_id, COUNT(DISTINCT ip) AS hits FROM (" +
+                "SELECT app_id, uri_id, ip " + raw + " UNION ALL " +
+                "SELECT app_id, uri_id, ip FROM statistics_daily_ip " + daily + ") AS parts " +
+                "GROUP BY app_id, uri_id"
+                : "SELECT app_id, uri_id, SUM(hits) AS hits FROM (" +
+                "SELECT app_id, uri_id, COUNT(*) AS hits " + raw + " GROUP BY app_id, uri_id UNION ALL " +
+                "SELECT app_id, uri_id, hits FROM statistics_daily " + daily + ") AS parts " +
+                "GROUP BY app_id, uri_id");
+        this.ipSql = selectIps("SELECT DISTINCT app_id, uri_id, ip " + raw);
+        this.compactedIpSql = selectIps("SELECT app_id, uri_id, ip " + raw + " UNION " +
+                "SELECT app_id, uri_id, ip FROM statistics_daily_ip " + daily);
+    }
+
+    public static StatsQueryShape of(int uriCount, boolean unique) {
+        if (uriCount == 0) return unique ? ALL_UNIQUE : ALL;
+        if (uriCount == 1) return unique ? SINGLE_URI_UNIQUE : SINGLE_URI;
+        return unique ? URI_LIST_UNIQUE : URI_LIST;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getCompactedSql() {
+        return compactedSql;
+    }
+
+    public String getIpSql() {
+        return ipSql;
+    }
+
+    public String getCompactedIpSql() {
+        return compactedIpSql;
+    }
+
+    private static String select(String counts) {
+        return "SELECT a.name AS app, u.name AS uri, s.hits FROM (" + counts + ") AS s " +
+                "JOIN statistics_app AS a ON a.id = s.app_id " +
+                "JOIN statistics_uri AS u ON u.id = s.uri_id " +
+                "ORDER BY s.hits DESC";
+    }
+
+    private static String selectIps(String ips) {
+        return "SELECT a.name AS app, u.name AS uri, s.ip FROM (" + ips + ") AS s " +
+                "JOIN statistics_app AS a ON a.id = s.app_id " +
+                "JOIN statistics_uri AS u ON u.id = s.uri_id";
+    }
+
+    private enum UriFilter {
+        NONE(""),
+        SINGLE("uri_id = :uriId AND "),
+        LIST("uri_id IN (:uriIds) AND ");
+
+        private final String condition;
+
+        UriFilter(String condition) {
+            this.condition = condition;
+        }
+    }
+}
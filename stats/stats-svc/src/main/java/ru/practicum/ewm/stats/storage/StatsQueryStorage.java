@@ -0,0 +1,19 @@
+package ru.practicum.ewm.stats.storage;
+
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface StatsQueryStorage {
+    List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    List<ViewStatsDto> getStatsWithUniqueIps(LocalDateTime start, LocalDateTime end, List<String> uris);
+
+    void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                     Consumer<ViewStatsDto> consumer);
+
+    List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows);
+}
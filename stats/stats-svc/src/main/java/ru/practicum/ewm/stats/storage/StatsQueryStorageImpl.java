@@ -0,0 +1,185 @@
+package ru.practicum.ewm.stats.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class StatsQueryStorageImpl implements StatsQueryStorage {
+    private static final String SELECT_WINDOW_HITS =
+            "SELECT uri_id, app_id, ip, timestamp FROM statistics " +
+            "WHERE uri_id IN (:uriIds) AND timestamp BETWEEN :start AND :end ORDER BY uri_id, timestamp";
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final NamedParameterJdbcTemplate cursorJdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final DailyStorage dailyStorage;
+    private final ColdStorage coldStorage;
+
+    public StatsQueryStorageImpl(
+            NamedParameterJdbcTemplate namedJdbcTemplate,
+            HitDictionary hitDictionary,
+            DailyStorage dailyStorage,
+            ColdStorage coldStorage,
+            @Value("${stats.query.fetch-size:1000}") int fetchSize
+    ) {
+        this.namedJdbcTemplate = namedJdbcTemplate;
+        this.hitDictionary = hitDictionary;
+        this.dailyStorage = dailyStorage;
+        this.coldStorage = coldStorage;
+        JdbcTemplate cursorTemplate = new JdbcTemplate(namedJdbcTemplate.getJdbcTemplate().getDataSource());
+        cursorTemplate.setFetchSize(fetchSize);
+        this.cursorJdbcTemplate = new NamedParameterJdbcTemplate(cursorTemplate);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<ViewStatsDto> result = new ArrayList<>();
+        query(namedJdbcTemplate, start, end, uris, false, result::add);
+        return result;
+    }
+
+    @Override
+    public List<ViewStatsDto> getStatsWithUniqueIps(LocalDateTime start, LocalDateTime end, List<String> uris) {
+        List<ViewStatsDto> result = new ArrayList<>();
+        query(namedJdbcTemplate, start, end, uris, true, result::add);
+        return result;
+    }
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique,
+                            Consumer<ViewStatsDto> consumer) {
+        query(cursorJdbcTemplate, start, end, uris, unique, consumer);
+    }
+
+    @Override
+    public List<List<ViewStatsDto>> getWindowStats(List<StatsWindow> windows) {
+        List<List<ViewStatsDto>> result = new ArrayList<>(windows.size());
+        if (windows.isEmpty()) return result;
+        LocalDateTime start = WindowStatsScan.minStart(windows);
+        if (dailyStorage.covers(start) || coldStorage.covers(start)) {
+            for (StatsWindow window : windows) {
+                List<ViewStatsDto> stats = new ArrayList<>();
+                query(namedJdbcTemplate, window.getStart(), window.getEnd(), List.of(window.getUri()),
+                        window.isUnique(), stats::add);
+                result.add(stats);
+            }
+            return result;
+        }
+
+        Set<String> uris = new HashSet<>();
+        windows.forEach(window -> uris.add(window.getUri()));
+        Map<String, Integer> uriIds = hitDictionary.findUriIds(uris);
+        Map<Integer, List<Integer>> windowsByUri = new HashMap<>();
+        for (int i = 0; i < windows.size(); i++) {
+            Integer uriId = uriIds.get(windows.get(i).getUri());
+            if (uriId != null) windowsByUri.computeIfAbsent(uriId, id -> new ArrayList<>()).add(i);
+        }
+        WindowStatsScan scan = new WindowStatsScan(windows, windowsByUri);
+        if (!windowsByUri.isEmpty()) {
+            cursorJdbcTemplate.query(SELECT_WINDOW_HITS, new MapSqlParameterSource()
+                    .addValue("uriIds", windowsByUri.keySet())
+                    .addValue("start", Timestamp.valueOf(start))
+                    .addValue("end", Timestamp.valueOf(WindowStatsScan.maxEnd(windows))), scan);
+        }
+        List<Map<Integer, Long>> counts = scan.finish();
+        Set<Integer> appIds = new HashSet<>();
+        counts.forEach(hits -> appIds.addAll(hits.keySet()));
+        Map<Integer, String> appNames = appIds.isEmpty() ? Map.of() : hitDictionary.findAppNames(appIds);
+        for (int i = 0; i < windows.size(); i++) {
+            String uri = windows.get(i).getUri();
+            List<ViewStatsDto> stats = new ArrayList<>(counts.get(i).size());
+            counts.get(i).forEach((appId, hits) -> stats.add(new ViewStatsDto(appNames.get(appId), uri, hits)));
+            stats.sort(Comparator.comparing(ViewStatsDto::getHits).reversed());
+            result.add(stats);
+        }
+        return result;
+    }
+
+    private void query(NamedParameterJdbcTemplate template, LocalDateTime start, LocalDateTime end,
+                       List<String> uris, boolean unique, Consumer<ViewStatsDto> consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("dayStart", Timestamp.valueOf(start.toLocalDate().atStartOfDay()))
+                .addValue("end", Timestamp.valueOf(end));
+        List<Integer> uriIds = List.of();
+        if (uris != null && !uris.isEmpty()) {
+            uriIds = new ArrayList<>(hitDictionary.findUriIds(uris).values());
+            if (uriIds.isEmpty()) return;
+            if (uriIds.size() == 1) params.addValue("uriId", uriIds.get(0));
+            else params.addValue("uriIds", uriIds);
+        }
+        StatsQueryShape shape = StatsQueryShape.of(uriIds.size(), unique);
+        boolean compacted = dailyStorage.covers(start);
+        if (!coldStorage.covers(start)) {
+            String sql = compacted ? shape.getCompactedSql() : shape.getSql();
+            template.query(sql, params, (RowCallbackHandler) rs -> consumer.accept(toDto(rs)));
+        } else if (unique) {
+            emitSorted(countUniqueWithCold(template, compacted ? shape.getCompactedIpSql() : shape.getIpSql(),
+                    params, start, end, uris), consumer);
+        } else {
+            emitSorted(countWithCold(template, compacted ? shape.getCompactedSql() : shape.getSql(),
+                    params, start, end, uris), consumer);
+        }
+    }
+
+    private Map<StatsKey, Long> countWithCold(NamedParameterJdbcTemplate template, String sql,
+                                              MapSqlParameterSource params, LocalDateTime start,
+                                              LocalDateTime end, List<String> uris) {
+        Map<StatsKey, Long> counts = new HashMap<>();
+        template.query(sql, params, (RowCallbackHandler) rs -> counts.merge(
+                new StatsKey(rs.getString("app"), rs.getString("uri")), rs.getLong("hits"), Long::sum));
+        coldStorage.scan(start, end, uris, false, (app, uri, ip) ->
+                counts.merge(new StatsKey(app, uri), 1L, Long::sum));
+        return counts;
+    }
+
+    private Map<StatsKey, Long> countUniqueWithCold(NamedParameterJdbcTemplate template, String sql,
+                                                    MapSqlParameterSource params, LocalDateTime start,
+                                                    LocalDateTime end, List<String> uris) {
+        Map<StatsKey, Set<ByteBuffer>> ips = new HashMap<>();
+        template.query(sql, params, (RowCallbackHandler) rs -> ips
+                .computeIfAbsent(new StatsKey(rs.getString("app"), rs.getString("uri")), key -> new HashSet<>())
+                .add(ByteBuffer.wrap(rs.getBytes("ip"))));
+        coldStorage.scan(start, end, uris, true, (app, uri, ip) ->
+                ips.computeIfAbsent(new StatsKey(app, uri), key -> new HashSet<>()).add(ip));
+        Map<StatsKey, Long> counts = new HashMap<>();
+        ips.forEach((key, values) -> counts.put(key, (long) values.size()));
+        return counts;
+    }
+
+    private static void emitSorted(Map<StatsKey, Long> counts, Consumer<ViewStatsDto> consumer) {
+        counts.entrySet().stream()
+                .sorted(Map.Entry.<StatsKey, Long>comparingByValue().reversed())
+                .forEach(entry -> consumer.accept(
+                        new ViewStatsDto(entry.getKey().getApp(), entry.getKey().getUri(), entry.getValue())));
+    }
+
+    private static ViewStatsDto toDto(ResultSet rs) throws SQLException {
+        return new ViewStatsDto(rs.getString("app"), rs.getString("uri"), rs.getLong("hits"));
+    }
+
+    @lombok.Value
+    private static class StatsKey {
+        String app;
+        String uri;
+    }
+}
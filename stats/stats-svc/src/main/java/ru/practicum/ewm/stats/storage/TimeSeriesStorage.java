@@ -0,0 +1,109 @@
+package ru.practicum.ewm.stats.storage;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+
+import java.nio.ByteBuffer;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Repository
+public class TimeSeriesStorage {
+    private static final String SELECT_ROLLUP =
+            "SELECT bucket, SUM(hits) AS hits FROM statistics_rollup " +
+            "WHERE granularity = ? AND uri_id = ? AND bucket >= ? AND bucket < ? GROUP BY bucket";
+    private static final String COUNT_RAW =
+            "SELECT COUNT(*) FROM statistics WHERE uri_id = ? AND timestamp >= ? AND timestamp <= ?";
+    private static final String COUNT_RAW_BEFORE =
+            "SELECT COUNT(*) FROM statistics WHERE uri_id = ? AND timestamp >= ? AND timestamp < ?";
+    private static final String SELECT_UNIQUE =
+            "SELECT DATE_TRUNC('%1$s', timestamp) AS bucket, COUNT(DISTINCT ip) AS hits FROM statistics " +
+            "WHERE uri_id = ? AND timestamp BETWEEN ? AND ? GROUP BY DATE_TRUNC('%1$s', timestamp)";
+    private static final String SELECT_IPS =
+            "SELECT timestamp, ip FROM statistics WHERE uri_id = ? AND timestamp BETWEEN ? AND ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final HitDictionary hitDictionary;
+    private final SqlDialect dialect;
+
+    public TimeSeriesStorage(JdbcTemplate jdbcTemplate, HitDictionary hitDictionary) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.hitDictionary = hitDictionary;
+        this.dialect = SqlDialect.of(jdbcTemplate);
+    }
+
+    public Map<LocalDateTime, Long> getHits(
+            String uri,
+            LocalDateTime start,
+            LocalDateTime end,
+            RollupGranularity granularity
+    ) {
+        Map<LocalDateTime, Long> hits = new TreeMap<>();
+        Integer uriId = hitDictionary.findUriIds(List.of(uri)).get(uri);
+        if (uriId == null) return hits;
+
+        if (granularity.floor(start).equals(granularity.floor(end))) {
+            addRaw(hits, granularity.floor(start), COUNT_RAW, uriId, start, end);
+            return hits;
+        }
+        LocalDateTime from = granularity.ceil(start);
+        LocalDateTime to = granularity.floor(end);
+        if (from.isBefore(to)) {
+            jdbcTemplate.query(SELECT_ROLLUP, (RowCallbackHandler) rs ->
+                            hits.put(rs.getTimestamp("bucket").toLocalDateTime(), rs.getLong("hits")),
+                    granularity.name(), uriId, Timestamp.valueOf(from), Timestamp.valueOf(to));
+        }
+        if (start.isBefore(from)) addRaw(hits, granularity.floor(start), COUNT_RAW_BEFORE, uriId, start, from);
+        addRaw(hits, to, COUNT_RAW, uriId, to, end);
+        return hits;
+    }
+
+    public Map<LocalDateTime, Long> getUniqueHits(
+            String uri,
+            LocalDateTime start,
+            LocalDateTime end,
+            RollupGranularity granularity
+    ) {
+        Map<LocalDateTime, Long> hits = new TreeMap<>();
+        Integer uriId = hitDictionary.findUriIds(List.of(uri)).get(uri);
+        if (uriId == null) return hits;
+
+        if (dialect != SqlDialect.OTHER) {
+            jdbcTemplate.query(String.format(SELECT_UNIQUE, granularity.name().toLowerCase(Locale.ROOT)),
+                    (RowCallbackHandler) rs -> hits.put(rs.getTimestamp("bucket").toLocalDateTime(),
+                            rs.getLong("hits")),
+                    uriId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+            return hits;
+        }
+        Map<LocalDateTime, Set<ByteBuffer>> ips = new HashMap<>();
+        jdbcTemplate.query(SELECT_IPS, (RowCallbackHandler) rs -> ips
+                        .computeIfAbsent(granularity.floor(rs.getTimestamp("timestamp").toLocalDateTime()),
+                                key -> new HashSet<>())
+                        .add(ByteBuffer.wrap(rs.getBytes("ip"))),
+                uriId, Timestamp.valueOf(start), Timestamp.valueOf(end));
+        ips.forEach((bucket, set) -> hits.put(bucket, (long) set.size()));
+        return hits;
+    }
+
+    private void addRaw(
+            Map<LocalDateTime, Long> hits,
+            LocalDateTime bucket,
+            String sql,
+            int uriId,
+            LocalDateTime from,
+            LocalDateTime to
+    ) {
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, uriId, Timestamp.valueOf(from),
+                Timestamp.valueOf(to));
+        if (count != null && count > 0) hits.merge(bucket, count, Long::sum);
+    }
+}
@@ -0,0 +1,107 @@
+package ru.practicum.ewm.stats.storage;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.nio.ByteBuffer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+class WindowStatsScan implements RowCallbackHandler {
+    private final List<StatsWindow> windows;
+    private final Map<Integer, List<Integer>> windowsByUri;
+    private final List<Map<Integer, Long>> counts;
+    private int uriId = -1;
+    private long[] micros = new long[1024];
+    private int[] appIds = new int[1024];
+    private ByteBuffer[] ips = new ByteBuffer[1024];
+    private int size;
+
+    WindowStatsScan(List<StatsWindow> windows, Map<Integer, List<Integer>> windowsByUri) {
+        this.windows = windows;
+        this.windowsByUri = windowsByUri;
+        this.counts = new ArrayList<>(windows.size());
+        for (int i = 0; i < windows.size(); i++) {
+            counts.add(Map.of());
+        }
+    }
+
+    @Override
+    public void processRow(ResultSet rs) throws SQLException {
+        int rowUriId = rs.getInt("uri_id");
+        if (rowUriId != uriId) {
+            evaluate();
+            uriId = rowUriId;
+        }
+        if (size == micros.length) {
+            micros = Arrays.copyOf(micros, size * 2);
+            appIds = Arrays.copyOf(appIds, size * 2);
+            ips = Arrays.copyOf(ips, size * 2);
+        }
+        micros[size] = toMicros(rs.getTimestamp("timestamp"));
+        appIds[size] = rs.getInt("app_id");
+        ips[size] = ByteBuffer.wrap(rs.getBytes("ip"));
+        size++;
+    }
+
+    List<Map<Integer, Long>> finish() {
+        evaluate();
+        return counts;
+    }
+
+    private void evaluate() {
+        if (size == 0) return;
+        for (int index : windowsByUri.getOrDefault(uriId, List.of())) {
+            StatsWindow window = windows.get(index);
+            int from = lowerBound(toMicros(Timestamp.valueOf(window.getStart())));
+            int to = lowerBound(toMicros(Timestamp.valueOf(window.getEnd())) + 1);
+            Map<Integer, Long> hits = new HashMap<>();
+            if (window.isUnique()) {
+                Map<Integer, Set<ByteBuffer>> unique = new HashMap<>();
+                for (int i = from; i < to; i++) {
+                    unique.computeIfAbsent(appIds[i], app -> new HashSet<>()).add(ips[i]);
+                }
+                unique.forEach((app, values) -> hits.put(app, (long) values.size()));
+            } else {
+                for (int i = from; i < to; i++) {
+                    hits.merge(appIds[i], 1L, Long::sum);
+                }
+            }
+            counts.set(index, hits);
+        }
+        Arrays.fill(ips, 0, size, null);
+        size = 0;
+    }
+
+    private int lowerBound(long value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (micros[middle] < value) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    static long toMicros(Timestamp timestamp) {
+        return Math.floorDiv(timestamp.getTime(), 1000) * 1_000_000 + timestamp.getNanos() / 1000;
+    }
+
+    static LocalDateTime minStart(List<StatsWindow> windows) {
+        return windows.stream().map(StatsWindow::getStart).min(LocalDateTime::compareTo).orElseThrow();
+    }
+
+    static LocalDateTime maxEnd(List<StatsWindow> windows) {
+        return windows.stream().map(StatsWindow::getEnd).max(LocalDateTime::compareTo).orElseThrow();
+    }
+}
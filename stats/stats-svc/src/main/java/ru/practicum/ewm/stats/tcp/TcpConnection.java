@@ -0,0 +1,135 @@
+package ru.practicum.ewm.stats.tcp;
+
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.List;
+
+class TcpConnection {
+    private static final int INITIAL_BUFFER_BYTES = 64 * 1024;
+
+    private final SocketChannel channel;
+    private final int maxFrameBytes;
+    private final ByteBuffer acks;
+    private ByteBuffer in;
+    private SelectionKey key;
+    private List<EndpointHit> pending;
+    private long retryAt;
+
+    TcpConnection(SocketChannel channel, int maxFrameBytes, int maxPendingAcks) {
+        this.channel = channel;
+        this.maxFrameBytes = maxFrameBytes;
+        this.acks = ByteBuffer.allocate(maxPendingAcks);
+        this.in = ByteBuffer.allocate(Math.min(INITIAL_BUFFER_BYTES, maxFrameBytes + 5));
+    }
+
+    SocketChannel channel() {
+        return channel;
+    }
+
+    void attach(SelectionKey key) {
+        this.key = key;
+    }
+
+    int read() throws IOException {
+        if (!in.hasRemaining()) grow();
+        return channel.read(in);
+    }
+
+    byte[] nextFrame() {
+        in.flip();
+        try {
+            long length = 0;
+            int header = 0;
+            for (int shift = 0; ; shift += 7) {
+                if (header == in.remaining()) return null;
+                byte b = in.get(in.position() + header++);
+                if (shift > 28) throw new IllegalArgumentException("Некорректная длина сообщения статистики");
+                length |= (long) (b & 0x7f) << shift;
+                if ((b & 0x80) == 0) break;
+            }
+            if (length > maxFrameBytes)
+                throw new IllegalArgumentException("Сообщение статистики длиннее " + maxFrameBytes + " байт");
+            int size = header + (int) length;
+            if (size > in.capacity()) {
+                in.compact();
+                grow(size);
+                in.flip();
+            }
+            if (in.remaining() < size) return null;
+            byte[] frame = new byte[size];
+            in.get(frame);
+            return frame;
+        } finally {
+            in.compact();
+        }
+    }
+
+    boolean canAck() {
+        return acks.hasRemaining();
+    }
+
+    void ack(byte status) throws IOException {
+        acks.put(status);
+        flush();
+    }
+
+    void flush() throws IOException {
+        acks.flip();
+        channel.write(acks);
+        acks.compact();
+        updateInterest();
+    }
+
+    boolean isPaused() {
+        return pending != null;
+    }
+
+    List<EndpointHit> pending() {
+        return pending;
+    }
+
+    long retryAt() {
+        return retryAt;
+    }
+
+    void pause(List<EndpointHit> hits, long retryAt) {
+        this.pending = hits;
+        this.retryAt = retryAt;
+        updateInterest();
+    }
+
+    void resume() {
+        this.pending = null;
+        updateInterest();
+    }
+
+    void updateInterest() {
+        if (key == null || !key.isValid()) return;
+        int ops = acks.position() > 0 ? SelectionKey.OP_WRITE : 0;
+        if (pending == null && acks.hasRemaining()) ops |= SelectionKey.OP_READ;
+        key.interestOps(ops);
+    }
+
+    void close() {
+        if (key != null) key.cancel();
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void grow() {
+        grow(in.capacity() * 2);
+    }
+
+    private void grow(int capacity) {
+        ByteBuffer larger = ByteBuffer.allocate(Math.min(Math.max(capacity, in.capacity()), maxFrameBytes + 5));
+        in.flip();
+        larger.put(in);
+        in = larger;
+    }
+}
@@ -0,0 +1,343 @@
+package ru.practicum.ewm.stats.tcp;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.ingest.HitIngestor;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.EndpointHitMapper;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Component
+@ConditionalOnProperty(name = "stats.tcp.enabled", havingValue = "true")
+@Slf4j
+public class TcpIngestListener {
+    public static final byte ACCEPTED = 0;
+    public static final byte INVALID = 1;
+
+    private final HitIngestor hitIngestor;
+    private final TcpIngestProperties properties;
+    private final Validator validator;
+    private final Counter frames;
+    private final Counter hits;
+    private final Counter invalid;
+    private final Counter overloaded;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<Worker> workers = new ArrayList<>();
+    private final ThreadPoolExecutor executor;
+    private ServerSocketChannel server;
+    private Selector acceptSelector;
+    private Thread acceptor;
+    private volatile boolean running = true;
+
+    public TcpIngestListener(HitIngestor hitIngestor, TcpIngestProperties properties, Validator validator,
+                             MeterRegistry meterRegistry) {
+        if (properties.getThreads() < 1)
+            throw new IllegalArgumentException("Число потоков TCP-приёма должно быть положительным: " +
+                    properties.getThreads());
+        if (properties.getIngestThreads() < 1)
+            throw new IllegalArgumentException("Число потоков записи TCP-событий должно быть положительным: " +
+                    properties.getIngestThreads());
+        this.hitIngestor = hitIngestor;
+        this.properties = properties;
+        this.validator = validator;
+        this.frames = meterRegistry.counter("stats.tcp.frames");
+        this.hits = meterRegistry.counter("stats.tcp.hits");
+        this.invalid = meterRegistry.counter("stats.tcp.invalid");
+        this.overloaded = meterRegistry.counter("stats.tcp.overloaded");
+        Gauge.builder("stats.tcp.connections", connections, AtomicInteger::get).register(meterRegistry);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getIngestThreads(), properties.getIngestThreads(), 0,
+                TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "tcp-ingest-writer-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        acceptSelector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(properties.getHost(), properties.getPort()));
+        server.configureBlocking(false);
+        server.register(acceptSelector, SelectionKey.OP_ACCEPT);
+        for (int i = 0; i < properties.getThreads(); i++) {
+            Worker worker = new Worker(Selector.open(), "tcp-ingest-" + i);
+            workers.add(worker);
+            worker.thread.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "tcp-ingest-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        log.info("Запущен приём событий по TCP на порту {}, потоков {}", getPort(), properties.getThreads());
+    }
+
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        acceptSelector.wakeup();
+        acceptor.join();
+        server.close();
+        acceptSelector.close();
+        for (Worker worker : workers) {
+            worker.selector.wakeup();
+            worker.thread.join();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        log.info("Приём событий по TCP остановлен");
+    }
+
+    private void acceptLoop() {
+        int next = 0;
+        while (running) {
+            try {
+                acceptSelector.select();
+                acceptSelector.selectedKeys().clear();
+                SocketChannel channel;
+                while ((channel = server.accept()) != null) {
+                    channel.configureBlocking(false);
+                    channel.socket().setTcpNoDelay(true);
+                    workers.get(next++ % workers.size()).add(channel);
+                }
+            } catch (IOException e) {
+                if (running) log.error("Ошибка при приёме TCP-соединения: {}", e.getMessage());
+            }
+        }
+    }
+
+    private class Worker {
+        private final Selector selector;
+        private final Thread thread;
+        private final Queue<SocketChannel> incoming = new ConcurrentLinkedQueue<>();
+        private final Queue<Completion> completed = new ConcurrentLinkedQueue<>();
+        private final List<TcpConnection> paused = new ArrayList<>();
+
+        private Worker(Selector selector, String name) {
+            this.selector = selector;
+            this.thread = new Thread(this::loop, name);
+            this.thread.setDaemon(true);
+        }
+
+        private void add(SocketChannel channel) {
+            incoming.add(channel);
+            selector.wakeup();
+        }
+
+        private void loop() {
+            while (running) {
+                try {
+                    selector.select(paused.isEmpty() ? 0 : properties.getRetryIntervalMs());
+                    register();
+                    complete();
+                    Set<SelectionKey> selected = selector.selectedKeys();
+                    for (Iterator<SelectionKey> it = selected.iterator(); it.hasNext(); ) {
+                        SelectionKey key = it.next();
+                        it.remove();
+                        handle(key);
+                    }
+                    retryPaused();
+                } catch (IOException e) {
+                    log.error("Ошибка цикла TCP-приёма: {}", e.getMessage());
+                }
+            }
+            for (SelectionKey key : selector.keys()) {
+                close((TcpConnection) key.attachment());
+            }
+            try {
+                selector.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        private void register() throws IOException {
+            SocketChannel channel;
+            while ((channel = incoming.poll()) != null) {
+                TcpConnection connection = new TcpConnection(channel, properties.getMaxFrameBytes(),
+                        properties.getMaxPendingAcks());
+                connection.attach(channel.register(selector, SelectionKey.OP_READ, connection));
+                connections.incrementAndGet();
+            }
+        }
+
+        private void handle(SelectionKey key) {
+            TcpConnection connection = (TcpConnection) key.attachment();
+            try {
+                if (key.isValid() && key.isWritable()) connection.flush();
+                int read = key.isValid() && key.isReadable() ? connection.read() : 0;
+                process(connection);
+                if (read < 0) close(connection);
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("TCP-соединение {} закрыто: {}", remote(connection), e.getMessage());
+                close(connection);
+            }
+        }
+
+        private void process(TcpConnection connection) throws IOException {
+            while (!connection.isPaused() && connection.canAck()) {
+                byte[] frame = connection.nextFrame();
+                if (frame == null) break;
+                frames.increment();
+                List<EndpointHit> batch = decode(frame);
+                if (batch == null) {
+                    invalid.increment();
+                    connection.ack(INVALID);
+                } else {
+                    submit(connection, batch);
+                }
+            }
+            connection.updateInterest();
+        }
+
+        private void submit(TcpConnection connection, List<EndpointHit> batch) {
+            connection.pause(batch, Long.MAX_VALUE);
+            try {
+                executor.execute(() -> {
+                    RuntimeException error = null;
+                    try {
+                        hitIngestor.ingest(batch);
+                    } catch (RuntimeException e) {
+                        error = e;
+                    }
+                    completed.add(new Completion(connection, batch, error));
+                    selector.wakeup();
+                });
+            } catch (RejectedExecutionException e) {
+                retryLater(connection, batch);
+            }
+        }
+
+        private void complete() {
+            Completion completion;
+            while ((completion = completed.poll()) != null) {
+                TcpConnection connection = completion.getConnection();
+                if (!connection.channel().isOpen()) continue;
+                RuntimeException error = completion.getError();
+                try {
+                    if (error instanceof IngestOverloadException) {
+                        overloaded.increment();
+                        retryLater(connection, completion.getBatch());
+                        continue;
+                    }
+                    if (error != null) {
+                        log.error("Ошибка записи событий из TCP-соединения {}: {}", remote(connection),
+                                error.getMessage());
+                        close(connection);
+                        continue;
+                    }
+                    connection.resume();
+                    hits.increment(completion.getBatch().size());
+                    connection.ack(ACCEPTED);
+                    process(connection);
+                } catch (IOException | IllegalArgumentException e) {
+                    log.warn("TCP-соединение {} закрыто: {}", remote(connection), e.getMessage());
+                    close(connection);
+                }
+            }
+        }
+
+        private void retryLater(TcpConnection connection, List<EndpointHit> batch) {
+            connection.pause(batch, System.currentTimeMillis() + properties.getRetryIntervalMs());
+            if (!paused.contains(connection)) paused.add(connection);
+        }
+
+        private void retryPaused() {
+            long now = System.currentTimeMillis();
+            List<TcpConnection> due = new ArrayList<>();
+            for (Iterator<TcpConnection> it = paused.iterator(); it.hasNext(); ) {
+                TcpConnection connection = it.next();
+                if (!connection.channel().isOpen()) {
+                    it.remove();
+                    continue;
+                }
+                if (connection.retryAt() > now) continue;
+                it.remove();
+                due.add(connection);
+            }
+            for (TcpConnection connection : due) {
+                submit(connection, connection.pending());
+            }
+        }
+
+        private List<EndpointHit> decode(byte[] frame) {
+            List<WireHitDto> wireHits;
+            try {
+                wireHits = StatsWireCodec.decodeHits(frame);
+            } catch (IllegalArgumentException e) {
+                log.warn("Отклонено сообщение по TCP: {}", e.getMessage());
+                return null;
+            }
+            if (wireHits.size() > properties.getMaxFrameHits())
+                throw new IllegalArgumentException("Сообщение статистики содержит более " +
+                        properties.getMaxFrameHits() + " событий");
+            List<EndpointHit> batch = new ArrayList<>(wireHits.size());
+            for (WireHitDto wireHit : wireHits) {
+                Set<ConstraintViolation<WireHitDto>> violations = validator.validate(wireHit);
+                if (!violations.isEmpty()) {
+                    log.warn("Отклонено сообщение по TCP: {}", violations.iterator().next().getMessage());
+                    return null;
+                }
+                batch.add(EndpointHitMapper.endpointHitFromWire(wireHit));
+            }
+            return batch;
+        }
+
+        private void close(TcpConnection connection) {
+            if (!connection.channel().isOpen()) return;
+            connection.close();
+            connections.decrementAndGet();
+        }
+
+        private String remote(TcpConnection connection) {
+            try {
+                return String.valueOf(connection.channel().getRemoteAddress());
+            } catch (IOException e) {
+                return "?";
+            }
+        }
+    }
+
+    @Value
+    private static class Completion {
+        TcpConnection connection;
+        List<EndpointHit> batch;
+        RuntimeException error;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.practicum.ewm.stats.tcp;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Data
+@Component
+@ConfigurationProperties(prefix = "stats.tcp")
+public class TcpIngestProperties {
+    private boolean enabled = false;
+    private String host = "0.0.0.0";
+    private int port = 9091;
+    private int threads = 2;
+    private int ingestThreads = 4;
+    private int maxFrameBytes = 1024 * 1024;
+    private int maxFrameHits = 10000;
+    private int maxPendingAcks = 4096;
+    private long retryIntervalMs = 50;
+}
@@ -0,0 +1,234 @@
+package ru.practicum.ewm.stats.wal;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.ewm.stats.ingest.HitRecordCodec;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+@Slf4j
+public class SegmentLog implements Closeable {
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_SIZE = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final NavigableMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+    private long activeId;
+    private int writeOffset;
+    private WalPosition durable;
+    private WalPosition checkpoint;
+
+    public SegmentLog(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+        checkpoint = readCheckpoint();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (!name.endsWith(SEGMENT_SUFFIX)) continue;
+                long id = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                if (id < checkpoint.getSegmentId()) Files.delete(file);
+                else segments.put(id, map(file));
+            }
+        }
+        if (segments.isEmpty()) {
+            activeId = checkpoint.getSegmentId();
+            segments.put(activeId, map(segmentPath(activeId)));
+            writeOffset = 0;
+        } else {
+            activeId = segments.lastKey();
+            writeOffset = scan(segments.lastEntry().getValue());
+            clearTail(segments.lastEntry().getValue(), writeOffset);
+        }
+        durable = new WalPosition(activeId, writeOffset);
+        log.info("Журнал событий открыт: сегментов {}, позиция записи {}, контрольная точка {}",
+                segments.size(), durable, checkpoint);
+    }
+
+    public synchronized WalPosition append(List<EndpointHit> hits) throws IOException {
+        for (EndpointHit hit : hits) {
+            int maxRecordSize = HEADER_SIZE + HitRecordCodec.maxEncodedSize(hit);
+            if (maxRecordSize > segmentSize)
+                throw new IllegalArgumentException("Событие не помещается в сегмент журнала: " + hit);
+            if (writeOffset + maxRecordSize > segmentSize) roll();
+
+            ByteBuffer record = segments.get(activeId).duplicate();
+            record.position(writeOffset + HEADER_SIZE);
+            HitRecordCodec.write(record, hit);
+            int length = record.position() - writeOffset - HEADER_SIZE;
+            record.putInt(writeOffset + Integer.BYTES, checksum(record, writeOffset + HEADER_SIZE, length));
+            record.putInt(writeOffset, length);
+            writeOffset += HEADER_SIZE + length;
+        }
+        return end();
+    }
+
+    public synchronized WalPosition end() {
+        return new WalPosition(activeId, writeOffset);
+    }
+
+    public void sync() {
+        MappedByteBuffer active;
+        WalPosition position;
+        synchronized (this) {
+            position = end();
+            if (position.compareTo(durable) <= 0) return;
+            active = segments.get(activeId);
+        }
+        active.force();
+        synchronized (this) {
+            if (position.compareTo(durable) > 0) durable = position;
+            notifyAll();
+        }
+    }
+
+    public synchronized boolean awaitDurable(WalPosition position, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (durable.compareTo(position) < 0) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) return false;
+            wait(remaining);
+        }
+        return true;
+    }
+
+    public WalBatch read(WalPosition from, int maxRecords) {
+        WalPosition end;
+        MappedByteBuffer segment;
+        long segmentId = from.getSegmentId();
+        int offset = from.getOffset();
+        synchronized (this) {
+            end = end();
+            Map.Entry<Long, MappedByteBuffer> entry = segments.ceilingEntry(segmentId);
+            if (entry.getKey() != segmentId || segmentId < activeId && !hasRecordAt(entry.getValue(), offset)) {
+                entry = segments.higherEntry(segmentId);
+                offset = 0;
+            }
+            segmentId = entry.getKey();
+            segment = entry.getValue();
+        }
+        int limit = segmentId == end.getSegmentId() ? end.getOffset() : segmentSize;
+        List<EndpointHit> hits = new ArrayList<>();
+        List<WalPosition> positions = new ArrayList<>();
+        ByteBuffer buffer = segment.duplicate();
+        while (hits.size() < maxRecords && offset < limit && hasRecordAt(segment, offset)) {
+            int length = buffer.getInt(offset);
+            buffer.position(offset + HEADER_SIZE);
+            hits.add(HitRecordCodec.read(buffer));
+            positions.add(new WalPosition(segmentId, offset));
+            offset += HEADER_SIZE + length;
+        }
+        return new WalBatch(hits, positions, new WalPosition(segmentId, offset));
+    }
+
+    public synchronized WalPosition getCheckpoint() {
+        return checkpoint;
+    }
+
+    public synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    public void checkpoint(WalPosition position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        ByteBuffer content = ByteBuffer.allocate(Long.BYTES + Integer.BYTES);
+        content.putLong(position.getSegmentId()).putInt(position.getOffset()).flip();
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(content);
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE);
+
+        List<Long> applied;
+        synchronized (this) {
+            checkpoint = position;
+            applied = new ArrayList<>(segments.headMap(position.getSegmentId(), false).keySet());
+            applied.forEach(segments::remove);
+        }
+        for (Long id : applied) {
+            Files.deleteIfExists(segmentPath(id));
+            log.debug("Удалён применённый сегмент журнала {}", id);
+        }
+    }
+
+    @Override
+    public void close() {
+        sync();
+    }
+
+    private void roll() throws IOException {
+        MappedByteBuffer segment = segments.get(activeId);
+        if (writeOffset + Integer.BYTES <= segmentSize) segment.putInt(writeOffset, 0);
+        segment.force();
+        activeId++;
+        segments.put(activeId, map(segmentPath(activeId)));
+        writeOffset = 0;
+        log.debug("Создан сегмент журнала {}", activeId);
+    }
+
+    private WalPosition readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) return new WalPosition(0, 0);
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new WalPosition(content.getLong(), content.getInt());
+    }
+
+    private int scan(MappedByteBuffer segment) {
+        int offset = 0;
+        while (hasRecordAt(segment, offset)) {
+            offset += HEADER_SIZE + segment.getInt(offset);
+        }
+        return offset;
+    }
+
+    private void clearTail(MappedByteBuffer segment, int offset) {
+        for (int position = offset; position < segmentSize; position++) {
+            if (segment.get(position) != 0) segment.put(position, (byte) 0);
+        }
+    }
+
+    private boolean hasRecordAt(MappedByteBuffer segment, int offset) {
+        if (offset + HEADER_SIZE > segmentSize) return false;
+        int length = segment.getInt(offset);
+        if (length <= 0 || offset + HEADER_SIZE + length > segmentSize) return false;
+        return segment.getInt(offset + Integer.BYTES) == checksum(segment, offset + HEADER_SIZE, length);
+    }
+
+    private MappedByteBuffer map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%020d%s", id, SEGMENT_SUFFIX));
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        ByteBuffer payload = buffer.duplicate();
+        payload.position(offset).limit(offset + length);
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.practicum.ewm.stats.wal;
+
+import lombok.Value;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.util.List;
+
+@Value
+public class WalBatch {
+    List<EndpointHit> hits;
+    List<WalPosition> positions;
+    WalPosition end;
+}
@@ -0,0 +1,124 @@
+package ru.practicum.ewm.stats.wal;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.ingest.HitIngestor;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.ingest.IngestProperties;
+import ru.practicum.ewm.stats.ingest.RetryingHitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnProperty(name = "stats.ingest.mode", havingValue = "wal")
+@Slf4j
+public class WalHitIngestor implements HitIngestor {
+    private static final String KEY_PREFIX = "wal:";
+
+    private final RetryingHitWriter hitWriter;
+    private final IngestProperties.Wal properties;
+    private final SegmentLog segmentLog;
+    private final Thread syncer;
+    private final Thread replayer;
+    private volatile boolean running = true;
+
+    public WalHitIngestor(HitWriter hitWriter, IngestProperties ingestProperties, MeterRegistry meterRegistry)
+            throws IOException {
+        this.hitWriter = new RetryingHitWriter(hitWriter, meterRegistry);
+        this.properties = ingestProperties.getWal();
+        this.segmentLog = new SegmentLog(Path.of(properties.getDirectory()), properties.getSegmentSize());
+        Gauge.builder("stats.ingest.wal.segments", segmentLog, SegmentLog::segmentCount).register(meterRegistry);
+        this.syncer = new Thread(this::syncLoop, "wal-syncer");
+        this.replayer = new Thread(this::replayLoop, "wal-replayer");
+        this.syncer.setDaemon(true);
+        this.replayer.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        syncer.start();
+        replayer.start();
+    }
+
+    @Override
+    public void ingest(List<EndpointHit> hits) {
+        if (!running) throw new IngestOverloadException("Сервис статистики останавливается и не принимает события");
+        if (segmentLog.segmentCount() > properties.getMaxSegments())
+            throw new IngestOverloadException("Журнал событий переполнен, повторите запрос позже");
+        try {
+            WalPosition position = segmentLog.append(hits);
+            if (properties.getSyncMode() == IngestProperties.SyncMode.BATCH &&
+                    !segmentLog.awaitDurable(position, properties.getSyncTimeoutMs()))
+                throw new IngestOverloadException("Не удалось дождаться записи журнала на диск");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IngestOverloadException("Запись события в журнал прервана");
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        replayer.interrupt();
+        replayer.join(TimeUnit.SECONDS.toMillis(5));
+        syncer.join(TimeUnit.SECONDS.toMillis(1));
+        segmentLog.close();
+    }
+
+    private void syncLoop() {
+        while (running) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(properties.getSyncIntervalMs());
+            } catch (InterruptedException e) {
+                return;
+            }
+            segmentLog.sync();
+        }
+    }
+
+    private void replayLoop() {
+        WalPosition position = segmentLog.getCheckpoint();
+        while (running) {
+            try {
+                WalBatch batch = segmentLog.read(position, properties.getReplayBatchSize());
+                if (batch.getHits().isEmpty()) {
+                    if (!batch.getEnd().equals(position)) segmentLog.checkpoint(batch.getEnd());
+                    position = batch.getEnd();
+                    TimeUnit.MILLISECONDS.sleep(properties.getReplayIntervalMs());
+                    continue;
+                }
+                hitWriter.write(withReplayKeys(batch));
+                segmentLog.checkpoint(batch.getEnd());
+                position = batch.getEnd();
+            } catch (InterruptedException e) {
+                return;
+            } catch (IOException e) {
+                log.error("Не удалось сохранить контрольную точку журнала: {}", e.getMessage());
+            }
+        }
+    }
+
+    private static List<EndpointHit> withReplayKeys(WalBatch batch) {
+        List<EndpointHit> hits = batch.getHits();
+        for (int i = 0; i < hits.size(); i++) {
+            EndpointHit hit = hits.get(i);
+            if (hit.getIdempotencyKey() != null) continue;
+            WalPosition position = batch.getPositions().get(i);
+            hit.setIdempotencyKey(KEY_PREFIX + position.getSegmentId() + ":" + position.getOffset());
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.ewm.stats.wal;
+
+import lombok.Value;
+
+@Value
+public class WalPosition implements Comparable<WalPosition> {
+    long segmentId;
+    int offset;
+
+    @Override
+    public int compareTo(WalPosition other) {
+        int bySegment = Long.compare(segmentId, other.segmentId);
+        return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+    }
+}
@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS statistics (
+  id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  app_id INTEGER NOT NULL,
+  uri_id INTEGER NOT NULL,
+  ip BYTEA NOT NULL,
+  timestamp TIMESTAMP NOT NULL,
+  idempotency_key VARCHAR(64)
+);
+
+CREATE UNIQUE INDEX IF NOT EXISTS statistics_idempotency_key_idx ON statistics (idempotency_key, timestamp);
+CREATE INDEX IF NOT EXISTS statistics_timestamp_covering_idx ON statistics (timestamp, app_id, uri_id, ip);
+CREATE INDEX IF NOT EXISTS statistics_uri_timestamp_idx ON statistics (uri_id, timestamp, app_id, ip);
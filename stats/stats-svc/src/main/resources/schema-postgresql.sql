@@ -0,0 +1,28 @@
+DO '
+BEGIN
+  IF to_regclass(''statistics'') IS NOT NULL AND NOT EXISTS (
+      SELECT 1 FROM pg_partitioned_table WHERE partrelid = to_regclass(''statistics''))
+  THEN
+    ALTER TABLE statistics RENAME TO statistics_unpartitioned;
+    ALTER TABLE statistics_unpartitioned RENAME CONSTRAINT statistics_pkey TO statistics_unpartitioned_pkey;
+    DROP INDEX IF EXISTS statistics_idempotency_key_idx;
+    DROP INDEX IF EXISTS statistics_timestamp_idx;
+  END IF;
+END';
+
+CREATE TABLE IF NOT EXISTS statistics (
+  id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY,
+  app_id INTEGER NOT NULL,
+  uri_id INTEGER NOT NULL,
+  ip BYTEA NOT NULL,
+  timestamp TIMESTAMP NOT NULL,
+  idempotency_key VARCHAR(64),
+  PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+CREATE TABLE IF NOT EXISTS statistics_default PARTITION OF statistics DEFAULT;
+
+CREATE UNIQUE INDEX IF NOT EXISTS statistics_idempotency_key_idx ON statistics (idempotency_key, timestamp);
+DROP INDEX IF EXISTS statistics_timestamp_idx;
+CREATE INDEX IF NOT EXISTS statistics_timestamp_covering_idx ON statistics (timestamp, app_id, uri_id, ip);
+CREATE INDEX IF NOT EXISTS statistics_uri_timestamp_idx ON statistics (uri_id, timestamp, app_id, ip);
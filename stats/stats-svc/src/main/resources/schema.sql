@@ -1,9 +1,62 @@
-DROP TABLE IF EXISTS statistics;
+CREATE TABLE IF NOT EXISTS statistics_app (
+  id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+  name VARCHAR(128) NOT NULL UNIQUE
+);
 
-CREATE TABLE IF NOT EXISTS statistics (
+CREATE TABLE IF NOT EXISTS statistics_uri (
   id INTEGER NOT NULL GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
-  app VARCHAR(128) NOT NULL,
-  uri VARCHAR(128) NOT NULL,
-  ip VARCHAR(40) NOT NULL,
-  timestamp TIMESTAMP NOT NULL
-);
\ No newline at end of file
+  name VARCHAR(128) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS statistics_rollup (
+  granularity VARCHAR(6) NOT NULL,
+  bucket TIMESTAMP NOT NULL,
+  app_id INTEGER NOT NULL,
+  uri_id INTEGER NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (granularity, bucket, app_id, uri_id)
+);
+
+CREATE INDEX IF NOT EXISTS statistics_rollup_uri_idx ON statistics_rollup (granularity, uri_id, bucket);
+
+CREATE TABLE IF NOT EXISTS statistics_sketch (
+  bucket TIMESTAMP NOT NULL,
+  app_id INTEGER NOT NULL,
+  uri_id INTEGER NOT NULL,
+  registers BYTEA NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE INDEX IF NOT EXISTS statistics_sketch_uri_idx ON statistics_sketch (uri_id, bucket);
+
+CREATE TABLE IF NOT EXISTS statistics_daily (
+  bucket TIMESTAMP NOT NULL,
+  app_id INTEGER NOT NULL,
+  uri_id INTEGER NOT NULL,
+  hits BIGINT NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id)
+);
+
+CREATE INDEX IF NOT EXISTS statistics_daily_uri_idx ON statistics_daily (uri_id, bucket);
+
+CREATE TABLE IF NOT EXISTS statistics_daily_ip (
+  bucket TIMESTAMP NOT NULL,
+  app_id INTEGER NOT NULL,
+  uri_id INTEGER NOT NULL,
+  ip BYTEA NOT NULL,
+  PRIMARY KEY (bucket, app_id, uri_id, ip)
+);
+
+CREATE INDEX IF NOT EXISTS statistics_daily_ip_uri_idx ON statistics_daily_ip (uri_id, bucket);
+
+CREATE TABLE IF NOT EXISTS statistics_heartbeat (
+  id INTEGER NOT NULL PRIMARY KEY,
+  beat TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS statistics_cold_segment (
+  name VARCHAR(128) NOT NULL PRIMARY KEY,
+  min_timestamp TIMESTAMP NOT NULL,
+  max_timestamp TIMESTAMP NOT NULL,
+  hits BIGINT NOT NULL
+);
@@ -1,33 +1,51 @@
 package ru.practicum.ewm.stats.api;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.StatsQueryResultDto;
+import ru.practicum.ewm.dto.TimeSeriesPointDto;
+import ru.practicum.ewm.dto.TopHitDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+import ru.practicum.ewm.stats.bulkhead.BulkheadProperties;
+import ru.practicum.ewm.stats.bulkhead.StatsBulkheads;
 import ru.practicum.ewm.stats.service.StatsService;
 import ru.practicum.ewm.stats.controller.StatsController;
 import ru.practicum.ewm.dto.EndpointHitDto;
 
+import javax.validation.ValidationException;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyList;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = StatsController.class)
+@Import({StatsBulkheads.class, BulkheadProperties.class, SimpleMeterRegistry.class})
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 public class StatsControllerTest {
     @MockBean
@@ -109,6 +127,134 @@ public class StatsControllerTest {
                 .andExpect(jsonPath("$.error").value("IP-адрес не может быть пустым"));
     }
 
+    @Test
+    public void shouldSaveEvents() throws Exception {
+        List<EndpointHitDto> endpointHitDtos = List.of(
+                new EndpointHitDto(
+                        "test-application",
+                        "/test",
+                        "192.168.0.1",
+                        LocalDateTime.now().minusHours(1).format(formatter)
+                ),
+                new EndpointHitDto(
+                        "test-application",
+                        "/test",
+                        "192.168.0.2",
+                        LocalDateTime.now().minusHours(1).format(formatter)
+                )
+        );
+
+        mvc.perform(post("/hits")
+                        .content(mapper.writeValueAsString(endpointHitDtos))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isCreated());
+        Mockito.verify(statsService).saveEvents(anyList());
+    }
+
+    @Test
+    public void shouldNotSaveEventsWhenListIsEmpty() throws Exception {
+        mvc.perform(post("/hits")
+                        .content("[]")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Список событий не может быть пустым"));
+    }
+
+    @Test
+    public void shouldNotSaveEventsWhenIpIsBlank() throws Exception {
+        List<EndpointHitDto> endpointHitDtos = List.of(
+                new EndpointHitDto(
+                        "test-application",
+                        "/test",
+                        "",
+                        LocalDateTime.now().minusHours(1).format(formatter)
+                )
+        );
+
+        mvc.perform(post("/hits")
+                        .content(mapper.writeValueAsString(endpointHitDtos))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("IP-адрес не может быть пустым"));
+    }
+
+    @Test
+    public void shouldSaveBinaryEvent() throws Exception {
+        WireHitDto hit = new WireHitDto("test-application", "/test", "192.168.0.1",
+                StatsWireCodec.toEpochMillis(LocalDateTime.of(2023, 1, 1, 12, 0)), null);
+
+        mvc.perform(post("/hit")
+                        .content(StatsWireCodec.encodeHits(List.of(hit)))
+                        .contentType(StatsWireCodec.MEDIA_TYPE))
+                .andExpect(status().isCreated());
+        Mockito.verify(statsService).saveWireEvents(List.of(hit));
+    }
+
+    @Test
+    public void shouldSaveBinaryEvents() throws Exception {
+        List<WireHitDto> hits = List.of(
+                new WireHitDto("test-application", "/test/1", "192.168.0.1", 1_672_574_400_000L, "key-1"),
+                new WireHitDto("test-application", "/test/2", "192.168.0.2", 1_672_574_401_000L, null)
+        );
+
+        mvc.perform(post("/hits")
+                        .content(StatsWireCodec.encodeHits(hits))
+                        .contentType(StatsWireCodec.MEDIA_TYPE))
+                .andExpect(status().isCreated());
+        Mockito.verify(statsService).saveWireEvents(hits);
+    }
+
+    @Test
+    public void shouldNotSaveBinaryEventsWhenIpIsBlank() throws Exception {
+        List<WireHitDto> hits = List.of(new WireHitDto("test-application", "/test", "", 0L, null));
+
+        mvc.perform(post("/hits")
+                        .content(StatsWireCodec.encodeHits(hits))
+                        .contentType(StatsWireCodec.MEDIA_TYPE)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("IP-адрес не может быть пустым"));
+    }
+
+    @Test
+    public void shouldNotSaveBinaryEventsWhenFrameIsTruncated() throws Exception {
+        byte[] frame = StatsWireCodec.encodeHits(
+                List.of(new WireHitDto("test-application", "/test", "192.168.0.1", 0L, null)));
+
+        mvc.perform(post("/hits")
+                        .content(Arrays.copyOf(frame, frame.length - 1))
+                        .contentType(StatsWireCodec.MEDIA_TYPE)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        Mockito.verify(statsService, Mockito.never()).saveWireEvents(anyList());
+    }
+
+    @Test
+    public void shouldGetBinaryStats() throws Exception {
+        List<ViewStatsDto> stats = List.of(
+                new ViewStatsDto("test-application", "/test/1", 3L),
+                new ViewStatsDto("test-application", "/test/2", 1L)
+        );
+        Mockito.when(statsService.getStats(any(LocalDateTime.class), any(LocalDateTime.class), any(), anyBoolean()))
+                .thenReturn(stats);
+
+        byte[] body = mvc.perform(get("/stats")
+                        .param("start", "2020-10-10 00:00:00")
+                        .param("end", "2023-10-10 00:00:00")
+                        .accept(StatsWireCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(StatsWireCodec.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        assertThat(StatsWireCodec.decodeStats(body), equalTo(stats));
+    }
+
     @Test
     public void shouldGetStats() throws Exception {
         ViewStatsDto viewStatsDto = new ViewStatsDto(
@@ -142,6 +288,199 @@ public class StatsControllerTest {
                 .andExpect(jsonPath("$.[0].hits").value(viewStatsDto.getHits()));
     }
 
+    @Test
+    public void shouldGetApproximateUniqueStats() throws Exception {
+        ViewStatsDto viewStatsDto = new ViewStatsDto(
+                "test-application",
+                "/test",
+                1L
+        );
+
+        Mockito
+                .when(
+                        statsService.getApproximateUniqueStats(
+                        any(LocalDateTime.class),
+                        any(LocalDateTime.class),
+                        anyList()
+                        )
+                )
+                .thenReturn(List.of(viewStatsDto));
+
+        mvc.perform(get("/stats")
+                        .param("start", "2020-10-10 00:00:00")
+                        .param("end", "2023-10-10 00:00:00")
+                        .param("uris", "/test")
+                        .param("unique", "true")
+                        .param("approx", "true")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$.[0].hits").value(viewStatsDto.getHits()));
+
+        Mockito.verify(statsService, Mockito.never())
+                .getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldStreamStatsAsNdjson() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<ViewStatsDto> consumer = invocation.getArgument(4);
+            consumer.accept(new ViewStatsDto("test-application", "/test/1", 3L));
+            consumer.accept(new ViewStatsDto("test-application", "/test/2", 1L));
+            return null;
+        }).when(statsService).streamStats(any(LocalDateTime.class), any(LocalDateTime.class), any(),
+                anyBoolean(), any(Consumer.class));
+
+        mvc.perform(get("/stats")
+                        .param("start", "2020-10-10 00:00:00")
+                        .param("end", "2023-10-10 00:00:00")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(
+                        "{\"app\":\"test-application\",\"uri\":\"/test/1\",\"hits\":3}\n" +
+                        "{\"app\":\"test-application\",\"uri\":\"/test/2\",\"hits\":1}\n"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldStreamStatsWhenRequestedByParam() throws Exception {
+        mvc.perform(get("/stats")
+                        .param("start", "2020-10-10 00:00:00")
+                        .param("end", "2023-10-10 00:00:00")
+                        .param("uris", "/test")
+                        .param("unique", "true")
+                        .param("stream", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string(""));
+
+        Mockito.verify(statsService).streamStats(any(LocalDateTime.class), any(LocalDateTime.class),
+                Mockito.eq(List.of("/test")), Mockito.eq(true), any(Consumer.class));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldNotStreamStatsWhenRangeIsInvalid() throws Exception {
+        Mockito.doThrow(new DateTimeException("Нижняя граница временного интервала не может быть больше верхней границы"))
+                .when(statsService).streamStats(any(LocalDateTime.class), any(LocalDateTime.class), any(),
+                        anyBoolean(), any(Consumer.class));
+
+        mvc.perform(get("/stats")
+                        .param("start", "2023-10-10 00:00:00")
+                        .param("end", "2020-10-10 00:00:00")
+                        .accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error")
+                        .value("Нижняя граница временного интервала не может быть больше верхней границы"));
+    }
+
+    @Test
+    public void shouldQueryStatsForManyWindows() throws Exception {
+        List<StatsQueryDto> queries = List.of(
+                new StatsQueryDto("/events/1", "2022-10-10 00:00:00", "2022-10-12 00:00:00", true),
+                new StatsQueryDto("/events/2", "2022-10-11 00:00:00", "2022-10-12 00:00:00", false)
+        );
+        Mockito
+                .when(statsService.queryStats(queries))
+                .thenReturn(List.of(
+                        new StatsQueryResultDto("/events/1", "2022-10-10 00:00:00", "2022-10-12 00:00:00", true,
+                                List.of(new ViewStatsDto("test-application", "/events/1", 3L))),
+                        new StatsQueryResultDto("/events/2", "2022-10-11 00:00:00", "2022-10-12 00:00:00", false,
+                                List.of())
+                ));
+
+        mvc.perform(post("/stats/query")
+                        .content(mapper.writeValueAsString(queries))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$.[0].stats[0].hits").value(3))
+                .andExpect(jsonPath("$.[1].uri").value("/events/2"))
+                .andExpect(jsonPath("$.[1].stats.size()").value(0));
+    }
+
+    @Test
+    public void shouldNotQueryStatsWhenUriIsBlank() throws Exception {
+        List<StatsQueryDto> queries = List.of(
+                new StatsQueryDto("", "2022-10-10 00:00:00", "2022-10-12 00:00:00", true)
+        );
+
+        mvc.perform(post("/stats/query")
+                        .content(mapper.writeValueAsString(queries))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("URI не может быть пустым"));
+    }
+
+    @Test
+    public void shouldGetTopHits() throws Exception {
+        Mockito
+                .when(statsService.getTopHits(5, "15m"))
+                .thenReturn(List.of(new TopHitDto("test-application", "/test", 42L, 2L, true)));
+
+        mvc.perform(get("/stats/top")
+                        .param("k", "5")
+                        .param("window", "15m")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$.[0].hits").value(42))
+                .andExpect(jsonPath("$.[0].error").value(2))
+                .andExpect(jsonPath("$.[0].guaranteed").value(true));
+    }
+
+    @Test
+    public void shouldNotGetTopHitsWhenWindowIsInvalid() throws Exception {
+        Mockito
+                .when(statsService.getTopHits(10, "soon"))
+                .thenThrow(new ValidationException("Некорректная длительность окна: soon"));
+
+        mvc.perform(get("/stats/top")
+                        .param("window", "soon")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Некорректная длительность окна: soon"));
+    }
+
+    @Test
+    public void shouldGetTimeSeries() throws Exception {
+        Mockito
+                .when(statsService.getTimeSeries("/events/1", LocalDateTime.of(2022, 10, 10, 0, 0, 0),
+                        LocalDateTime.of(2022, 10, 12, 0, 0, 0), "day", true))
+                .thenReturn(List.of(new TimeSeriesPointDto("2022-10-10 00:00:00", 5L),
+                        new TimeSeriesPointDto("2022-10-11 00:00:00", 0L),
+                        new TimeSeriesPointDto("2022-10-12 00:00:00", 2L)));
+
+        mvc.perform(get("/stats/timeseries")
+                        .param("uri", "/events/1")
+                        .param("start", "2022-10-10 00:00:00")
+                        .param("end", "2022-10-12 00:00:00")
+                        .param("bucket", "day")
+                        .param("unique", "true")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(3))
+                .andExpect(jsonPath("$.[1].timestamp").value("2022-10-11 00:00:00"))
+                .andExpect(jsonPath("$.[1].hits").value(0));
+    }
+
+    @Test
+    public void shouldNotGetTimeSeriesWithoutUri() throws Exception {
+        mvc.perform(get("/stats/timeseries")
+                        .param("start", "2022-10-10 00:00:00")
+                        .param("end", "2022-10-12 00:00:00")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void shouldNotGetStatsWhenNoStart() throws Exception {
         mvc.perform(get("/stats")
@@ -0,0 +1,81 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.storage.StatsBatchStorage;
+import ru.practicum.ewm.stats.storage.StatsBatchStorage.LoadMethod;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class CopyLoadBenchmarkTest {
+    private static final int HITS = 5000;
+    private static final int BATCH_SIZE = 1000;
+
+    private final StatsBatchStorage statsBatchStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime now = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+    }
+
+    @Test
+    public void bulkLoadShouldOutperformSingleSaves() {
+        List<EndpointHit> hits = generateHits();
+        statsBatchStorage.saveAll(hits.subList(0, BATCH_SIZE), LoadMethod.INSERT);
+        clear();
+
+        double singleRate = measure(hits, 1, chunk -> statsBatchStorage.saveAll(chunk, LoadMethod.INSERT));
+        double insertRate = measure(hits, BATCH_SIZE, chunk -> statsBatchStorage.saveAll(chunk, LoadMethod.INSERT));
+        int expected = HITS * 2;
+        if (statsBatchStorage.isCopySupported()) {
+            double copyRate = measure(hits, BATCH_SIZE, chunk -> statsBatchStorage.saveAll(chunk, LoadMethod.COPY));
+            expected += HITS;
+            log.info("Одиночная запись: {} событий/с, пакетный INSERT: {} событий/с, COPY: {} событий/с",
+                    Math.round(singleRate), Math.round(insertRate), Math.round(copyRate));
+            assertThat(copyRate, greaterThan(insertRate));
+        } else {
+            log.info("Одиночная запись: {} событий/с, пакетный INSERT: {} событий/с, COPY недоступен",
+                    Math.round(singleRate), Math.round(insertRate));
+        }
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class),
+                equalTo(expected));
+        assertThat(insertRate, greaterThan(singleRate));
+    }
+
+    private double measure(List<EndpointHit> hits, int batchSize, Consumer<List<EndpointHit>> load) {
+        long start = System.nanoTime();
+        for (int from = 0; from < hits.size(); from += batchSize) {
+            load.accept(hits.subList(from, Math.min(from + batchSize, hits.size())));
+        }
+        return HITS * 1_000_000_000.0 / (System.nanoTime() - start);
+    }
+
+    private List<EndpointHit> generateHits() {
+        List<EndpointHit> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + (i % 100),
+                    "192.168.0." + (i % 250), now.minusSeconds(i), null));
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,90 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stats.hot.HotWindow;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.storage.StatsStorage;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class HotWindowBenchmarkTest {
+    private static final int HITS = 200_000;
+    private static final int RUNS = 20;
+    private static final int WARMUP_RUNS = 5;
+
+    private final HitWriter hitWriter;
+    private final HotWindow hotWindow;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        hotWindow.reload();
+    }
+
+    @AfterEach
+    public void reset() {
+        clear();
+    }
+
+    @Test
+    public void hotWindowShouldOutperformDatabaseScan() {
+        Random random = new Random(5);
+        List<EndpointHit> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(500),
+                    "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    now.minusSeconds(random.nextInt(12 * 3600)), null));
+        }
+        for (int from = 0; from < hits.size(); from += 5000) {
+            hitWriter.write(hits.subList(from, from + 5000));
+        }
+        LocalDateTime start = now.minusHours(6);
+
+        double databaseNanos = measure(run -> statsStorage.getStatsWithUniqueIps(start.plusSeconds(run), now, null));
+        double memoryNanos = measure(run -> hotWindow.getStats(start.plusSeconds(run), now, null, true));
+
+        log.info("Уникальные посещения за 6 ч из {} событий: база данных {} мкс, оперативное окно {} мкс",
+                HITS, Math.round(databaseNanos / 1000), Math.round(memoryNanos / 1000));
+        assertThat(memoryNanos, lessThan(databaseNanos));
+    }
+
+    private double measure(IntFunction<?> query) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            query.apply(RUNS + run);
+        }
+        long[] nanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            query.apply(run);
+            nanos[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+}
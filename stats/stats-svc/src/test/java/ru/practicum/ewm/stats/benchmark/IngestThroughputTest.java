@@ -0,0 +1,80 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class IngestThroughputTest {
+    private static final int HITS = 5000;
+    private static final int BATCH_SIZE = 500;
+
+    private final StatsService statsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+    }
+
+    @Test
+    public void batchIngestionShouldOutperformSingleHits() {
+        List<EndpointHitDto> hits = generateHits();
+
+        long singleStart = System.nanoTime();
+        for (EndpointHitDto hit : hits) {
+            statsService.saveEvent(hit);
+        }
+        double singleRate = hitsPerSecond(System.nanoTime() - singleStart);
+
+        long batchStart = System.nanoTime();
+        for (int from = 0; from < hits.size(); from += BATCH_SIZE) {
+            statsService.saveEvents(hits.subList(from, Math.min(from + BATCH_SIZE, hits.size())));
+        }
+        double batchRate = hitsPerSecond(System.nanoTime() - batchStart);
+
+        log.info("Одиночная запись: {} событий/с, пакетная запись: {} событий/с",
+                Math.round(singleRate), Math.round(batchRate));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class),
+                equalTo(HITS * 2));
+        assertThat(batchRate, greaterThan(singleRate));
+    }
+
+    private List<EndpointHitDto> generateHits() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EndpointHitDto> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            hits.add(new EndpointHitDto(
+                    "ewm-main-service",
+                    "/events/" + (i % 100),
+                    "192.168.0." + (i % 250),
+                    now.minusSeconds(i).format(formatter)
+            ));
+        }
+        return hits;
+    }
+
+    private double hitsPerSecond(long nanos) {
+        return HITS * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.storage.RollupStorage;
+import ru.practicum.ewm.stats.storage.StatsStorage;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RollupQueryBenchmarkTest {
+    private static final int STEPS = 3;
+    private static final int HITS_PER_STEP = 40000;
+    private static final int DAYS_PER_STEP = 30;
+    private static final int RUNS = 20;
+    private static final int WARMUP_RUNS = 5;
+    private static final double MAX_ROLLUP_GROWTH = 2.0;
+
+    private final HitWriter hitWriter;
+    private final RollupStorage rollupStorage;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime now = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+    }
+
+    @Test
+    public void rollupQueryTimeShouldNotGrowWithHistory() {
+        Random random = new Random(7);
+        double rawNanos = 0;
+        double rollupNanos = 0;
+        double firstRollupNanos = 0;
+        for (int step = 0; step < STEPS; step++) {
+            LocalDateTime stepEnd = now.minusDays((long) step * DAYS_PER_STEP);
+            List<EndpointHit> hits = new ArrayList<>(HITS_PER_STEP);
+            for (int i = 0; i < HITS_PER_STEP; i++) {
+                hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(20),
+                        "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                        stepEnd.minusSeconds(random.nextInt(DAYS_PER_STEP * 24 * 3600)), null));
+            }
+            for (int from = 0; from < hits.size(); from += 1000) {
+                hitWriter.write(hits.subList(from, from + 1000));
+            }
+
+            LocalDateTime start = now.minusDays((long) (step + 1) * DAYS_PER_STEP).plusSeconds(17);
+            rawNanos = measure(run -> statsStorage.getStats(start.plusSeconds(run), now, null));
+            rollupNanos = measure(run -> rollupStorage.getStats(start.plusSeconds(run), now, null));
+            if (step == 0) firstRollupNanos = rollupNanos;
+            log.info("Период {} дней, {} событий: полный просмотр {} мкс, агрегаты {} мкс",
+                    (step + 1) * DAYS_PER_STEP, (step + 1) * HITS_PER_STEP, Math.round(rawNanos / 1000),
+                    Math.round(rollupNanos / 1000));
+        }
+        assertThat(rollupNanos, lessThan(rawNanos));
+        assertThat(rollupNanos / firstRollupNanos, lessThan(MAX_ROLLUP_GROWTH));
+    }
+
+    private double measure(IntFunction<?> query) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            query.apply(RUNS + run);
+        }
+        long[] nanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            query.apply(run);
+            nanos[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+}
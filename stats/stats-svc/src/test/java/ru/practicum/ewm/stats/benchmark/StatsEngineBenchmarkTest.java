@@ -0,0 +1,104 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.engine.JdbcStatsEngine;
+import ru.practicum.ewm.stats.engine.JpaStatsEngine;
+import ru.practicum.ewm.stats.engine.MemoryStatsEngine;
+import ru.practicum.ewm.stats.engine.StatsEngine;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.IntFunction;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+@Tag("benchmark")
+@SpringBootTest
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsEngineBenchmarkTest {
+    private static final int HITS = 50_000;
+    private static final int BATCH_SIZE = 1000;
+    private static final int RUNS = 10;
+    private static final int WARMUP_RUNS = 3;
+
+    private final JpaStatsEngine jpaStatsEngine;
+    private final JdbcStatsEngine jdbcStatsEngine;
+    private final MemoryStatsEngine memoryStatsEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime now = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @AfterEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        memoryStatsEngine.deleteBefore(LocalDateTime.of(3000, 1, 1, 0, 0));
+    }
+
+    @Test
+    public void shouldMeasureEveryEngineOnTheSameWorkload() {
+        Random random = new Random(21);
+        List<EndpointHit> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(500),
+                    "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    now.minusSeconds(random.nextInt(7 * 24 * 3600)), null));
+        }
+        LocalDateTime start = now.minusDays(3);
+        List<String> uris = List.of("/events/1", "/events/2", "/events/3");
+
+        Map<String, StatsEngine> engines = new LinkedHashMap<>();
+        engines.put("jpa", jpaStatsEngine);
+        engines.put("jdbc", jdbcStatsEngine);
+        engines.put("memory", memoryStatsEngine);
+        List<ViewStatsDto> expected = null;
+        for (Map.Entry<String, StatsEngine> entry : engines.entrySet()) {
+            StatsEngine engine = entry.getValue();
+            clear();
+            long ingestStart = System.nanoTime();
+            for (int from = 0; from < hits.size(); from += BATCH_SIZE) {
+                engine.saveAll(hits.subList(from, from + BATCH_SIZE));
+            }
+            double ingestRate = HITS * 1_000_000_000.0 / (System.nanoTime() - ingestStart);
+            double totalNanos = measure(run -> engine.getStats(start.plusSeconds(run), now, null, false));
+            double uniqueNanos = measure(run -> engine.getStats(start.plusSeconds(run), now, uris, true));
+
+            log.info("Хранилище {}: запись {} событий/с, все эндпоинты за 3 дня {} мкс, уникальные по 3 uri {} мкс",
+                    entry.getKey(), Math.round(ingestRate), Math.round(totalNanos / 1000),
+                    Math.round(uniqueNanos / 1000));
+            List<ViewStatsDto> stats = engine.getStats(start, now, uris, true);
+            if (expected == null) expected = stats;
+            else assertThat(entry.getKey(), stats, containsInAnyOrder(expected.toArray()));
+            assertThat(entry.getKey(), engine.deleteBefore(now.plusSeconds(1)), equalTo((long) HITS));
+        }
+    }
+
+    private double measure(IntFunction<?> query) {
+        for (int run = 0; run < WARMUP_RUNS; run++) {
+            query.apply(RUNS + run);
+        }
+        long[] nanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            query.apply(run);
+            nanos[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+}
@@ -0,0 +1,143 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+import ru.practicum.ewm.stats.tcp.TcpIngestListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "stats.tcp.enabled=true",
+        "stats.tcp.host=127.0.0.1",
+        "stats.tcp.port=0"
+})
+@Slf4j
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class TcpIngestThroughputTest {
+    private static final int PRODUCERS = 4;
+    private static final int BATCHES_PER_PRODUCER = 10;
+    private static final int BATCH_SIZE = 500;
+    private static final int HITS = PRODUCERS * BATCHES_PER_PRODUCER * BATCH_SIZE;
+
+    private final TcpIngestListener listener;
+    private final TestRestTemplate restTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+    }
+
+    @Test
+    public void tcpIngestShouldStoreEveryHitSentOverLoopback() throws Exception {
+        List<List<EndpointHitDto>> batches = generateBatches();
+
+        long httpStart = System.nanoTime();
+        runProducers(batches, batch -> assertThat(restTemplate.postForEntity("/hits", batch, Object.class)
+                .getStatusCode(), equalTo(HttpStatus.CREATED)));
+        double httpRate = hitsPerSecond(System.nanoTime() - httpStart);
+
+        long tcpStart = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        List<Future<Integer>> acks = new ArrayList<>();
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            List<List<EndpointHitDto>> own = batches.subList(producer * BATCHES_PER_PRODUCER,
+                    (producer + 1) * BATCHES_PER_PRODUCER);
+            acks.add(executor.submit(() -> sendOverTcp(own)));
+        }
+        int accepted = 0;
+        for (Future<Integer> ack : acks) {
+            accepted += ack.get();
+        }
+        executor.shutdown();
+        double tcpRate = hitsPerSecond(System.nanoTime() - tcpStart);
+
+        log.info("HTTP JSON: {} событий/с, TCP: {} событий/с", Math.round(httpRate), Math.round(tcpRate));
+        assertThat(accepted, equalTo(PRODUCERS * BATCHES_PER_PRODUCER));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class),
+                equalTo(HITS * 2));
+    }
+
+    private int sendOverTcp(List<List<EndpointHitDto>> batches) throws IOException {
+        try (Socket socket = new Socket("127.0.0.1", listener.getPort())) {
+            socket.setSoTimeout(30_000);
+            OutputStream out = socket.getOutputStream();
+            for (List<EndpointHitDto> batch : batches) {
+                List<WireHitDto> hits = batch.stream().map(StatsWireCodec::fromDto).collect(Collectors.toList());
+                out.write(StatsWireCodec.encodeHits(hits));
+            }
+            out.flush();
+            InputStream in = socket.getInputStream();
+            int accepted = 0;
+            for (int i = 0; i < batches.size(); i++) {
+                if (in.read() == TcpIngestListener.ACCEPTED) accepted++;
+            }
+            return accepted;
+        }
+    }
+
+    private void runProducers(List<List<EndpointHitDto>> batches, Consumer<List<EndpointHitDto>> send)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int producer = 0; producer < PRODUCERS; producer++) {
+            List<List<EndpointHitDto>> own = batches.subList(producer * BATCHES_PER_PRODUCER,
+                    (producer + 1) * BATCHES_PER_PRODUCER);
+            futures.add(executor.submit(() -> own.forEach(send)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+
+    private List<List<EndpointHitDto>> generateBatches() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<List<EndpointHitDto>> batches = new ArrayList<>();
+        for (int b = 0; b < PRODUCERS * BATCHES_PER_PRODUCER; b++) {
+            List<EndpointHitDto> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                batch.add(new EndpointHitDto(
+                        "ewm-main-service",
+                        "/events/" + (i % 100),
+                        "192.168." + b + "." + (i % 250),
+                        now.minusSeconds(b * BATCH_SIZE + i).format(formatter)
+                ));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private double hitsPerSecond(long nanos) {
+        return HITS * 1_000_000_000.0 / nanos;
+    }
+}
@@ -0,0 +1,57 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.TopHits;
+import ru.practicum.ewm.stats.sketch.TopHitsProperties;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+@Tag("benchmark")
+@Slf4j
+public class TopHitsBenchmarkTest {
+    private static final int HITS = 500_000;
+    private static final int RUNS = 200;
+
+    @Test
+    public void topHitsShouldAnswerWithinFewMilliseconds() {
+        TopHits topHits = new TopHits(new TopHitsProperties());
+        LocalDateTime now = LocalDateTime.now();
+        Random random = new Random(3);
+        List<EndpointHit> batch = new ArrayList<>();
+        for (int i = 0; i < HITS; i++) {
+            int event = (int) Math.floor(Math.pow(100_000, random.nextDouble()));
+            batch.add(new EndpointHit(null, "ewm-main-service", "/events/" + event, "10.0.0.1",
+                    now.minusSeconds(random.nextInt(3600)), null));
+            if (batch.size() == 10_000) {
+                topHits.record(batch);
+                batch = new ArrayList<>();
+            }
+        }
+
+        for (int run = 0; run < RUNS; run++) {
+            topHits.getTop(10, "1h");
+        }
+        long[] nanos = new long[RUNS];
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            topHits.getTop(10, run % 2 == 0 ? "1h" : "15m");
+            nanos[run] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+
+        log.info("Топ-10 из {} событий за час: медиана {} мкс", HITS, nanos[RUNS / 2] / 1000);
+        assertThat(topHits.getTop(1, "1h").get(0).getUri(), equalTo("/events/1"));
+        assertThat(nanos[RUNS / 2], lessThan(5_000_000L));
+    }
+}
@@ -0,0 +1,123 @@
+package ru.practicum.ewm.stats.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.module.paramnames.ParameterNamesModule;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.EndpointHitMapper;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+
+@Tag("benchmark")
+@Slf4j
+public class WireFormatBenchmarkTest {
+    private static final int HITS_PER_BATCH = 200;
+    private static final int BATCHES = 200;
+    private static final int RUNS = 15;
+    private static final TypeReference<List<EndpointHitDto>> HIT_LIST = new TypeReference<>() {
+    };
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .registerModule(new ParameterNamesModule(JsonCreator.Mode.DEFAULT));
+
+    @Test
+    public void binaryFormatShouldBeSmallerAndCheaperThanJson() throws Exception {
+        List<List<EndpointHitDto>> batches = batches();
+        List<List<WireHitDto>> wireBatches = batches.stream()
+                .map(batch -> batch.stream().map(StatsWireCodec::fromDto).collect(Collectors.toList()))
+                .collect(Collectors.toList());
+
+        long jsonBytes = 0;
+        long binaryBytes = 0;
+        for (int i = 0; i < BATCHES; i++) {
+            byte[] json = mapper.writeValueAsBytes(batches.get(i));
+            byte[] binary = StatsWireCodec.encodeHits(wireBatches.get(i));
+            jsonBytes += json.length;
+            binaryBytes += binary.length;
+            assertThat(mapper.readValue(json, HIT_LIST).stream()
+                            .map(EndpointHitMapper::endpointHitFromDto).collect(Collectors.toList()),
+                    equalTo(StatsWireCodec.decodeHits(binary).stream()
+                            .map(EndpointHitMapper::endpointHitFromWire).collect(Collectors.toList())));
+        }
+
+        long jsonNanos = measure(() -> {
+            for (List<EndpointHitDto> batch : batches) {
+                byte[] json = mapper.writeValueAsBytes(batch);
+                for (EndpointHitDto dto : mapper.readValue(json, HIT_LIST)) {
+                    consume(EndpointHitMapper.endpointHitFromDto(dto));
+                }
+            }
+        });
+        long binaryNanos = measure(() -> {
+            for (List<WireHitDto> batch : wireBatches) {
+                byte[] binary = StatsWireCodec.encodeHits(batch);
+                for (WireHitDto hit : StatsWireCodec.decodeHits(binary)) {
+                    consume(EndpointHitMapper.endpointHitFromWire(hit));
+                }
+            }
+        });
+
+        long hits = (long) HITS_PER_BATCH * BATCHES;
+        log.info("JSON: {} байт и {} нс на событие, двоичный формат: {} байт и {} нс на событие",
+                jsonBytes / hits, jsonNanos / hits, binaryBytes / hits, binaryNanos / hits);
+        assertThat(binaryBytes * 3, lessThan(jsonBytes));
+        assertThat(binaryNanos, lessThan(jsonNanos));
+    }
+
+    private List<List<EndpointHitDto>> batches() {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+        LocalDateTime now = LocalDateTime.of(2023, 1, 1, 12, 0);
+        Random random = new Random(5);
+        List<List<EndpointHitDto>> batches = new ArrayList<>();
+        for (int i = 0; i < BATCHES; i++) {
+            List<EndpointHitDto> batch = new ArrayList<>();
+            for (int j = 0; j < HITS_PER_BATCH; j++) {
+                int event = (int) Math.floor(Math.pow(10_000, random.nextDouble()));
+                batch.add(new EndpointHitDto("ewm-main-service", "/events/" + event,
+                        "10.0." + random.nextInt(8) + "." + random.nextInt(256),
+                        now.plusSeconds(i * HITS_PER_BATCH + j).format(formatter)));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    private static long measure(Run run) throws Exception {
+        for (int i = 0; i < 5; i++) {
+            run.run();
+        }
+        long[] nanos = new long[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return nanos[RUNS / 2];
+    }
+
+    private static void consume(EndpointHit hit) {
+        if (hit.getTimestamp() == null) throw new IllegalStateException();
+    }
+
+    private interface Run {
+        void run() throws Exception;
+    }
+}
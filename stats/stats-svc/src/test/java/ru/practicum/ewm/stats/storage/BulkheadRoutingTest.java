@@ -0,0 +1,76 @@
+package ru.practicum.ewm.stats.storage;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(properties = {
+        "stats.bulkhead.enabled=true",
+        "stats.bulkhead.query.max-pool-size=2"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BulkheadRoutingTest {
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2022, 10, 10, 10, 5, 0);
+
+    private final HitWriter hitWriter;
+    private final StatsService statsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final HikariDataSource ingestDataSource;
+    private final HikariDataSource queryDataSource;
+
+    @AfterEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+    }
+
+    @Test
+    public void shouldRouteReadOnlyTransactionsToQueryPool() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        Integer queryConnections = readOnly.execute(status -> {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class);
+            return queryDataSource.getHikariPoolMXBean().getActiveConnections();
+        });
+        Integer ingestQueryConnections = readWrite.execute(status -> {
+            jdbcTemplate.update("DELETE FROM statistics WHERE timestamp < ?", TIMESTAMP.minusYears(10));
+            return queryDataSource.getHikariPoolMXBean().getActiveConnections();
+        });
+
+        assertThat(queryConnections, equalTo(1));
+        assertThat(ingestQueryConnections, equalTo(0));
+        assertThat(queryDataSource.getMaximumPoolSize(), equalTo(2));
+        assertThat(ingestDataSource.getPoolName(), equalTo("ingest"));
+    }
+
+    @Test
+    public void shouldReadHitsWrittenThroughIngestPool() {
+        hitWriter.write(List.of(hit("10.0.0.1"), hit("10.0.0.2"), hit("10.0.0.2")));
+
+        assertThat(statsService.getStats(TIMESTAMP.minusHours(1), TIMESTAMP.plusHours(1), List.of("/events/1"), true),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 2L))));
+    }
+
+    private static EndpointHit hit(String ip) {
+        return new EndpointHit(null, "ewm-main-service", "/events/1", ip, TIMESTAMP, null);
+    }
+}
@@ -0,0 +1,160 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.cold.ColdSegment;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.cold.ColdTierMover;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(properties = {
+        "stats.cold.directory=target/cold-tier-test",
+        "stats.cold.segment-rows=20"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ColdTierTest {
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2022, 10, 10, 0, 0, 0);
+    private static final LocalDate CUTOFF = LocalDate.of(2022, 10, 15);
+
+    private final HitWriter hitWriter;
+    private final ColdTierMover coldTierMover;
+    private final ColdStorage coldStorage;
+    private final StatsStorage statsStorage;
+    private final StatsService statsService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void fill() throws IOException {
+        clear();
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int i = 0; i < 30; i++) {
+                hits.add(hit("/events/" + (i % 3), "10.0.0." + (i % (5 + day)), FIRST_DAY.plusDays(day)
+                        .plusHours(i % 24).plusMinutes(i)));
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            hits.add(hit("/events/" + (i % 2), "10.0.0." + i, FIRST_DAY.plusDays(10).plusHours(i)));
+        }
+        hitWriter.write(hits);
+    }
+
+    @AfterEach
+    public void clear() throws IOException {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        jdbcTemplate.update("DELETE FROM statistics_cold_segment");
+        coldStorage.load();
+    }
+
+    @Test
+    public void shouldKeepTotalsAndUniqueCountsAcrossColdAndDatabaseHits() {
+        Map<String, List<ViewStatsDto>> before = snapshot();
+
+        long archived = coldTierMover.archive(CUTOFF);
+
+        assertThat(archived, equalTo(90L));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class), equalTo(10));
+        assertThat(coldStorage.getSegments().size(), equalTo(6));
+        assertThat(coldStorage.covers(FIRST_DAY.plusDays(2).plusHours(23)), equalTo(true));
+        assertThat(coldStorage.covers(FIRST_DAY.plusDays(3)), equalTo(false));
+        assertThat(snapshot(), equalTo(before));
+    }
+
+    @Test
+    public void shouldArchiveLateHitsIntoNewSegment() {
+        coldTierMover.archive(CUTOFF);
+        hitWriter.write(List.of(
+                hit("/events/0", "10.0.0.0", FIRST_DAY.plusHours(20)),
+                hit("/events/0", "10.0.0.99", FIRST_DAY.plusHours(21))
+        ));
+        Map<String, List<ViewStatsDto>> before = snapshot();
+
+        assertThat(coldTierMover.archive(CUTOFF), equalTo(2L));
+
+        assertThat(coldStorage.getSegments().size(), equalTo(7));
+        assertThat(snapshot(), equalTo(before));
+    }
+
+    @Test
+    public void shouldReloadRegisteredSegmentsAndDropUnregisteredFiles() throws IOException {
+        coldTierMover.archive(CUTOFF);
+        Map<String, List<ViewStatsDto>> before = snapshot();
+        Path stray = coldStorage.getDirectory().resolve("stray.seg");
+        Files.write(stray, new byte[]{1, 2, 3});
+
+        coldStorage.load();
+
+        assertThat(Files.exists(stray), equalTo(false));
+        assertThat(coldStorage.getSegments().size(), equalTo(6));
+        assertThat(segmentFiles(), equalTo(6L));
+        assertThat(coldStorage.getSegments().stream().mapToInt(ColdSegment::getRows).sum(), equalTo(90));
+        assertThat(snapshot(), equalTo(before));
+    }
+
+    @Test
+    public void shouldNotArchiveRecentDays() {
+        assertThat(coldTierMover.archive(FIRST_DAY.toLocalDate()), equalTo(0L));
+        assertThat(coldStorage.covers(FIRST_DAY), equalTo(false));
+    }
+
+    private long segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(coldStorage.getDirectory())) {
+            return files.count();
+        }
+    }
+
+    private Map<String, List<ViewStatsDto>> snapshot() {
+        Map<String, List<ViewStatsDto>> result = new HashMap<>();
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{FIRST_DAY, FIRST_DAY.plusDays(11)},
+                new LocalDateTime[]{FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(10).plusHours(5)},
+                new LocalDateTime[]{FIRST_DAY.plusHours(3), FIRST_DAY.plusDays(2).minusHours(7)}
+        );
+        for (LocalDateTime[] range : ranges) {
+            for (List<String> uris : Arrays.asList(null, List.of("/events/1"), List.of("/events/0", "/events/2"))) {
+                for (boolean unique : List.of(false, true)) {
+                    String key = range[0] + "/" + range[1] + "/" + uris + "/" + unique;
+                    result.put(key + "/storage", sorted(unique
+                            ? statsStorage.getStatsWithUniqueIps(range[0], range[1], uris)
+                            : statsStorage.getStats(range[0], range[1], uris)));
+                    result.put(key + "/service", sorted(statsService.getStats(range[0], range[1], uris, unique)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<ViewStatsDto> sorted(List<ViewStatsDto> stats) {
+        List<ViewStatsDto> sorted = new ArrayList<>(stats);
+        sorted.sort((a, b) -> a.getUri().compareTo(b.getUri()));
+        return sorted;
+    }
+
+    private static EndpointHit hit(String uri, String ip, LocalDateTime timestamp) {
+        return new EndpointHit(null, "ewm-main-service", uri, ip, timestamp, null);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.engine.EngineRetention;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.SketchService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class EngineRetentionTest {
+    private static final LocalDateTime ORIGIN = LocalDateTime.of(2022, 10, 1, 0, 0, 0);
+    private static final LocalDateTime CUTOFF = ORIGIN.plusDays(2);
+
+    private final HitWriter hitWriter;
+    private final EngineRetention engineRetention;
+    private final SketchService sketchService;
+    private final RollupStorage rollupStorage;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    @AfterEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        jdbcTemplate.update("DELETE FROM statistics_sketch");
+    }
+
+    @Test
+    public void shouldApplyCutoffToRawHitsRollupsAndSketches() {
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + (i % 4), "10.0.0." + (i % 30),
+                    ORIGIN.plusMinutes(17L * i), null));
+        }
+        hitWriter.write(hits);
+        sketchService.flush();
+
+        engineRetention.apply(CUTOFF);
+
+        assertThat(count("statistics", "timestamp"), equalTo(0));
+        assertThat(count("statistics_rollup", "bucket"), equalTo(0));
+        assertThat(count("statistics_sketch", "bucket"), equalTo(0));
+        LocalDateTime end = ORIGIN.plusDays(6);
+        assertThat(sorted(rollupStorage.getStats(ORIGIN.plusHours(5).plusSeconds(7), end, null)),
+                equalTo(sorted(statsStorage.getStats(ORIGIN, end, null))));
+    }
+
+    private int count(String table, String column) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table + " WHERE " + column + " < ?",
+                Integer.class, Timestamp.valueOf(CUTOFF));
+    }
+
+    private static List<ViewStatsDto> sorted(List<ViewStatsDto> stats) {
+        return stats.stream()
+                .sorted(Comparator.comparing(ViewStatsDto::getUri))
+                .collect(Collectors.toList());
+    }
+}
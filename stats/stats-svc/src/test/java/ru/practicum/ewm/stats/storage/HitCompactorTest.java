@@ -0,0 +1,153 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.StatsQueryDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class HitCompactorTest {
+    private static final LocalDateTime FIRST_DAY = LocalDateTime.of(2022, 10, 10, 0, 0, 0);
+    private static final LocalDate CUTOFF = LocalDate.of(2022, 10, 15);
+
+    private final HitWriter hitWriter;
+    private final HitCompactor hitCompactor;
+    private final DailyStorage dailyStorage;
+    private final StatsStorage statsStorage;
+    private final StatsService statsService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void fill() {
+        clear();
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int i = 0; i < 30; i++) {
+                hits.add(hit("/events/" + (i % 3), "10.0.0." + (i % (5 + day)), FIRST_DAY.plusDays(day)
+                        .plusHours(i % 24).plusMinutes(i)));
+            }
+        }
+        for (int i = 0; i < 10; i++) {
+            hits.add(hit("/events/" + (i % 2), "10.0.0." + i, FIRST_DAY.plusDays(10).plusHours(i)));
+        }
+        hitWriter.write(hits);
+    }
+
+    @AfterEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        jdbcTemplate.update("DELETE FROM statistics_daily");
+        jdbcTemplate.update("DELETE FROM statistics_daily_ip");
+        dailyStorage.refresh();
+    }
+
+    @Test
+    public void shouldKeepTotalsAndUniqueCountsAcrossCompactedAndRawDays() throws InterruptedException {
+        Map<String, List<ViewStatsDto>> before = snapshot();
+
+        long compacted = hitCompactor.compact(CUTOFF);
+
+        assertThat(compacted, equalTo(90L));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class), equalTo(10));
+        assertThat(dailyStorage.getCompactedBefore(), equalTo(FIRST_DAY.plusDays(3)));
+        assertThat(snapshot(), equalTo(before));
+    }
+
+    @Test
+    public void shouldResumeFromPartiallyCompactedDay() throws InterruptedException {
+        Map<String, List<ViewStatsDto>> before = snapshot();
+
+        dailyStorage.markCompacting(FIRST_DAY.toLocalDate());
+        assertThat(dailyStorage.compactChunk(FIRST_DAY.toLocalDate(), 7), equalTo(7));
+        assertThat(snapshot(), equalTo(before));
+
+        assertThat(hitCompactor.compact(CUTOFF), equalTo(83L));
+        assertThat(snapshot(), equalTo(before));
+    }
+
+    @Test
+    public void shouldMergeLateHitsIntoCompactedDay() throws InterruptedException {
+        hitCompactor.compact(CUTOFF);
+        hitWriter.write(List.of(
+                hit("/events/0", "10.0.0.0", FIRST_DAY.plusHours(20)),
+                hit("/events/0", "10.0.0.99", FIRST_DAY.plusHours(21))
+        ));
+        Map<String, List<ViewStatsDto>> before = snapshot();
+
+        assertThat(hitCompactor.compact(CUTOFF), equalTo(2L));
+
+        assertThat(snapshot(), equalTo(before));
+        assertThat(jdbcTemplate.queryForObject("SELECT hits FROM statistics_daily WHERE bucket = ? AND uri_id = " +
+                "(SELECT id FROM statistics_uri WHERE name = '/events/0')", Long.class, FIRST_DAY), equalTo(12L));
+    }
+
+    @Test
+    public void shouldWidenBoundsInsideCompactedDayToWholeDay() throws InterruptedException {
+        List<ViewStatsDto> wholeDays = sorted(statsService.getStats(FIRST_DAY, FIRST_DAY.plusDays(11), null, true));
+        hitCompactor.compact(CUTOFF);
+
+        assertThat(sorted(statsService.getStats(FIRST_DAY.plusHours(5), FIRST_DAY.plusDays(11), null, true)),
+                equalTo(wholeDays));
+        assertThat(statsService.queryStats(List.of(new StatsQueryDto("/events/1", "2022-10-11 07:30:00",
+                "2022-10-11 09:00:00", false))).get(0).getStats(), equalTo(List.of(
+                new ViewStatsDto("ewm-main-service", "/events/1", 10L))));
+    }
+
+    @Test
+    public void shouldNotCompactRecentDays() throws InterruptedException {
+        assertThat(hitCompactor.compact(FIRST_DAY.toLocalDate()), equalTo(0L));
+        assertThat(dailyStorage.getCompactedBefore(), equalTo(null));
+    }
+
+    private Map<String, List<ViewStatsDto>> snapshot() {
+        Map<String, List<ViewStatsDto>> result = new HashMap<>();
+        List<LocalDateTime[]> ranges = List.of(
+                new LocalDateTime[]{FIRST_DAY, FIRST_DAY.plusDays(11)},
+                new LocalDateTime[]{FIRST_DAY.plusDays(1), FIRST_DAY.plusDays(10).plusHours(5)},
+                new LocalDateTime[]{FIRST_DAY, FIRST_DAY.plusDays(2).minusSeconds(1)}
+        );
+        for (LocalDateTime[] range : ranges) {
+            for (List<String> uris : Arrays.asList(null, List.of("/events/1"), List.of("/events/0", "/events/2"))) {
+                for (boolean unique : List.of(false, true)) {
+                    String key = range[0] + "/" + range[1] + "/" + uris + "/" + unique;
+                    result.put(key + "/storage", sorted(unique
+                            ? statsStorage.getStatsWithUniqueIps(range[0], range[1], uris)
+                            : statsStorage.getStats(range[0], range[1], uris)));
+                    result.put(key + "/service", sorted(statsService.getStats(range[0], range[1], uris, unique)));
+                }
+            }
+        }
+        return result;
+    }
+
+    private static List<ViewStatsDto> sorted(List<ViewStatsDto> stats) {
+        List<ViewStatsDto> sorted = new ArrayList<>(stats);
+        sorted.sort((a, b) -> a.getUri().compareTo(b.getUri()));
+        return sorted;
+    }
+
+    private static EndpointHit hit(String uri, String ip, LocalDateTime timestamp) {
+        return new EndpointHit(null, "ewm-main-service", uri, ip, timestamp, null);
+    }
+}
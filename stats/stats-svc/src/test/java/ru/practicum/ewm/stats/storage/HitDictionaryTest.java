@@ -0,0 +1,43 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class HitDictionaryTest {
+    private final HitDictionary hitDictionary;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void shouldAssignStableIds() {
+        Map<String, Integer> first = hitDictionary.getUriIds(List.of("/dictionary/1", "/dictionary/2"));
+        Map<String, Integer> second = hitDictionary.getUriIds(Set.of("/dictionary/2", "/dictionary/3"));
+
+        assertThat(first.get("/dictionary/1"), not(equalTo(first.get("/dictionary/2"))));
+        assertThat(second.get("/dictionary/2"), equalTo(first.get("/dictionary/2")));
+        assertThat(jdbcTemplate.queryForObject("SELECT id FROM statistics_uri WHERE name = '/dictionary/3'",
+                Integer.class), equalTo(second.get("/dictionary/3")));
+    }
+
+    @Test
+    public void shouldKeepAppsAndUrisSeparate() {
+        Integer appId = hitDictionary.getAppIds(List.of("dictionary-app")).get("dictionary-app");
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics_app WHERE id = ? AND name = ?",
+                Integer.class, appId, "dictionary-app"), equalTo(1));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics_uri WHERE name = ?",
+                Integer.class, "dictionary-app"), equalTo(0));
+    }
+}
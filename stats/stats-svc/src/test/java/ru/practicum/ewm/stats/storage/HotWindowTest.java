@@ -0,0 +1,99 @@
+package ru.practicum.ewm.stats.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.hot.HotWindow;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class HotWindowTest {
+    private final HitWriter hitWriter;
+    private final HotWindow hotWindow;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    private final LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        hotWindow.reload();
+    }
+
+    @Test
+    public void shouldMatchDatabaseForRecentRanges() {
+        Random random = new Random(11);
+        List<EndpointHit> hits = generateHits(random, 5000);
+        hitWriter.write(hits.subList(0, 2500));
+        hotWindow.reload();
+        hitWriter.write(hits.subList(2500, 5000));
+
+        for (int i = 0; i < 20; i++) {
+            LocalDateTime start = now.minusSeconds(random.nextInt(12 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(6 * 3600));
+            List<String> uris = i % 3 == 0 ? null : List.of("/events/" + random.nextInt(10), "/events/2");
+            boolean unique = i % 2 == 0;
+
+            Optional<List<ViewStatsDto>> recent = hotWindow.getStats(start, end, uris, unique);
+            List<ViewStatsDto> expected = unique ? statsStorage.getStatsWithUniqueIps(start, end, uris) :
+                    statsStorage.getStats(start, end, uris);
+
+            assertThat(recent.isPresent(), equalTo(true));
+            assertThat(sorted(recent.get()), equalTo(sorted(expected)));
+        }
+    }
+
+    @Test
+    public void shouldNotAnswerRangesOlderThanWindow() {
+        hitWriter.write(List.of(new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1",
+                now.minusDays(3), null)));
+
+        assertThat(hotWindow.getStats(now.minusDays(4), now, null, false), equalTo(Optional.empty()));
+    }
+
+    @Test
+    public void shouldExposeMemoryUsage() {
+        hitWriter.write(generateHits(new Random(3), 10));
+
+        assertThat(meterRegistry.get("stats.hot-window.memory").gauge().value(), greaterThan(0.0));
+        assertThat(meterRegistry.get("stats.hot-window.rows").gauge().value(), equalTo(10.0));
+    }
+
+    private List<EndpointHit> generateHits(Random random, int count) {
+        List<EndpointHit> hits = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String ip = i % 10 == 0 ? "2001:db8::" + random.nextInt(50) : "10.0.0." + random.nextInt(100);
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(10), ip,
+                    now.minusSeconds(random.nextInt(12 * 3600)), null));
+        }
+        return hits;
+    }
+
+    private List<ViewStatsDto> sorted(List<ViewStatsDto> stats) {
+        return stats.stream()
+                .sorted(Comparator.comparing(ViewStatsDto::getUri))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,120 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.replica.ReplicaMonitor;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest(properties = {
+        "stats.replica.enabled=true",
+        "stats.replica.url=jdbc:h2:mem:replica",
+        "stats.replica.username=test",
+        "stats.replica.password=test",
+        "stats.replica.driver-class-name=org.h2.Driver",
+        "stats.replica.check-interval-ms=3600000"
+})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class ReplicaRoutingTest {
+    private static final LocalDateTime START = LocalDateTime.of(2022, 10, 10, 10, 0, 30);
+    private static final LocalDateTime END = LocalDateTime.of(2022, 10, 10, 10, 20, 0);
+    private static final LocalDateTime TIMESTAMP = LocalDateTime.of(2022, 10, 10, 10, 5, 0);
+
+    private final HitWriter hitWriter;
+    private final StatsService statsService;
+    private final StatsCache statsCache;
+    private final ReplicaMonitor replicaMonitor;
+    private final JdbcTemplate jdbcTemplate;
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    public void fill() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:replica", "test", "test");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("schema-h2.sql"), new ClassPathResource("schema.sql"));
+        populator.execute(dataSource);
+        replica = new JdbcTemplate(dataSource);
+        clear();
+
+        hitWriter.write(List.of(hit("10.0.0.1"), hit("10.0.0.2")));
+        Integer appId = jdbcTemplate.queryForObject(
+                "SELECT id FROM statistics_app WHERE name = 'ewm-main-service'", Integer.class);
+        Integer uriId = jdbcTemplate.queryForObject(
+                "SELECT id FROM statistics_uri WHERE name = '/events/1'", Integer.class);
+        replica.update("INSERT INTO statistics_app (id, name) VALUES (?, 'ewm-main-service')", appId);
+        replica.update("INSERT INTO statistics_uri (id, name) VALUES (?, '/events/1')", uriId);
+        for (int i = 0; i < 5; i++) {
+            replica.update("INSERT INTO statistics (app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?)",
+                    appId, uriId, new byte[]{10, 0, 0, (byte) i}, Timestamp.valueOf(TIMESTAMP));
+        }
+        statsCache.invalidateAll();
+    }
+
+    @AfterEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        replica.update("DELETE FROM statistics");
+        replica.update("DELETE FROM statistics_app");
+        replica.update("DELETE FROM statistics_uri");
+        replica.update("DELETE FROM statistics_heartbeat");
+    }
+
+    @Test
+    public void shouldReadFromReplicaWhenItIsInSync() {
+        replicate(replicaMonitor.getLastBeat());
+        replicaMonitor.check();
+
+        assertThat(replicaMonitor.isUsable(), equalTo(true));
+        assertThat(replicaMonitor.getLagMs(), equalTo(0L));
+        assertThat(statsService.getStats(START, END, List.of("/events/1"), true),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 5L))));
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class), equalTo(2));
+    }
+
+    @Test
+    public void shouldFallBackToPrimaryWhenReplicaLags() {
+        replicate(replicaMonitor.getLastBeat().minusMinutes(1));
+        replicaMonitor.check();
+
+        assertThat(replicaMonitor.isUsable(), equalTo(false));
+        assertThat(replicaMonitor.getLagMs(), equalTo(60_000L));
+        assertThat(statsService.getStats(START, END, List.of("/events/1"), true),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 2L))));
+    }
+
+    @Test
+    public void shouldFallBackToPrimaryWhenReplicaHasNoHeartbeat() {
+        replicaMonitor.check();
+
+        assertThat(replicaMonitor.isUsable(), equalTo(false));
+        assertThat(statsService.getStats(START, END, null, true),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 2L))));
+    }
+
+    private void replicate(LocalDateTime beat) {
+        replica.update("INSERT INTO statistics_heartbeat (id, beat) VALUES (1, ?)", Timestamp.valueOf(beat));
+    }
+
+    private static EndpointHit hit(String ip) {
+        return new EndpointHit(null, "ewm-main-service", "/events/1", ip, TIMESTAMP, null);
+    }
+}
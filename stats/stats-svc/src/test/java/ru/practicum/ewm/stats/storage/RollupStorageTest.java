@@ -0,0 +1,76 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class RollupStorageTest {
+    private final HitWriter hitWriter;
+    private final RollupStorage rollupStorage;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime origin = LocalDateTime.of(2022, 10, 1, 0, 0, 0);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+    }
+
+    @Test
+    public void shouldMatchRawScanForArbitraryRanges() {
+        Random random = new Random(42);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(20),
+                    "10.0.0." + random.nextInt(50), origin.plusSeconds(random.nextInt(10 * 24 * 3600)), null));
+        }
+        for (int from = 0; from < hits.size(); from += 500) {
+            hitWriter.write(hits.subList(from, from + 500));
+        }
+
+        for (int i = 0; i < 30; i++) {
+            LocalDateTime start = origin.plusSeconds(random.nextInt(5 * 24 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(5 * 24 * 3600));
+            List<String> uris = i % 3 == 0 ? null : List.of("/events/" + random.nextInt(20), "/events/1");
+
+            assertThat(sorted(rollupStorage.getStats(start, end, uris)),
+                    equalTo(sorted(statsStorage.getStats(start, end, uris))));
+        }
+    }
+
+    @Test
+    public void shouldAccumulateHitsOfSameBucket() {
+        EndpointHit hit = new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1", origin, null);
+
+        hitWriter.write(List.of(hit, hit));
+        hitWriter.write(List.of(hit));
+
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT hits FROM statistics_rollup WHERE granularity = 'DAY'", Long.class), equalTo(3L));
+    }
+
+    private List<ViewStatsDto> sorted(List<ViewStatsDto> stats) {
+        return stats.stream()
+                .sorted(Comparator.comparing(ViewStatsDto::getUri))
+                .collect(Collectors.toList());
+    }
+}
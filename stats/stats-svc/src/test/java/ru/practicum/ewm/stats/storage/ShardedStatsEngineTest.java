@@ -0,0 +1,162 @@
+package ru.practicum.ewm.stats.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.engine.EngineProperties;
+import ru.practicum.ewm.stats.engine.MemoryStatsEngine;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+import ru.practicum.ewm.stats.shard.ShardRebalancer;
+import ru.practicum.ewm.stats.shard.ShardRouter;
+import ru.practicum.ewm.stats.shard.ShardedStatsEngine;
+import ru.practicum.ewm.stats.shard.StatsShard;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class ShardedStatsEngineTest {
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+    private final List<DataSource> dataSources = new ArrayList<>();
+    private final List<ShardedStatsEngine> engines = new ArrayList<>();
+
+    @AfterEach
+    public void close() throws Exception {
+        for (ShardedStatsEngine engine : engines) {
+            engine.close();
+        }
+        for (DataSource dataSource : dataSources) {
+            new JdbcTemplate(dataSource).execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    public void shouldKeepEveryUriOnItsOwnShard() {
+        ShardedStatsEngine engine = engine(3);
+        engine.saveAll(generateHits());
+
+        for (int shard = 0; shard < 3; shard++) {
+            List<String> uris = new JdbcTemplate(dataSources.get(shard)).queryForList(
+                    "SELECT DISTINCT u.name FROM statistics AS s JOIN statistics_uri AS u ON u.id = s.uri_id",
+                    String.class);
+            assertThat(uris.size(), greaterThan(0));
+            for (String uri : uris) {
+                assertThat(uri, ShardRouter.shardOf(uri, 3), equalTo(shard));
+            }
+        }
+    }
+
+    @Test
+    public void shouldMergeShardResultsExactly() {
+        List<EndpointHit> hits = generateHits();
+        ShardedStatsEngine engine = engine(3);
+        MemoryStatsEngine expected = new MemoryStatsEngine(new EngineProperties());
+        engine.saveAll(hits);
+        expected.saveAll(hits);
+
+        for (boolean unique : List.of(false, true)) {
+            for (List<String> uris : List.of(List.<String>of(), List.of("/events/1"),
+                    List.of("/events/1", "/events/2", "/events/3", "/events/unknown"))) {
+                List<ViewStatsDto> stats = engine.getStats(timestamp.minusDays(1), timestamp, uris, unique);
+
+                assertThat(stats, containsInAnyOrder(
+                        expected.getStats(timestamp.minusDays(1), timestamp, uris, unique).toArray()));
+                for (int i = 1; i < stats.size(); i++) {
+                    assertThat(stats.get(i - 1).getHits() >= stats.get(i).getHits(), equalTo(true));
+                }
+            }
+        }
+        List<StatsWindow> windows = List.of(
+                new StatsWindow("/events/1", timestamp.minusHours(20), timestamp.minusHours(2), true),
+                new StatsWindow("/events/2", timestamp.minusHours(5), timestamp, false),
+                new StatsWindow("/events/unknown", timestamp.minusDays(1), timestamp, false),
+                new StatsWindow("/events/1", timestamp.minusHours(3), timestamp, false));
+        List<List<ViewStatsDto>> windowStats = engine.getWindowStats(windows);
+        for (int i = 0; i < windows.size(); i++) {
+            assertThat(windowStats.get(i), containsInAnyOrder(expected.getWindowStats(windows).get(i).toArray()));
+        }
+        assertThat(engine.deleteBefore(timestamp.minusHours(12)), equalTo(
+                expected.deleteBefore(timestamp.minusHours(12))));
+    }
+
+    @Test
+    public void shouldRebalanceHitsOntoAddedShard() {
+        List<EndpointHit> hits = generateHits();
+        MemoryStatsEngine expected = new MemoryStatsEngine(new EngineProperties());
+        expected.saveAll(hits);
+        engine(2).saveAll(hits);
+
+        ShardedStatsEngine grown = new ShardedStatsEngine(List.of(shard(dataSources.get(0)),
+                shard(dataSources.get(1)), shard(dataSource())), 5000);
+        engines.add(grown);
+        long moved = new ShardRebalancer(grown, 50).rebalance();
+
+        assertThat(moved, greaterThan(0L));
+        assertThat(new JdbcTemplate(dataSources.get(2)).queryForObject("SELECT COUNT(*) FROM statistics",
+                Long.class), equalTo(moved));
+        for (boolean unique : List.of(false, true)) {
+            assertThat(grown.getStats(timestamp.minusDays(1), timestamp, null, unique), containsInAnyOrder(
+                    expected.getStats(timestamp.minusDays(1), timestamp, null, unique).toArray()));
+        }
+        assertThat(new ShardRebalancer(grown, 50).rebalance(), equalTo(0L));
+
+        JdbcTemplate target = new JdbcTemplate(dataSources.get(2));
+        String key = target.queryForObject("SELECT MIN(idempotency_key) FROM statistics " +
+                "WHERE idempotency_key LIKE 'rebalance:%'", String.class);
+        String[] parts = key.split(":");
+        Object[] row = target.queryForObject("SELECT a.name, u.name, s.ip, s.timestamp FROM statistics AS s " +
+                "JOIN statistics_app AS a ON a.id = s.app_id JOIN statistics_uri AS u ON u.id = s.uri_id " +
+                "WHERE s.idempotency_key = ?", (rs, rowNum) -> new Object[]{rs.getString(1), rs.getString(2),
+                rs.getBytes(3), rs.getTimestamp(4)}, key);
+        JdbcTemplate source = new JdbcTemplate(dataSources.get(Integer.parseInt(parts[1].substring(6))));
+        source.update("INSERT INTO statistics (id, app_id, uri_id, ip, timestamp) VALUES (?, " +
+                "(SELECT id FROM statistics_app WHERE name = ?), (SELECT id FROM statistics_uri WHERE name = ?), ?, ?)",
+                Long.parseLong(parts[2]), row[0], row[1], row[2], row[3]);
+
+        assertThat(new ShardRebalancer(grown, 50).rebalance(), equalTo(1L));
+        assertThat(target.queryForObject("SELECT COUNT(*) FROM statistics", Long.class), equalTo(moved));
+    }
+
+    private ShardedStatsEngine engine(int shards) {
+        List<StatsShard> list = new ArrayList<>();
+        for (int i = 0; i < shards; i++) {
+            list.add(shard(dataSource()));
+        }
+        ShardedStatsEngine engine = new ShardedStatsEngine(list, 5000);
+        engines.add(engine);
+        return engine;
+    }
+
+    private StatsShard shard(DataSource dataSource) {
+        return new StatsShard("shard-" + dataSources.indexOf(dataSource), dataSource, 100, false, 100, 100, 1000);
+    }
+
+    private DataSource dataSource() {
+        DataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "test", "test");
+        dataSources.add(dataSource);
+        return dataSource;
+    }
+
+    private List<EndpointHit> generateHits() {
+        Random random = new Random(22);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            hits.add(new EndpointHit(null, "app-" + random.nextInt(2), "/events/" + random.nextInt(60),
+                    "10.0.0." + random.nextInt(40), timestamp.minusMinutes(random.nextInt(24 * 60)),
+                    i % 10 == 0 ? "key-" + i : null));
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.SketchService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class SketchStorageTest {
+    private final HitWriter hitWriter;
+    private final SketchService sketchService;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime origin = LocalDateTime.of(2022, 10, 1, 0, 0, 0);
+
+    @BeforeEach
+    public void clear() {
+        sketchService.flush();
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        jdbcTemplate.update("DELETE FROM statistics_sketch");
+    }
+
+    @Test
+    public void shouldApproximateExactUniqueCounts() {
+        Random random = new Random(7);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(5),
+                    "10.0." + random.nextInt(20) + "." + random.nextInt(250),
+                    origin.plusSeconds(random.nextInt(3 * 24 * 3600)), null));
+        }
+        for (int from = 0; from < hits.size(); from += 2000) {
+            hitWriter.write(hits.subList(from, from + 2000));
+            if (from % 4000 == 0) sketchService.flush();
+        }
+
+        double tolerance = 3 * sketchService.relativeError();
+        for (int i = 0; i < 10; i++) {
+            LocalDateTime start = origin.plusSeconds(random.nextInt(24 * 3600));
+            LocalDateTime end = start.plusSeconds(random.nextInt(2 * 24 * 3600));
+            List<String> uris = i % 2 == 0 ? null : List.of("/events/1", "/events/3");
+
+            Map<String, Long> exact = toMap(statsStorage.getStatsWithUniqueIps(start, end, uris));
+            Map<String, Long> approximate = toMap(sketchService.getStats(start, end, uris));
+
+            assertThat(approximate.keySet(), equalTo(exact.keySet()));
+            exact.forEach((uri, hitsCount) -> assertThat((double) approximate.get(uri),
+                    closeTo(hitsCount, Math.max(tolerance * hitsCount, 1))));
+        }
+    }
+
+    @Test
+    public void shouldPersistSketchesOnFlush() {
+        EndpointHit hit = new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1", origin, null);
+
+        hitWriter.write(List.of(hit, hit));
+        sketchService.flush();
+        hitWriter.write(List.of(new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.2",
+                origin.plusMinutes(5), null)));
+        sketchService.flush();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics_sketch", Integer.class), equalTo(1));
+        assertThat(sketchService.getStats(origin, origin.plusDays(1), null),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 2L))));
+    }
+
+    private Map<String, Long> toMap(List<ViewStatsDto> stats) {
+        return stats.stream().collect(Collectors.toMap(ViewStatsDto::getUri, ViewStatsDto::getHits));
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsBatchStorageTest {
+    private final StatsBatchStorage statsBatchStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+    }
+
+    @Test
+    public void shouldSaveAllHits() {
+        List<EndpointHit> saved = statsBatchStorage.saveAll(
+                List.of(
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.1", timestamp, null),
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.1", timestamp, null),
+                        new EndpointHit(null, "test-application", "/test/1", "192.168.0.2", timestamp, null)
+                )
+        );
+
+        assertThat(saved.size(), equalTo(3));
+        assertThat(countHits(), equalTo(3));
+    }
+
+    @Test
+    public void shouldSkipHitsWithRepeatedIdempotencyKeys() {
+        statsBatchStorage.saveAll(
+                List.of(new EndpointHit(null, "test-application", "/test", "192.168.0.1", timestamp, "key-1"))
+        );
+
+        List<EndpointHit> saved = statsBatchStorage.saveAll(
+                List.of(
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.1", timestamp, "key-1"),
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.2", timestamp, "key-2"),
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.2", timestamp, "key-2"),
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.3", timestamp, null)
+                )
+        );
+
+        assertThat(saved.size(), equalTo(2));
+        assertThat(countHits(), equalTo(3));
+    }
+
+    @Test
+    public void shouldFallBackToBatchedInsertWhenCopyIsUnavailable() {
+        List<EndpointHit> saved = statsBatchStorage.saveAll(
+                List.of(
+                        new EndpointHit(null, "test-application", "/test", "192.168.0.1", timestamp, "key-1"),
+                        new EndpointHit(null, "test-application", "/test/1", "192.168.0.2", timestamp, null)
+                ),
+                StatsBatchStorage.LoadMethod.COPY
+        );
+
+        assertThat(statsBatchStorage.isCopySupported(), equalTo(false));
+        assertThat(saved.size(), equalTo(2));
+        assertThat(countHits(), equalTo(2));
+    }
+
+    private int countHits() {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM statistics", Integer.class);
+        return count == null ? 0 : count;
+    }
+}
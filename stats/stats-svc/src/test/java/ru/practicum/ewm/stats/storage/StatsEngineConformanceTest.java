@@ -0,0 +1,218 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.engine.EngineProperties;
+import ru.practicum.ewm.stats.engine.JdbcStatsEngine;
+import ru.practicum.ewm.stats.engine.JpaStatsEngine;
+import ru.practicum.ewm.stats.engine.MemoryStatsEngine;
+import ru.practicum.ewm.stats.engine.StatsEngine;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.StatsWindow;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsEngineConformanceTest {
+    private final JpaStatsEngine jpaStatsEngine;
+    private final JdbcStatsEngine jdbcStatsEngine;
+    private final MemoryStatsEngine memoryStatsEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @Test
+    public void shouldGroupHitsByAppAndUri() {
+        for (StatsEngine engine : engines()) {
+            seed(engine);
+
+            List<ViewStatsDto> stats = engine.getStats(timestamp, timestamp, null, false);
+
+            assertThat(engine.toString(), stats.get(0), equalTo(new ViewStatsDto("ewm-main-service", "/events/1", 3L)));
+            assertThat(engine.toString(), stats, containsInAnyOrder(
+                    new ViewStatsDto("ewm-main-service", "/events/1", 3L),
+                    new ViewStatsDto("ewm-main-service", "/events/2", 1L),
+                    new ViewStatsDto("other-service", "/events/1", 1L)
+            ));
+        }
+    }
+
+    @Test
+    public void shouldCountUniqueIpsFilteredByUris() {
+        for (StatsEngine engine : engines()) {
+            seed(engine);
+
+            List<ViewStatsDto> stats = engine.getStats(timestamp, timestamp.plusDays(1),
+                    List.of("/events/1", "/events/3", "/events/unknown"), true);
+
+            assertThat(engine.toString(), stats, containsInAnyOrder(
+                    new ViewStatsDto("ewm-main-service", "/events/1", 2L),
+                    new ViewStatsDto("other-service", "/events/1", 1L),
+                    new ViewStatsDto("ewm-main-service", "/events/3", 1L)
+            ));
+            assertThat(engine.toString(), engine.getStats(timestamp, timestamp.plusDays(1),
+                    List.of("/events/unknown"), true), equalTo(List.of()));
+        }
+    }
+
+    @Test
+    public void shouldSkipHitsWithKnownIdempotencyKeys() {
+        for (StatsEngine engine : engines()) {
+            clear();
+            EndpointHit hit = new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1", timestamp, "key-1");
+
+            assertThat(engine.toString(), engine.saveAll(List.of(hit, hit)).size(), equalTo(1));
+            assertThat(engine.toString(), engine.saveAll(List.of(hit)).size(), equalTo(0));
+            assertThat(engine.toString(), engine.getStats(timestamp, timestamp, null, false),
+                    equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/1", 1L))));
+        }
+    }
+
+    @Test
+    public void shouldStreamSameStatsAsQuery() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        for (StatsEngine engine : engines()) {
+            seed(engine);
+            for (boolean unique : List.of(false, true)) {
+                for (List<String> uris : Arrays.asList(null, List.of("/events/1"), List.of("/events/1", "/events/2"))) {
+                    List<ViewStatsDto> streamed = new ArrayList<>();
+                    readOnly.executeWithoutResult(status ->
+                            engine.streamStats(timestamp, timestamp.plusDays(1), uris, unique, streamed::add));
+
+                    assertThat(engine.toString(), streamed, containsInAnyOrder(
+                            engine.getStats(timestamp, timestamp.plusDays(1), uris, unique).toArray()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldDeleteHitsBeforeRetentionBoundary() {
+        for (StatsEngine engine : engines()) {
+            seed(engine);
+
+            assertThat(engine.toString(), engine.deleteBefore(timestamp.plusHours(1)), equalTo(5L));
+            assertThat(engine.toString(), engine.getStats(timestamp.minusDays(1), timestamp.plusDays(2), null, false),
+                    equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/3", 1L))));
+            assertThat(engine.toString(), engine.deleteBefore(timestamp), equalTo(0L));
+        }
+    }
+
+    @Test
+    public void shouldAgreeWithEachOtherOnRandomHits() {
+        Random random = new Random(21);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            hits.add(new EndpointHit(null, "app-" + random.nextInt(3), "/events/" + random.nextInt(40),
+                    "10.0." + random.nextInt(4) + "." + random.nextInt(50),
+                    timestamp.minusMinutes(random.nextInt(5000)), null));
+        }
+        List<List<ViewStatsDto>> results = new ArrayList<>();
+        for (StatsEngine engine : engines()) {
+            clear();
+            engine.saveAll(hits);
+            for (boolean unique : List.of(false, true)) {
+                results.add(engine.getStats(timestamp.minusDays(2), timestamp, List.of("/events/1", "/events/7"),
+                        unique));
+                results.add(engine.getStats(timestamp.minusHours(30), timestamp.minusHours(3), null, unique));
+            }
+        }
+        for (int i = 4; i < results.size(); i++) {
+            assertThat(results.get(i), containsInAnyOrder(results.get(i % 4).toArray()));
+        }
+    }
+
+    @Test
+    public void shouldEvaluateManyWindowsLikeSeparateQueries() {
+        Random random = new Random(23);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            hits.add(new EndpointHit(null, "app-" + random.nextInt(2), "/events/" + random.nextInt(20),
+                    "10.0.0." + random.nextInt(30), timestamp.minusMinutes(random.nextInt(3000)), null));
+        }
+        List<StatsWindow> windows = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            LocalDateTime start = timestamp.minusMinutes(random.nextInt(3000));
+            windows.add(new StatsWindow("/events/" + random.nextInt(22), start,
+                    start.plusMinutes(random.nextInt(2000)), i % 2 == 0));
+        }
+        windows.add(new StatsWindow("/events/1", timestamp.minusMinutes(10), timestamp.minusMinutes(10), false));
+
+        for (StatsEngine engine : engines()) {
+            clear();
+            engine.saveAll(hits);
+
+            List<List<ViewStatsDto>> stats = engine.getWindowStats(windows);
+
+            assertThat(engine.toString(), stats.size(), equalTo(windows.size()));
+            for (int i = 0; i < windows.size(); i++) {
+                StatsWindow window = windows.get(i);
+                assertThat(engine + " " + window, stats.get(i), containsInAnyOrder(engine.getStats(window.getStart(),
+                        window.getEnd(), List.of(window.getUri()), window.isUnique()).toArray()));
+            }
+        }
+    }
+
+    @Test
+    public void memoryEngineShouldFlushAndMergeRuns() {
+        EngineProperties properties = new EngineProperties();
+        properties.getMemory().setMemtableRows(7);
+        properties.getMemory().setMaxRuns(2);
+        MemoryStatsEngine engine = new MemoryStatsEngine(properties);
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + (i % 3), "10.0.0." + (i % 10),
+                    timestamp.minusMinutes((i * 37) % 100), null));
+        }
+        for (int from = 0; from < hits.size(); from += 9) {
+            engine.saveAll(hits.subList(from, Math.min(from + 9, hits.size())));
+        }
+
+        assertThat(engine.getStats(timestamp.minusDays(1), timestamp, null, false), containsInAnyOrder(
+                new ViewStatsDto("ewm-main-service", "/events/0", 34L),
+                new ViewStatsDto("ewm-main-service", "/events/1", 33L),
+                new ViewStatsDto("ewm-main-service", "/events/2", 33L)
+        ));
+        assertThat(engine.getStats(timestamp.minusMinutes(49), timestamp, List.of("/events/0"), false),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/0", 17L))));
+        assertThat(engine.deleteBefore(timestamp.minusMinutes(49)), equalTo(50L));
+        assertThat(engine.getStats(timestamp.minusDays(1), timestamp, null, true).size(), equalTo(3));
+    }
+
+    private List<StatsEngine> engines() {
+        return List.of(jpaStatsEngine, jdbcStatsEngine, memoryStatsEngine);
+    }
+
+    private void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        memoryStatsEngine.deleteBefore(LocalDateTime.of(3000, 1, 1, 0, 0));
+    }
+
+    private void seed(StatsEngine engine) {
+        clear();
+        engine.saveAll(List.of(
+                new EndpointHit(null, "ewm-main-service", "/events/1", "192.168.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/1", "192.168.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/1", "2001:db8::1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/2", "unknown", timestamp, null),
+                new EndpointHit(null, "other-service", "/events/1", "192.168.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/3", "192.168.0.1", timestamp.plusDays(1), null)
+        ));
+    }
+}
@@ -0,0 +1,124 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.not;
+
+@SpringBootTest
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsQueryPlanTest {
+    private static final int HITS = 50_000;
+    private static final int URIS = 500;
+
+    private final HitWriter hitWriter;
+    private final HitDictionary hitDictionary;
+    private final StatsStorage statsStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final LocalDateTime origin = LocalDateTime.of(2022, 9, 1, 0, 0, 0);
+
+    @BeforeAll
+    public void load() {
+        clear();
+        Random random = new Random(13);
+        List<EndpointHit> hits = new ArrayList<>(HITS);
+        for (int i = 0; i < HITS; i++) {
+            hits.add(new EndpointHit(null, "ewm-main-service", "/events/" + random.nextInt(URIS),
+                    "10.0." + random.nextInt(256) + "." + random.nextInt(256),
+                    origin.plusSeconds(random.nextInt(30 * 24 * 3600)), null));
+        }
+        for (int from = 0; from < hits.size(); from += 5000) {
+            hitWriter.write(hits.subList(from, from + 5000));
+        }
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @AfterAll
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+    }
+
+    @Test
+    public void shouldChooseShapeForParameters() {
+        assertThat(StatsQueryShape.of(0, false), equalTo(StatsQueryShape.ALL));
+        assertThat(StatsQueryShape.of(1, true), equalTo(StatsQueryShape.SINGLE_URI_UNIQUE));
+        assertThat(StatsQueryShape.of(3, false), equalTo(StatsQueryShape.URI_LIST));
+    }
+
+    @Test
+    public void shouldUseUriIndexForSingleUri() {
+        for (StatsQueryShape shape : List.of(StatsQueryShape.SINGLE_URI, StatsQueryShape.SINGLE_URI_UNIQUE)) {
+            assertThat(explain(shape, List.of("/events/7")), containsString("STATISTICS_URI_TIMESTAMP_IDX"));
+        }
+    }
+
+    @Test
+    public void shouldUseUriIndexForUriList() {
+        for (StatsQueryShape shape : List.of(StatsQueryShape.URI_LIST, StatsQueryShape.URI_LIST_UNIQUE)) {
+            assertThat(explain(shape, List.of("/events/7", "/events/8", "/events/9")),
+                    containsString("STATISTICS_URI_TIMESTAMP_IDX"));
+        }
+    }
+
+    @Test
+    public void shouldSeekByTimestampWithoutUris() {
+        for (StatsQueryShape shape : List.of(StatsQueryShape.ALL, StatsQueryShape.ALL_UNIQUE)) {
+            String plan = explain(shape, List.of());
+            assertThat(plan, containsString("TIMESTAMP >= ?1"));
+            assertThat(plan, not(containsString("PUBLIC.STATISTICS.TABLESCAN")));
+        }
+    }
+
+    @Test
+    public void shouldReturnSameResultsForEveryShape() {
+        LocalDateTime start = origin.plusDays(3);
+        LocalDateTime end = origin.plusDays(10);
+
+        long single = statsStorage.getStats(start, end, List.of("/events/7")).get(0).getHits();
+        long fromList = statsStorage.getStats(start, end, List.of("/events/7", "/events/8")).stream()
+                .filter(stats -> stats.getUri().equals("/events/7"))
+                .findFirst().orElseThrow().getHits();
+        long fromAll = statsStorage.getStats(start, end, null).stream()
+                .filter(stats -> stats.getUri().equals("/events/7"))
+                .findFirst().orElseThrow().getHits();
+
+        assertThat(fromList, equalTo(single));
+        assertThat(fromAll, equalTo(single));
+        assertThat(statsStorage.getStats(start, end, List.of("/events/unknown")), equalTo(List.of()));
+    }
+
+    private String explain(StatsQueryShape shape, List<String> uris) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(origin.plusDays(10)))
+                .addValue("end", Timestamp.valueOf(origin.plusDays(12)));
+        List<Integer> uriIds = new ArrayList<>(hitDictionary.findUriIds(uris).values());
+        if (uriIds.size() == 1) params.addValue("uriId", uriIds.get(0));
+        else params.addValue("uriIds", uriIds);
+        List<Map<String, Object>> plan = namedJdbcTemplate.queryForList("EXPLAIN " + shape.getSql(), params);
+        return plan.toString().toUpperCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,122 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatsStorageTest {
+    private final HitWriter hitWriter;
+    private final StatsStorage statsStorage;
+    private final RollupStorage rollupStorage;
+    private final StatsService statsService;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @BeforeEach
+    public void clear() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        hitWriter.write(List.of(
+                new EndpointHit(null, "ewm-main-service", "/events/1", "192.168.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/1", "192.168.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/1", "2001:db8::1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/2", "unknown", timestamp, null),
+                new EndpointHit(null, "other-service", "/events/1", "192.168.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/3", "192.168.0.1", timestamp.plusDays(1), null)
+        ));
+    }
+
+    @Test
+    public void shouldGetStatsGroupedByAppAndUri() {
+        List<ViewStatsDto> stats = statsStorage.getStats(timestamp, timestamp, null);
+
+        assertThat(stats.get(0), equalTo(new ViewStatsDto("ewm-main-service", "/events/1", 3L)));
+        assertThat(stats, containsInAnyOrder(
+                new ViewStatsDto("ewm-main-service", "/events/1", 3L),
+                new ViewStatsDto("ewm-main-service", "/events/2", 1L),
+                new ViewStatsDto("other-service", "/events/1", 1L)
+        ));
+    }
+
+    @Test
+    public void shouldGetStatsWithUniqueIpsFilteredByUris() {
+        List<ViewStatsDto> stats = statsStorage.getStatsWithUniqueIps(timestamp, timestamp.plusDays(1),
+                List.of("/events/1", "/events/3", "/events/unknown"));
+
+        assertThat(stats, containsInAnyOrder(
+                new ViewStatsDto("ewm-main-service", "/events/1", 2L),
+                new ViewStatsDto("other-service", "/events/1", 1L),
+                new ViewStatsDto("ewm-main-service", "/events/3", 1L)
+        ));
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    public void shouldStreamSameStatsAsQuery() {
+        for (boolean unique : List.of(false, true)) {
+            for (List<String> uris : Arrays.asList(null, List.of("/events/1"), List.of("/events/1", "/events/2"))) {
+                List<ViewStatsDto> streamed = new ArrayList<>();
+                statsStorage.streamStats(timestamp, timestamp.plusDays(1), uris, unique, streamed::add);
+
+                assertThat(streamed, equalTo(unique
+                        ? statsStorage.getStatsWithUniqueIps(timestamp, timestamp.plusDays(1), uris)
+                        : statsStorage.getStats(timestamp, timestamp.plusDays(1), uris)));
+            }
+        }
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    public void shouldStreamRollupStats() {
+        List<ViewStatsDto> streamed = new ArrayList<>();
+        rollupStorage.streamStats(timestamp.minusDays(1), timestamp.plusDays(2), null, streamed::add);
+
+        assertThat(streamed, equalTo(rollupStorage.getStats(timestamp.minusDays(1), timestamp.plusDays(2), null)));
+        assertThat(streamed.size(), equalTo(4));
+    }
+
+    @Test
+    public void shouldReadHitsThroughDictionary() {
+        List<EndpointHit> hits = statsStorage.findAll();
+
+        assertThat(hits.size(), equalTo(6));
+        assertThat(hits.stream().filter(hit -> hit.getIp().equals("2001:db8::1"))
+                .findFirst().orElseThrow().getUri(), equalTo("/events/1"));
+        assertThat(hits.stream().filter(hit -> hit.getUri().equals("/events/2"))
+                .findFirst().orElseThrow().getIp(), equalTo("unknown"));
+    }
+
+    @Test
+    public void shouldCacheServiceStatsUntilTheirUrisReceiveHits() {
+        List<ViewStatsDto> untouched = statsService.getStats(timestamp, timestamp.plusDays(1),
+                List.of("/events/1"), true);
+        statsService.getStats(timestamp, timestamp.plusDays(1), List.of("/events/2"), false);
+
+        hitWriter.write(List.of(new EndpointHit(null, "ewm-main-service", "/events/2", "10.0.0.9", timestamp, null)));
+
+        assertThat(statsService.getStats(timestamp, timestamp.plusDays(1), List.of("/events/1"), true),
+                sameInstance(untouched));
+        assertThat(statsService.getStats(timestamp, timestamp.plusDays(1), List.of("/events/2"), false),
+                equalTo(List.of(new ViewStatsDto("ewm-main-service", "/events/2", 2L))));
+    }
+}
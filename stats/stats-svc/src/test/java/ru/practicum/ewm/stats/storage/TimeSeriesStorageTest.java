@@ -0,0 +1,111 @@
+package ru.practicum.ewm.stats.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class TimeSeriesStorageTest {
+    private final HitWriter hitWriter;
+    private final TimeSeriesStorage timeSeriesStorage;
+    private final JdbcTemplate jdbcTemplate;
+    private final LocalDateTime origin = LocalDateTime.of(2022, 10, 1, 0, 0, 0);
+    private final List<EndpointHit> hits = new ArrayList<>();
+
+    @BeforeEach
+    public void load() {
+        jdbcTemplate.update("DELETE FROM statistics");
+        jdbcTemplate.update("DELETE FROM statistics_rollup");
+        Random random = new Random(21);
+        hits.clear();
+        for (int i = 0; i < 5_000; i++) {
+            hits.add(new EndpointHit(null, i % 3 == 0 ? "other-service" : "ewm-main-service",
+                    "/events/" + random.nextInt(3), "10.0.0." + random.nextInt(40),
+                    origin.plusSeconds(random.nextInt(3 * 24 * 3600)), null));
+        }
+        hitWriter.write(hits);
+    }
+
+    @Test
+    public void shouldCountHitsPerBucketFromRollupsAndRawEdges() {
+        LocalDateTime start = origin.plusHours(5).plusMinutes(17).plusSeconds(3);
+        LocalDateTime end = origin.plusDays(2).plusHours(3).plusMinutes(41);
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            assertThat(timeSeriesStorage.getHits("/events/1", start, end, granularity),
+                    equalTo(expected("/events/1", start, end, granularity, false)));
+        }
+    }
+
+    @Test
+    public void shouldCountUniqueIpsPerBucket() {
+        LocalDateTime start = origin.plusHours(5).plusMinutes(17).plusSeconds(3);
+        LocalDateTime end = origin.plusDays(2).plusHours(3).plusMinutes(41);
+
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            assertThat(timeSeriesStorage.getUniqueHits("/events/1", start, end, granularity),
+                    equalTo(expected("/events/1", start, end, granularity, true)));
+        }
+    }
+
+    @Test
+    public void shouldHandleRangeWithinSingleBucket() {
+        LocalDateTime start = origin.plusHours(7).plusMinutes(5);
+        LocalDateTime end = origin.plusHours(7).plusMinutes(50);
+
+        assertThat(timeSeriesStorage.getHits("/events/2", start, end, RollupGranularity.HOUR),
+                equalTo(expected("/events/2", start, end, RollupGranularity.HOUR, false)));
+        assertThat(timeSeriesStorage.getHits("/events/unknown", start, end, RollupGranularity.HOUR),
+                anEmptyMap());
+    }
+
+    @Test
+    public void shouldSplitRangeStraddlingSingleBucketBoundary() {
+        LocalDateTime start = origin.plusHours(7).plusMinutes(20);
+        LocalDateTime end = origin.plusHours(8).plusMinutes(40);
+
+        assertThat(timeSeriesStorage.getHits("/events/2", start, end, RollupGranularity.HOUR),
+                equalTo(expected("/events/2", start, end, RollupGranularity.HOUR, false)));
+    }
+
+    private Map<LocalDateTime, Long> expected(
+            String uri,
+            LocalDateTime start,
+            LocalDateTime end,
+            RollupGranularity granularity,
+            boolean unique
+    ) {
+        Map<LocalDateTime, Long> counts = new TreeMap<>();
+        Map<LocalDateTime, Set<String>> ips = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            if (!hit.getUri().equals(uri)) continue;
+            if (hit.getTimestamp().isBefore(start) || hit.getTimestamp().isAfter(end)) continue;
+            LocalDateTime bucket = granularity.floor(hit.getTimestamp());
+            counts.merge(bucket, 1L, Long::sum);
+            ips.computeIfAbsent(bucket, key -> new HashSet<>()).add(hit.getIp());
+        }
+        if (unique) ips.forEach((bucket, set) -> counts.put(bucket, (long) set.size()));
+        return counts;
+    }
+}
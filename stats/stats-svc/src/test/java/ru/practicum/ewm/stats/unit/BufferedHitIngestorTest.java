@@ -0,0 +1,111 @@
+package ru.practicum.ewm.stats.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.ingest.BufferedHitIngestor;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.ingest.IngestProperties;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.anyList;
+
+public class BufferedHitIngestorTest {
+    private final HitWriter hitWriter = Mockito.mock(HitWriter.class);
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @Test
+    public void shouldDrainBufferInOrderOnStop() throws InterruptedException {
+        List<EndpointHit> written = new ArrayList<>();
+        Mockito
+                .when(hitWriter.write(anyList()))
+                .thenAnswer(invocation -> {
+                    List<EndpointHit> batch = invocation.getArgument(0);
+                    written.addAll(batch);
+                    return batch;
+                });
+        BufferedHitIngestor ingestor = new BufferedHitIngestor(hitWriter, properties(100), new SimpleMeterRegistry());
+        ingestor.start();
+
+        for (int i = 0; i < 50; i++) {
+            ingestor.ingest(List.of(hit(i)));
+        }
+        ingestor.stop();
+
+        assertThat(written.size(), equalTo(50));
+        for (int i = 0; i < 50; i++) {
+            assertThat(written.get(i).getUri(), equalTo("/events/" + i));
+        }
+    }
+
+    @Test
+    public void shouldRejectHitsWhenBufferIsFull() throws InterruptedException {
+        Mockito
+                .when(hitWriter.write(anyList()))
+                .thenThrow(new IllegalStateException("База данных недоступна"));
+        BufferedHitIngestor ingestor = new BufferedHitIngestor(hitWriter, properties(2), new SimpleMeterRegistry());
+
+        ingestor.ingest(List.of(hit(0), hit(1)));
+
+        Assertions.assertThrows(IngestOverloadException.class, () -> ingestor.ingest(List.of(hit(2))));
+    }
+
+    @Test
+    public void shouldWriteBatchLargerThanBufferAtOnce() throws InterruptedException {
+        List<List<EndpointHit>> written = new ArrayList<>();
+        Mockito
+                .when(hitWriter.write(anyList()))
+                .thenAnswer(invocation -> {
+                    List<EndpointHit> batch = invocation.getArgument(0);
+                    written.add(batch);
+                    return batch;
+                });
+        BufferedHitIngestor ingestor = new BufferedHitIngestor(hitWriter, properties(20), new SimpleMeterRegistry());
+
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 75; i++) {
+            hits.add(hit(i));
+        }
+        ingestor.ingest(hits);
+
+        assertThat(written, equalTo(List.of(hits)));
+    }
+
+    @Test
+    public void shouldNotAcceptPartOfFailedLargeBatch() {
+        Mockito
+                .when(hitWriter.write(anyList()))
+                .thenThrow(new IllegalStateException("База данных недоступна"));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        BufferedHitIngestor ingestor = new BufferedHitIngestor(hitWriter, properties(20), meterRegistry);
+
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 75; i++) {
+            hits.add(hit(i));
+        }
+
+        Assertions.assertThrows(IllegalStateException.class, () -> ingestor.ingest(hits));
+        assertThat(meterRegistry.get("stats.ingest.buffer.size").gauge().value(), equalTo(0.0));
+    }
+
+    private IngestProperties properties(int capacity) {
+        IngestProperties properties = new IngestProperties();
+        properties.getBuffer().setCapacity(capacity);
+        properties.getBuffer().setBatchSize(10);
+        properties.getBuffer().setFlushIntervalMs(10);
+        properties.getBuffer().setShutdownTimeoutMs(5000);
+        return properties;
+    }
+
+    private EndpointHit hit(int i) {
+        return new EndpointHit(null, "test-application", "/events/" + i, "192.168.0.1", timestamp, null);
+    }
+}
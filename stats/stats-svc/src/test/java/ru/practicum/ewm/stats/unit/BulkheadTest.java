@@ -0,0 +1,124 @@
+package ru.practicum.ewm.stats.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.bulkhead.BulkheadProperties;
+import ru.practicum.ewm.stats.bulkhead.StatsBulkheads;
+import ru.practicum.ewm.stats.exception.QueryOverloadException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class BulkheadTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService clients = Executors.newCachedThreadPool();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    public void stop() {
+        release.countDown();
+        clients.shutdownNow();
+    }
+
+    @Test
+    public void shouldKeepIngestingWhenQueriesAreSaturated() throws InterruptedException {
+        StatsBulkheads bulkheads = new StatsBulkheads(properties(60000, 0), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        clients.submit(() -> bulkheads.query(() -> {
+            started.countDown();
+            return release.await(1, TimeUnit.MINUTES);
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+
+        QueryOverloadException e = Assertions.assertThrows(QueryOverloadException.class,
+                () -> bulkheads.query(() -> "stats"));
+        AtomicBoolean ingested = new AtomicBoolean();
+        bulkheads.ingest(() -> ingested.set(true));
+
+        assertThat(e.getMessage(), equalTo("Очередь запросов статистики переполнена, повторите запрос позже"));
+        assertThat(ingested.get(), equalTo(true));
+        assertThat(meterRegistry.get("stats.bulkhead.rejected").tag("bulkhead", "query").counter().count(),
+                equalTo(1.0));
+        assertThat(meterRegistry.get("stats.bulkhead.saturation").tag("bulkhead", "query").gauge().value(),
+                equalTo(1.0));
+        assertThat(meterRegistry.get("stats.bulkhead.active").tag("bulkhead", "query").gauge().value(),
+                equalTo(1.0));
+        bulkheads.stop();
+    }
+
+    @Test
+    public void shouldCancelQueryAfterTimeout() throws InterruptedException {
+        StatsBulkheads bulkheads = new StatsBulkheads(properties(100, 1), meterRegistry);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        Assertions.assertThrows(QueryOverloadException.class, () -> bulkheads.query(() -> {
+            try {
+                return release.await(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+        }));
+
+        assertThat(interrupted.await(10, TimeUnit.SECONDS), equalTo(true));
+        assertThat(meterRegistry.get("stats.bulkhead.timeouts").tag("bulkhead", "query").counter().count(),
+                equalTo(1.0));
+        assertThat(bulkheads.query(() -> "stats"), equalTo("stats"));
+        bulkheads.stop();
+    }
+
+    @Test
+    public void shouldStreamOnCallerThreadWithoutTimeout() throws InterruptedException {
+        StatsBulkheads bulkheads = new StatsBulkheads(properties(100, 1), meterRegistry);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicReference<Thread> streamThread = new AtomicReference<>();
+        clients.submit(() -> bulkheads.stream(() -> {
+            streamThread.set(Thread.currentThread());
+            started.countDown();
+            return release.await(1, TimeUnit.MINUTES);
+        }));
+        assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+
+        QueryOverloadException e = Assertions.assertThrows(QueryOverloadException.class,
+                () -> bulkheads.stream(() -> "stats"));
+        Thread.sleep(300);
+
+        assertThat(e.getMessage(), equalTo(
+                "Достигнуто максимальное число потоковых запросов статистики, повторите запрос позже"));
+        assertThat(streamThread.get().getName().startsWith("stats-query-"), equalTo(false));
+        assertThat(streamThread.get().isInterrupted(), equalTo(false));
+        assertThat(meterRegistry.get("stats.bulkhead.streams").tag("bulkhead", "query").gauge().value(),
+                equalTo(1.0));
+        release.countDown();
+        bulkheads.stop();
+    }
+
+    @Test
+    public void shouldRethrowQueryErrors() {
+        StatsBulkheads bulkheads = new StatsBulkheads(properties(1000, 0), meterRegistry);
+
+        IllegalArgumentException e = Assertions.assertThrows(IllegalArgumentException.class,
+                () -> bulkheads.query(() -> {
+                    throw new IllegalArgumentException("Некорректный запрос");
+                }));
+
+        assertThat(e.getMessage(), equalTo("Некорректный запрос"));
+        bulkheads.stop();
+    }
+
+    private static BulkheadProperties properties(long queryTimeoutMs, int queueCapacity) {
+        BulkheadProperties properties = new BulkheadProperties();
+        properties.setEnabled(true);
+        properties.setQuery(new BulkheadProperties.Pool(1, queueCapacity, queryTimeoutMs, 1, 1000, 0));
+        return properties;
+    }
+}
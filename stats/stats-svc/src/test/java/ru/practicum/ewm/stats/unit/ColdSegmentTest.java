@@ -0,0 +1,103 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.ewm.stats.cold.ColdSegment;
+import ru.practicum.ewm.stats.cold.ColdSegmentWriter;
+import ru.practicum.ewm.stats.model.IpAddressCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ColdSegmentTest {
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @Test
+    public void shouldReadBackRowsWithinRequestedRange() throws IOException {
+        ColdSegment segment = write(100);
+
+        List<String> rows = new ArrayList<>();
+        segment.scan(timestamp.plusMinutes(10), timestamp.plusMinutes(12), null, true,
+                (app, uri, ip) -> rows.add(app + " " + uri + " " + IpAddressCodec.decode(bytes(ip))));
+
+        assertThat(segment.getRows(), equalTo(100));
+        assertThat(segment.getMinTimestamp(), equalTo(timestamp));
+        assertThat(segment.getMaxTimestamp(), equalTo(timestamp.plusMinutes(99).plusNanos(123_000)));
+        assertThat(rows, equalTo(List.of(
+                "ewm-main-service /events/1 10.0.0.10",
+                "ewm-main-service /events/2 10.0.0.11",
+                "ewm-main-service /events/0 10.0.0.12"
+        )));
+    }
+
+    @Test
+    public void shouldSkipRowsOfOtherUris() throws IOException {
+        ColdSegment segment = write(100);
+
+        int[] count = {0};
+        segment.scan(timestamp, timestamp.plusDays(1), Set.of("/events/1"), false, (app, uri, ip) -> {
+            assertThat(uri, equalTo("/events/1"));
+            assertThat(ip, equalTo(null));
+            count[0]++;
+        });
+        segment.scan(timestamp, timestamp.plusDays(1), Set.of("/events/9"), false, (app, uri, ip) -> count[0]++);
+        segment.scan(timestamp.minusDays(1), timestamp.minusSeconds(1), null, false, (app, uri, ip) -> count[0]++);
+
+        assertThat(count[0], equalTo(33));
+    }
+
+    @Test
+    public void shouldCompressRepetitiveColumns() throws IOException {
+        write(10000);
+
+        assertThat(Files.size(directory.resolve("segment.seg")) < 10000 * 4, equalTo(true));
+    }
+
+    @Test
+    public void shouldRejectUnorderedRows() {
+        ColdSegmentWriter writer = new ColdSegmentWriter(6);
+        writer.add("ewm-main-service", "/events/0", new byte[]{10, 0, 0, 1}, timestamp);
+
+        assertThrows(IllegalArgumentException.class, () ->
+                writer.add("ewm-main-service", "/events/0", new byte[]{10, 0, 0, 1}, timestamp.minusSeconds(1)));
+    }
+
+    @Test
+    public void shouldRejectFilesWithoutFooter() throws IOException {
+        Path file = directory.resolve("broken.seg");
+        Files.write(file, new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+
+        assertThrows(IOException.class, () -> ColdSegment.open(file));
+    }
+
+    private ColdSegment write(int rows) throws IOException {
+        ColdSegmentWriter writer = new ColdSegmentWriter(6);
+        for (int i = 0; i < rows; i++) {
+            LocalDateTime time = timestamp.plusMinutes(i);
+            if (i == rows - 1) time = time.plusNanos(123_000);
+            writer.add("ewm-main-service", "/events/" + (i % 3), IpAddressCodec.encode("10.0.0." + (i % 256)), time);
+        }
+        Path file = directory.resolve("segment.seg");
+        writer.write(file);
+        return ColdSegment.open(file);
+    }
+
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.storage.HitCopyEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class HitCopyEncoderTest {
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0};
+
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0, 123_456_000);
+
+    @Test
+    public void shouldEncodeRowsInPostgresBinaryCopyFormat() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HitCopyEncoder encoder = new HitCopyEncoder(out, 64);
+        encoder.write(1, 2, new byte[]{10, 0, 0, 1}, timestamp, null);
+        encoder.write(3, 4, new byte[]{10, 0, 0, 2}, timestamp, "key-1");
+        encoder.finish();
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        byte[] signature = new byte[SIGNATURE.length];
+        buffer.get(signature);
+        assertThat(Arrays.equals(signature, SIGNATURE), equalTo(true));
+        assertThat(buffer.getInt(), equalTo(0));
+        assertThat(buffer.getInt(), equalTo(0));
+
+        assertRow(buffer, 1, 2, new byte[]{10, 0, 0, 1}, null);
+        assertRow(buffer, 3, 4, new byte[]{10, 0, 0, 2}, "key-1");
+        assertThat(buffer.getShort(), equalTo((short) -1));
+        assertThat(buffer.hasRemaining(), equalTo(false));
+    }
+
+    @Test
+    public void shouldCountMicrosecondsFromPostgresEpoch() {
+        assertThat(HitCopyEncoder.micros(LocalDateTime.of(2000, 1, 1, 0, 0)), equalTo(0L));
+        assertThat(HitCopyEncoder.micros(LocalDateTime.of(2000, 1, 1, 0, 0, 1, 500_000)), equalTo(1_000_500L));
+        assertThat(HitCopyEncoder.micros(LocalDateTime.of(1999, 12, 31, 23, 59, 59)), equalTo(-1_000_000L));
+    }
+
+    @Test
+    public void shouldGrowBufferForRowsLargerThanIt() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        HitCopyEncoder encoder = new HitCopyEncoder(out, 16);
+        String key = "k".repeat(64);
+        encoder.write(1, 2, new byte[16], timestamp, key);
+        encoder.finish();
+
+        assertThat(out.size(), equalTo(SIGNATURE.length + 8 + 38 + 16 + 64 + 2));
+    }
+
+    private void assertRow(ByteBuffer buffer, int appId, int uriId, byte[] ip, String key) {
+        assertThat(buffer.getShort(), equalTo((short) 5));
+        assertThat(buffer.getInt(), equalTo(Integer.BYTES));
+        assertThat(buffer.getInt(), equalTo(appId));
+        assertThat(buffer.getInt(), equalTo(Integer.BYTES));
+        assertThat(buffer.getInt(), equalTo(uriId));
+        byte[] address = new byte[buffer.getInt()];
+        buffer.get(address);
+        assertThat(Arrays.equals(address, ip), equalTo(true));
+        assertThat(buffer.getInt(), equalTo(Long.BYTES));
+        assertThat(buffer.getLong(), equalTo(HitCopyEncoder.micros(timestamp)));
+        if (key == null) {
+            assertThat(buffer.getInt(), equalTo(-1));
+            return;
+        }
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        assertThat(new String(bytes, StandardCharsets.UTF_8), equalTo(key));
+    }
+}
@@ -0,0 +1,70 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.ingest.HitRingBuffer;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class HitRingBufferTest {
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @Test
+    public void shouldDrainHitsInOrder() throws InterruptedException {
+        HitRingBuffer buffer = new HitRingBuffer(3);
+        List<EndpointHit> drained = new ArrayList<>();
+
+        for (int i = 0; i < 7; i++) {
+            buffer.offerAll(List.of(hit(i)), 0, TimeUnit.MILLISECONDS);
+            buffer.drainTo(drained, 1);
+        }
+
+        assertThat(drained.size(), equalTo(7));
+        for (int i = 0; i < 7; i++) {
+            assertThat(drained.get(i), equalTo(hit(i)));
+        }
+    }
+
+    @Test
+    public void shouldKeepAllFieldsOfHit() throws InterruptedException {
+        HitRingBuffer buffer = new HitRingBuffer(1);
+        EndpointHit hit = new EndpointHit(null, "приложение", "/events/1", "::1", timestamp, null);
+        List<EndpointHit> drained = new ArrayList<>();
+
+        buffer.offerAll(List.of(hit), 0, TimeUnit.MILLISECONDS);
+        buffer.drainTo(drained, 1);
+
+        assertThat(drained.get(0), equalTo(hit));
+    }
+
+    @Test
+    public void shouldRejectHitsWhenFull() throws InterruptedException {
+        HitRingBuffer buffer = new HitRingBuffer(2);
+
+        assertThat(buffer.offerAll(List.of(hit(0), hit(1)), 0, TimeUnit.MILLISECONDS), equalTo(true));
+        assertThat(buffer.offerAll(List.of(hit(2)), 10, TimeUnit.MILLISECONDS), equalTo(false));
+        assertThat(buffer.size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldNotAcceptHitLargerThanSlot() {
+        HitRingBuffer buffer = new HitRingBuffer(1);
+        EndpointHit hit = new EndpointHit(null, "app", "/" + "a".repeat(2000), "127.0.0.1", timestamp, null);
+
+        Assertions.assertThrows(
+                IllegalArgumentException.class,
+                () -> buffer.offerAll(List.of(hit), 0, TimeUnit.MILLISECONDS)
+        );
+    }
+
+    private EndpointHit hit(int i) {
+        return new EndpointHit(null, "test-application", "/events/" + i, "192.168.0." + i, timestamp, "key-" + i);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.sketch.HyperLogLog;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+
+public class HyperLogLogTest {
+    @Test
+    public void shouldEstimateWithinDocumentedError() {
+        for (int precision : new int[]{10, 14}) {
+            for (int count : new int[]{100, 10_000, 200_000}) {
+                HyperLogLog sketch = new HyperLogLog(precision);
+                for (int i = 0; i < count; i++) {
+                    sketch.add("10." + (i >> 16) + "." + ((i >> 8) & 0xff) + "." + (i & 0xff));
+                }
+                double tolerance = 3 * HyperLogLog.relativeError(precision) * count;
+
+                assertThat((double) sketch.estimate(), closeTo(count, Math.max(tolerance, 2)));
+            }
+        }
+    }
+
+    @Test
+    public void shouldIgnoreDuplicates() {
+        HyperLogLog sketch = new HyperLogLog(14);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("192.168.0." + (i % 10));
+        }
+
+        assertThat(sketch.estimate(), equalTo(10L));
+    }
+
+    @Test
+    public void shouldMergeAsUnion() {
+        HyperLogLog first = new HyperLogLog(14);
+        HyperLogLog second = new HyperLogLog(14);
+        HyperLogLog union = new HyperLogLog(14);
+        for (int i = 0; i < 30_000; i++) {
+            String ip = "ip-" + i;
+            if (i < 20_000) first.add(ip);
+            if (i >= 10_000) second.add(ip);
+            union.add(ip);
+        }
+
+        assertThat(first.merge(second).estimate(), equalTo(union.estimate()));
+    }
+
+    @Test
+    public void shouldMergeSketchesOfDifferentPrecision() {
+        HyperLogLog precise = new HyperLogLog(14);
+        HyperLogLog coarse = new HyperLogLog(10);
+        HyperLogLog expected = new HyperLogLog(10);
+        for (int i = 0; i < 50_000; i++) {
+            String ip = "ip-" + i;
+            if (i % 2 == 0) precise.add(ip);
+            else coarse.add(ip);
+            expected.add(ip);
+        }
+
+        HyperLogLog merged = precise.merge(coarse);
+
+        assertThat(merged.getPrecision(), equalTo(10));
+        assertThat(merged.estimate(), equalTo(expected.estimate()));
+    }
+
+    @Test
+    public void shouldSerializeAndDeserialize() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        for (int i = 0; i < 5_000; i++) {
+            sketch.add("ip-" + i);
+        }
+
+        HyperLogLog restored = HyperLogLog.fromBytes(sketch.toBytes());
+
+        assertThat(restored.getPrecision(), equalTo(12));
+        assertThat(restored.estimate(), equalTo(sketch.estimate()));
+    }
+
+    @Test
+    public void shouldRejectInvalidPrecision() {
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(3));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new HyperLogLog(19));
+    }
+}
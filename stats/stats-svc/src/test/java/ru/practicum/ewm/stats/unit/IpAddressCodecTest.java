@@ -0,0 +1,40 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.model.IpAddressCodec;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class IpAddressCodecTest {
+    @Test
+    public void shouldStoreIpv4AsFourBytes() {
+        byte[] bytes = IpAddressCodec.encode("192.168.0.1");
+
+        assertThat(bytes.length, equalTo(4));
+        assertThat(IpAddressCodec.decode(bytes), equalTo("192.168.0.1"));
+    }
+
+    @Test
+    public void shouldStoreCanonicalIpv6AsSixteenBytes() {
+        for (String ip : List.of("::1", "2001:db8::ff00:42:8329", "fe80::1:0:0:1", "1:2:3:4:5:6:7:8")) {
+            byte[] bytes = IpAddressCodec.encode(ip);
+
+            assertThat(bytes.length, equalTo(16));
+            assertThat(IpAddressCodec.decode(bytes), equalTo(ip));
+        }
+    }
+
+    @Test
+    public void shouldKeepNonCanonicalValuesAsText() {
+        for (String ip : List.of("010.0.0.1", "0:0:0:0:0:0:0:1", "::ffff:10.0.0.1", "abc", "host.example.com",
+                "unknown-client!", "256.1.1.1")) {
+            byte[] bytes = IpAddressCodec.encode(ip);
+
+            assertThat(bytes.length == 4 || bytes.length == 16, equalTo(false));
+            assertThat(IpAddressCodec.decode(bytes), equalTo(ip));
+        }
+    }
+}
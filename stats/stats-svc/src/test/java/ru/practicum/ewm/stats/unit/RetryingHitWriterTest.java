@@ -0,0 +1,67 @@
+package ru.practicum.ewm.stats.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.TransientDataAccessResourceException;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.ingest.RetryingHitWriter;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+
+public class RetryingHitWriterTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final HitWriter hitWriter = Mockito.mock(HitWriter.class);
+    private final List<EndpointHit> written = new ArrayList<>();
+
+    @Test
+    public void shouldRetryTransientFailuresUntilWritten() throws InterruptedException {
+        AtomicInteger failures = new AtomicInteger(4);
+        Mockito
+                .doAnswer(invocation -> {
+                    if (failures.getAndDecrement() > 0)
+                        throw new TransientDataAccessResourceException("Соединение недоступно");
+                    List<EndpointHit> hits = invocation.getArgument(0);
+                    written.addAll(hits);
+                    return hits;
+                })
+                .when(hitWriter).write(any());
+
+        new RetryingHitWriter(hitWriter, meterRegistry).write(List.of(hit("/events/1"), hit("/events/2")));
+
+        assertThat(written, equalTo(List.of(hit("/events/1"), hit("/events/2"))));
+        assertThat(meterRegistry.get("stats.ingest.dead-lettered").counter().count(), equalTo(0.0));
+    }
+
+    @Test
+    public void shouldDeadLetterOnlyHitsThatCannotBeWritten() throws InterruptedException {
+        Mockito
+                .doAnswer(invocation -> {
+                    List<EndpointHit> hits = invocation.getArgument(0);
+                    if (hits.contains(hit("/broken")))
+                        throw new DataIntegrityViolationException("Значение слишком длинное");
+                    written.addAll(hits);
+                    return hits;
+                })
+                .when(hitWriter).write(any());
+
+        new RetryingHitWriter(hitWriter, meterRegistry)
+                .write(List.of(hit("/events/1"), hit("/broken"), hit("/events/2")));
+
+        assertThat(written, equalTo(List.of(hit("/events/1"), hit("/events/2"))));
+        assertThat(meterRegistry.get("stats.ingest.dead-lettered").counter().count(), equalTo(1.0));
+    }
+
+    private static EndpointHit hit(String uri) {
+        return new EndpointHit(null, "ewm-main-service", uri, "10.0.0.1", LocalDateTime.of(2022, 10, 10, 12, 0), null);
+    }
+}
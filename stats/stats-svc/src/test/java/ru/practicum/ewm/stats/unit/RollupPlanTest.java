@@ -0,0 +1,53 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+import ru.practicum.ewm.stats.model.RollupPlan;
+import ru.practicum.ewm.stats.model.TimeRange;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class RollupPlanTest {
+    @Test
+    public void shouldCoverRangeWithCoarsestBuckets() {
+        RollupPlan plan = RollupPlan.of(
+                LocalDateTime.of(2022, 10, 10, 22, 58, 30),
+                LocalDateTime.of(2022, 10, 13, 1, 2, 15)
+        );
+
+        assertThat(plan.getRawHead(), equalTo(new TimeRange(
+                LocalDateTime.of(2022, 10, 10, 22, 58, 30),
+                LocalDateTime.of(2022, 10, 10, 22, 59, 0)
+        )));
+        assertThat(plan.getBuckets().get(RollupGranularity.MINUTE), equalTo(List.of(
+                new TimeRange(LocalDateTime.of(2022, 10, 10, 22, 59), LocalDateTime.of(2022, 10, 10, 23, 0)),
+                new TimeRange(LocalDateTime.of(2022, 10, 13, 1, 0), LocalDateTime.of(2022, 10, 13, 1, 2))
+        )));
+        assertThat(plan.getBuckets().get(RollupGranularity.HOUR), equalTo(List.of(
+                new TimeRange(LocalDateTime.of(2022, 10, 10, 23, 0), LocalDateTime.of(2022, 10, 11, 0, 0)),
+                new TimeRange(LocalDateTime.of(2022, 10, 13, 0, 0), LocalDateTime.of(2022, 10, 13, 1, 0))
+        )));
+        assertThat(plan.getBuckets().get(RollupGranularity.DAY), equalTo(List.of(
+                new TimeRange(LocalDateTime.of(2022, 10, 11, 0, 0), LocalDateTime.of(2022, 10, 13, 0, 0))
+        )));
+        assertThat(plan.getRawTailFrom(), equalTo(LocalDateTime.of(2022, 10, 13, 1, 2)));
+        assertThat(plan.getRawTailTo(), equalTo(LocalDateTime.of(2022, 10, 13, 1, 2, 15)));
+    }
+
+    @Test
+    public void shouldScanRawRowsForRangeShorterThanMinute() {
+        LocalDateTime start = LocalDateTime.of(2022, 10, 10, 12, 0, 10);
+        LocalDateTime end = LocalDateTime.of(2022, 10, 10, 12, 0, 50);
+
+        RollupPlan plan = RollupPlan.of(start, end);
+
+        assertThat(plan.getRawHead().isEmpty(), equalTo(true));
+        assertThat(plan.getBuckets().isEmpty(), equalTo(true));
+        assertThat(plan.getRawTailFrom(), equalTo(start));
+        assertThat(plan.getRawTailTo(), equalTo(end));
+    }
+}
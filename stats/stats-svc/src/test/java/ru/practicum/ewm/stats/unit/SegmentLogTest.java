@@ -0,0 +1,124 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.wal.SegmentLog;
+import ru.practicum.ewm.stats.wal.WalBatch;
+import ru.practicum.ewm.stats.wal.WalPosition;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class SegmentLogTest {
+    private static final int SEGMENT_SIZE = 1024;
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @Test
+    public void shouldReadAppendedHitsAcrossSegments() throws IOException {
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        List<EndpointHit> hits = hits(0, 40);
+
+        log.append(hits);
+
+        assertThat(readAll(log, log.getCheckpoint()), equalTo(hits));
+        assertThat(segmentFiles() > 1, equalTo(true));
+    }
+
+    @Test
+    public void shouldRecoverHitsAfterReopen() throws IOException {
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.append(hits(0, 30));
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, SEGMENT_SIZE);
+        reopened.append(hits(30, 5));
+
+        assertThat(readAll(reopened, reopened.getCheckpoint()), equalTo(hits(0, 35)));
+    }
+
+    @Test
+    public void shouldContinueFromCheckpointAndDeleteAppliedSegments() throws IOException {
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.append(hits(0, 40));
+        int applied = 0;
+        WalPosition position = log.getCheckpoint();
+        while (applied < 25) {
+            WalBatch batch = log.read(position, 25 - applied);
+            applied += batch.getHits().size();
+            position = batch.getEnd();
+        }
+        log.checkpoint(position);
+        log.close();
+
+        SegmentLog reopened = new SegmentLog(directory, SEGMENT_SIZE);
+
+        assertThat(readAll(reopened, reopened.getCheckpoint()), equalTo(hits(25, 15)));
+        assertThat(reopened.getCheckpoint(), equalTo(position));
+        assertThat(segmentFiles(), equalTo(reopened.segmentCount()));
+        assertThat(reopened.segmentCount() < 4, equalTo(true));
+    }
+
+    @Test
+    public void shouldIgnoreCorruptedTail() throws IOException {
+        SegmentLog log = new SegmentLog(directory, SEGMENT_SIZE);
+        log.append(hits(0, 3));
+        WalPosition end = log.append(hits(3, 1));
+        log.close();
+        try (FileChannel channel = FileChannel.open(lastSegment(), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), end.getOffset() - 3);
+        }
+
+        SegmentLog reopened = new SegmentLog(directory, SEGMENT_SIZE);
+
+        assertThat(readAll(reopened, reopened.getCheckpoint()), equalTo(hits(0, 3)));
+    }
+
+    private List<EndpointHit> readAll(SegmentLog log, WalPosition from) {
+        List<EndpointHit> result = new ArrayList<>();
+        WalPosition position = from;
+        while (position.compareTo(log.end()) < 0) {
+            WalBatch batch = log.read(position, 7);
+            result.addAll(batch.getHits());
+            position = batch.getEnd();
+        }
+        return result;
+    }
+
+    private List<EndpointHit> hits(int from, int count) {
+        return IntStream.range(from, from + count)
+                .mapToObj(i -> new EndpointHit(null, "ewm-main-service", "/events/" + i, "10.0.0." + (i % 250),
+                        timestamp.plusSeconds(i), i % 2 == 0 ? "key-" + i : null))
+                .collect(Collectors.toList());
+    }
+
+    private int segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(file -> file.toString().endsWith(".seg")).count();
+        }
+    }
+
+    private Path lastSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".seg")).sorted()
+                    .reduce((first, second) -> second).orElseThrow();
+        }
+    }
+}
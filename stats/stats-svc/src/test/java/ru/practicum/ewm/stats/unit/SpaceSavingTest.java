@@ -0,0 +1,106 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.sketch.SpaceSaving;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class SpaceSavingTest {
+    @Test
+    public void shouldCountExactlyWithinCapacity() {
+        SpaceSaving<String> summary = new SpaceSaving<>(10);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j <= i; j++) {
+                summary.offer("/events/" + i);
+            }
+        }
+
+        List<SpaceSaving.Entry<String>> top = summary.top(3);
+
+        assertThat(top.size(), equalTo(3));
+        assertThat(top.get(0), equalTo(new SpaceSaving.Entry<>("/events/4", 5, 0, true)));
+        assertThat(top.get(2), equalTo(new SpaceSaving.Entry<>("/events/2", 3, 0, true)));
+    }
+
+    @Test
+    public void shouldBoundErrorsOnSkewedStream() {
+        Random random = new Random(11);
+        SpaceSaving<Integer> summary = new SpaceSaving<>(100);
+        Map<Integer, Long> exact = new HashMap<>();
+        int total = 200_000;
+        for (int i = 0; i < total; i++) {
+            int key = zipf(random, 10_000);
+            summary.offer(key);
+            exact.merge(key, 1L, Long::sum);
+        }
+
+        List<SpaceSaving.Entry<Integer>> top = summary.top(10);
+        assertBounds(top, exact);
+        top.forEach(entry -> assertThat(entry.getError(), lessThanOrEqualTo((long) total / 100)));
+        List<Integer> exactTop = topKeys(exact, 10);
+        top.stream()
+                .filter(SpaceSaving.Entry::isGuaranteed)
+                .forEach(entry -> assertThat(exactTop, hasItem(entry.getKey())));
+        assertThat(top.get(0).getKey(), equalTo(exactTop.get(0)));
+    }
+
+    @Test
+    public void shouldKeepBoundsWhenMergingSummaries() {
+        Random random = new Random(17);
+        List<SpaceSaving<Integer>> panes = new ArrayList<>();
+        Map<Integer, Long> exact = new HashMap<>();
+        for (int pane = 0; pane < 30; pane++) {
+            SpaceSaving<Integer> summary = new SpaceSaving<>(64);
+            for (int i = 0; i < 5_000; i++) {
+                int key = (zipf(random, 2_000) + pane * 7) % 2_000;
+                summary.offer(key);
+                exact.merge(key, 1L, Long::sum);
+            }
+            panes.add(summary);
+        }
+
+        List<SpaceSaving.Entry<Integer>> top = SpaceSaving.top(panes, 20);
+
+        assertThat(top.size(), equalTo(20));
+        assertBounds(top, exact);
+        List<Integer> exactTop = topKeys(exact, 20);
+        top.stream()
+                .filter(SpaceSaving.Entry::isGuaranteed)
+                .forEach(entry -> assertThat(exactTop, hasItem(entry.getKey())));
+    }
+
+    private static void assertBounds(List<SpaceSaving.Entry<Integer>> top, Map<Integer, Long> exact) {
+        for (SpaceSaving.Entry<Integer> entry : top) {
+            long count = exact.getOrDefault(entry.getKey(), 0L);
+            assertThat(entry.getCount(), greaterThanOrEqualTo(count));
+            assertThat(entry.getCount() - entry.getError(), lessThanOrEqualTo(count));
+        }
+        for (int i = 1; i < top.size(); i++) {
+            assertThat(top.get(i).getCount(), lessThanOrEqualTo(top.get(i - 1).getCount()));
+        }
+    }
+
+    private static List<Integer> topKeys(Map<Integer, Long> exact, int k) {
+        return exact.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Long>comparingByValue(Comparator.reverseOrder()))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    private static int zipf(Random random, int size) {
+        return (int) Math.min(size - 1, Math.floor(Math.pow(size, random.nextDouble())) - 1);
+    }
+}
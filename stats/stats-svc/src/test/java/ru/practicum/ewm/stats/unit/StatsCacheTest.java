@@ -0,0 +1,163 @@
+package ru.practicum.ewm.stats.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.cache.StatsCacheProperties;
+import ru.practicum.ewm.stats.model.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class StatsCacheTest {
+    private final LocalDateTime start = LocalDateTime.of(2023, 1, 1, 0, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2023, 1, 2, 12, 30, 17);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<LocalDateTime> queried = new ArrayList<>();
+
+    @Test
+    public void shouldServeRepeatedQueryFromCache() {
+        StatsCache cache = cache(new StatsCacheProperties());
+
+        cache.get(start, end, List.of("/events/1", "/events/2"), true, this::query);
+        List<ViewStatsDto> cached = cache.get(start, end, List.of("/events/2", "/events/1", "/events/2"), true,
+                this::query);
+
+        assertThat(queried.size(), equalTo(1));
+        assertThat(cached, equalTo(query(start, end)));
+        assertThat(cache.hitRatio(), closeTo(0.5, 1e-9));
+        assertThat(meterRegistry.get("stats.cache.hits").counter().count(), equalTo(1.0));
+    }
+
+    @Test
+    public void shouldKeepUniqueAndTotalQueriesApart() {
+        StatsCache cache = cache(new StatsCacheProperties());
+
+        cache.get(start, end, List.of("/events/1"), true, this::query);
+        cache.get(start, end, List.of("/events/1"), false, this::query);
+
+        assertThat(queried.size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldRoundEndToGranularity() {
+        StatsCacheProperties properties = new StatsCacheProperties();
+        properties.setEndGranularity(Duration.ofMinutes(1));
+        StatsCache cache = cache(properties);
+
+        cache.get(start, end, null, false, this::query);
+        cache.get(start, end.plusSeconds(20), null, false, this::query);
+        cache.get(start, end.plusSeconds(50), null, false, this::query);
+
+        assertThat(queried, equalTo(List.of(LocalDateTime.of(2023, 1, 2, 12, 30, 0),
+                LocalDateTime.of(2023, 1, 2, 12, 31, 0))));
+    }
+
+    @Test
+    public void shouldNotCacheResultsReadWithinSettlePeriodOfWrite() {
+        StatsCacheProperties properties = new StatsCacheProperties();
+        properties.setSettle(Duration.ofHours(1));
+        StatsCache cache = cache(properties);
+
+        cache.get(start, end, List.of("/events/2"), true, this::query);
+        cache.get(start, end, List.of("/events/2"), true, this::query);
+        cache.record(List.of(hit("/events/1")));
+        cache.get(start, end, List.of("/events/1"), true, this::query);
+        cache.get(start, end, List.of("/events/1"), true, this::query);
+
+        assertThat(queried.size(), equalTo(3));
+        assertThat(cache.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldInvalidateOnlyEntriesOfTouchedUris() {
+        StatsCache cache = cache(new StatsCacheProperties());
+        cache.get(start, end, List.of("/events/1"), true, this::query);
+        cache.get(start, end, List.of("/events/2"), true, this::query);
+        cache.get(start, end, null, true, this::query);
+
+        cache.record(List.of(hit("/events/1")));
+        cache.get(start, end, List.of("/events/1"), true, this::query);
+        cache.get(start, end, List.of("/events/2"), true, this::query);
+        cache.get(start, end, null, true, this::query);
+
+        assertThat(queried.size(), equalTo(5));
+        assertThat(meterRegistry.get("stats.cache.invalidations").counter().count(), equalTo(2.0));
+    }
+
+    @Test
+    public void shouldNotTrustResultComputedWhileHitsArrived() {
+        StatsCache cache = cache(new StatsCacheProperties());
+
+        cache.get(start, end, List.of("/events/1"), true, (from, to) -> {
+            cache.record(List.of(hit("/events/1")));
+            return query(from, to);
+        });
+        cache.get(start, end, List.of("/events/1"), true, this::query);
+
+        assertThat(queried.size(), equalTo(2));
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntriesOverMemoryLimit() {
+        StatsCacheProperties properties = new StatsCacheProperties();
+        properties.setMaxBytes(1000);
+        StatsCache cache = cache(properties);
+
+        for (int i = 0; i < 10; i++) {
+            cache.get(start.plusDays(i), end.plusDays(i), List.of("/events/1"), false, this::query);
+            cache.get(start, end, List.of("/events/1"), false, this::query);
+        }
+
+        assertThat(cache.getBytes(), lessThanOrEqualTo(1000L));
+        assertThat(queried.stream().filter(end::equals).count(), equalTo(1L));
+        assertThat(meterRegistry.get("stats.cache.evictions").counter().count() > 0, equalTo(true));
+    }
+
+    @Test
+    public void shouldDropEverythingOnInvalidateAll() {
+        StatsCache cache = cache(new StatsCacheProperties());
+        cache.get(start, end, null, false, this::query);
+
+        cache.invalidateAll();
+        cache.get(start, end, null, false, this::query);
+
+        assertThat(queried.size(), equalTo(2));
+        assertThat(cache.size(), equalTo(1));
+    }
+
+    @Test
+    public void shouldBypassCacheWhenDisabled() {
+        StatsCacheProperties properties = new StatsCacheProperties();
+        properties.setEnabled(false);
+        StatsCache cache = cache(properties);
+
+        cache.get(start, end.plusNanos(500_000_000), null, false, this::query);
+        cache.get(start, end.plusNanos(500_000_000), null, false, this::query);
+
+        assertThat(queried, equalTo(List.of(end.plusNanos(500_000_000), end.plusNanos(500_000_000))));
+        assertThat(cache.size(), equalTo(0));
+    }
+
+    private StatsCache cache(StatsCacheProperties properties) {
+        return new StatsCache(properties, meterRegistry);
+    }
+
+    private List<ViewStatsDto> query(LocalDateTime from, LocalDateTime to) {
+        queried.add(to);
+        return List.of(new ViewStatsDto("ewm-main-service", "/events/1", 2L),
+                new ViewStatsDto("ewm-main-service", "/events/2", 1L));
+    }
+
+    private EndpointHit hit(String uri) {
+        return new EndpointHit(null, "ewm-main-service", uri, "10.0.0.1", end, null);
+    }
+}
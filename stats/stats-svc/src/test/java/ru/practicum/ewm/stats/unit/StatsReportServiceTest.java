@@ -0,0 +1,185 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.ewm.dto.StatsReportDto;
+import ru.practicum.ewm.dto.StatsReportPageDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.stats.exception.QueryOverloadException;
+import ru.practicum.ewm.stats.exception.ReportNotFoundException;
+import ru.practicum.ewm.stats.exception.ReportNotReadyException;
+import ru.practicum.ewm.stats.report.ReportProperties;
+import ru.practicum.ewm.stats.report.StatsReportService;
+import ru.practicum.ewm.stats.service.StatsService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+
+public class StatsReportServiceTest {
+    private final StatsService statsService = Mockito.mock(StatsService.class);
+    private final ReportProperties properties = new ReportProperties();
+    private final LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0, 0);
+    private final LocalDateTime end = LocalDateTime.of(2022, 6, 1, 0, 0, 0);
+    private StatsReportService reportService;
+
+    @AfterEach
+    public void stop() {
+        if (reportService != null) reportService.stop();
+    }
+
+    @Test
+    public void shouldBuildReportAndReturnItByPages() throws InterruptedException {
+        stream(List.of(stats("/events/1", 30L), stats("/events/2", 20L), stats("/events/3", 10L)));
+        reportService = reportService();
+
+        StatsReportDto report = reportService.submit(start, end, null, true);
+        StatsReportDto done = await(report.getId(), "DONE");
+        StatsReportPageDto page = reportService.getResult(report.getId(), 1, 1);
+
+        assertThat(done.getRows(), equalTo(3L));
+        assertThat(page.getTotal(), equalTo(3L));
+        assertThat(page.getStats(), equalTo(List.of(stats("/events/2", 20L))));
+        assertThat(reportService.getResult(report.getId(), 5, 10).getStats().size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldReuseReportForSameQuery() throws InterruptedException {
+        stream(List.of(stats("/events/1", 30L)));
+        reportService = reportService();
+
+        String id = reportService.submit(start, end, List.of("/events/1"), false).getId();
+        await(id, "DONE");
+
+        assertThat(reportService.submit(start, end, List.of("/events/1"), false).getId(), equalTo(id));
+        Mockito.verify(statsService, Mockito.times(1)).streamStats(any(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    public void shouldCreateSingleReportForConcurrentSameQueries() throws Exception {
+        stream(List.of(stats("/events/1", 30L)));
+        properties.setMaxJobs(1);
+        reportService = reportService();
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<String>> ids = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            ids.add(clients.submit(() -> {
+                ready.await();
+                return reportService.submit(start, end, null, true).getId();
+            }));
+        }
+        ready.countDown();
+
+        Set<String> distinct = new HashSet<>();
+        for (Future<String> id : ids) distinct.add(id.get(10, TimeUnit.SECONDS));
+        clients.shutdownNow();
+
+        assertThat(distinct.size(), equalTo(1));
+        await(distinct.iterator().next(), "DONE");
+        Mockito.verify(statsService, Mockito.times(1)).streamStats(any(), any(), any(), anyBoolean(), any());
+    }
+
+    @Test
+    public void shouldFailReportOverMemoryLimit() throws InterruptedException {
+        stream(List.of(stats("/events/1", 30L), stats("/events/2", 20L), stats("/events/3", 10L)));
+        properties.setMaxResultBytes(200);
+        reportService = reportService();
+
+        String id = reportService.submit(start, end, null, false).getId();
+        StatsReportDto failed = await(id, "FAILED");
+
+        assertThat(failed.getError(), equalTo(
+                "Результат отчёта превышает 200 байт, сократите период или уточните uris"));
+        Assertions.assertThrows(ReportNotReadyException.class, () -> reportService.getResult(id, 0, 10));
+    }
+
+    @Test
+    public void shouldBoundMemoryOfAllReports() throws InterruptedException {
+        stream(List.of(stats("/events/1", 30L), stats("/events/2", 20L), stats("/events/3", 10L)));
+        properties.setMaxTotalResultBytes(400);
+        reportService = reportService();
+
+        await(reportService.submit(start, end, null, true).getId(), "DONE");
+        StatsReportDto failed = await(reportService.submit(start, end, null, false).getId(), "FAILED");
+        properties.setMaxTotalResultBytes(342);
+
+        assertThat(failed.getError(), equalTo(
+                "Результаты отчётов превышают общий лимит 400 байт, повторите запрос позже"));
+        QueryOverloadException e = Assertions.assertThrows(QueryOverloadException.class,
+                () -> reportService.submit(start, end, List.of("/events/1"), false));
+        assertThat(e.getMessage(), equalTo("Результаты отчётов заняли всю отведённую память, повторите запрос позже"));
+    }
+
+    @Test
+    public void shouldCancelRunningReport() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        Mockito
+                .doAnswer(invocation -> {
+                    Consumer<ViewStatsDto> consumer = invocation.getArgument(4);
+                    started.countDown();
+                    while (true) {
+                        consumer.accept(stats("/events/1", 1L));
+                        Thread.sleep(1);
+                    }
+                })
+                .when(statsService).streamStats(any(), any(), any(), anyBoolean(), any());
+        properties.setMaxResultBytes(Long.MAX_VALUE);
+        reportService = reportService();
+
+        String id = reportService.submit(start, end, null, false).getId();
+        assertThat(started.await(10, TimeUnit.SECONDS), equalTo(true));
+        StatsReportDto cancelled = reportService.cancel(id);
+
+        assertThat(cancelled.getStatus(), equalTo("CANCELLED"));
+        Assertions.assertThrows(ReportNotReadyException.class, () -> reportService.getResult(id, 0, 10));
+        Assertions.assertThrows(ReportNotFoundException.class, () -> reportService.getReport("unknown"));
+    }
+
+    private StatsReportService reportService() {
+        return new StatsReportService(statsService, properties, Mockito.mock(JdbcTemplate.class),
+                Mockito.mock(PlatformTransactionManager.class));
+    }
+
+    private void stream(List<ViewStatsDto> rows) {
+        Mockito
+                .doAnswer(invocation -> {
+                    Consumer<ViewStatsDto> consumer = invocation.getArgument(4);
+                    rows.forEach(consumer);
+                    return null;
+                })
+                .when(statsService).streamStats(any(), any(), any(), anyBoolean(), any());
+    }
+
+    private StatsReportDto await(String id, String status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        StatsReportDto report = reportService.getReport(id);
+        while (!report.getStatus().equals(status) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            report = reportService.getReport(id);
+        }
+        assertThat(report.getStatus(), equalTo(status));
+        return report;
+    }
+
+    private static ViewStatsDto stats(String uri, long hits) {
+        return new ViewStatsDto("ewm-main-service", uri, hits);
+    }
+}
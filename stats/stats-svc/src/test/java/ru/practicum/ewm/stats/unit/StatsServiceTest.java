@@ -1,33 +1,74 @@
 package ru.practicum.ewm.stats.unit;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.ewm.dto.TimeSeriesPointDto;
 import ru.practicum.ewm.dto.ViewStatsDto;
-import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.cache.StatsCache;
+import ru.practicum.ewm.stats.cache.StatsCacheProperties;
+import ru.practicum.ewm.stats.cold.ColdStorage;
+import ru.practicum.ewm.stats.engine.StatsEngine;
+import ru.practicum.ewm.stats.hot.HotWindow;
+import ru.practicum.ewm.stats.ingest.HitIngestor;
+import ru.practicum.ewm.stats.model.RollupGranularity;
+import ru.practicum.ewm.stats.model.StatsWindow;
 import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.stats.service.QueryProperties;
+import ru.practicum.ewm.stats.sketch.SketchService;
+import ru.practicum.ewm.stats.sketch.TopHits;
 import ru.practicum.ewm.stats.service.StatsServiceImpl;
-import ru.practicum.ewm.stats.storage.StatsStorage;
+import ru.practicum.ewm.stats.storage.DailyStorage;
+import ru.practicum.ewm.stats.storage.RollupStorage;
+import ru.practicum.ewm.stats.storage.TimeSeriesStorage;
 
+import javax.validation.ValidationException;
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyList;
 
 @ExtendWith(MockitoExtension.class)
 public class StatsServiceTest {
     @Mock
-    private StatsStorage statsStorage;
+    private StatsEngine statsEngine;
+    @Mock
+    private HitIngestor hitIngestor;
+    @Mock
+    private RollupStorage rollupStorage;
+    @Mock
+    private SketchService sketchService;
+    @Mock
+    private HotWindow hotWindow;
+    @Mock
+    private TopHits topHits;
+    @Mock
+    private TimeSeriesStorage timeSeriesStorage;
+    @Mock
+    private DailyStorage dailyStorage;
+    @Mock
+    private ColdStorage coldStorage;
+    @Spy
+    private QueryProperties queryProperties = new QueryProperties();
+    @Spy
+    private StatsCache statsCache = new StatsCache(new StatsCacheProperties(), new SimpleMeterRegistry());
     @InjectMocks
     private StatsServiceImpl eventService;
     private final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
@@ -48,13 +89,37 @@ public class StatsServiceTest {
                         LocalDateTime.now().minusHours(1).format(formatter)
                 )
         );
-        Mockito.verify(statsStorage).save(any(EndpointHit.class));
+        Mockito.verify(hitIngestor).ingest(Mockito.argThat(hits -> hits.size() == 1));
+    }
+
+    @Test
+    public void shouldSaveEvents() {
+        eventService.saveEvents(
+                List.of(
+                        new EndpointHitDto(
+                                "test-application",
+                                "/test",
+                                "192.168.0.1",
+                                LocalDateTime.now().minusHours(1).format(formatter)
+                        ),
+                        new EndpointHitDto(
+                                "test-application",
+                                "/test",
+                                "192.168.0.2",
+                                LocalDateTime.now().minusHours(1).format(formatter)
+                        )
+                )
+        );
+
+        Mockito.verify(hitIngestor).ingest(Mockito.argThat(hits -> hits.size() == 2));
     }
 
     @Test
     public void shouldGetStats() {
+        queryProperties.setRollups(false);
         Mockito
-                .when(statsStorage.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList()))
+                .when(statsEngine.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(),
+                        Mockito.eq(false)))
                 .thenReturn(List.of(viewStatsDto));
 
         List<ViewStatsDto> viewStatsDtoList = eventService.getStats(
@@ -71,10 +136,84 @@ public class StatsServiceTest {
         assertThat(viewStatsDtoFromService.getHits(), equalTo(viewStatsDto.getHits()));
     }
 
+    @Test
+    public void shouldGetStatsFromRollups() {
+        Mockito
+                .when(rollupStorage.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList()))
+                .thenReturn(List.of(viewStatsDto));
+
+        List<ViewStatsDto> viewStatsDtoList = eventService.getStats(
+                LocalDateTime.of(2020, 10, 10, 0, 0, 0),
+                LocalDateTime.of(2023, 10, 10, 0, 0, 0),
+                List.of("/test"),
+                false
+        );
+
+        assertThat(viewStatsDtoList, equalTo(List.of(viewStatsDto)));
+        Mockito.verify(statsEngine, Mockito.never()).getStats(any(LocalDateTime.class), any(LocalDateTime.class),
+                anyList(), anyBoolean());
+    }
+
+    @Test
+    public void shouldGetStatsFromSelfContainedEngineWithoutRollups() {
+        Mockito.when(statsEngine.isSelfContained()).thenReturn(true);
+        Mockito
+                .when(statsEngine.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(),
+                        Mockito.eq(false)))
+                .thenReturn(List.of(viewStatsDto));
+
+        List<ViewStatsDto> viewStatsDtoList = eventService.getStats(
+                LocalDateTime.of(2020, 10, 10, 0, 0, 0),
+                LocalDateTime.of(2023, 10, 10, 0, 0, 0),
+                List.of("/test"),
+                false
+        );
+
+        assertThat(viewStatsDtoList, equalTo(List.of(viewStatsDto)));
+        Mockito.verifyNoInteractions(rollupStorage);
+    }
+
+    @Test
+    public void shouldGetRecentStatsFromHotWindow() {
+        Mockito
+                .when(hotWindow.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
+                .thenReturn(Optional.of(List.of(viewStatsDto)));
+
+        List<ViewStatsDto> viewStatsDtoList = eventService.getStats(
+                LocalDateTime.of(2020, 10, 10, 0, 0, 0),
+                LocalDateTime.of(2023, 10, 10, 0, 0, 0),
+                List.of("/test"),
+                true
+        );
+
+        assertThat(viewStatsDtoList, equalTo(List.of(viewStatsDto)));
+        Mockito.verifyNoInteractions(statsEngine, rollupStorage);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldStreamStatsFromRollupsOrRawTable() {
+        Mockito
+                .when(hotWindow.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(), anyBoolean()))
+                .thenReturn(Optional.empty());
+        List<ViewStatsDto> streamed = new ArrayList<>();
+
+        eventService.streamStats(LocalDateTime.of(2020, 10, 10, 0, 0, 0), LocalDateTime.of(2023, 10, 10, 0, 0, 0),
+                List.of("/test"), false, streamed::add);
+        eventService.streamStats(LocalDateTime.of(2020, 10, 10, 0, 0, 0), LocalDateTime.of(2023, 10, 10, 0, 0, 0),
+                List.of("/test"), true, streamed::add);
+
+        Mockito.verify(rollupStorage).streamStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(),
+                any(Consumer.class));
+        Mockito.verify(statsEngine).streamStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(),
+                Mockito.eq(true), any(Consumer.class));
+    }
+
     @Test
     public void shouldGetStatsWithUniqueIps() {
         Mockito
-                .when(statsStorage.getStatsWithUniqueIps(any(LocalDateTime.class), any(LocalDateTime.class), anyList()))
+                .when(statsEngine.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(),
+                        Mockito.eq(true)))
                 .thenReturn(List.of(viewStatsDto));
 
         List<ViewStatsDto> viewStatsDtoList = eventService.getStats(
@@ -91,10 +230,28 @@ public class StatsServiceTest {
         assertThat(viewStatsDtoFromService.getHits(), equalTo(viewStatsDto.getHits()));
     }
 
+    @Test
+    public void shouldGetApproximateUniqueStatsFromSketches() {
+        Mockito
+                .when(sketchService.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList()))
+                .thenReturn(List.of(viewStatsDto));
+
+        List<ViewStatsDto> viewStatsDtoList = eventService.getApproximateUniqueStats(
+                LocalDateTime.of(2020, 10, 10, 0, 0, 0),
+                LocalDateTime.of(2023, 10, 10, 0, 0, 0),
+                List.of("/test")
+        );
+
+        assertThat(viewStatsDtoList, equalTo(List.of(viewStatsDto)));
+        Mockito.verifyNoInteractions(statsEngine);
+    }
+
     @Test
     public void shouldGetStatsWithUris() {
+        queryProperties.setRollups(false);
         Mockito
-                .when(statsStorage.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList()))
+                .when(statsEngine.getStats(any(LocalDateTime.class), any(LocalDateTime.class), anyList(),
+                        Mockito.eq(false)))
                 .thenReturn(List.of(viewStatsDto));
 
         List<ViewStatsDto> viewStatsDtoList = eventService.getStats(
@@ -114,10 +271,11 @@ public class StatsServiceTest {
     @Test
     public void shouldGetStatsWithUrisAndUniqueIps() {
         Mockito
-                .when(statsStorage.getStatsWithUniqueIps(
+                .when(statsEngine.getStats(
                         any(LocalDateTime.class),
                         any(LocalDateTime.class),
-                        anyList())
+                        anyList(),
+                        Mockito.eq(true))
                 )
                 .thenReturn(List.of(viewStatsDto));
 
@@ -135,6 +293,77 @@ public class StatsServiceTest {
         assertThat(viewStatsDtoFromService.getHits(), equalTo(viewStatsDto.getHits()));
     }
 
+    @Test
+    public void shouldFillGapsInTimeSeries() {
+        LocalDateTime start = LocalDateTime.of(2022, 10, 10, 10, 30, 0);
+        LocalDateTime end = LocalDateTime.of(2022, 10, 10, 13, 5, 0);
+        Mockito
+                .when(timeSeriesStorage.getHits("/test", start, end, RollupGranularity.HOUR))
+                .thenReturn(Map.of(LocalDateTime.of(2022, 10, 10, 11, 0, 0), 4L,
+                        LocalDateTime.of(2022, 10, 10, 13, 0, 0), 1L));
+
+        List<TimeSeriesPointDto> series = eventService.getTimeSeries("/test", start, end, "hour", false);
+
+        assertThat(series, equalTo(List.of(
+                new TimeSeriesPointDto("2022-10-10 10:00:00", 0L),
+                new TimeSeriesPointDto("2022-10-10 11:00:00", 4L),
+                new TimeSeriesPointDto("2022-10-10 12:00:00", 0L),
+                new TimeSeriesPointDto("2022-10-10 13:00:00", 1L)
+        )));
+        Mockito.verify(timeSeriesStorage, Mockito.never()).getUniqueHits(any(), any(), any(), any());
+    }
+
+    @Test
+    public void shouldBuildTimeSeriesFromSelfContainedEngine() {
+        LocalDateTime start = LocalDateTime.of(2022, 10, 10, 10, 30, 0);
+        LocalDateTime end = LocalDateTime.of(2022, 10, 10, 13, 5, 0);
+        Mockito.when(statsEngine.isSelfContained()).thenReturn(true);
+        Mockito
+                .when(statsEngine.getWindowStats(anyList()))
+                .thenAnswer(invocation -> {
+                    List<StatsWindow> windows = invocation.getArgument(0);
+                    assertThat(windows.size(), equalTo(4));
+                    assertThat(windows.get(0).getStart(), equalTo(start));
+                    assertThat(windows.get(1).getStart(), equalTo(LocalDateTime.of(2022, 10, 10, 11, 0, 0)));
+                    assertThat(windows.get(3).getEnd(), equalTo(end));
+                    return List.of(
+                            List.of(new ViewStatsDto("test-application", "/test", 2L),
+                                    new ViewStatsDto("other-application", "/test", 1L)),
+                            List.of(),
+                            List.of(),
+                            List.of(viewStatsDto));
+                });
+
+        List<TimeSeriesPointDto> series = eventService.getTimeSeries("/test", start, end, "hour", false);
+
+        assertThat(series, equalTo(List.of(
+                new TimeSeriesPointDto("2022-10-10 10:00:00", 3L),
+                new TimeSeriesPointDto("2022-10-10 11:00:00", 0L),
+                new TimeSeriesPointDto("2022-10-10 12:00:00", 0L),
+                new TimeSeriesPointDto("2022-10-10 13:00:00", 1L)
+        )));
+        Mockito.verifyNoInteractions(timeSeriesStorage);
+    }
+
+    @Test
+    public void shouldNotGetTooLongTimeSeries() {
+        ValidationException e = Assertions.assertThrows(
+                ValidationException.class,
+                () -> eventService.getTimeSeries("/test", LocalDateTime.of(2022, 10, 1, 0, 0, 0),
+                        LocalDateTime.of(2022, 10, 10, 0, 0, 0), "minute", true)
+        );
+        assertThat(e.getMessage(), equalTo("Временной ряд содержит 12961 точек при максимуме 1500, " +
+                "увеличьте интервал группировки или сократите период"));
+
+        e = Assertions.assertThrows(
+                ValidationException.class,
+                () -> eventService.getTimeSeries("/test", LocalDateTime.of(2022, 10, 1, 0, 0, 0),
+                        LocalDateTime.of(2022, 10, 10, 0, 0, 0), "week", true)
+        );
+        assertThat(e.getMessage(), equalTo("Интервал группировки должен быть одним из minute, hour, day: week"));
+        Mockito.verifyNoInteractions(timeSeriesStorage);
+    }
+
     @Test
     public void shouldNotGetStatsWhenStartIsAfterEnd() {
         DateTimeException e = Assertions.assertThrows(
@@ -0,0 +1,119 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.EndpointHitDto;
+import ru.practicum.ewm.dto.ViewStatsDto;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StatsWireCodecTest {
+    @Test
+    public void shouldRoundTripHits() {
+        List<WireHitDto> hits = List.of(
+                new WireHitDto("ewm-main-service", "/events/1", "192.168.0.1", 1_700_000_000_000L, "key-1"),
+                new WireHitDto("ewm-main-service", "/events/1", "2001:db8::1", 1_699_999_999_000L, null),
+                new WireHitDto("другой-сервис", "/события/2", "10.0.0.1", -86_400_000L, "key-1"),
+                new WireHitDto("ewm-main-service", "/events/3", "10.0.0.1", Long.MAX_VALUE, null)
+        );
+
+        assertThat(StatsWireCodec.decodeHits(StatsWireCodec.encodeHits(hits)), equalTo(hits));
+    }
+
+    @Test
+    public void shouldRoundTripEmptyBatch() {
+        assertThat(StatsWireCodec.decodeHits(StatsWireCodec.encodeHits(List.of())), equalTo(List.of()));
+        assertThat(StatsWireCodec.decodeStats(StatsWireCodec.encodeStats(List.of())), equalTo(List.of()));
+    }
+
+    @Test
+    public void shouldRoundTripStats() {
+        List<ViewStatsDto> stats = List.of(
+                new ViewStatsDto("ewm-main-service", "/events/1", 1_000_000L),
+                new ViewStatsDto("ewm-main-service", "/events/2", 0L)
+        );
+
+        assertThat(StatsWireCodec.decodeStats(StatsWireCodec.encodeStats(stats)), equalTo(stats));
+    }
+
+    @Test
+    public void shouldEncodeRepeatedStringsOnce() {
+        List<WireHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            hits.add(new WireHitDto("ewm-main-service", "/events/" + (i % 10), "10.0.0." + (i % 5),
+                    1_700_000_000_000L + i * 1000L, null));
+        }
+
+        assertThat(StatsWireCodec.encodeHits(hits).length, lessThan(1000 * 7));
+    }
+
+    @Test
+    public void shouldConvertDtoTimestampToEpochMillis() {
+        EndpointHitDto dto = new EndpointHitDto("ewm-main-service", "/events/1", "10.0.0.1", "2023-01-01 12:00:00");
+
+        WireHitDto hit = StatsWireCodec.fromDto(dto);
+
+        assertThat(StatsWireCodec.fromEpochMillis(hit.getTimestamp()), equalTo(LocalDateTime.of(2023, 1, 1, 12, 0)));
+        assertThat(hit.getIdempotencyKey(), nullValue());
+    }
+
+    @Test
+    public void shouldRejectTruncatedFrame() {
+        byte[] frame = StatsWireCodec.encodeHits(
+                List.of(new WireHitDto("ewm-main-service", "/events/1", "10.0.0.1", 0L, null)));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> StatsWireCodec.decodeHits(Arrays.copyOf(frame, frame.length - 1)));
+    }
+
+    @Test
+    public void shouldRejectFrameOfOtherType() {
+        byte[] frame = StatsWireCodec.encodeStats(List.of(new ViewStatsDto("app", "/uri", 1L)));
+
+        assertThrows(IllegalArgumentException.class, () -> StatsWireCodec.decodeHits(frame));
+    }
+
+    @Test
+    public void shouldRejectDanglingStringRef() {
+        byte[] frame = StatsWireCodec.encodeStats(List.of(new ViewStatsDto("app", "/uri", 1L)));
+        frame[frame.length - 2] = 5;
+
+        assertThrows(IllegalArgumentException.class, () -> StatsWireCodec.decodeStats(frame));
+    }
+
+    @Test
+    public void shouldReadConsecutiveFramesFromStream() throws IOException {
+        List<WireHitDto> first = List.of(new WireHitDto("app", "/a", "10.0.0.1", 1L, null));
+        List<WireHitDto> second = List.of(new WireHitDto("app", "/b", "10.0.0.2", 2L, "key"));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write(StatsWireCodec.encodeHits(first));
+        out.write(StatsWireCodec.encodeHits(second));
+        ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+
+        assertThat(StatsWireCodec.decodeHits(StatsWireCodec.readFrame(in)), equalTo(first));
+        assertThat(StatsWireCodec.decodeHits(StatsWireCodec.readFrame(in)), equalTo(second));
+        assertThat(StatsWireCodec.readFrame(in), nullValue());
+    }
+
+    @Test
+    public void shouldRejectStreamEndingMidFrame() {
+        byte[] frame = StatsWireCodec.encodeHits(List.of(new WireHitDto("app", "/a", "10.0.0.1", 1L, null)));
+
+        assertThrows(EOFException.class, () -> StatsWireCodec.readFrame(
+                new ByteArrayInputStream(Arrays.copyOf(frame, frame.length - 3))));
+    }
+}
@@ -0,0 +1,273 @@
+package ru.practicum.ewm.stats.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.wire.StatsWireCodec;
+import ru.practicum.ewm.dto.wire.WireHitDto;
+import ru.practicum.ewm.stats.exception.IngestOverloadException;
+import ru.practicum.ewm.stats.ingest.HitIngestor;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.tcp.TcpIngestListener;
+import ru.practicum.ewm.stats.tcp.TcpIngestProperties;
+
+import javax.validation.Validation;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class TcpIngestListenerTest {
+    private final List<EndpointHit> ingested = new CopyOnWriteArrayList<>();
+    private final AtomicInteger overloads = new AtomicInteger();
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+    private final HitIngestor hitIngestor = hits -> {
+        if (overloads.getAndDecrement() > 0) throw new IngestOverloadException("Буфер событий переполнен");
+        if (hits.get(0).getUri().equals("/events/slow")) {
+            try {
+                slowRelease.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ingested.addAll(hits);
+    };
+    private TcpIngestListener listener;
+
+    @AfterEach
+    public void stop() throws Exception {
+        if (listener != null) listener.stop();
+    }
+
+    @Test
+    public void shouldIngestFramesAndAckEach() throws Exception {
+        start(properties());
+        ByteArrayOutputStream frames = new ByteArrayOutputStream();
+        for (int i = 0; i < 3; i++) {
+            frames.write(StatsWireCodec.encodeHits(List.of(hit(2 * i), hit(2 * i + 1))));
+        }
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(frames.toByteArray());
+
+            assertThat(readAcks(socket.getInputStream(), 3), equalTo(new byte[]{0, 0, 0}));
+        }
+        assertThat(ingested.size(), equalTo(6));
+        for (int i = 0; i < 6; i++) {
+            assertThat(ingested.get(i).getUri(), equalTo("/events/" + i));
+            assertThat(ingested.get(i).getTimestamp(), equalTo(LocalDateTime.of(2023, 1, 1, 12, 0, i)));
+        }
+    }
+
+    @Test
+    public void shouldAssembleFrameSplitAcrossWrites() throws Exception {
+        start(properties());
+        byte[] frame = StatsWireCodec.encodeHits(List.of(hit(0), hit(1), hit(2)));
+
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            for (byte b : frame) {
+                out.write(b);
+                out.flush();
+            }
+
+            assertThat(readAcks(socket.getInputStream(), 1), equalTo(new byte[]{TcpIngestListener.ACCEPTED}));
+        }
+        assertThat(ingested.size(), equalTo(3));
+    }
+
+    @Test
+    public void shouldRejectInvalidFrameAndKeepConnection() throws Exception {
+        start(properties());
+        WireHitDto blankIp = new WireHitDto("ewm-main-service", "/events/1", "", 0L, null);
+        byte[] danglingRef = {8, 1, 0, 1, 0, 0, 0, 0, 0};
+
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            out.write(StatsWireCodec.encodeHits(List.of(blankIp)));
+            out.write(danglingRef);
+            out.write(StatsWireCodec.encodeHits(List.of(hit(1))));
+
+            assertThat(readAcks(socket.getInputStream(), 3), equalTo(new byte[]{
+                    TcpIngestListener.INVALID, TcpIngestListener.INVALID, TcpIngestListener.ACCEPTED}));
+        }
+        assertThat(ingested.size(), equalTo(1));
+        assertThat(ingested.get(0).getUri(), equalTo("/events/1"));
+    }
+
+    @Test
+    public void shouldHoldFramesWhileIngestIsOverloaded() throws Exception {
+        start(properties());
+        overloads.set(5);
+
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            for (int i = 0; i < 4; i++) {
+                out.write(StatsWireCodec.encodeHits(List.of(hit(i))));
+            }
+
+            assertThat(readAcks(socket.getInputStream(), 4), equalTo(new byte[]{0, 0, 0, 0}));
+        }
+        assertThat(ingested.size(), equalTo(4));
+        for (int i = 0; i < 4; i++) {
+            assertThat(ingested.get(i).getUri(), equalTo("/events/" + i));
+        }
+    }
+
+    @Test
+    public void shouldStopReadingWhenAcksAreNotConsumed() throws Exception {
+        TcpIngestProperties properties = properties();
+        properties.setMaxPendingAcks(4);
+        start(properties);
+        byte[] frame = StatsWireCodec.encodeHits(List.of(hit(0)));
+
+        try (Socket socket = connect()) {
+            socket.setReceiveBufferSize(1);
+            OutputStream out = socket.getOutputStream();
+            for (int i = 0; i < 20; i++) {
+                out.write(frame);
+            }
+
+            assertThat(readAcks(socket.getInputStream(), 20).length, equalTo(20));
+        }
+        assertThat(ingested.size(), equalTo(20));
+    }
+
+    @Test
+    public void shouldCloseConnectionOnOversizedFrame() throws Exception {
+        TcpIngestProperties properties = properties();
+        properties.setMaxFrameBytes(64);
+        start(properties);
+        List<WireHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            hits.add(hit(i));
+        }
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(StatsWireCodec.encodeHits(hits));
+
+            assertClosed(socket);
+        }
+        assertThat(ingested.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldCloseConnectionOnFrameWithTooManyHits() throws Exception {
+        TcpIngestProperties properties = properties();
+        properties.setMaxFrameHits(5);
+        start(properties);
+        List<WireHitDto> hits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            hits.add(hit(i));
+        }
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(StatsWireCodec.encodeHits(hits));
+
+            assertClosed(socket);
+        }
+        assertThat(ingested.size(), equalTo(0));
+    }
+
+    @Test
+    public void shouldServeOtherConnectionsWhileIngestIsSlow() throws Exception {
+        TcpIngestProperties properties = properties();
+        properties.setThreads(1);
+        start(properties);
+        WireHitDto slow = new WireHitDto("ewm-main-service", "/events/slow", "10.0.0.1",
+                StatsWireCodec.toEpochMillis(LocalDateTime.of(2023, 1, 1, 12, 0, 0)), null);
+
+        try (Socket blocked = connect(); Socket other = connect()) {
+            blocked.getOutputStream().write(StatsWireCodec.encodeHits(List.of(slow)));
+            other.getOutputStream().write(StatsWireCodec.encodeHits(List.of(hit(1))));
+
+            assertThat(readAcks(other.getInputStream(), 1), equalTo(new byte[]{TcpIngestListener.ACCEPTED}));
+            slowRelease.countDown();
+            assertThat(readAcks(blocked.getInputStream(), 1), equalTo(new byte[]{TcpIngestListener.ACCEPTED}));
+        }
+        assertThat(ingested.size(), equalTo(2));
+        assertThat(ingested.get(0).getUri(), equalTo("/events/1"));
+    }
+
+    @Test
+    public void shouldServeConnectionsOnAllThreads() throws Exception {
+        start(properties());
+        List<Socket> sockets = new ArrayList<>();
+        try {
+            for (int i = 0; i < 4; i++) {
+                Socket socket = connect();
+                sockets.add(socket);
+                socket.getOutputStream().write(StatsWireCodec.encodeHits(List.of(hit(i))));
+            }
+            for (Socket socket : sockets) {
+                assertThat(readAcks(socket.getInputStream(), 1), equalTo(new byte[]{0}));
+            }
+            assertThat(listener.getConnections(), greaterThan(3));
+        } finally {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+        assertThat(ingested.size(), equalTo(4));
+    }
+
+    private void start(TcpIngestProperties properties) throws IOException {
+        listener = new TcpIngestListener(hitIngestor, properties,
+                Validation.buildDefaultValidatorFactory().getValidator(), new SimpleMeterRegistry());
+        listener.start();
+    }
+
+    private TcpIngestProperties properties() {
+        TcpIngestProperties properties = new TcpIngestProperties();
+        properties.setHost("127.0.0.1");
+        properties.setPort(0);
+        properties.setThreads(2);
+        properties.setRetryIntervalMs(10);
+        return properties;
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", listener.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static byte[] readAcks(InputStream in, int count) throws IOException {
+        byte[] acks = new byte[count];
+        int read = 0;
+        while (read < count) {
+            int n = in.read(acks, read, count - read);
+            if (n < 0) return Arrays.copyOf(acks, read);
+            read += n;
+        }
+        return acks;
+    }
+
+    private static void assertClosed(Socket socket) throws IOException {
+        try {
+            assertThat(socket.getInputStream().read(), equalTo(-1));
+        } catch (SocketException e) {
+            assertThat(e.getMessage(), containsString("reset"));
+        }
+    }
+
+    private static WireHitDto hit(int i) {
+        return new WireHitDto("ewm-main-service", "/events/" + i, "10.0.0." + i,
+                StatsWireCodec.toEpochMillis(LocalDateTime.of(2023, 1, 1, 12, 0, i)), null);
+    }
+}
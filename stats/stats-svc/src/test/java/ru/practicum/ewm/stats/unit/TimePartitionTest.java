@@ -0,0 +1,58 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.stats.model.TimePartition;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TimePartitionTest {
+    private final LocalDate today = LocalDate.of(2022, 10, 10);
+
+    @Test
+    public void shouldCreateDailyPartitionsAhead() {
+        List<TimePartition> partitions = TimePartition.ahead(today, 1, 2);
+
+        assertThat(partitions, equalTo(List.of(
+                new TimePartition(today, today.plusDays(1)),
+                new TimePartition(today.plusDays(1), today.plusDays(2)),
+                new TimePartition(today.plusDays(2), today.plusDays(3))
+        )));
+        assertThat(partitions.get(0).tableName("statistics"), equalTo("statistics_p20221010"));
+    }
+
+    @Test
+    public void shouldAlignWidePartitionsToEpoch() {
+        TimePartition partition = TimePartition.containing(today, 7);
+        TimePartition next = TimePartition.containing(today.plusDays(7), 7);
+
+        assertThat(partition.getTo(), equalTo(partition.getFrom().plusDays(7)));
+        assertThat(partition.getFrom().toEpochDay() % 7, equalTo(0L));
+        assertThat(next.getFrom(), equalTo(partition.getTo()));
+    }
+
+    @Test
+    public void shouldCoverDaysOfExistingHits() {
+        List<TimePartition> partitions = TimePartition.covering(today.minusDays(3), today, 2);
+
+        assertThat(partitions.get(0).getFrom().isAfter(today.minusDays(3)), equalTo(false));
+        assertThat(partitions.get(partitions.size() - 1).getTo().isAfter(today), equalTo(true));
+        for (int i = 1; i < partitions.size(); i++) {
+            assertThat(partitions.get(i).getFrom(), equalTo(partitions.get(i - 1).getTo()));
+        }
+        assertThat(TimePartition.covering(today, today, 1), equalTo(List.of(new TimePartition(today,
+                today.plusDays(1)))));
+    }
+
+    @Test
+    public void shouldParseUpperBoundOfPartition() {
+        assertThat(TimePartition.parseUpperBound(
+                        "FOR VALUES FROM ('2022-10-10 00:00:00') TO ('2022-10-11 00:00:00')"),
+                equalTo(LocalDate.of(2022, 10, 11)));
+        assertThat(TimePartition.parseUpperBound("DEFAULT"), nullValue());
+    }
+}
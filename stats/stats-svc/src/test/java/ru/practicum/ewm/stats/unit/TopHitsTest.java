@@ -0,0 +1,62 @@
+package ru.practicum.ewm.stats.unit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import ru.practicum.ewm.dto.TopHitDto;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.sketch.TopHits;
+import ru.practicum.ewm.stats.sketch.TopHitsProperties;
+
+import javax.validation.ValidationException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+public class TopHitsTest {
+    private final TopHits topHits = new TopHits(new TopHitsProperties());
+
+    @Test
+    public void shouldReturnMostViewedUrisInWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        List<EndpointHit> hits = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            hits.add(hit("/events/1", now));
+        }
+        for (int i = 0; i < 3; i++) {
+            hits.add(hit("/events/2", now.minusSeconds(30)));
+        }
+        for (int i = 0; i < 10; i++) {
+            hits.add(hit("/events/3", now.minusMinutes(30)));
+        }
+        hits.add(hit("/events/4", now.minusHours(3)));
+        topHits.record(hits);
+
+        assertThat(topHits.getTop(2, "5m"), equalTo(List.of(
+                new TopHitDto("ewm-main-service", "/events/1", 5L, 0L, true),
+                new TopHitDto("ewm-main-service", "/events/2", 3L, 0L, true)
+        )));
+        assertThat(topHits.getTop(1, null), equalTo(List.of(
+                new TopHitDto("ewm-main-service", "/events/3", 10L, 0L, true)
+        )));
+        assertThat(topHits.getTop(10, "1h").size(), equalTo(3));
+    }
+
+    @Test
+    public void shouldRejectInvalidParameters() {
+        ValidationException e = Assertions.assertThrows(ValidationException.class, () -> topHits.getTop(0, "5m"));
+        assertThat(e.getMessage(), equalTo("Размер выборки k должен быть от 1 до 256"));
+
+        e = Assertions.assertThrows(ValidationException.class, () -> topHits.getTop(10, "2h"));
+        assertThat(e.getMessage(), equalTo("Окно должно быть от PT1M до PT1H"));
+
+        e = Assertions.assertThrows(ValidationException.class, () -> topHits.getTop(10, "soon"));
+        assertThat(e.getMessage(), equalTo("Некорректная длительность окна: soon"));
+    }
+
+    private static EndpointHit hit(String uri, LocalDateTime timestamp) {
+        return new EndpointHit(null, "ewm-main-service", uri, "192.168.0.1", timestamp, null);
+    }
+}
@@ -0,0 +1,76 @@
+package ru.practicum.ewm.stats.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+import ru.practicum.ewm.stats.ingest.HitWriter;
+import ru.practicum.ewm.stats.ingest.IngestProperties;
+import ru.practicum.ewm.stats.model.EndpointHit;
+import ru.practicum.ewm.stats.wal.SegmentLog;
+import ru.practicum.ewm.stats.wal.WalHitIngestor;
+import ru.practicum.ewm.stats.wal.WalPosition;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+
+public class WalHitIngestorTest {
+    private static final int SEGMENT_SIZE = 64 * 1024;
+
+    @TempDir
+    Path directory;
+
+    private final LocalDateTime timestamp = LocalDateTime.of(2022, 10, 10, 12, 0, 0);
+
+    @Test
+    public void shouldReplayKeylessHitsWithSameKeysAfterLostCheckpoint() throws Exception {
+        List<EndpointHit> hits = List.of(
+                new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1", timestamp, null),
+                new EndpointHit(null, "ewm-main-service", "/events/2", "10.0.0.2", timestamp, "client-key"),
+                new EndpointHit(null, "ewm-main-service", "/events/1", "10.0.0.1", timestamp, null)
+        );
+
+        List<String> first = replay(hits);
+        new SegmentLog(directory, SEGMENT_SIZE).checkpoint(new WalPosition(0, 0));
+        List<String> second = replay(List.of());
+
+        assertThat(first.size(), equalTo(3));
+        assertThat(first.get(1), equalTo("client-key"));
+        assertThat(first.get(0).equals(first.get(2)), equalTo(false));
+        assertThat(second, equalTo(first));
+    }
+
+    private List<String> replay(List<EndpointHit> hits) throws IOException, InterruptedException {
+        List<String> keys = new CopyOnWriteArrayList<>();
+        HitWriter hitWriter = Mockito.mock(HitWriter.class);
+        Mockito
+                .doAnswer(invocation -> {
+                    List<EndpointHit> written = invocation.getArgument(0);
+                    keys.addAll(written.stream().map(EndpointHit::getIdempotencyKey).collect(Collectors.toList()));
+                    return written;
+                })
+                .when(hitWriter).write(any());
+        IngestProperties properties = new IngestProperties();
+        properties.getWal().setDirectory(directory.toString());
+        properties.getWal().setSegmentSize(SEGMENT_SIZE);
+        properties.getWal().setReplayIntervalMs(10);
+        WalHitIngestor ingestor = new WalHitIngestor(hitWriter, properties, new SimpleMeterRegistry());
+        ingestor.start();
+        if (!hits.isEmpty()) ingestor.ingest(hits);
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (keys.size() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        ingestor.stop();
+        return keys;
+    }
+}